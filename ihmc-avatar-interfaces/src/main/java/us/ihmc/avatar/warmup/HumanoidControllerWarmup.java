@@ -85,6 +85,7 @@ public abstract class HumanoidControllerWarmup
    private FullHumanoidRobotModel fullRobotModel;
    private HumanoidReferenceFrames referenceFrames;
    private OneDoFJoint[] oneDoFJoints;
+   private InverseDynamicsJoint[] jointsToOptimizeFor;
 
    private HighLevelControlManagerFactory managerFactory;
    private WalkingHighLevelHumanoidController walkingController;
@@ -280,7 +281,7 @@ public abstract class HumanoidControllerWarmup
    private void createControllerCore()
    {
       InverseDynamicsJoint[] jointsToIgnore = DRCControllerThread.createListOfJointsToIgnore(fullRobotModel, robotModel, robotModel.getSensorInformation());
-      InverseDynamicsJoint[] jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel, jointsToIgnore);
+      jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel, jointsToIgnore);
 
       FloatingInverseDynamicsJoint rootJoint = fullRobotModel.getRootJoint();
       ReferenceFrame centerOfMassFrame = referenceFrames.getCenterOfMassFrame();
@@ -516,6 +517,41 @@ public abstract class HumanoidControllerWarmup
       return fullRobotModel;
    }
 
+   /**
+    * @return the command that was submitted to the controller core during the last tick. The
+    *         command and its content are reused by the controller, so copy it before the next tick
+    *         if it needs to be kept.
+    */
+   public ControllerCoreCommand getControllerCoreCommand()
+   {
+      return walkingController.getControllerCoreCommand();
+   }
+
+   public WholeBodyControllerCore getControllerCore()
+   {
+      return controllerCore;
+   }
+
+   public InverseDynamicsJoint[] getJointsToOptimizeFor()
+   {
+      return jointsToOptimizeFor;
+   }
+
+   public List<ContactablePlaneBody> getContactableBodies()
+   {
+      return contactableBodies;
+   }
+
+   public FeedbackControlCommandList createFeedbackControlTemplate()
+   {
+      return managerFactory.createFeedbackControlTemplate();
+   }
+
+   public double getGravityZ()
+   {
+      return gravityZ;
+   }
+
    public YoGraphicsListRegistry getYoGraphicsListRegistry()
    {
       return yoGraphicsListRegistry;
@@ -1,11 +1,13 @@
 package us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.CoMGeneration;
 
+import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.SmoothCapturePointRecursionTable;
 import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.SmoothCapturePointToolbox;
 import us.ihmc.euclid.referenceFrame.FramePoint3D;
 import us.ihmc.euclid.referenceFrame.FrameVector3D;
 import us.ihmc.euclid.referenceFrame.interfaces.FixedFramePoint3DBasics;
 import us.ihmc.euclid.referenceFrame.interfaces.FramePoint3DReadOnly;
 import us.ihmc.euclid.referenceFrame.interfaces.FrameVector3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
 import us.ihmc.robotics.math.trajectories.FrameTrajectory3D;
 import us.ihmc.robotics.math.trajectories.PositionTrajectoryGenerator;
 import us.ihmc.robotics.math.trajectories.SegmentedFrameTrajectory3D;
@@ -71,6 +73,9 @@ public class ReferenceCoMTrajectoryGenerator implements PositionTrajectoryGenera
    private final SmoothCapturePointToolbox icpToolbox = new SmoothCapturePointToolbox();
    private final SmoothCoMIntegrationToolbox comToolbox = new SmoothCoMIntegrationToolbox(icpToolbox);
 
+   private boolean usePrecomputedRecursionTables = false;
+   private final SmoothCapturePointRecursionTable comRecursionTable = new SmoothCapturePointRecursionTable();
+
    public ReferenceCoMTrajectoryGenerator(String namePrefix, YoDouble omega0, YoInteger numberOfFootstepsToConsider,
                                           YoBoolean isInitialTransfer, YoBoolean isDoubleSupport, YoVariableRegistry registry)
    {
@@ -103,6 +108,16 @@ public class ReferenceCoMTrajectoryGenerator implements PositionTrajectoryGenera
       this.numberOfFootstepsRegistered = numberOfFootstepsRegistered;
    }
 
+   /**
+    * When enabled, the recursion coefficients of each segment are computed once when the plan is
+    * initialized, and {@link #compute(double)} evaluates them instead of going through the
+    * {@link SmoothCoMIntegrationToolbox} matrices.
+    */
+   public void setUsePrecomputedRecursionTables(boolean usePrecomputedRecursionTables)
+   {
+      this.usePrecomputedRecursionTables = usePrecomputedRecursionTables;
+   }
+
    public void initializeForTransfer(double initialTime, List<? extends SegmentedFrameTrajectory3D> transferCMPTrajectories,
                                      List<? extends SegmentedFrameTrajectory3D> swingCMPTrajectories, List<? extends FramePoint3DReadOnly> icpDesiredFinalPositions)
    {
@@ -148,6 +163,7 @@ public class ReferenceCoMTrajectoryGenerator implements PositionTrajectoryGenera
       cmpTrajectories.clear();
       totalNumberOfCMPSegments.set(0);
       localTimeInCurrentPhase.set(0.0);
+      comRecursionTable.clear();
    }
 
    public void initializeForSwing(double initialTime, List<? extends SegmentedFrameTrajectory3D> transferCMPTrajectories,
@@ -222,6 +238,14 @@ public class ReferenceCoMTrajectoryGenerator implements PositionTrajectoryGenera
                                                       comDesiredInitialAccelerations, comDesiredFinalAccelerations, cmpTrajectories,
                                                       comPositionDesiredInitialCurrentSegment, comVelocityDesiredInitialCurrentSegment,
                                                       comAccelerationDesiredInitialCurrentSegment, omega0.getDoubleValue());
+
+      if (usePrecomputedRecursionTables)
+         initializeRecursionTable();
+   }
+
+   private void initializeRecursionTable()
+   {
+      comRecursionTable.initialize(omega0.getDoubleValue(), cmpTrajectories, icpDesiredFinalPositions, comDesiredInitialPositions);
    }
 
    @Override
@@ -229,20 +253,58 @@ public class ReferenceCoMTrajectoryGenerator implements PositionTrajectoryGenera
    {
       localTimeInCurrentPhase.set(time - startTimeOfCurrentPhase.getDoubleValue());
 
-      currentSegmentIndex.set(getCurrentSegmentIndex(localTimeInCurrentPhase.getDoubleValue(), cmpTrajectories));
-      FrameTrajectory3D cmpPolynomial3D = cmpTrajectories.get(currentSegmentIndex.getIntegerValue());
-      getICPPositionDesiredFinalFromSegment(icpPositionDesiredFinalCurrentSegment, currentSegmentIndex.getIntegerValue());
-      getPositionDesiredInitialFromSegment(comPositionDesiredInitialCurrentSegment, currentSegmentIndex.getIntegerValue());
-      getPositionDesiredFinalFromSegment(comPositionDesiredFinalCurrentSegment, currentSegmentIndex.getIntegerValue());
-
-      // CoM
-      comToolbox.computeDesiredCenterOfMassPosition(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(), icpPositionDesiredFinalCurrentSegment,
-                                                    comPositionDesiredInitialCurrentSegment, cmpPolynomial3D, comPositionDesiredCurrent);
-      comToolbox.computeDesiredCenterOfMassVelocity(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(), icpPositionDesiredFinalCurrentSegment,
-                                                    comPositionDesiredInitialCurrentSegment, cmpPolynomial3D, comVelocityDesiredCurrent);
-      comToolbox.computeDesiredCenterOfMassAcceleration(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
-                                                        icpPositionDesiredFinalCurrentSegment, comPositionDesiredInitialCurrentSegment, cmpPolynomial3D,
-                                                        comAccelerationDesiredCurrent);
+      if (usePrecomputedRecursionTables)
+      {
+         if (!comRecursionTable.isInitialized())
+            initializeRecursionTable();
+
+         comRecursionTable.compute(localTimeInCurrentPhase.getDoubleValue());
+         currentSegmentIndex.set(comRecursionTable.getCurrentSegmentIndex());
+
+         // CoM
+         comRecursionTable.getCoMQuantity(0, comPositionDesiredCurrent);
+         comRecursionTable.getCoMQuantity(1, comVelocityDesiredCurrent);
+         comRecursionTable.getCoMQuantity(2, comAccelerationDesiredCurrent);
+      }
+      else
+      {
+         currentSegmentIndex.set(getCurrentSegmentIndex(localTimeInCurrentPhase.getDoubleValue(), cmpTrajectories));
+         FrameTrajectory3D cmpPolynomial3D = cmpTrajectories.get(currentSegmentIndex.getIntegerValue());
+         getICPPositionDesiredFinalFromSegment(icpPositionDesiredFinalCurrentSegment, currentSegmentIndex.getIntegerValue());
+         getPositionDesiredInitialFromSegment(comPositionDesiredInitialCurrentSegment, currentSegmentIndex.getIntegerValue());
+         getPositionDesiredFinalFromSegment(comPositionDesiredFinalCurrentSegment, currentSegmentIndex.getIntegerValue());
+
+         // CoM
+         comToolbox.computeDesiredCenterOfMassPosition(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
+                                                       icpPositionDesiredFinalCurrentSegment, comPositionDesiredInitialCurrentSegment, cmpPolynomial3D,
+                                                       comPositionDesiredCurrent);
+         comToolbox.computeDesiredCenterOfMassVelocity(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
+                                                       icpPositionDesiredFinalCurrentSegment, comPositionDesiredInitialCurrentSegment, cmpPolynomial3D,
+                                                       comVelocityDesiredCurrent);
+         comToolbox.computeDesiredCenterOfMassAcceleration(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
+                                                           icpPositionDesiredFinalCurrentSegment, comPositionDesiredInitialCurrentSegment, cmpPolynomial3D,
+                                                           comAccelerationDesiredCurrent);
+      }
+   }
+
+   /**
+    * Computes the CoM position and velocity over a whole preview using the precomputed recursion
+    * tables. This does not modify the current desired values.
+    *
+    * @param times the times at which the CoM is evaluated, expressed as in {@link #compute(double)}
+    *           and sorted in increasing order. Not modified.
+    * @param positionsToPack the desired CoM positions. Can be {@code null}.
+    * @param velocitiesToPack the desired CoM velocities. Can be {@code null}.
+    */
+   public void compute(double[] times, Tuple3DBasics[] positionsToPack, Tuple3DBasics[] velocitiesToPack)
+   {
+      if (cmpTrajectories.isEmpty())
+         return;
+
+      if (!comRecursionTable.isInitialized())
+         initializeRecursionTable();
+
+      comRecursionTable.compute(times, startTimeOfCurrentPhase.getDoubleValue(), null, null, positionsToPack, velocitiesToPack);
    }
 
    private int getCurrentSegmentIndex(double timeInCurrentPhase, List<FrameTrajectory3D> cmpTrajectories)
@@ -10,6 +10,7 @@ import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.referenceFrame.interfaces.FixedFramePoint3DBasics;
 import us.ihmc.euclid.referenceFrame.interfaces.FramePoint3DReadOnly;
 import us.ihmc.euclid.referenceFrame.interfaces.FrameTuple3DBasics;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
 import us.ihmc.robotics.math.trajectories.FrameTrajectory3D;
 import us.ihmc.robotics.math.trajectories.PositionTrajectoryGenerator;
 import us.ihmc.robotics.math.trajectories.SegmentedFrameTrajectory3D;
@@ -78,6 +79,10 @@ public class ReferenceICPTrajectoryGenerator implements PositionTrajectoryGenera
 
    private final SmoothCapturePointAdjustmentToolbox icpAdjustmentToolbox = new SmoothCapturePointAdjustmentToolbox(icpToolbox);
 
+   private boolean usePrecomputedRecursionTables = false;
+   private final SmoothCapturePointRecursionTable icpRecursionTable = new SmoothCapturePointRecursionTable();
+   private final SmoothCapturePointRecursionTable icpFromCoPsRecursionTable = new SmoothCapturePointRecursionTable();
+
    public ReferenceICPTrajectoryGenerator(String namePrefix, YoDouble omega0, YoInteger numberOfFootstepsToConsider,
                                           YoBoolean isInitialTransfer, boolean debug, YoVariableRegistry registry)
    {
@@ -131,11 +136,23 @@ public class ReferenceICPTrajectoryGenerator implements PositionTrajectoryGenera
       this.numberOfFootstepsRegistered = numberOfFootstepsRegistered;
    }
 
+   /**
+    * When enabled, the recursion coefficients of each segment are computed once when the plan is
+    * initialized, and {@link #compute(double)} evaluates them instead of going through the
+    * {@link SmoothCapturePointToolbox} matrices.
+    */
+   public void setUsePrecomputedRecursionTables(boolean usePrecomputedRecursionTables)
+   {
+      this.usePrecomputedRecursionTables = usePrecomputedRecursionTables;
+   }
+
    public void reset()
    {
       cmpTrajectories.clear();
       totalNumberOfCMPSegments.set(0);
       localTimeInCurrentPhase.set(0.0);
+      icpRecursionTable.clear();
+      icpFromCoPsRecursionTable.clear();
 
       icpPhaseEntryCornerPointIndices.resetQuick();
       icpPhaseExitCornerPointIndices.resetQuick();
@@ -144,6 +161,7 @@ public class ReferenceICPTrajectoryGenerator implements PositionTrajectoryGenera
    public void resetCoPs()
    {
       copTrajectories.clear();
+      icpFromCoPsRecursionTable.clear();
    }
 
    public void getICPInitialConditionsForAdjustment(double localTime, List<FramePoint3D> exitCornerPointsFromCoPs, List<FrameTrajectory3D> copPolynomials3D,
@@ -361,11 +379,30 @@ public class ReferenceICPTrajectoryGenerator implements PositionTrajectoryGenera
       icpToolbox.computeDesiredCornerPoints(icpDesiredInitialPositions, icpDesiredFinalPositions, cmpTrajectories, omega0.getDoubleValue());
 
       icpPositionDesiredTerminal.set(icpDesiredFinalPositions.get(cmpTrajectories.size() - 1));
+
+      if (usePrecomputedRecursionTables)
+         initializeRecursionTables();
+   }
+
+   private void initializeRecursionTables()
+   {
+      icpRecursionTable.initialize(omega0.getDoubleValue(), cmpTrajectories, icpDesiredFinalPositions);
+      if (!copTrajectories.isEmpty())
+         icpFromCoPsRecursionTable.initialize(omega0.getDoubleValue(), copTrajectories, icpDesiredFinalPositionsFromCoPs);
    }
 
    private void getICPInitialConditionsForAdjustment(double time, int currentSwingSegment)
    {
-      getICPInitialConditionsForAdjustment(time, icpDesiredFinalPositionsFromCoPs, copTrajectories, currentSwingSegment, omega0.getDoubleValue());
+      if (usePrecomputedRecursionTables && currentSwingSegment >= 0 && icpFromCoPsRecursionTable.isInitialized())
+      {
+         icpFromCoPsRecursionTable.compute(currentSwingSegment, time);
+         for (int i = 0; i < copTrajectories.get(0).getNumberOfCoefficients() / 2; i++)
+            icpFromCoPsRecursionTable.getICPQuantity(i, icpQuantityCalculatedInitialConditionList.get(i));
+      }
+      else
+      {
+         getICPInitialConditionsForAdjustment(time, icpDesiredFinalPositionsFromCoPs, copTrajectories, currentSwingSegment, omega0.getDoubleValue());
+      }
    }
    
    public void setInitialConditionsForAdjustment()
@@ -391,24 +428,61 @@ public class ReferenceICPTrajectoryGenerator implements PositionTrajectoryGenera
       {
          localTimeInCurrentPhase.set(time - startTimeOfCurrentPhase.getDoubleValue());
 
-         currentSegmentIndex.set(getCurrentSegmentIndex(localTimeInCurrentPhase.getDoubleValue(), cmpTrajectories));
-         FrameTrajectory3D cmpPolynomial3D = cmpTrajectories.get(currentSegmentIndex.getIntegerValue());
-         getICPPositionDesiredFinalFromSegment(icpPositionDesiredFinalCurrentSegment, currentSegmentIndex.getIntegerValue());
+         if (usePrecomputedRecursionTables)
+         {
+            if (!icpRecursionTable.isInitialized())
+               initializeRecursionTables();
+
+            icpRecursionTable.compute(localTimeInCurrentPhase.getDoubleValue());
+            currentSegmentIndex.set(icpRecursionTable.getCurrentSegmentIndex());
 
-         // ICP
-         icpToolbox.computeDesiredCapturePointPosition(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(), icpPositionDesiredFinalCurrentSegment,
-                                                       cmpPolynomial3D, icpPositionDesiredCurrent);
-         icpToolbox.computeDesiredCapturePointVelocity(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(), icpPositionDesiredFinalCurrentSegment,
-                                                       cmpPolynomial3D, icpVelocityDesiredCurrent);
-         icpToolbox.computeDesiredCapturePointAcceleration(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
-                                                           icpPositionDesiredFinalCurrentSegment, cmpPolynomial3D, icpAccelerationDesiredCurrent);
+            // ICP
+            icpRecursionTable.getICPQuantity(0, icpPositionDesiredCurrent);
+            icpRecursionTable.getICPQuantity(1, icpVelocityDesiredCurrent);
+            icpRecursionTable.getICPQuantity(2, icpAccelerationDesiredCurrent);
+         }
+         else
+         {
+            currentSegmentIndex.set(getCurrentSegmentIndex(localTimeInCurrentPhase.getDoubleValue(), cmpTrajectories));
+            FrameTrajectory3D cmpPolynomial3D = cmpTrajectories.get(currentSegmentIndex.getIntegerValue());
+            getICPPositionDesiredFinalFromSegment(icpPositionDesiredFinalCurrentSegment, currentSegmentIndex.getIntegerValue());
+
+            // ICP
+            icpToolbox.computeDesiredCapturePointPosition(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
+                                                          icpPositionDesiredFinalCurrentSegment, cmpPolynomial3D, icpPositionDesiredCurrent);
+            icpToolbox.computeDesiredCapturePointVelocity(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
+                                                          icpPositionDesiredFinalCurrentSegment, cmpPolynomial3D, icpVelocityDesiredCurrent);
+            icpToolbox.computeDesiredCapturePointAcceleration(omega0.getDoubleValue(), localTimeInCurrentPhase.getDoubleValue(),
+                                                              icpPositionDesiredFinalCurrentSegment, cmpPolynomial3D, icpAccelerationDesiredCurrent);
+         }
 
          getICPInitialConditionsForAdjustment(localTimeInCurrentPhase.getDoubleValue(), currentSegmentIndex.getIntegerValue()); // TODO: add controller dt for proper continuation
          if (debug)
-            checkICPDynamics(localTimeInCurrentPhase.getDoubleValue(), icpVelocityDesiredCurrent, icpPositionDesiredCurrent, cmpPolynomial3D);
+            checkICPDynamics(localTimeInCurrentPhase.getDoubleValue(), icpVelocityDesiredCurrent, icpPositionDesiredCurrent,
+                             cmpTrajectories.get(currentSegmentIndex.getIntegerValue()));
       }
    }
 
+   /**
+    * Computes the ICP position and velocity over a whole preview using the precomputed recursion
+    * tables. This does not modify the current desired values.
+    *
+    * @param times the times at which the ICP is evaluated, expressed as in {@link #compute(double)}
+    *           and sorted in increasing order. Not modified.
+    * @param positionsToPack the desired ICP positions. Can be {@code null}.
+    * @param velocitiesToPack the desired ICP velocities. Can be {@code null}.
+    */
+   public void compute(double[] times, Tuple3DBasics[] positionsToPack, Tuple3DBasics[] velocitiesToPack)
+   {
+      if (cmpTrajectories.isEmpty())
+         return;
+
+      if (!icpRecursionTable.isInitialized())
+         initializeRecursionTables();
+
+      icpRecursionTable.compute(times, startTimeOfCurrentPhase.getDoubleValue(), positionsToPack, velocitiesToPack, null, null);
+   }
+
    private void checkICPDynamics(double time, FrameVector3D icpVelocityDesiredCurrent, FramePoint3D icpPositionDesiredCurrent,
                                  FrameTrajectory3D cmpPolynomial3D)
    {
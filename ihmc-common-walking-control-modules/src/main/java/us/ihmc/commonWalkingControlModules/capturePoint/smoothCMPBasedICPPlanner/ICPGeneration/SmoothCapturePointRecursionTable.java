@@ -0,0 +1,361 @@
+package us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration;
+
+import java.util.List;
+
+import us.ihmc.euclid.referenceFrame.interfaces.FramePoint3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
+import us.ihmc.robotics.math.trajectories.FrameTrajectory3D;
+
+/**
+ * Precomputed form of the recursions evaluated by {@link SmoothCapturePointToolbox} and
+ * {@code SmoothCoMIntegrationToolbox}.
+ * <p>
+ * For a CMP polynomial p<sub>&phi;</sub> on [t<sub>0,&phi;</sub>, T<sub>&phi;</sub>], the generalized
+ * &alpha;, &beta;, &gamma;, and &delta; matrices reduce to:
+ * <P>
+ * &xi;<sup>(i)</sup>(t) = q<sup>(i)</sup>(t) + &omega;<sub>0</sub><sup>i</sup> *
+ * e<sup>&omega;<sub>0</sub>(t-T<sub>&phi;</sub>)</sup> * (&xi;(T<sub>&phi;</sub>) - q(T<sub>&phi;</sub>))
+ * <P>
+ * x<sup>(i)</sup>(t) = r<sup>(i)</sup>(t) + (-&omega;<sub>0</sub>)<sup>i</sup> *
+ * e<sup>&omega;<sub>0</sub>(t<sub>0,&phi;</sub>-t)</sup> * (x(t<sub>0,&phi;</sub>) - r(t<sub>0,&phi;</sub>)) +
+ * &delta;<sup>(i)</sup>(t) * (&xi;(T<sub>&phi;</sub>) - q(T<sub>&phi;</sub>))
+ * <P>
+ * with q = &Sigma;<sub>j</sub> &omega;<sub>0</sub><sup>-j</sup> p<sup>(j)</sup> and r =
+ * &Sigma;<sub>j even</sub> &omega;<sub>0</sub><sup>-j</sup> p<sup>(j)</sup>. The coefficients of q and
+ * r, and the terminal offsets, are computed once when the plan is initialized and stored in flat
+ * arrays. Evaluating the ICP and CoM and their derivatives at a given time then only requires one
+ * exponential and a few Horner evaluations, without allocating or building any matrix.
+ * </p>
+ */
+public class SmoothCapturePointRecursionTable
+{
+   private static final double SEGMENT_CONTINUITY_EPSILON = 1.0e-5;
+
+   private double omega0 = Double.NaN;
+   private int numberOfSegments = 0;
+   private boolean hasCoMData = false;
+
+   private double[] initialTimes = new double[0];
+   private double[] finalTimes = new double[0];
+   /** e<sup>&omega;<sub>0</sub>(t<sub>0,&phi;</sub>-T<sub>&phi;</sub>)</sup> */
+   private double[] exponentialsOfSegmentDuration = new double[0];
+   private int[] numberOfCoefficients = new int[0];
+   private int coefficientStride = 0;
+   private boolean[] isContiguousWithNextSegment = new boolean[0];
+
+   /** Coefficients of q, indexed as [segment][axis][coefficient]. */
+   private double[] icpCoefficients = new double[0];
+   /** Coefficients of r, indexed as [segment][axis][coefficient]. */
+   private double[] comCoefficients = new double[0];
+   /** &xi;(T<sub>&phi;</sub>) - q(T<sub>&phi;</sub>), indexed as [segment][axis]. */
+   private double[] icpTerminalOffsets = new double[0];
+   /** x(t<sub>0,&phi;</sub>) - r(t<sub>0,&phi;</sub>), indexed as [segment][axis]. */
+   private double[] comInitialOffsets = new double[0];
+
+   private int currentSegmentIndex = -1;
+   private double currentTime = Double.NaN;
+   /** e<sup>&omega;<sub>0</sub>(t-t<sub>0,&phi;</sub>)</sup> */
+   private double currentExponential = Double.NaN;
+
+   public void clear()
+   {
+      numberOfSegments = 0;
+      hasCoMData = false;
+      currentSegmentIndex = -1;
+      currentTime = Double.NaN;
+      currentExponential = Double.NaN;
+   }
+
+   /**
+    * Computes the ICP recursion coefficients for each of the given CMP segments.
+    *
+    * @param omega0 natural frequency of the inverted pendulum.
+    * @param cmpPolynomials3D the CMP segments of the plan.
+    * @param exitICPCornerPoints &xi;(T<sub>&phi;</sub>) for each segment.
+    */
+   public void initialize(double omega0, List<FrameTrajectory3D> cmpPolynomials3D, List<? extends FramePoint3DReadOnly> exitICPCornerPoints)
+   {
+      initialize(omega0, cmpPolynomials3D, exitICPCornerPoints, null);
+   }
+
+   /**
+    * Computes the ICP and CoM recursion coefficients for each of the given CMP segments.
+    *
+    * @param omega0 natural frequency of the inverted pendulum.
+    * @param cmpPolynomials3D the CMP segments of the plan.
+    * @param exitICPCornerPoints &xi;(T<sub>&phi;</sub>) for each segment.
+    * @param entryCoMCornerPoints x(t<sub>0,&phi;</sub>) for each segment. If {@code null}, only the ICP
+    *           coefficients are computed.
+    */
+   public void initialize(double omega0, List<FrameTrajectory3D> cmpPolynomials3D, List<? extends FramePoint3DReadOnly> exitICPCornerPoints,
+                          List<? extends FramePoint3DReadOnly> entryCoMCornerPoints)
+   {
+      clear();
+
+      this.omega0 = omega0;
+      numberOfSegments = cmpPolynomials3D.size();
+      hasCoMData = entryCoMCornerPoints != null;
+
+      int maxNumberOfCoefficients = 0;
+      for (int segment = 0; segment < numberOfSegments; segment++)
+         maxNumberOfCoefficients = Math.max(maxNumberOfCoefficients, cmpPolynomials3D.get(segment).getNumberOfCoefficients());
+      ensureCapacity(numberOfSegments, maxNumberOfCoefficients);
+
+      for (int segment = 0; segment < numberOfSegments; segment++)
+      {
+         FrameTrajectory3D cmpPolynomial3D = cmpPolynomials3D.get(segment);
+
+         double initialTime = cmpPolynomial3D.getInitialTime();
+         double finalTime = cmpPolynomial3D.getFinalTime();
+         initialTimes[segment] = initialTime;
+         finalTimes[segment] = finalTime;
+         exponentialsOfSegmentDuration[segment] = Math.exp(omega0 * (initialTime - finalTime));
+         numberOfCoefficients[segment] = cmpPolynomial3D.getNumberOfCoefficients();
+
+         if (segment > 0)
+            isContiguousWithNextSegment[segment - 1] = Math.abs(finalTimes[segment - 1] - initialTime) < SEGMENT_CONTINUITY_EPSILON;
+
+         int n = numberOfCoefficients[segment];
+
+         for (int axis = 0; axis < 3; axis++)
+         {
+            double[] cmpCoefficients = cmpPolynomial3D.getTrajectory(axis).getCoefficients();
+
+            int offset = coefficientIndex(segment, axis);
+            computeRecursionCoefficients(omega0, cmpCoefficients, n, false, icpCoefficients, offset);
+            icpTerminalOffsets[3 * segment + axis] = exitICPCornerPoints.get(segment).getElement(axis)
+                  - evaluate(icpCoefficients, offset, n, 0, finalTime);
+
+            if (hasCoMData)
+            {
+               computeRecursionCoefficients(omega0, cmpCoefficients, n, true, comCoefficients, offset);
+               comInitialOffsets[3 * segment + axis] = entryCoMCornerPoints.get(segment).getElement(axis)
+                     - evaluate(comCoefficients, offset, n, 0, initialTime);
+            }
+         }
+      }
+
+      if (numberOfSegments > 0)
+         isContiguousWithNextSegment[numberOfSegments - 1] = false;
+   }
+
+   /**
+    * Grows the arrays if needed. This only allocates when the plan gets bigger than any previous one.
+    */
+   private void ensureCapacity(int numberOfSegments, int maxNumberOfCoefficients)
+   {
+      if (initialTimes.length < numberOfSegments)
+      {
+         int capacity = Math.max(numberOfSegments, 2 * initialTimes.length);
+         initialTimes = new double[capacity];
+         finalTimes = new double[capacity];
+         exponentialsOfSegmentDuration = new double[capacity];
+         numberOfCoefficients = new int[capacity];
+         isContiguousWithNextSegment = new boolean[capacity];
+         icpTerminalOffsets = new double[3 * capacity];
+         comInitialOffsets = new double[3 * capacity];
+      }
+
+      coefficientStride = Math.max(coefficientStride, maxNumberOfCoefficients);
+
+      int requiredSize = 3 * initialTimes.length * coefficientStride;
+      if (icpCoefficients.length < requiredSize)
+      {
+         icpCoefficients = new double[requiredSize];
+         comCoefficients = new double[requiredSize];
+      }
+   }
+
+   /**
+    * Computes the coefficients of &Sigma;<sub>j</sub> &omega;<sub>0</sub><sup>-j</sup> p<sup>(j)</sup>,
+    * the sum being restricted to even j when {@code evenDerivativesOnly} is {@code true}.
+    */
+   private static void computeRecursionCoefficients(double omega0, double[] polynomialCoefficients, int numberOfCoefficients, boolean evenDerivativesOnly,
+                                                    double[] recursionCoefficientsToPack, int offset)
+   {
+      int derivativeOrderIncrement = evenDerivativesOnly ? 2 : 1;
+      double omegaInverseIncrement = Math.pow(omega0, -derivativeOrderIncrement);
+
+      for (int k = 0; k < numberOfCoefficients; k++)
+      {
+         double coefficient = 0.0;
+         double omegaInversePower = 1.0;
+
+         for (int j = 0; k + j < numberOfCoefficients; j += derivativeOrderIncrement)
+         {
+            coefficient += omegaInversePower * fallingFactorial(k + j, j) * polynomialCoefficients[k + j];
+            omegaInversePower *= omegaInverseIncrement;
+         }
+
+         recursionCoefficientsToPack[offset + k] = coefficient;
+      }
+   }
+
+   /**
+    * Evaluates the {@code derivativeOrder}-th derivative of the polynomial stored at {@code offset}
+    * using Horner's scheme.
+    */
+   private static double evaluate(double[] coefficients, int offset, int numberOfCoefficients, int derivativeOrder, double time)
+   {
+      double value = 0.0;
+      for (int k = numberOfCoefficients - 1; k >= derivativeOrder; k--)
+         value = value * time + fallingFactorial(k, derivativeOrder) * coefficients[offset + k];
+      return value;
+   }
+
+   /** @return k! / (k - order)! */
+   private static double fallingFactorial(int k, int order)
+   {
+      double value = 1.0;
+      for (int i = k; i > k - order; i--)
+         value *= i;
+      return value;
+   }
+
+   private int coefficientIndex(int segment, int axis)
+   {
+      return (3 * segment + axis) * coefficientStride;
+   }
+
+   /**
+    * Finds the segment to use at the given time. This follows the same rules as the reference
+    * trajectory generators: a segment is only left for the next one if they are contiguous in time.
+    */
+   public int findSegmentIndex(double time)
+   {
+      return findSegmentIndex(time, 0);
+   }
+
+   private int findSegmentIndex(double time, int startSegmentIndex)
+   {
+      int segmentIndex = startSegmentIndex;
+      while (segmentIndex < numberOfSegments - 1 && time > finalTimes[segmentIndex] && isContiguousWithNextSegment[segmentIndex])
+         segmentIndex++;
+      return segmentIndex;
+   }
+
+   /**
+    * Updates the current segment and the exponential term for the given time. The ICP and CoM
+    * quantities can then be obtained via {@link #getICPQuantity(int, Tuple3DBasics)} and
+    * {@link #getCoMQuantity(int, Tuple3DBasics)}.
+    */
+   public void compute(double time)
+   {
+      compute(findSegmentIndex(time), time);
+   }
+
+   /**
+    * Same as {@link #compute(double)}, but evaluating the given segment regardless of its time
+    * interval.
+    */
+   public void compute(int segmentIndex, double time)
+   {
+      if (!isInitialized())
+         throw new RuntimeException("The recursion table has not been initialized.");
+
+      currentSegmentIndex = segmentIndex;
+      currentTime = time;
+      currentExponential = Math.exp(omega0 * (time - initialTimes[segmentIndex]));
+   }
+
+   /**
+    * Packs the {@code derivativeOrder}-th derivative of the ICP at the time given in the last call to
+    * {@link #compute(double)}.
+    */
+   public void getICPQuantity(int derivativeOrder, Tuple3DBasics icpQuantityToPack)
+   {
+      int segment = currentSegmentIndex;
+      int n = numberOfCoefficients[segment];
+
+      double gamma = Math.pow(omega0, derivativeOrder) * currentExponential * exponentialsOfSegmentDuration[segment];
+
+      for (int axis = 0; axis < 3; axis++)
+      {
+         double value = evaluate(icpCoefficients, coefficientIndex(segment, axis), n, derivativeOrder, currentTime);
+         icpQuantityToPack.setElement(axis, value + gamma * icpTerminalOffsets[3 * segment + axis]);
+      }
+   }
+
+   /**
+    * Packs the {@code derivativeOrder}-th derivative of the CoM at the time given in the last call to
+    * {@link #compute(double)}.
+    */
+   public void getCoMQuantity(int derivativeOrder, Tuple3DBasics comQuantityToPack)
+   {
+      if (!hasCoMData)
+         throw new RuntimeException("The recursion table has not been initialized with CoM corner points.");
+
+      int segment = currentSegmentIndex;
+      int n = numberOfCoefficients[segment];
+
+      double omegaPower = Math.pow(omega0, derivativeOrder);
+      double minusOmegaPower = (derivativeOrder % 2 == 0) ? omegaPower : -omegaPower;
+      double inverseExponential = 1.0 / currentExponential;
+
+      double gamma = minusOmegaPower * inverseExponential;
+      double delta = 0.5 * exponentialsOfSegmentDuration[segment] * (omegaPower * currentExponential - minusOmegaPower * inverseExponential);
+
+      for (int axis = 0; axis < 3; axis++)
+      {
+         double value = evaluate(comCoefficients, coefficientIndex(segment, axis), n, derivativeOrder, currentTime);
+         value += gamma * comInitialOffsets[3 * segment + axis];
+         value += delta * icpTerminalOffsets[3 * segment + axis];
+         comQuantityToPack.setElement(axis, value);
+      }
+   }
+
+   /**
+    * Evaluates the ICP and CoM over a whole preview in one pass. The times are expected to be sorted
+    * in increasing order, such that the segment lookup can resume from the previous one. Any of the
+    * output arrays can be {@code null}, in which case the corresponding quantity is not computed.
+    *
+    * @param times the times at which to evaluate the plan. Not modified.
+    * @param timeOffset subtracted from each time to get the time used to evaluate the segments.
+    */
+   public void compute(double[] times, double timeOffset, Tuple3DBasics[] icpPositionsToPack, Tuple3DBasics[] icpVelocitiesToPack,
+                       Tuple3DBasics[] comPositionsToPack, Tuple3DBasics[] comVelocitiesToPack)
+   {
+      int segmentIndex = 0;
+      double previousTime = Double.NEGATIVE_INFINITY;
+
+      for (int i = 0; i < times.length; i++)
+      {
+         double time = times[i] - timeOffset;
+         if (time < previousTime)
+            segmentIndex = 0;
+         segmentIndex = findSegmentIndex(time, segmentIndex);
+         previousTime = time;
+
+         compute(segmentIndex, time);
+
+         if (icpPositionsToPack != null)
+            getICPQuantity(0, icpPositionsToPack[i]);
+         if (icpVelocitiesToPack != null)
+            getICPQuantity(1, icpVelocitiesToPack[i]);
+         if (comPositionsToPack != null)
+            getCoMQuantity(0, comPositionsToPack[i]);
+         if (comVelocitiesToPack != null)
+            getCoMQuantity(1, comVelocitiesToPack[i]);
+      }
+   }
+
+   public boolean isInitialized()
+   {
+      return numberOfSegments > 0;
+   }
+
+   public boolean hasCoMData()
+   {
+      return hasCoMData;
+   }
+
+   public int getNumberOfSegments()
+   {
+      return numberOfSegments;
+   }
+
+   public int getCurrentSegmentIndex()
+   {
+      return currentSegmentIndex;
+   }
+}
@@ -18,6 +18,7 @@ import us.ihmc.commons.MathTools;
 import us.ihmc.euclid.referenceFrame.*;
 import us.ihmc.euclid.referenceFrame.interfaces.FramePoint3DReadOnly;
 import us.ihmc.euclid.referenceFrame.interfaces.FrameVector3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
 import us.ihmc.graphicsDescription.appearance.YoAppearance;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicPosition;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicPosition.GraphicType;
@@ -88,6 +89,12 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
 
    private final YoBoolean areCoMDynamicsSatisfied;
 
+   /**
+    * When {@code true}, the ICP and CoM recursions are precomputed for each segment when the plan is
+    * updated, such that {@link #compute(double)} only has to evaluate them.
+    */
+   private final YoBoolean usePrecomputedRecursionTables;
+
    public SmoothCMPBasedICPPlanner(FullRobotModel fullRobotModel, BipedSupportPolygons bipedSupportPolygons,
                                    SideDependentList<? extends ContactablePlaneBody> contactableFeet, int maxNumberOfFootstepsToConsider,
                                    YoVariableRegistry parentRegistry, YoGraphicsListRegistry yoGraphicsListRegistry, double gravityZ)
@@ -141,6 +148,9 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
       areCoMDynamicsSatisfied = new YoBoolean("areCoMDynamicsSatisfied", registry);
       areCoMDynamicsSatisfied.set(false);
 
+      usePrecomputedRecursionTables = new YoBoolean(namePrefix + "UsePrecomputedRecursionTables", registry);
+      usePrecomputedRecursionTables.set(false);
+
       parentRegistry.addChild(registry);
 
       if (yoGraphicsListRegistry != null)
@@ -164,6 +174,7 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
          //FIXME have the angular momentum parameters be passed into or as part of the ICP Planner parameters to the trajectory generator
          angularMomentumGenerator.initializeParameters(smoothCMPPlannerParameters, robotMass, gravityZ);
          defaultSwingDurationShiftFraction.set(smoothCMPPlannerParameters.getSwingDurationShiftFraction());
+         usePrecomputedRecursionTables.set(smoothCMPPlannerParameters.usePrecomputedRecursionTables());
       }
       else
       {
@@ -348,6 +359,7 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
    protected void updateTransferPlan(boolean maintainContinuity)
    {
       clearPlanWithoutClearingPlannedFootsteps();
+      updateRecursionTablesMode();
       RobotSide transferToSide = this.transferToSide.getEnumValue();
       if (transferToSide == null)
          transferToSide = RobotSide.LEFT;
@@ -399,6 +411,7 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
    protected void updateSingleSupportPlan(boolean maintainContinuity)
    {
       clearPlanWithoutClearingPlannedFootsteps();
+      updateRecursionTablesMode();
       RobotSide supportSide = this.supportSide.getEnumValue();
 
       // TODO set up the CoP Generator to be able to only update the current Support Feet CMPs
@@ -461,6 +474,7 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
 
          double timeInCurrentState = MathTools.clamp(this.timeInCurrentState.getDoubleValue(), 0.0, referenceCoPGenerator.getCurrentStateFinalTime());
 
+         updateRecursionTablesMode();
          referenceICPGenerator.compute(timeInCurrentState);
          referenceCoMGenerator.compute(timeInCurrentState);
          referenceCoPGenerator.update(timeInCurrentState);
@@ -596,6 +610,38 @@ public class SmoothCMPBasedICPPlanner extends AbstractICPPlanner
       return referenceCoPGenerator.isOnExitCoP();
    }
 
+   private void updateRecursionTablesMode()
+   {
+      referenceICPGenerator.setUsePrecomputedRecursionTables(usePrecomputedRecursionTables.getBooleanValue());
+      referenceCoMGenerator.setUsePrecomputedRecursionTables(usePrecomputedRecursionTables.getBooleanValue());
+   }
+
+   public void setUsePrecomputedRecursionTables(boolean usePrecomputedRecursionTables)
+   {
+      this.usePrecomputedRecursionTables.set(usePrecomputedRecursionTables);
+   }
+
+   /**
+    * Computes the desired ICP and CoM over the whole preview in one pass, using the precomputed
+    * recursion tables of the current plan. The current desired values are not modified.
+    *
+    * @param timesInCurrentState the preview times, expressed with respect to the beginning of the
+    *           current state and sorted in increasing order. Not modified.
+    * @param icpPositionsToPack the desired ICP positions. Can be {@code null}.
+    * @param icpVelocitiesToPack the desired ICP velocities. Can be {@code null}.
+    * @param comPositionsToPack the desired CoM positions. Can be {@code null}.
+    * @param comVelocitiesToPack the desired CoM velocities. Can be {@code null}.
+    */
+   public void computePreview(double[] timesInCurrentState, Tuple3DBasics[] icpPositionsToPack, Tuple3DBasics[] icpVelocitiesToPack,
+                              Tuple3DBasics[] comPositionsToPack, Tuple3DBasics[] comVelocitiesToPack)
+   {
+      if (!referenceCoPGenerator.getIsPlanAvailable())
+         return;
+
+      referenceICPGenerator.compute(timesInCurrentState, icpPositionsToPack, icpVelocitiesToPack);
+      referenceCoMGenerator.compute(timesInCurrentState, comPositionsToPack, comVelocitiesToPack);
+   }
+
    /** {@inheritDoc} */
    @Override
    public int getNumberOfFootstepsToConsider()
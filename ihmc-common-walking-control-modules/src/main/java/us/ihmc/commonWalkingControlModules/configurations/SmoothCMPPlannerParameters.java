@@ -230,4 +230,14 @@ public class SmoothCMPPlannerParameters extends AbstractICPPlannerParameters
    {
       return new AngularMomentumEstimationParameters();
    }
+
+   /**
+    * Whether the ICP and CoM reference trajectories are computed from recursion tables that are
+    * precomputed once per plan, instead of being recursed backward from the final ICP at every
+    * control tick.
+    */
+   public boolean usePrecomputedRecursionTables()
+   {
+      return false;
+   }
 }
@@ -339,6 +339,24 @@ public interface ControllerCoreOptimizationSettings
       return false;
    }
 
+   /**
+    * Sets whether the cost function of the inverse dynamics QP is assembled only from the non-zero
+    * columns of the task Jacobians instead of using dense matrix products.
+    */
+   default boolean useSparseAssemblyInSolver()
+   {
+      return false;
+   }
+
+   /**
+    * Sets whether the quadratic cost of the inverse dynamics QP is inverted with a Cholesky
+    * decomposition instead of an LU decomposition.
+    */
+   default boolean useCholeskyFactorizationInSolver()
+   {
+      return false;
+   }
+
    /**
     * Sets the maximum number of iterations allowed in the solver before throwing a no convergence exception.
     */
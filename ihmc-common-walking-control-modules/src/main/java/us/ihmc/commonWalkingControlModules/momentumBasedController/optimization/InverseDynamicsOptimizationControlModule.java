@@ -141,6 +141,8 @@ public class InverseDynamicsOptimizationControlModule
       qpSolver.setJerkRegularizationWeight(optimizationSettings.getJointJerkWeight());
       qpSolver.setJointTorqueWeight(optimizationSettings.getJointTorqueWeight());
       qpSolver.setUseWarmStart(optimizationSettings.useWarmStartInSolver());
+      qpSolver.setUseSparseAssembly(optimizationSettings.useSparseAssemblyInSolver());
+      qpSolver.setUseCholeskyFactorization(optimizationSettings.useCholeskyFactorizationInSolver());
       qpSolver.setMaxNumberOfIterations(optimizationSettings.getMaxNumberOfSolverIterations());
 
       useWarmStart.set(optimizationSettings.useWarmStartInSolver());
@@ -2,6 +2,7 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
 
 import us.ihmc.convexOptimization.quadraticProgram.ActiveSetQPSolverWithInactiveVariablesInterface;
 import us.ihmc.robotics.linearAlgebra.DiagonalMatrixTools;
@@ -21,11 +22,16 @@ public class InverseDynamicsQPSolver
    private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
 
    private final ExecutionTimer qpSolverTimer = new ExecutionTimer("qpSolverTimer", 0.5, registry);
+   private final ExecutionTimer qpAssemblyTimer = new ExecutionTimer("qpAssemblyTimer", 0.5, registry);
+   private final YoDouble qpFactorizationTime = new YoDouble("qpFactorizationTime", registry);
+   private final YoDouble qpIterationsTime = new YoDouble("qpIterationsTime", registry);
+   private final YoBoolean qpFactorizationReused = new YoBoolean("qpFactorizationReused", registry);
 
    private final YoFrameVector3D wrenchEquilibriumForceError;
    private final YoFrameVector3D wrenchEquilibriumTorqueError;
 
    private final YoBoolean addRateRegularization = new YoBoolean("AddRateRegularization", registry);
+   private final YoBoolean useSparseAssembly = new YoBoolean("useSparseAssembly", registry);
    private final ActiveSetQPSolverWithInactiveVariablesInterface qpSolver;
 
    private final DenseMatrix64F solverInput_H;
@@ -47,6 +53,9 @@ public class InverseDynamicsQPSolver
 
    private final DenseMatrix64F solverInput_activeIndices;
 
+   private final DenseMatrix64F solverInput_H_lastSolve;
+   private final DenseMatrix64F solverInput_activeIndices_lastSolve;
+
    private final DenseMatrix64F solverOutput;
    private final DenseMatrix64F solverOutput_jointAccelerations;
    private final DenseMatrix64F solverOutput_rhos;
@@ -64,6 +73,7 @@ public class InverseDynamicsQPSolver
    private final DenseMatrix64F tempJtW;
    private final DenseMatrix64F tempRhoTask_f;
    private final DenseMatrix64F tempTorqueTask_H;
+   private final int[] tempNonZeroColumns;
 
    private final int numberOfDoFs;
    private final int rhoSize;
@@ -112,6 +122,9 @@ public class InverseDynamicsQPSolver
       solverInput_activeIndices = new DenseMatrix64F(problemSize, 1);
       CommonOps.fill(solverInput_activeIndices, 1.0);
 
+      solverInput_H_lastSolve = new DenseMatrix64F(0, 0);
+      solverInput_activeIndices_lastSolve = new DenseMatrix64F(0, 0);
+
       solverOutput = new DenseMatrix64F(problemSize, 1);
       solverOutput_jointAccelerations = new DenseMatrix64F(numberOfDoFs, 1);
       solverOutput_rhos = new DenseMatrix64F(rhoSize, 1);
@@ -119,6 +132,7 @@ public class InverseDynamicsQPSolver
       tempJtW = new DenseMatrix64F(problemSize, problemSize);
       tempRhoTask_f = new DenseMatrix64F(rhoSize, 1);
       tempTorqueTask_H = new DenseMatrix64F(numberOfDoFs, problemSize);
+      tempNonZeroColumns = new int[problemSize];
 
       jointAccelerationRegularization.set(0.005);
       jointJerkRegularization.set(0.1);
@@ -170,6 +184,21 @@ public class InverseDynamicsQPSolver
       this.useWarmStart = useWarmStart;
    }
 
+   /**
+    * Sets whether the cost function is assembled only from the columns of the task Jacobians that
+    * are not zero. Most tasks only involve the joints of a single kinematic chain and the floating
+    * joint, which makes J<sup>T</sup> W J mostly zero.
+    */
+   public void setUseSparseAssembly(boolean useSparseAssembly)
+   {
+      this.useSparseAssembly.set(useSparseAssembly);
+   }
+
+   public void setUseCholeskyFactorization(boolean useCholeskyFactorization)
+   {
+      qpSolver.setUseCholeskyFactorization(useCholeskyFactorization);
+   }
+
    public void setMaxNumberOfIterations(int maxNumberOfIterations)
    {
       this.maxNumberOfIterations = maxNumberOfIterations;
@@ -189,6 +218,8 @@ public class InverseDynamicsQPSolver
 
    public void reset()
    {
+      qpAssemblyTimer.startMeasurement();
+
       for (int i = 0; i < numberOfDoFs; i++)
          regularizationMatrix.set(i, i, jointAccelerationRegularization.getDoubleValue());
 
@@ -377,6 +408,12 @@ public class InverseDynamicsQPSolver
          throw new RuntimeException("This task does not fit.");
       }
 
+      if (useSparseAssembly.getBooleanValue())
+      {
+         addSparseTaskInternal(taskJacobian, taskObjective, taskWeight, 1.0, offset);
+         return;
+      }
+
       // J^T W
       tempJtW.reshape(variables, taskSize);
       DiagonalMatrixTools.postMultTransA(taskJacobian, taskWeight, tempJtW);
@@ -401,6 +438,12 @@ public class InverseDynamicsQPSolver
          throw new RuntimeException("This task does not fit.");
       }
 
+      if (useSparseAssembly.getBooleanValue())
+      {
+         addSparseTaskInternal(taskJacobian, taskObjective, null, taskWeight, offset);
+         return;
+      }
+
       // J^T W
       tempJtW.reshape(variables, taskSize);
       CommonOps.transpose(taskJacobian, tempJtW);
@@ -416,6 +459,76 @@ public class InverseDynamicsQPSolver
       MatrixTools.addMatrixBlock(solverInput_f, offset, 0, tempTask_f, 0, 0, variables, 1, -taskWeight);
    }
 
+   /**
+    * Adds the objective to the cost function only considering the non-zero columns of the Jacobian:
+    * <p>
+    * H += s * J<sup>T</sup> W J<br>
+    * f += - s * J<sup>T</sup> W b
+    * </p>
+    *
+    * @param taskWeight the diagonal weight matrix W, or {@code null} for identity.
+    * @param scale the scalar s.
+    */
+   private void addSparseTaskInternal(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight, double scale, int offset)
+   {
+      int taskSize = taskJacobian.getNumRows();
+      int numberOfNonZeroColumns = findNonZeroColumns(taskJacobian, tempNonZeroColumns);
+
+      for (int i = 0; i < numberOfNonZeroColumns; i++)
+      {
+         int col_i = tempNonZeroColumns[i];
+         double f_i = 0.0;
+
+         for (int row = 0; row < taskSize; row++)
+         {
+            double weight = taskWeight == null ? scale : scale * taskWeight.unsafe_get(row, row);
+            f_i += taskJacobian.unsafe_get(row, col_i) * weight * taskObjective.unsafe_get(row, 0);
+         }
+
+         solverInput_f.add(offset + col_i, 0, -f_i);
+
+         for (int j = i; j < numberOfNonZeroColumns; j++)
+         {
+            int col_j = tempNonZeroColumns[j];
+            double H_ij = 0.0;
+
+            for (int row = 0; row < taskSize; row++)
+            {
+               double weight = taskWeight == null ? scale : scale * taskWeight.unsafe_get(row, row);
+               H_ij += taskJacobian.unsafe_get(row, col_i) * weight * taskJacobian.unsafe_get(row, col_j);
+            }
+
+            solverInput_H.add(offset + col_i, offset + col_j, H_ij);
+            if (j != i)
+               solverInput_H.add(offset + col_j, offset + col_i, H_ij);
+         }
+      }
+   }
+
+   /**
+    * Packs the indices of the columns of the given matrix that have at least one non-zero element.
+    *
+    * @return the number of non-zero columns.
+    */
+   private static int findNonZeroColumns(DenseMatrix64F matrix, int[] nonZeroColumnsToPack)
+   {
+      int numberOfNonZeroColumns = 0;
+
+      for (int col = 0; col < matrix.getNumCols(); col++)
+      {
+         for (int row = 0; row < matrix.getNumRows(); row++)
+         {
+            if (matrix.unsafe_get(row, col) != 0.0)
+            {
+               nonZeroColumnsToPack[numberOfNonZeroColumns++] = col;
+               break;
+            }
+         }
+      }
+
+      return numberOfNonZeroColumns;
+   }
+
    public void addMotionEqualityConstraint(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective)
    {
       if (taskJacobian.getNumCols() != numberOfDoFs)
@@ -504,6 +617,12 @@ public class InverseDynamicsQPSolver
 
    public void addTorqueMinimizationObjective(DenseMatrix64F torqueJacobian, DenseMatrix64F torqueObjective)
    {
+      if (useSparseAssembly.getBooleanValue())
+      {
+         addSparseTaskInternal(torqueJacobian, torqueObjective, null, jointTorqueWeight.getDoubleValue(), 0);
+         return;
+      }
+
       int taskSize = torqueObjective.getNumRows();
       int controlSize = torqueJacobian.getNumCols();
 
@@ -571,14 +690,22 @@ public class InverseDynamicsQPSolver
          CommonOps.insert(rhoJacobian, tempWrenchConstraint_J, 0, numberOfDoFs);
 
          double weight = 150.0;
-         tempWrenchConstraint_H.reshape(problemSize, problemSize);
-         CommonOps.multInner(tempWrenchConstraint_J, tempWrenchConstraint_H);
-         CommonOps.scale(weight, tempWrenchConstraint_H);
-         CommonOps.addEquals(solverInput_H, tempWrenchConstraint_H);
-
-         tempWrenchConstraint_f.reshape(problemSize, 1);
-         CommonOps.multTransA(weight, tempWrenchConstraint_J, tempWrenchConstraint_RHS, tempWrenchConstraint_f);
-         CommonOps.subtractEquals(solverInput_f, tempWrenchConstraint_f);
+
+         if (useSparseAssembly.getBooleanValue())
+         {
+            addSparseTaskInternal(tempWrenchConstraint_J, tempWrenchConstraint_RHS, null, weight, 0);
+         }
+         else
+         {
+            tempWrenchConstraint_H.reshape(problemSize, problemSize);
+            CommonOps.multInner(tempWrenchConstraint_J, tempWrenchConstraint_H);
+            CommonOps.scale(weight, tempWrenchConstraint_H);
+            CommonOps.addEquals(solverInput_H, tempWrenchConstraint_H);
+
+            tempWrenchConstraint_f.reshape(problemSize, 1);
+            CommonOps.multTransA(weight, tempWrenchConstraint_J, tempWrenchConstraint_RHS, tempWrenchConstraint_f);
+            CommonOps.subtractEquals(solverInput_f, tempWrenchConstraint_f);
+         }
       }
       else
       {
@@ -611,6 +738,8 @@ public class InverseDynamicsQPSolver
 
       addRegularization();
 
+      qpAssemblyTimer.stopMeasurement();
+
       numberOfEqualityConstraints.set(solverInput_Aeq.getNumRows());
       numberOfInequalityConstraints.set(solverInput_Ain.getNumRows());
       numberOfConstraints.set(solverInput_Aeq.getNumRows() + solverInput_Ain.getNumRows());
@@ -632,9 +761,20 @@ public class InverseDynamicsQPSolver
       qpSolver.setLinearInequalityConstraints(solverInput_Ain, solverInput_bin);
       qpSolver.setLinearEqualityConstraints(solverInput_Aeq, solverInput_beq);
 
+      // The cost only stays the same when the task set, weights, and Jacobians are all unchanged since the last tick,
+      // comparing the assembled matrices is cheap with respect to the factorization it may save.
+      if (MatrixFeatures.isEquals(solverInput_H, solverInput_H_lastSolve)
+            && MatrixFeatures.isEquals(solverInput_activeIndices, solverInput_activeIndices_lastSolve))
+         qpSolver.notifyQuadraticCostUnchanged();
+      solverInput_H_lastSolve.set(solverInput_H);
+      solverInput_activeIndices_lastSolve.set(solverInput_activeIndices);
+
       numberOfIterations.set(qpSolver.solve(solverOutput));
 
       qpSolverTimer.stopMeasurement();
+      qpFactorizationTime.set(qpSolver.getLastFactorizationTime());
+      qpIterationsTime.set(qpSolver.getLastIterationsTime());
+      qpFactorizationReused.set(qpSolver.wasLastFactorizationReused());
 
       hasWrenchesEquilibriumConstraintBeenSetup = false;
 
@@ -32,6 +32,8 @@ public class MotionQPInputCalculator
 
    private final PoseReferenceFrame controlFrame = new PoseReferenceFrame("controlFrame", worldFrame);
    private final GeometricJacobianCalculator jacobianCalculator = new GeometricJacobianCalculator();
+   /** Shared between all the tasks, the unit twists of a joint are only recomputed when the joint configurations change. */
+   private final WholeBodyJacobianCalculator wholeBodyJacobianCalculator;
 
    private final InverseDynamicsJoint[] jointsToOptimizeFor;
    private final OneDoFJoint[] oneDoFJoints;
@@ -71,6 +73,7 @@ public class MotionQPInputCalculator
       this.centroidalMomentumHandler = centroidalMomentumHandler;
       oneDoFJoints = jointIndexHandler.getIndexedOneDoFJoints();
       numberOfDoFs = jointIndexHandler.getNumberOfDoFs();
+      wholeBodyJacobianCalculator = new WholeBodyJacobianCalculator(jointsToOptimizeFor[0].getPredecessor());
 
       if (jointPrivilegedConfigurationParameters != null)
       {
@@ -233,7 +236,7 @@ public class MotionQPInputCalculator
       jacobianCalculator.clear();
       jacobianCalculator.setKinematicChain(base, endEffector);
       jacobianCalculator.setJacobianFrame(controlFrame);
-      jacobianCalculator.computeJacobianMatrix();
+      jacobianCalculator.computeJacobianMatrix(wholeBodyJacobianCalculator);
       jacobianCalculator.computeConvectiveTerm();
 
       /*
@@ -352,7 +355,7 @@ public class MotionQPInputCalculator
       jacobianCalculator.clear();
       jacobianCalculator.setKinematicChain(base, endEffector);
       jacobianCalculator.setJacobianFrame(controlFrame);
-      jacobianCalculator.computeJacobianMatrix();
+      jacobianCalculator.computeJacobianMatrix(wholeBodyJacobianCalculator);
 
       /*
        * @formatter:off
@@ -0,0 +1,200 @@
+package us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.CoMGeneration.SmoothCoMIntegrationToolbox;
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.euclid.referenceFrame.FramePoint3D;
+import us.ihmc.euclid.referenceFrame.FrameVector3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameRandomTools;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
+import us.ihmc.robotics.math.trajectories.FrameTrajectory3D;
+
+@ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class SmoothCapturePointRecursionTableTest
+{
+   private static final int nTests = 20;
+   private static final int numberOfSegments = 6;
+   private static final double omega0 = 3.4;
+   private static final double EPSILON = 1.0e-6;
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+   private final SmoothCapturePointToolbox icpToolbox = new SmoothCapturePointToolbox();
+   private final SmoothCoMIntegrationToolbox comToolbox = new SmoothCoMIntegrationToolbox(icpToolbox);
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testAgainstToolboxes()
+   {
+      Random random = new Random(5634L);
+      SmoothCapturePointRecursionTable table = new SmoothCapturePointRecursionTable();
+
+      List<FrameTrajectory3D> cmpTrajectories = new ArrayList<>();
+      List<FramePoint3D> icpEntryCornerPoints = new ArrayList<>();
+      List<FramePoint3D> icpExitCornerPoints = new ArrayList<>();
+      List<FramePoint3D> comEntryCornerPoints = new ArrayList<>();
+      List<FramePoint3D> comExitCornerPoints = new ArrayList<>();
+      for (int i = 0; i < numberOfSegments; i++)
+      {
+         cmpTrajectories.add(new FrameTrajectory3D(6, worldFrame));
+         icpEntryCornerPoints.add(new FramePoint3D());
+         icpExitCornerPoints.add(new FramePoint3D());
+         comEntryCornerPoints.add(new FramePoint3D());
+         comExitCornerPoints.add(new FramePoint3D());
+      }
+
+      FramePoint3D expectedPosition = new FramePoint3D();
+      FrameVector3D expectedVelocity = new FrameVector3D();
+      FrameVector3D expectedAcceleration = new FrameVector3D();
+      Point3D actualPosition = new Point3D();
+      Vector3D actualVelocity = new Vector3D();
+      Vector3D actualAcceleration = new Vector3D();
+
+      for (int test = 0; test < nTests; test++)
+      {
+         setRandomSegments(random, cmpTrajectories);
+         FramePoint3D initialCoM = EuclidFrameRandomTools.nextFramePoint3D(random, worldFrame, 1.0, 1.0, 1.0);
+
+         icpToolbox.computeDesiredCornerPoints(icpEntryCornerPoints, icpExitCornerPoints, cmpTrajectories, omega0);
+         comToolbox.computeDesiredCenterOfMassCornerPoints(icpExitCornerPoints, comEntryCornerPoints, comExitCornerPoints, cmpTrajectories, initialCoM,
+                                                           omega0);
+         table.initialize(omega0, cmpTrajectories, icpExitCornerPoints, comEntryCornerPoints);
+         assertEquals(numberOfSegments, table.getNumberOfSegments());
+
+         for (int segment = 0; segment < numberOfSegments; segment++)
+         {
+            FrameTrajectory3D cmpTrajectory = cmpTrajectories.get(segment);
+            double time = RandomNumbers.nextDouble(random, cmpTrajectory.getInitialTime() + 1.0e-3, cmpTrajectory.getFinalTime() - 1.0e-3);
+
+            table.compute(time);
+            assertEquals(segment, table.getCurrentSegmentIndex());
+
+            FramePoint3D icpExitCornerPoint = icpExitCornerPoints.get(segment);
+            icpToolbox.computeDesiredCapturePointPosition(omega0, time, icpExitCornerPoint, cmpTrajectory, expectedPosition);
+            icpToolbox.computeDesiredCapturePointVelocity(omega0, time, icpExitCornerPoint, cmpTrajectory, expectedVelocity);
+            icpToolbox.computeDesiredCapturePointAcceleration(omega0, time, icpExitCornerPoint, cmpTrajectory, expectedAcceleration);
+            table.getICPQuantity(0, actualPosition);
+            table.getICPQuantity(1, actualVelocity);
+            table.getICPQuantity(2, actualAcceleration);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedPosition, actualPosition, EPSILON);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedVelocity, actualVelocity, EPSILON);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedAcceleration, actualAcceleration, EPSILON);
+
+            FramePoint3D comEntryCornerPoint = comEntryCornerPoints.get(segment);
+            comToolbox.computeDesiredCenterOfMassPosition(omega0, time, icpExitCornerPoint, comEntryCornerPoint, cmpTrajectory, expectedPosition);
+            comToolbox.computeDesiredCenterOfMassVelocity(omega0, time, icpExitCornerPoint, comEntryCornerPoint, cmpTrajectory, expectedVelocity);
+            comToolbox.computeDesiredCenterOfMassAcceleration(omega0, time, icpExitCornerPoint, comEntryCornerPoint, cmpTrajectory, expectedAcceleration);
+            table.getCoMQuantity(0, actualPosition);
+            table.getCoMQuantity(1, actualVelocity);
+            table.getCoMQuantity(2, actualAcceleration);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedPosition, actualPosition, EPSILON);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedVelocity, actualVelocity, EPSILON);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedAcceleration, actualAcceleration, EPSILON);
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testBatchCompute()
+   {
+      Random random = new Random(9823L);
+      SmoothCapturePointRecursionTable table = new SmoothCapturePointRecursionTable();
+
+      List<FrameTrajectory3D> cmpTrajectories = new ArrayList<>();
+      List<FramePoint3D> icpEntryCornerPoints = new ArrayList<>();
+      List<FramePoint3D> icpExitCornerPoints = new ArrayList<>();
+      List<FramePoint3D> comEntryCornerPoints = new ArrayList<>();
+      List<FramePoint3D> comExitCornerPoints = new ArrayList<>();
+      for (int i = 0; i < numberOfSegments; i++)
+      {
+         cmpTrajectories.add(new FrameTrajectory3D(6, worldFrame));
+         icpEntryCornerPoints.add(new FramePoint3D());
+         icpExitCornerPoints.add(new FramePoint3D());
+         comEntryCornerPoints.add(new FramePoint3D());
+         comExitCornerPoints.add(new FramePoint3D());
+      }
+
+      int numberOfSamples = 100;
+      double[] times = new double[numberOfSamples];
+      Tuple3DBasics[] icpPositions = createTuples(numberOfSamples);
+      Tuple3DBasics[] icpVelocities = createTuples(numberOfSamples);
+      Tuple3DBasics[] comPositions = createTuples(numberOfSamples);
+      Tuple3DBasics[] comVelocities = createTuples(numberOfSamples);
+      Point3D expected = new Point3D();
+
+      for (int test = 0; test < nTests; test++)
+      {
+         setRandomSegments(random, cmpTrajectories);
+         FramePoint3D initialCoM = EuclidFrameRandomTools.nextFramePoint3D(random, worldFrame, 1.0, 1.0, 1.0);
+
+         icpToolbox.computeDesiredCornerPoints(icpEntryCornerPoints, icpExitCornerPoints, cmpTrajectories, omega0);
+         comToolbox.computeDesiredCenterOfMassCornerPoints(icpExitCornerPoints, comEntryCornerPoints, comExitCornerPoints, cmpTrajectories, initialCoM,
+                                                           omega0);
+         table.initialize(omega0, cmpTrajectories, icpExitCornerPoints, comEntryCornerPoints);
+
+         double timeOffset = RandomNumbers.nextDouble(random, 10.0);
+         double finalTime = cmpTrajectories.get(numberOfSegments - 1).getFinalTime();
+         for (int i = 0; i < numberOfSamples; i++)
+            times[i] = timeOffset + finalTime * i / (numberOfSamples - 1.0);
+
+         table.compute(times, timeOffset, icpPositions, icpVelocities, comPositions, comVelocities);
+
+         for (int i = 0; i < numberOfSamples; i++)
+         {
+            table.compute(times[i] - timeOffset);
+            table.getICPQuantity(0, expected);
+            EuclidCoreTestTools.assertTuple3DEquals(expected, icpPositions[i], EPSILON);
+            table.getICPQuantity(1, expected);
+            EuclidCoreTestTools.assertTuple3DEquals(expected, icpVelocities[i], EPSILON);
+            table.getCoMQuantity(0, expected);
+            EuclidCoreTestTools.assertTuple3DEquals(expected, comPositions[i], EPSILON);
+            table.getCoMQuantity(1, expected);
+            EuclidCoreTestTools.assertTuple3DEquals(expected, comVelocities[i], EPSILON);
+         }
+      }
+   }
+
+   private static void setRandomSegments(Random random, List<FrameTrajectory3D> cmpTrajectories)
+   {
+      double initialTime = 0.0;
+      FramePoint3D initialPosition = EuclidFrameRandomTools.nextFramePoint3D(random, worldFrame, 1.0, 1.0, 1.0);
+
+      for (FrameTrajectory3D cmpTrajectory : cmpTrajectories)
+      {
+         double finalTime = initialTime + RandomNumbers.nextDouble(random, 0.5, 1.0);
+         FramePoint3D finalPosition = EuclidFrameRandomTools.nextFramePoint3D(random, worldFrame, 1.0, 1.0, 1.0);
+         FrameVector3D initialVelocity = EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame);
+         FrameVector3D initialAcceleration = EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame);
+         FrameVector3D finalVelocity = EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame);
+         FrameVector3D finalAcceleration = EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame);
+
+         cmpTrajectory.setQuintic(initialTime, finalTime, initialPosition, initialVelocity, initialAcceleration, finalPosition, finalVelocity,
+                                  finalAcceleration);
+
+         initialTime = finalTime;
+         initialPosition = finalPosition;
+      }
+   }
+
+   private static Tuple3DBasics[] createTuples(int size)
+   {
+      Tuple3DBasics[] tuples = new Tuple3DBasics[size];
+      for (int i = 0; i < size; i++)
+         tuples[i] = new Point3D();
+      return tuples;
+   }
+}
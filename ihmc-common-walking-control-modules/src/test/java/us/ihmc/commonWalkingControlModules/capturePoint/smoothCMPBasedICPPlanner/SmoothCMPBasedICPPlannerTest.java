@@ -4,6 +4,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -30,8 +31,11 @@ import us.ihmc.euclid.referenceFrame.FramePose3D;
 import us.ihmc.euclid.referenceFrame.FrameVector3D;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.referenceFrame.interfaces.FramePoint3DReadOnly;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameTestTools;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
 import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.euclid.tuple4D.Quaternion;
 import us.ihmc.graphicsDescription.Graphics3DObject;
 import us.ihmc.graphicsDescription.appearance.YoAppearanceRGBColor;
@@ -380,6 +384,178 @@ public class SmoothCMPBasedICPPlannerTest
       simulate(false, true, true);
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testPrecomputedRecursionTablesMatchRecursion()
+   {
+      SmoothCMPBasedICPPlanner recursionPlanner = createPlanner(false, new YoVariableRegistry("recursion"));
+      SmoothCMPBasedICPPlanner tablesPlanner = createPlanner(true, new YoVariableRegistry("tables"));
+      SmoothCMPBasedICPPlanner[] planners = {recursionPlanner, tablesPlanner};
+
+      planFootsteps();
+      inDoubleSupport = new YoBoolean("inDoubleSupport", registry);
+      inDoubleSupport.set(true);
+
+      for (RobotSide side : RobotSide.values)
+         contactStates.get(side).setFullyConstrained();
+      bipedSupportPolygons.updateUsingContactStates(contactStates);
+
+      for (int currentStepCount = 0; currentStepCount < numberOfFootstepsForTest;)
+      {
+         updateContactState(currentStepCount);
+         RobotSide stepSide = footstepList.get(currentStepCount).getRobotSide();
+
+         for (SmoothCMPBasedICPPlanner planner : planners)
+         {
+            addFootsteps(planner, currentStepCount);
+
+            if (inDoubleSupport.getBooleanValue())
+            {
+               planner.setTransferToSide(stepSide.getOppositeSide());
+               planner.initializeForTransfer(yoTime.getDoubleValue());
+            }
+            else
+            {
+               planner.setSupportLeg(stepSide.getOppositeSide());
+               planner.initializeForSingleSupport(yoTime.getDoubleValue());
+            }
+         }
+
+         FootstepTiming timing = timingList.get(currentStepCount);
+         compareRecursionAndTablesOverState(recursionPlanner, tablesPlanner,
+                                            inDoubleSupport.getBooleanValue() ? timing.getTransferTime() : timing.getSwingTime());
+         currentStepCount = updateStateMachine(currentStepCount);
+      }
+
+      updateContactState(-1);
+
+      for (SmoothCMPBasedICPPlanner planner : planners)
+      {
+         addFootsteps(planner, numberOfFootstepsForTest);
+         planner.setTransferToSide(footstepList.get(numberOfFootstepsForTest - 1).getRobotSide());
+         planner.initializeForStanding(yoTime.getDoubleValue());
+      }
+
+      compareRecursionAndTablesOverState(recursionPlanner, tablesPlanner, defaultFinalTransferTime);
+   }
+
+   /**
+    * Runs the two planners through the current state, checking that the desired ICP and CoM match
+    * at every tick, and that the preview of the planner using the recursion tables matches the
+    * desireds computed tick by tick.
+    */
+   private void compareRecursionAndTablesOverState(SmoothCMPBasedICPPlanner recursionPlanner, SmoothCMPBasedICPPlanner tablesPlanner,
+                                                   double stateDuration)
+   {
+      double recursionTablesEpsilon = 1.0e-6;
+      double stateStartTime = yoTime.getDoubleValue();
+      int maximumNumberOfTicks = (int) Math.ceil(stateDuration / dt) + 1;
+      double[] previewTimes = new double[maximumNumberOfTicks];
+      Point3D[] expectedICPPositions = new Point3D[maximumNumberOfTicks];
+      Vector3D[] expectedICPVelocities = new Vector3D[maximumNumberOfTicks];
+      Point3D[] expectedCoMPositions = new Point3D[maximumNumberOfTicks];
+      Vector3D[] expectedCoMVelocities = new Vector3D[maximumNumberOfTicks];
+      int numberOfPreviewTimes = 0;
+
+      FramePoint3D tablesICPPosition = new FramePoint3D();
+      FrameVector3D tablesICPVelocity = new FrameVector3D();
+      FramePoint3D tablesCoMPosition = new FramePoint3D();
+      FrameVector3D tablesCoMVelocity = new FrameVector3D();
+
+      for (double timeInState = 0.0; timeInState < stateDuration; timeInState += dt)
+      {
+         yoTime.add(dt);
+         updateUpdatables(yoTime.getDoubleValue());
+
+         recursionPlanner.compute(yoTime.getDoubleValue());
+         recursionPlanner.getDesiredCapturePointPosition(icpPosition);
+         recursionPlanner.getDesiredCapturePointVelocity(icpVelocity);
+         recursionPlanner.getDesiredCenterOfMassPosition(comPosition);
+         recursionPlanner.getDesiredCenterOfMassVelocity(comVelocity);
+
+         tablesPlanner.compute(yoTime.getDoubleValue());
+         tablesPlanner.getDesiredCapturePointPosition(tablesICPPosition);
+         tablesPlanner.getDesiredCapturePointVelocity(tablesICPVelocity);
+         tablesPlanner.getDesiredCenterOfMassPosition(tablesCoMPosition);
+         tablesPlanner.getDesiredCenterOfMassVelocity(tablesCoMVelocity);
+
+         EuclidFrameTestTools.assertFrameTuple3DEquals(icpPosition, tablesICPPosition, recursionTablesEpsilon);
+         EuclidFrameTestTools.assertFrameTuple3DEquals(icpVelocity, tablesICPVelocity, recursionTablesEpsilon);
+         EuclidFrameTestTools.assertFrameTuple3DEquals(comPosition, tablesCoMPosition, recursionTablesEpsilon);
+         EuclidFrameTestTools.assertFrameTuple3DEquals(comVelocity, tablesCoMVelocity, recursionTablesEpsilon);
+
+         // The desireds are clamped at the end of the state, the preview is only compared before that.
+         double previewTime = yoTime.getDoubleValue() - stateStartTime;
+         if (previewTime < stateDuration - 0.5 * dt)
+         {
+            previewTimes[numberOfPreviewTimes] = previewTime;
+            expectedICPPositions[numberOfPreviewTimes] = new Point3D(tablesICPPosition);
+            expectedICPVelocities[numberOfPreviewTimes] = new Vector3D(tablesICPVelocity);
+            expectedCoMPositions[numberOfPreviewTimes] = new Point3D(tablesCoMPosition);
+            expectedCoMVelocities[numberOfPreviewTimes] = new Vector3D(tablesCoMVelocity);
+            numberOfPreviewTimes++;
+         }
+      }
+
+      previewTimes = Arrays.copyOf(previewTimes, numberOfPreviewTimes);
+      Point3D[] previewICPPositions = new Point3D[numberOfPreviewTimes];
+      Vector3D[] previewICPVelocities = new Vector3D[numberOfPreviewTimes];
+      Point3D[] previewCoMPositions = new Point3D[numberOfPreviewTimes];
+      Vector3D[] previewCoMVelocities = new Vector3D[numberOfPreviewTimes];
+
+      for (int i = 0; i < numberOfPreviewTimes; i++)
+      {
+         previewICPPositions[i] = new Point3D();
+         previewICPVelocities[i] = new Vector3D();
+         previewCoMPositions[i] = new Point3D();
+         previewCoMVelocities[i] = new Vector3D();
+      }
+
+      tablesPlanner.computePreview(previewTimes, previewICPPositions, previewICPVelocities, previewCoMPositions, previewCoMVelocities);
+
+      for (int i = 0; i < numberOfPreviewTimes; i++)
+      {
+         EuclidCoreTestTools.assertTuple3DEquals(expectedICPPositions[i], previewICPPositions[i], recursionTablesEpsilon);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedICPVelocities[i], previewICPVelocities[i], recursionTablesEpsilon);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedCoMPositions[i], previewCoMPositions[i], recursionTablesEpsilon);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedCoMVelocities[i], previewCoMVelocities[i], recursionTablesEpsilon);
+      }
+   }
+
+   private SmoothCMPBasedICPPlanner createPlanner(boolean usePrecomputedRecursionTables, YoVariableRegistry plannerRegistry)
+   {
+      SmoothCMPPlannerParameters parameters = new SmoothCMPPlannerParameters()
+      {
+         @Override
+         public int getNumberOfFootstepsToConsider()
+         {
+            return numberOfFootstepsToConsider;
+         }
+
+         @Override
+         public boolean usePrecomputedRecursionTables()
+         {
+            return usePrecomputedRecursionTables;
+         }
+      };
+      SmoothCMPBasedICPPlanner planner = new SmoothCMPBasedICPPlanner(robotMass, bipedSupportPolygons, feet, parameters.getNumberOfFootstepsToConsider(),
+                                                                      plannerRegistry, null, gravity);
+      planner.initializeParameters(parameters);
+      planner.setFinalTransferDuration(defaultFinalTransferTime);
+      planner.setOmega0(omega);
+      planner.ensureContinuityEnteringEachTransfer(true);
+      return planner;
+   }
+
+   private void addFootsteps(SmoothCMPBasedICPPlanner planner, int currentFootstepIndex)
+   {
+      planner.clearPlan();
+      for (int i = currentFootstepIndex; i < Math.min(footstepList.size(), currentFootstepIndex + numberOfFootstepsToConsider); i++)
+      {
+         planner.addFootstepToPlan(footstepList.get(i), timingList.get(i));
+      }
+   }
+
    private void setupPlanner(boolean isAMOn)
    {
       plannerParameters = new SmoothCMPPlannerParameters()
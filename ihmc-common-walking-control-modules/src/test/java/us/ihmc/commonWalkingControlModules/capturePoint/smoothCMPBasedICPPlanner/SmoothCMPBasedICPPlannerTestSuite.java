@@ -11,6 +11,7 @@ import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner
 import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.CapturePointToolsTest;
 import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.ReferenceICPTrajectoryGeneratorTest;
 import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.SmoothCapturePointAdjustmentToolboxTest;
+import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.SmoothCapturePointRecursionTableTest;
 import us.ihmc.commonWalkingControlModules.capturePoint.smoothCMPBasedICPPlanner.ICPGeneration.SmoothCapturePointToolboxTest;
 import us.ihmc.commons.MutationTestFacilitator;
 
@@ -28,6 +29,7 @@ import us.ihmc.commons.MutationTestFacilitator;
            ReferenceICPTrajectoryGeneratorTest.class,
            SmoothCapturePointAdjustmentToolboxTest.class,
            SmoothCapturePointToolboxTest.class,
+           SmoothCapturePointRecursionTableTest.class,
            CoPPlanningToolsTest.class,
            CoPTrajectoryTest.class,
            FootstepDataTest.class,
@@ -0,0 +1,199 @@
+package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.RandomMatrices;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolverWithInactiveVariables;
+import us.ihmc.robotics.screwTheory.Wrench;
+import us.ihmc.robotics.testing.JUnitTools;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class InverseDynamicsQPSolverTest
+{
+   private static final double EPSILON = 1.0e-10;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testSparseAssemblyMatchesDenseAssembly()
+   {
+      Random random = new Random(4378L);
+      int numberOfDoFs = 20;
+      int rhoSize = 16;
+
+      for (boolean hasFloatingBase : new boolean[] {true, false})
+      {
+         CostCapturingQPSolver denseQPSolver = new CostCapturingQPSolver();
+         CostCapturingQPSolver sparseQPSolver = new CostCapturingQPSolver();
+         InverseDynamicsQPSolver dense = new InverseDynamicsQPSolver(denseQPSolver, numberOfDoFs, rhoSize, hasFloatingBase, 0.001,
+                                                                     new YoVariableRegistry("dense"));
+         InverseDynamicsQPSolver sparse = new InverseDynamicsQPSolver(sparseQPSolver, numberOfDoFs, rhoSize, hasFloatingBase, 0.001,
+                                                                      new YoVariableRegistry("sparse"));
+         dense.setUseSparseAssembly(false);
+         sparse.setUseSparseAssembly(true);
+
+         // Several ticks such that the rate regularization, which depends on the previous solution, is also compared.
+         for (int tick = 0; tick < 5; tick++)
+         {
+            dense.reset();
+            sparse.reset();
+
+            for (int task = 0; task < 10; task++)
+            {
+               int taskSize = 1 + random.nextInt(6);
+               DenseMatrix64F jacobian = nextSparseMatrix(random, taskSize, numberOfDoFs);
+               DenseMatrix64F objective = RandomMatrices.createRandom(taskSize, 1, -1.0, 1.0, random);
+
+               if (random.nextBoolean())
+               {
+                  double weight = random.nextDouble() * 10.0;
+                  dense.addMotionTask(jacobian, objective, weight);
+                  sparse.addMotionTask(jacobian, objective, weight);
+               }
+               else
+               {
+                  DenseMatrix64F weight = nextDiagonalMatrix(random, taskSize);
+                  dense.addMotionTask(jacobian, objective, weight);
+                  sparse.addMotionTask(jacobian, objective, weight);
+               }
+            }
+
+            for (int task = 0; task < 3; task++)
+            {
+               int taskSize = 1 + random.nextInt(6);
+               DenseMatrix64F jacobian = nextSparseMatrix(random, taskSize, rhoSize);
+               DenseMatrix64F objective = RandomMatrices.createRandom(taskSize, 1, -1.0, 1.0, random);
+
+               if (random.nextBoolean())
+               {
+                  double weight = random.nextDouble() * 10.0;
+                  dense.addRhoTask(jacobian, objective, weight);
+                  sparse.addRhoTask(jacobian, objective, weight);
+               }
+               else
+               {
+                  DenseMatrix64F weight = nextDiagonalMatrix(random, taskSize);
+                  dense.addRhoTask(jacobian, objective, weight);
+                  sparse.addRhoTask(jacobian, objective, weight);
+               }
+            }
+
+            DenseMatrix64F torqueQddotJacobian = nextSparseMatrix(random, numberOfDoFs, numberOfDoFs);
+            DenseMatrix64F torqueRhoJacobian = nextSparseMatrix(random, numberOfDoFs, rhoSize);
+            DenseMatrix64F torqueObjective = RandomMatrices.createRandom(numberOfDoFs, 1, -1.0, 1.0, random);
+            dense.addTorqueMinimizationObjective(torqueQddotJacobian, torqueRhoJacobian, torqueObjective);
+            sparse.addTorqueMinimizationObjective(torqueQddotJacobian, torqueRhoJacobian, torqueObjective);
+
+            DenseMatrix64F centroidalMomentumMatrix = nextSparseMatrix(random, Wrench.SIZE, numberOfDoFs);
+            DenseMatrix64F rhoJacobian = nextSparseMatrix(random, Wrench.SIZE, rhoSize);
+            DenseMatrix64F convectiveTerm = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+            DenseMatrix64F additionalExternalWrench = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+            DenseMatrix64F gravityWrench = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+            dense.setupWrenchesEquilibriumConstraint(centroidalMomentumMatrix, rhoJacobian, convectiveTerm, additionalExternalWrench, gravityWrench);
+            sparse.setupWrenchesEquilibriumConstraint(centroidalMomentumMatrix, rhoJacobian, convectiveTerm, additionalExternalWrench, gravityWrench);
+
+            dense.solve();
+            sparse.solve();
+
+            JUnitTools.assertMatrixEquals(denseQPSolver.capturedH, sparseQPSolver.capturedH, EPSILON);
+            JUnitTools.assertMatrixEquals(denseQPSolver.capturedf, sparseQPSolver.capturedf, EPSILON);
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testFactorizationIsReusedWhenCostIsUnchanged()
+   {
+      Random random = new Random(9812L);
+      int numberOfDoFs = 20;
+      int rhoSize = 16;
+
+      CostCapturingQPSolver reusingQPSolver = new CostCapturingQPSolver();
+      CostCapturingQPSolver referenceQPSolver = new CostCapturingQPSolver()
+      {
+         @Override
+         public void notifyQuadraticCostUnchanged()
+         {
+            // Always refactorize to provide the reference solution.
+         }
+      };
+      InverseDynamicsQPSolver reusing = new InverseDynamicsQPSolver(reusingQPSolver, numberOfDoFs, rhoSize, true, 0.001, new YoVariableRegistry("reusing"));
+      InverseDynamicsQPSolver reference = new InverseDynamicsQPSolver(referenceQPSolver, numberOfDoFs, rhoSize, true, 0.001,
+                                                                      new YoVariableRegistry("reference"));
+
+      DenseMatrix64F jacobian = nextSparseMatrix(random, 6, numberOfDoFs);
+      DenseMatrix64F centroidalMomentumMatrix = nextSparseMatrix(random, Wrench.SIZE, numberOfDoFs);
+      DenseMatrix64F rhoJacobian = nextSparseMatrix(random, Wrench.SIZE, rhoSize);
+      DenseMatrix64F zeroWrench = new DenseMatrix64F(Wrench.SIZE, 1);
+
+      for (int tick = 0; tick < 6; tick++)
+      {
+         // The task Jacobian and weight only change on the fourth tick, the objective changes every tick.
+         if (tick == 4)
+            jacobian = nextSparseMatrix(random, 6, numberOfDoFs);
+         double weight = tick < 4 ? 1.0 : 2.0;
+         DenseMatrix64F objective = RandomMatrices.createRandom(6, 1, -1.0, 1.0, random);
+         DenseMatrix64F gravityWrench = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+
+         for (InverseDynamicsQPSolver solver : new InverseDynamicsQPSolver[] {reusing, reference})
+         {
+            solver.reset();
+            solver.addMotionTask(jacobian, objective, weight);
+            solver.setupWrenchesEquilibriumConstraint(centroidalMomentumMatrix, rhoJacobian, zeroWrench, zeroWrench, gravityWrench);
+            solver.solve();
+         }
+
+         // The first tick has nothing to reuse, the second adds the rate regularization, the fourth changes the task.
+         boolean expectReuse = tick == 2 || tick == 3 || tick == 5;
+         assertEquals("tick " + tick, expectReuse, reusingQPSolver.wasLastFactorizationReused());
+         JUnitTools.assertMatrixEquals(reference.getJointAccelerations(), reusing.getJointAccelerations(), 1.0e-8);
+         JUnitTools.assertMatrixEquals(reference.getRhos(), reusing.getRhos(), 1.0e-8);
+      }
+   }
+
+   /**
+    * Random matrix where about half of the columns are zero, like the Jacobian of a task that only
+    * involves a single kinematic chain.
+    */
+   private static DenseMatrix64F nextSparseMatrix(Random random, int numRows, int numCols)
+   {
+      DenseMatrix64F matrix = RandomMatrices.createRandom(numRows, numCols, -1.0, 1.0, random);
+      for (int col = 0; col < numCols; col++)
+      {
+         if (random.nextBoolean())
+         {
+            for (int row = 0; row < numRows; row++)
+               matrix.set(row, col, 0.0);
+         }
+      }
+      return matrix;
+   }
+
+   private static DenseMatrix64F nextDiagonalMatrix(Random random, int size)
+   {
+      DenseMatrix64F matrix = new DenseMatrix64F(size, size);
+      for (int i = 0; i < size; i++)
+         matrix.set(i, i, random.nextDouble() * 10.0);
+      return matrix;
+   }
+
+   private static class CostCapturingQPSolver extends SimpleEfficientActiveSetQPSolverWithInactiveVariables
+   {
+      private final DenseMatrix64F capturedH = new DenseMatrix64F(0, 0);
+      private final DenseMatrix64F capturedf = new DenseMatrix64F(0, 0);
+
+      @Override
+      public void setQuadraticCostFunction(DenseMatrix64F costQuadraticMatrix, DenseMatrix64F costLinearVector, double quadraticCostScalar)
+      {
+         capturedH.set(costQuadraticMatrix);
+         capturedf.set(costLinearVector);
+         super.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, quadraticCostScalar);
+      }
+   }
+}
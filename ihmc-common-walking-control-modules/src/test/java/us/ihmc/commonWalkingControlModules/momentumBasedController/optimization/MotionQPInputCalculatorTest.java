@@ -15,6 +15,7 @@ import us.ihmc.euclid.tools.EuclidCoreRandomTools;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 import us.ihmc.robotics.referenceFrames.CenterOfMassReferenceFrame;
+import us.ihmc.robotics.screwTheory.GeometricJacobian;
 import us.ihmc.robotics.screwTheory.RevoluteJoint;
 import us.ihmc.robotics.screwTheory.RigidBody;
 import us.ihmc.robotics.screwTheory.ScrewTestTools;
@@ -22,6 +23,7 @@ import us.ihmc.robotics.screwTheory.ScrewTools;
 import us.ihmc.robotics.screwTheory.SpatialAccelerationCalculator;
 import us.ihmc.robotics.screwTheory.SpatialAccelerationCalculatorTest;
 import us.ihmc.robotics.screwTheory.SpatialAccelerationVector;
+import us.ihmc.robotics.testing.JUnitTools;
 
 public class MotionQPInputCalculatorTest
 {
@@ -117,4 +119,54 @@ public class MotionQPInputCalculatorTest
          SpatialAccelerationCalculatorTest.assertSpatialAccelerationVectorEquals(achievedSpatialAcceleration, desiredSpatialAcceleration, 1.0e-10);
       }
    }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testJacobianIsUpToDateWithoutInitialize() throws Exception
+   {
+      Random random = new Random(5646L);
+
+      int numberOfJoints = 20;
+
+      List<RevoluteJoint> joints = ScrewTestTools.createRandomChainRobot(numberOfJoints, random);
+      RigidBody rootBody = joints.get(0).getPredecessor();
+      RigidBody endEffector = joints.get(numberOfJoints - 1).getSuccessor();
+      ReferenceFrame endEffectorFrame = endEffector.getBodyFixedFrame();
+      int numberOfDoFs = ScrewTools.computeDegreesOfFreedom(joints);
+
+      CenterOfMassReferenceFrame centerOfMassFrame = new CenterOfMassReferenceFrame("comFrame", worldFrame, rootBody);
+      JointIndexHandler jointIndexHandler = new JointIndexHandler(joints);
+      YoVariableRegistry registry = new YoVariableRegistry("dummyRegistry");
+      CentroidalMomentumHandler centroidalMomentumHandler = new CentroidalMomentumHandler(rootBody, centerOfMassFrame);
+      MotionQPInputCalculator motionQPInputCalculator = new MotionQPInputCalculator(centerOfMassFrame, centroidalMomentumHandler, jointIndexHandler, null, registry);
+
+      QPInput motionQPInput = new QPInput(numberOfDoFs);
+      SpatialAccelerationCommand spatialAccelerationCommand = new SpatialAccelerationCommand();
+      spatialAccelerationCommand.set(rootBody, endEffector);
+      spatialAccelerationCommand.setWeight(random.nextDouble());
+      GeometricJacobian expectedJacobian = new GeometricJacobian(rootBody, endEffector, endEffectorFrame);
+
+      motionQPInputCalculator.initialize();
+
+      for (int i = 0; i < ITERATIONS; i++)
+      { // The configuration changes between two conversions, the Jacobian has to follow even though initialize() is not called.
+         if (random.nextBoolean())
+            ScrewTestTools.setRandomPositions(joints, random);
+         else
+            ScrewTestTools.setRandomPosition(joints.get(random.nextInt(numberOfJoints)), random, -Math.PI, Math.PI);
+         ScrewTestTools.setRandomVelocities(joints, random);
+         joints.get(0).updateFramesRecursively();
+         centerOfMassFrame.update();
+
+         SpatialAccelerationVector desiredSpatialAcceleration = new SpatialAccelerationVector(endEffectorFrame, rootBody.getBodyFixedFrame(), endEffectorFrame);
+         desiredSpatialAcceleration.setLinearPart(EuclidCoreRandomTools.nextVector3D(random, -10.0, 10.0));
+         desiredSpatialAcceleration.setAngularPart(EuclidCoreRandomTools.nextVector3D(random, -10.0, 10.0));
+         spatialAccelerationCommand.setSpatialAcceleration(endEffectorFrame, desiredSpatialAcceleration);
+
+         motionQPInputCalculator.convertSpatialAccelerationCommand(spatialAccelerationCommand, motionQPInput);
+
+         expectedJacobian.compute();
+         JUnitTools.assertMatrixEquals(expectedJacobian.getJacobianMatrix(), motionQPInput.taskJacobian, 1.0e-10);
+      }
+   }
 }
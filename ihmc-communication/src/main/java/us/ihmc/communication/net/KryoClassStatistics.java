@@ -0,0 +1,150 @@
+package us.ihmc.communication.net;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for one class of objects exchanged by a {@link KryoObjectCommunicator}.
+ * <p>
+ * The counters are updated by the network and listener threads and can be read from any thread.
+ * </p>
+ */
+public class KryoClassStatistics
+{
+   private final Class<?> clazz;
+
+   private final AtomicLong numberOfSentObjects = new AtomicLong();
+   private final AtomicLong numberOfSentBytes = new AtomicLong();
+   private final AtomicLong numberOfDroppedObjects = new AtomicLong();
+   private final AtomicLong totalSendLatency = new AtomicLong();
+   private final AtomicLong maximumSendLatency = new AtomicLong();
+
+   private final AtomicLong numberOfReceivedObjects = new AtomicLong();
+   private final AtomicLong numberOfAllocatedObjects = new AtomicLong();
+   private final AtomicLong numberOfRecycledObjects = new AtomicLong();
+   private final AtomicLong totalReceiveLatency = new AtomicLong();
+   private final AtomicLong maximumReceiveLatency = new AtomicLong();
+
+   public KryoClassStatistics(Class<?> clazz)
+   {
+      this.clazz = clazz;
+   }
+
+   /**
+    * @param numberOfBytes the number of bytes written to the connection.
+    * @param latency the time in nanoseconds spent serializing and writing the object.
+    */
+   void recordSent(int numberOfBytes, long latency)
+   {
+      numberOfSentObjects.incrementAndGet();
+      numberOfSentBytes.addAndGet(Math.max(0, numberOfBytes));
+      totalSendLatency.addAndGet(latency);
+      updateMaximum(maximumSendLatency, latency);
+   }
+
+   void recordDropped()
+   {
+      numberOfDroppedObjects.incrementAndGet();
+   }
+
+   /**
+    * @param latency the time in nanoseconds between the object being received and the last
+    *           listener being done with it.
+    */
+   void recordReceived(long latency)
+   {
+      numberOfReceivedObjects.incrementAndGet();
+      totalReceiveLatency.addAndGet(latency);
+      updateMaximum(maximumReceiveLatency, latency);
+   }
+
+   void recordAllocated()
+   {
+      numberOfAllocatedObjects.incrementAndGet();
+   }
+
+   void recordRecycled()
+   {
+      numberOfRecycledObjects.incrementAndGet();
+   }
+
+   private static void updateMaximum(AtomicLong maximum, long value)
+   {
+      long current;
+      while (value > (current = maximum.get()))
+      {
+         if (maximum.compareAndSet(current, value))
+            return;
+      }
+   }
+
+   public Class<?> getObjectClass()
+   {
+      return clazz;
+   }
+
+   public long getNumberOfSentObjects()
+   {
+      return numberOfSentObjects.get();
+   }
+
+   public long getNumberOfSentBytes()
+   {
+      return numberOfSentBytes.get();
+   }
+
+   /** @return the number of objects that could not be queued for sending. */
+   public long getNumberOfDroppedObjects()
+   {
+      return numberOfDroppedObjects.get();
+   }
+
+   /** @return the average time in seconds spent serializing and writing an object. */
+   public double getAverageSendLatency()
+   {
+      long count = getNumberOfSentObjects();
+      return count == 0 ? 0.0 : totalSendLatency.get() / 1.0e9 / count;
+   }
+
+   public double getMaximumSendLatency()
+   {
+      return maximumSendLatency.get() / 1.0e9;
+   }
+
+   public long getNumberOfReceivedObjects()
+   {
+      return numberOfReceivedObjects.get();
+   }
+
+   /** @return the number of objects allocated when deserializing received objects. */
+   public long getNumberOfAllocatedObjects()
+   {
+      return numberOfAllocatedObjects.get();
+   }
+
+   /** @return the number of received objects deserialized into a recycled instance. */
+   public long getNumberOfRecycledObjects()
+   {
+      return numberOfRecycledObjects.get();
+   }
+
+   /** @return the average time in seconds between an object being received and its listeners being done with it. */
+   public double getAverageReceiveLatency()
+   {
+      long count = getNumberOfReceivedObjects();
+      return count == 0 ? 0.0 : totalReceiveLatency.get() / 1.0e9 / count;
+   }
+
+   public double getMaximumReceiveLatency()
+   {
+      return maximumReceiveLatency.get() / 1.0e9;
+   }
+
+   @Override
+   public String toString()
+   {
+      return String.format("%s: sent: %d (%d bytes, dropped: %d, latency: %.3f ms avg, %.3f ms max), received: %d (allocated: %d, recycled: %d, latency: %.3f ms avg, %.3f ms max)",
+                           clazz.getSimpleName(), getNumberOfSentObjects(), getNumberOfSentBytes(), getNumberOfDroppedObjects(),
+                           1.0e3 * getAverageSendLatency(), 1.0e3 * getMaximumSendLatency(), getNumberOfReceivedObjects(), getNumberOfAllocatedObjects(),
+                           getNumberOfRecycledObjects(), 1.0e3 * getAverageReceiveLatency(), 1.0e3 * getMaximumReceiveLatency());
+   }
+}
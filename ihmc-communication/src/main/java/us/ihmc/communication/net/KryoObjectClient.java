@@ -46,8 +46,9 @@ public class KryoObjectClient extends KryoObjectCommunicator
 
    public KryoObjectClient(InetAddress host, int tcpPort, NetClassList netClassList, int writeBufferSize, int receiveBufferSize)
    {
-      this(host, tcpPort, netClassList, writeBufferSize, receiveBufferSize, new KryoSerialization());
+      this(host, tcpPort, netClassList, writeBufferSize, receiveBufferSize, new KryoSerialization(new PooledKryo()));
       netClassList.registerWithKryo(client.getKryo());
+      setPooledKryo((PooledKryo) client.getKryo());
    }
 
    public KryoObjectClient(InetAddress host, int tcpPort, NetClassList netClassList, int writeBufferSize, int receiveBufferSize, Serialization serialization)
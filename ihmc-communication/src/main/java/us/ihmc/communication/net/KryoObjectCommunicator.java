@@ -1,73 +1,42 @@
 package us.ihmc.communication.net;
 
-import java.awt.Container;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-
-import javax.swing.JFrame;
-import javax.swing.JScrollPane;
-import javax.swing.JTable;
-import javax.swing.table.DefaultTableModel;
+import java.util.concurrent.locks.LockSupport;
 
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.EndPoint;
 import com.esotericsoftware.kryonet.FrameworkMessage.KeepAlive;
 import com.esotericsoftware.kryonet.Listener;
 
-import us.ihmc.commons.FormattingTools;
 import us.ihmc.commons.thread.ThreadTools;
 
 public abstract class KryoObjectCommunicator implements NetworkedObjectCommunicator
 {
+   private static final long SENDER_IDLE_PARK_TIME = TimeUnit.MILLISECONDS.toNanos(1);
+
    private final AtomicBoolean throwExceptionForUnregisteredPackets = new AtomicBoolean(true);
    private final LinkedHashMap<Class<?>, ExecutorService> listenerExecutors = new LinkedHashMap<Class<?>, ExecutorService>();
    private final LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>> listeners = new LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>>();
+   private final LinkedHashMap<Class<?>, KryoClassStatistics> statistics = new LinkedHashMap<Class<?>, KryoClassStatistics>();
 
    private final ArrayList<TcpNetStateListener> tcpStateListeners = new ArrayList<TcpNetStateListener>();
    private final ArrayList<ConnectionStateListener> stateListeners = new ArrayList<ConnectionStateListener>();
    
    private final ArrayList<GlobalObjectConsumer> globalListeners = new ArrayList<GlobalObjectConsumer>();
-   
-   // Stuff for data count table 
-   private DefaultTableModel dataRateTable;
-   private LinkedHashMap<Class<?>, TableData> dataCounts;
-   private long startTime = 0;
-   
-   
-   public void showBandwidthDialog(String name)
-   {
-      if(dataRateTable == null)
-      {
-         dataCounts = new LinkedHashMap<Class<?>, TableData>();
-         JFrame jFrame = new JFrame(name);
-         Container contentPane = jFrame.getContentPane();
-         
-         dataRateTable = new DefaultTableModel(new Object[]{"Object", "Total bits", "bps"}, 0);
-         
-         int rowNumber = 0;
-         for(Class<?> clazz : listeners.keySet())
-         {
-            dataCounts.put(clazz, new TableData(rowNumber));
-            dataRateTable.addRow(new Object[] { clazz.getSimpleName(), 0, 0 });
-            rowNumber++;
-         }
-         
-         JTable table = new JTable(dataRateTable);
-         JScrollPane scrollPane = new JScrollPane(table);
-         contentPane.add(scrollPane);
-         
-         
-         jFrame.pack();
-         jFrame.setSize(400, 500);
-         jFrame.setLocationByPlatform(true);
-         jFrame.setVisible(true);
-      }
-   }
-   
+
+   private PooledKryo pooledKryo = null;
+
+   private final Object sendLock = new Object();
+   // Asynchronous sending: the objects are queued by the sending threads and written by a single sender thread.
+   private volatile MultiProducerSingleConsumerQueue<Object> sendQueue = null;
+   private volatile Thread senderThread = null;
+
    protected void registerClassList(NetClassList classList)
    {
 	   if(!listeners.containsKey(Object.class))
@@ -78,9 +47,119 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
 	   for(Class<?> clazz : classList.getPacketClassList())
 	   {
 		   listeners.put(clazz, new ArrayList<ObjectConsumer<?>>());
+		   statistics.put(clazz, new KryoClassStatistics(clazz));
 		   listenerExecutors.put(clazz, Executors.newFixedThreadPool(1, ThreadTools.getNamedThreadFactory("Kryo" + clazz.getSimpleName() + "Listener")));
 	   }
    }
+
+   /**
+    * Sets the Kryo used to deserialize the received objects, enabling the pooled receive mode.
+    * Has to be called after {@link #registerClassList(NetClassList)}.
+    */
+   protected final void setPooledKryo(PooledKryo pooledKryo)
+   {
+      this.pooledKryo = pooledKryo;
+
+      for (KryoClassStatistics classStatistics : statistics.values())
+         pooledKryo.setStatistics(classStatistics.getObjectClass(), classStatistics);
+   }
+
+   /**
+    * Recycles the received objects of the given class once all the listeners have consumed them,
+    * such that high-rate streams do not allocate a new object for every message received.
+    * <p>
+    * The listeners of this class must not keep a reference to the objects they receive, the
+    * instance is reused for a later message as soon as the last listener returns.
+    * </p>
+    *
+    * @param clazz the class of objects to recycle.
+    */
+   public void enablePooledReceive(Class<?> clazz)
+   {
+      enablePooledReceive(clazz, PooledKryo.DEFAULT_MAXIMUM_NUMBER_OF_IDLE_OBJECTS);
+   }
+
+   /**
+    * See {@link #enablePooledReceive(Class)}.
+    *
+    * @param maximumNumberOfIdleObjects the maximum number of instances kept for reuse.
+    */
+   public void enablePooledReceive(Class<?> clazz, int maximumNumberOfIdleObjects)
+   {
+      if (pooledKryo == null)
+         throw new RuntimeException("This communicator does not support pooled receive, it was created with a custom serialization.");
+      if (!statistics.containsKey(clazz))
+         throw new RuntimeException("Class " + clazz.getSimpleName() + " is not registered with ObjectCommunicator");
+
+      pooledKryo.enablePooling(clazz, maximumNumberOfIdleObjects);
+   }
+
+   /**
+    * Makes {@link #send(Object)} only queue the objects in a lock-free queue, the objects being
+    * written to the connection by a dedicated sender thread. The sending threads then never wait
+    * on each other or on the serialization.
+    * <p>
+    * The objects sent must not be modified after being given to {@link #send(Object)}. When the
+    * queue is full, the objects are dropped. The objects sent from the same thread are written in
+    * the order they were sent. On {@link #disconnect()}, the objects still in the queue are written
+    * before the connection is closed.
+    * </p>
+    *
+    * @param queueCapacity the maximum number of objects waiting to be sent.
+    */
+   public synchronized void enableAsynchronousSend(int queueCapacity)
+   {
+      if (sendQueue != null)
+         return;
+
+      sendQueue = new MultiProducerSingleConsumerQueue<>(queueCapacity);
+      Thread thread = new Thread(this::runSender, "KryoSender");
+      thread.setDaemon(true);
+      senderThread = thread;
+      thread.start();
+   }
+
+   private void runSender()
+   {
+      MultiProducerSingleConsumerQueue<Object> queue = sendQueue;
+
+      while (senderThread == Thread.currentThread())
+      {
+         Object object = queue.poll();
+
+         if (object == null)
+            LockSupport.parkNanos(this, SENDER_IDLE_PARK_TIME);
+         else
+            sendNow(object);
+      }
+
+      // Write what was queued before the sender was stopped.
+      Object object;
+      while ((object = queue.poll()) != null)
+         sendNow(object);
+   }
+
+   public KryoClassStatistics getStatistics(Class<?> clazz)
+   {
+      return statistics.get(clazz);
+   }
+
+   /**
+    * @return a report with one line per registered class that has been sent or received.
+    */
+   public String getStatisticsReport()
+   {
+      StringBuilder report = new StringBuilder();
+
+      for (KryoClassStatistics classStatistics : statistics.values())
+      {
+         if (classStatistics.getNumberOfSentObjects() > 0 || classStatistics.getNumberOfDroppedObjects() > 0
+               || classStatistics.getNumberOfReceivedObjects() > 0)
+            report.append(classStatistics).append("\n");
+      }
+
+      return report.toString();
+   }
    
    @Override
    public void attachStateListener(ConnectionStateListener stateListener)
@@ -136,13 +215,20 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    }
    
    @Override
-   public synchronized void consumeObject(Object object)
+   public void consumeObject(Object object)
    {
       send(object);
    }
 
+   /**
+    * {@inheritDoc}
+    * <p>
+    * When the asynchronous send is enabled, the object is only queued and this method returns
+    * {@code 0}.
+    * </p>
+    */
    @Override
-   public synchronized int send(Object object)
+   public int send(Object object)
    {
 
       if (!listeners.containsKey(object.getClass()))
@@ -152,8 +238,38 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
          else
             return -1;
       }
-      int bytesSend = sendTCP(object);
-      updateDataRateTable(object, bytesSend);
+
+      MultiProducerSingleConsumerQueue<Object> queue = sendQueue;
+
+      if (queue == null)
+         return sendNow(object);
+
+      if (queue.offer(object))
+      {
+         LockSupport.unpark(senderThread);
+      }
+      else
+      {
+         KryoClassStatistics classStatistics = statistics.get(object.getClass());
+         if (classStatistics != null)
+            classStatistics.recordDropped();
+      }
+      return 0;
+   }
+
+   private int sendNow(Object object)
+   {
+      long startTime = System.nanoTime();
+      int bytesSend;
+
+      synchronized (sendLock)
+      {
+         bytesSend = sendTCP(object);
+      }
+
+      KryoClassStatistics classStatistics = statistics.get(object.getClass());
+      if (classStatistics != null)
+         classStatistics.recordSent(bytesSend, System.nanoTime() - startTime);
       return bytesSend;
    }
 
@@ -162,23 +278,6 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       throwExceptionForUnregisteredPackets.set(value);
    }
 
-   private void updateDataRateTable(Object object, int bytesSend)
-   {
-      if(dataRateTable != null)
-      {
-         if(startTime == 0)
-         {
-            startTime = System.nanoTime();
-         }
-         
-         TableData tableData = dataCounts.get(object.getClass());
-         double wallTime = (System.nanoTime() - startTime) / 1e9;
-         tableData.addData(bytesSend * 8, wallTime);
-         dataRateTable.setValueAt(FormattingTools.toHumanReadable(tableData.getTotalBits()), tableData.getRow(), 1);
-         dataRateTable.setValueAt(FormattingTools.toHumanReadable(tableData.getBitsPerSecond()), tableData.getRow(), 2);         
-      }
-   }
-   
    protected final void createConnectionListener(EndPoint endPoint)
    {
       Listener listener = new Listener()
@@ -187,6 +286,7 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
          @SuppressWarnings("unchecked")
          public void received(Connection connection, final Object object)
          {
+            final long receiveTime = System.nanoTime();
             final Class<? extends Object> classType = object.getClass();
             ExecutorService executorService = listenerExecutors.get(classType);
             if(executorService != null)
@@ -212,6 +312,13 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
                            listener.consumeObject(object);
                         }
                      }
+
+                     KryoClassStatistics classStatistics = statistics.get(classType);
+                     if (classStatistics != null)
+                        classStatistics.recordReceived(System.nanoTime() - receiveTime);
+
+                     if (pooledKryo != null)
+                        pooledKryo.release(object);
                   }
                });
             }
@@ -264,6 +371,7 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    @Override
    public final void disconnect()
    {
+      stopSender();
       closeConnection();
       for(ExecutorService executor : listenerExecutors.values())
       {
@@ -271,6 +379,30 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       }
    }
    
+   /**
+    * Stops the sender thread once it has written the objects queued so far, such that the
+    * connection can be closed safely. The objects sent afterwards are written synchronously.
+    */
+   synchronized void stopSender()
+   {
+      if (senderThread == null)
+         return;
+
+      Thread thread = senderThread;
+      sendQueue = null;
+      senderThread = null;
+      LockSupport.unpark(thread);
+
+      try
+      {
+         thread.join();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+   }
+
    protected abstract void openConnection() throws IOException;
    
    protected abstract int sendUDP(Object object);
@@ -285,39 +417,4 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
     */
    @Override
    public abstract void closeConnection();
-
-   private class TableData
-   {
-      private final int row;
-      private long totalBits = 0;
-      private double bitsPerSecond = 0;
-      
-      public TableData(int row)
-      {
-         this.row = row;
-      }
-      
-      public void addData(int bits, double wallTime)
-      {
-         totalBits += bits;
-         bitsPerSecond = totalBits/wallTime;
-      }
-      
-      public long getTotalBits()
-      {
-         return totalBits;
-      }
-      
-      public double getBitsPerSecond()
-      {
-         return bitsPerSecond;
-      }
-      
-      public int getRow()
-      {
-         return row;
-      }
-   
-   }
-
 }
@@ -3,6 +3,7 @@ package us.ihmc.communication.net;
 import java.io.IOException;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.ByteBufferOutputStream;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryonet.Connection;
@@ -22,6 +23,10 @@ public class KryoObjectServer extends KryoObjectCommunicator
    private int maximumObjectSize = 0;
    private int maximumNumberOfConnections = Integer.MAX_VALUE;
 
+   // Only used from sendTCP which is never called concurrently.
+   private Kryo objectSizeKryo = null;
+   private Output objectSizeOutput = null;
+
    public KryoObjectServer(int tcpPort, NetClassList netClassList)
    {
       this(tcpPort, netClassList, 2097152, 2097152);
@@ -29,8 +34,9 @@ public class KryoObjectServer extends KryoObjectCommunicator
 
    public KryoObjectServer(int tcpPort, NetClassList netClassList, int writeBufferSize, int receiveBufferSize)
    {
-      this(tcpPort, netClassList, writeBufferSize, receiveBufferSize, new KryoSerialization());
+      this(tcpPort, netClassList, writeBufferSize, receiveBufferSize, new KryoSerialization(new PooledKryo()));
       netClassList.registerWithKryo(server.getKryo());
+      setPooledKryo((PooledKryo) server.getKryo());
    }
 
    public KryoObjectServer(int tcpPort, NetClassList netClassList, int writeBufferSize, int receiveBufferSize, Serialization serialization)
@@ -95,6 +101,28 @@ public class KryoObjectServer extends KryoObjectCommunicator
       return bbos.getByteBuffer().position();
    }
 
+   /** Same as {@link #calculateObjectSize(Object, int)} but reuses the same Kryo and buffer. */
+   private int computeObjectSize(Object object)
+   {
+      if (objectSizeKryo == null)
+      {
+         objectSizeKryo = new Kryo();
+         objectSizeOutput = new Output(writeBufferSize);
+      }
+
+      try
+      {
+         objectSizeOutput.setPosition(0);
+         objectSizeKryo.writeClassAndObject(objectSizeOutput, object);
+         return objectSizeOutput.position();
+      }
+      catch (KryoException e)
+      {
+         // The object does not fit in the write buffer.
+         return Integer.MAX_VALUE;
+      }
+   }
+
    @Override
    protected int sendTCP(Object object)
    {
@@ -103,7 +131,7 @@ public class KryoObjectServer extends KryoObjectCommunicator
       // Do not send if the object is above the limit
       if (maximumObjectSize > 0)
       {
-         int size = calculateObjectSize(object, writeBufferSize);
+         int size = computeObjectSize(object);
          if (size > maximumObjectSize)
          {
             PrintTools.error(this, "Dropping the object of " + object.getClass() + ", because it is too big " + size + " > " + maximumObjectSize);
@@ -0,0 +1,104 @@
+package us.ihmc.communication.net;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue that can be filled by any number of threads and emptied by a single
+ * thread.
+ * <p>
+ * The producers claim a slot with a compare-and-set on the producer index and then publish the
+ * element in the slot. The consumer only reads the slot at its index, an empty slot meaning that
+ * the queue is empty or the producer that claimed it has not published its element yet. No object
+ * is allocated when adding or removing elements.
+ * </p>
+ *
+ * @param <T> the type of the elements.
+ */
+public class MultiProducerSingleConsumerQueue<T>
+{
+   private final int mask;
+   private final AtomicReferenceArray<T> slots;
+   private final AtomicLong producerIndex = new AtomicLong(0);
+   private final AtomicLong consumerIndex = new AtomicLong(0);
+
+   /**
+    * @param capacity the maximum number of elements the queue can hold, rounded up to the next
+    *           power of two.
+    */
+   public MultiProducerSingleConsumerQueue(int capacity)
+   {
+      if (capacity < 1)
+         throw new IllegalArgumentException("The capacity has to be positive, was: " + capacity);
+
+      int actualCapacity = Integer.highestOneBit(capacity);
+      if (actualCapacity < capacity)
+         actualCapacity <<= 1;
+
+      mask = actualCapacity - 1;
+      slots = new AtomicReferenceArray<>(actualCapacity);
+   }
+
+   /**
+    * Adds an element to the queue. Can be called from any thread.
+    *
+    * @param element the element to add, not {@code null}.
+    * @return {@code false} if the queue is full and the element was not added.
+    */
+   public boolean offer(T element)
+   {
+      if (element == null)
+         throw new NullPointerException();
+
+      while (true)
+      {
+         long index = producerIndex.get();
+
+         if (index - consumerIndex.get() > mask)
+            return false;
+
+         if (producerIndex.compareAndSet(index, index + 1))
+         {
+            slots.lazySet((int) index & mask, element);
+            return true;
+         }
+      }
+   }
+
+   /**
+    * Removes the oldest element of the queue. Must only be called from the consuming thread.
+    *
+    * @return the oldest element or {@code null} if the queue is empty.
+    */
+   public T poll()
+   {
+      long index = consumerIndex.get();
+      int slot = (int) index & mask;
+      T element = slots.get(slot);
+
+      if (element == null)
+         return null;
+
+      slots.lazySet(slot, null);
+      consumerIndex.lazySet(index + 1);
+      return element;
+   }
+
+   /**
+    * @return an estimate of the number of elements in the queue.
+    */
+   public int size()
+   {
+      return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+   }
+
+   public boolean isEmpty()
+   {
+      return size() == 0;
+   }
+
+   public int capacity()
+   {
+      return mask + 1;
+   }
+}
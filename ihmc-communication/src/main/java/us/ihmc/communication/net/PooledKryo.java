@@ -0,0 +1,111 @@
+package us.ihmc.communication.net;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.esotericsoftware.kryo.Kryo;
+
+/**
+ * Kryo that deserializes the objects of the pooled classes into recycled instances instead of
+ * allocating a new instance for every object received.
+ * <p>
+ * Only the top-level instance is recycled, the fields holding other objects are filled by their
+ * own serializer. Instances are given back to the pool with {@link #release(Object)}, which can be
+ * called from any thread, while the deserialization has to happen on a single thread as done by
+ * the update thread of a kryonet end point.
+ * </p>
+ */
+public class PooledKryo extends Kryo
+{
+   public static final int DEFAULT_MAXIMUM_NUMBER_OF_IDLE_OBJECTS = 32;
+
+   private final Map<Class<?>, KryoClassStatistics> statistics = new ConcurrentHashMap<>();
+   private final Map<Class<?>, ObjectPool> pools = new ConcurrentHashMap<>();
+
+   public PooledKryo()
+   {
+      super();
+   }
+
+   /**
+    * Sets the counters to update when an object of the given class is deserialized.
+    */
+   public void setStatistics(Class<?> clazz, KryoClassStatistics classStatistics)
+   {
+      statistics.put(clazz, classStatistics);
+   }
+
+   /**
+    * Enables the recycling of the instances of the given class.
+    *
+    * @param clazz the class to pool.
+    * @param maximumNumberOfIdleObjects the maximum number of released instances kept for reuse,
+    *           rounded up to the next power of two.
+    */
+   public void enablePooling(Class<?> clazz, int maximumNumberOfIdleObjects)
+   {
+      pools.put(clazz, new ObjectPool(maximumNumberOfIdleObjects));
+   }
+
+   public boolean isPoolingEnabled(Class<?> clazz)
+   {
+      return pools.containsKey(clazz);
+   }
+
+   /**
+    * Gives back an instance previously created by this Kryo. The instance must not be used
+    * anymore by the caller.
+    *
+    * @return {@code true} if the instance will be reused, {@code false} if its class is not pooled
+    *         or the pool is full.
+    */
+   public boolean release(Object object)
+   {
+      ObjectPool pool = pools.get(object.getClass());
+      return pool != null && pool.release(object);
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T newInstance(Class<T> type)
+   {
+      ObjectPool pool = pools.get(type);
+      KryoClassStatistics classStatistics = statistics.get(type);
+
+      if (pool != null)
+      {
+         Object recycled = pool.acquire();
+
+         if (recycled != null)
+         {
+            if (classStatistics != null)
+               classStatistics.recordRecycled();
+            return (T) recycled;
+         }
+      }
+
+      if (classStatistics != null)
+         classStatistics.recordAllocated();
+      return super.newInstance(type);
+   }
+
+   private static class ObjectPool
+   {
+      private final MultiProducerSingleConsumerQueue<Object> idleObjects;
+
+      private ObjectPool(int maximumNumberOfIdleObjects)
+      {
+         idleObjects = new MultiProducerSingleConsumerQueue<>(maximumNumberOfIdleObjects);
+      }
+
+      private Object acquire()
+      {
+         return idleObjects.poll();
+      }
+
+      private boolean release(Object object)
+      {
+         return idleObjects.offer(object);
+      }
+   }
+}
@@ -1,53 +1,351 @@
 package us.ihmc.communication.packetCommunicator;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToIntFunction;
 
 import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.packets.Packet;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
 
 /**
- * 
+ *
  * Make sure you need this. Do you want to keep all packets? Or do you just need the latest.
- * 
- * Remeber, this interface generates garbage
- * 
+ *
+ * Remeber, the unbounded queue created with the default constructor generates garbage. The bounded
+ * queues, see {@link #ConcurrentPacketQueue(int, OverflowPolicy)} and
+ * {@link #ConcurrentPacketQueue(int, ToIntFunction)}, do not allocate when packets are added or
+ * polled.
+ *
+ * Packets can be added from any thread while they should only be polled from a single thread.
+ *
  */
 public class ConcurrentPacketQueue<T extends Packet> implements PacketConsumer<T>
 {
-   private final ConcurrentLinkedQueue<T> packetQueue = new ConcurrentLinkedQueue<T>();
+   private static final long BLOCK_PARK_TIME = TimeUnit.MICROSECONDS.toNanos(100);
 
+   /**
+    * What a bounded queue does when a packet is added while it is full.
+    */
+   public enum OverflowPolicy
+   {
+      /** The oldest packet in the queue is discarded to make room for the new one. */
+      DROP_OLDEST,
+      /** The thread adding the packet waits until a packet is polled. */
+      BLOCK,
+      /**
+       * Only the latest packet of each key is kept, see
+       * {@link ConcurrentPacketQueue#ConcurrentPacketQueue(int, ToIntFunction)}.
+       */
+      KEEP_LATEST_PER_KEY
+   }
+
+   private final ConcurrentLinkedQueue<T> packetQueue;
+   private final OverflowPolicy overflowPolicy;
+   private final RingBuffer<T> ringBuffer;
+
+   private final ToIntFunction<T> keyFunction;
+   private final Integer[] keys;
+   private final AtomicReferenceArray<T> latestPacketPerKey;
+   private final RingBuffer<Integer> pendingKeys;
+
+   private final AtomicLong numberOfDroppedPackets = new AtomicLong(0);
+   private final long[] enqueueTime = new long[1];
+
+   private YoInteger yoQueueDepth;
+   private YoLong yoNumberOfDroppedPackets;
+   private YoDouble yoLatency;
+
+   /**
+    * Creates an unbounded queue.
+    */
    public ConcurrentPacketQueue()
    {
+      packetQueue = new ConcurrentLinkedQueue<T>();
+      overflowPolicy = null;
+      ringBuffer = null;
+      keyFunction = null;
+      keys = null;
+      latestPacketPerKey = null;
+      pendingKeys = null;
+   }
+
+   /**
+    * Creates a bounded queue.
+    *
+    * @param capacity the maximum number of packets in the queue, rounded up to the next power of
+    *           two.
+    * @param overflowPolicy what to do when a packet is added to a full queue, either
+    *           {@link OverflowPolicy#DROP_OLDEST} or {@link OverflowPolicy#BLOCK}.
+    */
+   public ConcurrentPacketQueue(int capacity, OverflowPolicy overflowPolicy)
+   {
+      if (overflowPolicy == OverflowPolicy.KEEP_LATEST_PER_KEY)
+         throw new IllegalArgumentException("A key function is needed to keep the latest packet per key.");
+
+      packetQueue = null;
+      this.overflowPolicy = overflowPolicy;
+      ringBuffer = new RingBuffer<>(capacity);
+      keyFunction = null;
+      keys = null;
+      latestPacketPerKey = null;
+      pendingKeys = null;
+   }
+
+   /**
+    * Creates a queue that only keeps the latest packet for each key, e.g. one packet per robot
+    * side. The packets are polled in the order their key first became pending.
+    *
+    * @param numberOfKeys the number of different keys.
+    * @param keyFunction gives the key of a packet, has to be in [0, {@code numberOfKeys}[.
+    */
+   public ConcurrentPacketQueue(int numberOfKeys, ToIntFunction<T> keyFunction)
+   {
+      packetQueue = null;
+      overflowPolicy = OverflowPolicy.KEEP_LATEST_PER_KEY;
+      ringBuffer = null;
+      this.keyFunction = keyFunction;
+      keys = new Integer[numberOfKeys];
+      for (int i = 0; i < numberOfKeys; i++)
+         keys[i] = i;
+      latestPacketPerKey = new AtomicReferenceArray<>(numberOfKeys);
+      pendingKeys = new RingBuffer<>(numberOfKeys);
+   }
+
+   /**
+    * Creates the variables reporting the depth of the queue, the number of packets dropped and
+    * the time the last polled packet spent in the queue. The variables are updated when polling
+    * the queue.
+    *
+    * @param namePrefix the prefix used for the name of the variables.
+    * @param parentRegistry the registry the variables are added to.
+    */
+   public void createYoVariables(String namePrefix, YoVariableRegistry parentRegistry)
+   {
+      yoQueueDepth = new YoInteger(namePrefix + "QueueDepth", parentRegistry);
+      yoNumberOfDroppedPackets = new YoLong(namePrefix + "NumberOfDroppedPackets", parentRegistry);
+      yoLatency = new YoDouble(namePrefix + "QueueLatency", parentRegistry);
    }
 
    public boolean isNewPacketAvailable()
    {
-      return !packetQueue.isEmpty();
+      return size() > 0;
    }
 
    public T getPacket()
    {
-      return packetQueue.poll();
+      T packet;
+      enqueueTime[0] = Long.MIN_VALUE;
+
+      if (packetQueue != null)
+      {
+         packet = packetQueue.poll();
+      }
+      else if (ringBuffer != null)
+      {
+         packet = ringBuffer.poll(enqueueTime);
+      }
+      else
+      {
+         Integer key = pendingKeys.poll(enqueueTime);
+         packet = key == null ? null : latestPacketPerKey.getAndSet(key, null);
+      }
+
+      if (yoQueueDepth != null)
+      {
+         yoQueueDepth.set(size());
+         yoNumberOfDroppedPackets.set(numberOfDroppedPackets.get());
+         if (packet != null && enqueueTime[0] != Long.MIN_VALUE)
+            yoLatency.set((System.nanoTime() - enqueueTime[0]) / 1.0e9);
+      }
+
+      return packet;
    }
-   
+
    public void put(T object)
    {
-      packetQueue.add(object);
+      if (packetQueue != null)
+      {
+         packetQueue.add(object);
+         return;
+      }
+
+      long time = System.nanoTime();
+
+      switch (overflowPolicy)
+      {
+      case DROP_OLDEST:
+         while (!ringBuffer.offer(object, time))
+         {
+            if (ringBuffer.poll(null) != null)
+               numberOfDroppedPackets.incrementAndGet();
+         }
+         break;
+      case BLOCK:
+         while (!ringBuffer.offer(object, time))
+            LockSupport.parkNanos(BLOCK_PARK_TIME);
+         break;
+      case KEEP_LATEST_PER_KEY:
+         int key = keyFunction.applyAsInt(object);
+         if (latestPacketPerKey.getAndSet(key, object) != null)
+            numberOfDroppedPackets.incrementAndGet(); // The key is already pending, the previous packet is replaced.
+         else
+            pendingKeys.offer(keys[key], time);
+         break;
+      default:
+         throw new RuntimeException("Unexpected overflow policy: " + overflowPolicy);
+      }
    }
 
    public void clear()
    {
-      packetQueue.clear();
+      if (packetQueue != null)
+      {
+         packetQueue.clear();
+      }
+      else if (ringBuffer != null)
+      {
+         while (ringBuffer.poll(null) != null)
+            ;
+      }
+      else
+      {
+         Integer key;
+         while ((key = pendingKeys.poll(null)) != null)
+            latestPacketPerKey.set(key, null);
+      }
    }
 
    @Override
    public void receivedPacket(T packet)
    {
-      packetQueue.add(packet);
+      put(packet);
    }
-   
+
    public int size()
    {
-      return packetQueue.size();
+      if (packetQueue != null)
+         return packetQueue.size();
+      else if (ringBuffer != null)
+         return ringBuffer.size();
+      else
+         return pendingKeys.size();
+   }
+
+   /**
+    * @return the number of packets discarded by a {@link OverflowPolicy#DROP_OLDEST} queue, or
+    *         replaced by a newer packet in a {@link OverflowPolicy#KEEP_LATEST_PER_KEY} queue.
+    */
+   public long getNumberOfDroppedPackets()
+   {
+      return numberOfDroppedPackets.get();
+   }
+
+   /**
+    * Bounded lock-free queue based on Dmitry Vyukov's bounded MPMC queue: each slot holds a
+    * sequence number telling whether it is ready to be written or read for a given turn.
+    */
+   private static class RingBuffer<E>
+   {
+      private final int mask;
+      private final AtomicLongArray sequences;
+      private final AtomicReferenceArray<E> elements;
+      private final long[] enqueueTimes;
+      private final AtomicLong enqueuePosition = new AtomicLong(0);
+      private final AtomicLong dequeuePosition = new AtomicLong(0);
+
+      private RingBuffer(int capacity)
+      {
+         if (capacity < 1)
+            throw new IllegalArgumentException("The capacity has to be positive, was: " + capacity);
+
+         int actualCapacity = Integer.highestOneBit(capacity);
+         if (actualCapacity < capacity)
+            actualCapacity <<= 1;
+
+         mask = actualCapacity - 1;
+         sequences = new AtomicLongArray(actualCapacity);
+         elements = new AtomicReferenceArray<>(actualCapacity);
+         enqueueTimes = new long[actualCapacity];
+
+         for (int i = 0; i < actualCapacity; i++)
+            sequences.set(i, i);
+      }
+
+      private boolean offer(E element, long time)
+      {
+         long position = enqueuePosition.get();
+
+         while (true)
+         {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+
+            if (difference == 0)
+            {
+               if (enqueuePosition.compareAndSet(position, position + 1))
+               {
+                  enqueueTimes[slot] = time;
+                  elements.lazySet(slot, element);
+                  sequences.lazySet(slot, position + 1);
+                  return true;
+               }
+               position = enqueuePosition.get();
+            }
+            else if (difference < 0)
+            {
+               return false;
+            }
+            else
+            {
+               position = enqueuePosition.get();
+            }
+         }
+      }
+
+      private E poll(long[] enqueueTimeToPack)
+      {
+         long position = dequeuePosition.get();
+
+         while (true)
+         {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - (position + 1);
+
+            if (difference == 0)
+            {
+               if (dequeuePosition.compareAndSet(position, position + 1))
+               {
+                  E element = elements.get(slot);
+                  if (enqueueTimeToPack != null)
+                     enqueueTimeToPack[0] = enqueueTimes[slot];
+                  elements.lazySet(slot, null);
+                  sequences.lazySet(slot, position + mask + 1);
+                  return element;
+               }
+               position = dequeuePosition.get();
+            }
+            else if (difference < 0)
+            {
+               return null;
+            }
+            else
+            {
+               position = dequeuePosition.get();
+            }
+         }
+      }
+
+      private int size()
+      {
+         return (int) Math.max(0, enqueuePosition.get() - dequeuePosition.get());
+      }
    }
 }
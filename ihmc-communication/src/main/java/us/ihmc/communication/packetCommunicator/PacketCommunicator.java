@@ -196,6 +196,15 @@ public class PacketCommunicator implements Connectable
       }
    }
 
+   /**
+    * @return the communicator this packet communicator is built on, e.g. to enable the pooled
+    *         receive or the asynchronous send of a {@link us.ihmc.communication.net.KryoObjectCommunicator}.
+    */
+   public NetworkedObjectCommunicator getObjectCommunicator()
+   {
+      return communicator;
+   }
+
    private static class GlobalPacketObjectConsumer implements GlobalObjectConsumer
    {
       private final GlobalPacketConsumer globalPacketConsumer;
@@ -0,0 +1,190 @@
+package us.ihmc.communication.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class KryoObjectCommunicatorAsynchronousSendTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testObjectsAreSentInOrder() throws Exception
+   {
+      RecordingCommunicator communicator = new RecordingCommunicator(0);
+      communicator.enableAsynchronousSend(1 << 16);
+
+      int numberOfThreads = 4;
+      int objectsPerThread = 5000;
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+
+      for (int threadIndex = 0; threadIndex < numberOfThreads; threadIndex++)
+      {
+         int producer = threadIndex;
+         Thread thread = new Thread(() ->
+         {
+            try
+            {
+               start.await();
+            }
+            catch (InterruptedException e)
+            {
+               throw new RuntimeException(e);
+            }
+
+            for (int i = 0; i < objectsPerThread; i++)
+               assertEquals(0, communicator.send(new SequencedObject(producer, i)));
+         });
+         threads.add(thread);
+         thread.start();
+      }
+
+      start.countDown();
+      for (Thread thread : threads)
+         thread.join();
+      communicator.disconnect();
+
+      // Every object is written once, and the objects from each thread are written in order.
+      assertEquals(numberOfThreads * objectsPerThread, communicator.sentObjects.size());
+      assertEquals(0, communicator.getStatistics(SequencedObject.class).getNumberOfDroppedObjects());
+      assertEquals(numberOfThreads * objectsPerThread, communicator.getStatistics(SequencedObject.class).getNumberOfSentObjects());
+
+      int[] nextSequenceNumbers = new int[numberOfThreads];
+      for (Object sentObject : communicator.sentObjects)
+      {
+         SequencedObject sequencedObject = (SequencedObject) sentObject;
+         assertEquals(nextSequenceNumbers[sequencedObject.producer]++, sequencedObject.sequenceNumber);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testDisconnectDrainsQueue() throws Exception
+   {
+      // A slow connection, such that objects are still queued when disconnecting.
+      RecordingCommunicator communicator = new RecordingCommunicator(1);
+      communicator.enableAsynchronousSend(1024);
+
+      int numberOfObjects = 200;
+      for (int i = 0; i < numberOfObjects; i++)
+         communicator.send(new SequencedObject(0, i));
+      assertTrue(communicator.sentObjects.size() < numberOfObjects);
+
+      communicator.disconnect();
+
+      // The queued objects are written before the connection is closed, and nothing is written afterwards.
+      assertEquals(numberOfObjects, communicator.sentObjects.size());
+      assertFalse(communicator.sentAfterClose);
+
+      int sequenceNumber = 0;
+      for (Object sentObject : communicator.sentObjects)
+         assertEquals(sequenceNumber++, ((SequencedObject) sentObject).sequenceNumber);
+
+      // The sender is stopped, the objects are now written by the calling thread.
+      assertEquals(1, communicator.send(new SequencedObject(0, numberOfObjects)));
+      assertEquals(numberOfObjects + 1, communicator.sentObjects.size());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testObjectsAreDroppedWhenQueueIsFull() throws Exception
+   {
+      RecordingCommunicator communicator = new RecordingCommunicator(0);
+      // Block the sender on the first object such that the queue fills up.
+      communicator.blockSender = new CountDownLatch(1);
+      communicator.enableAsynchronousSend(4);
+
+      int numberOfObjects = 100;
+      for (int i = 0; i < numberOfObjects; i++)
+         communicator.send(new SequencedObject(0, i));
+
+      communicator.blockSender.countDown();
+      communicator.disconnect();
+
+      KryoClassStatistics statistics = communicator.getStatistics(SequencedObject.class);
+      assertTrue(statistics.getNumberOfDroppedObjects() > 0);
+      assertEquals(numberOfObjects, communicator.sentObjects.size() + statistics.getNumberOfDroppedObjects());
+   }
+
+   private static class RecordingCommunicator extends KryoObjectCommunicator
+   {
+      private final long sendDurationMillis;
+      private final ConcurrentLinkedQueue<Object> sentObjects = new ConcurrentLinkedQueue<>();
+      private volatile boolean closed = false;
+      private volatile boolean sentAfterClose = false;
+      private volatile CountDownLatch blockSender = null;
+
+      private RecordingCommunicator(long sendDurationMillis)
+      {
+         this.sendDurationMillis = sendDurationMillis;
+         registerClassList(new NetClassList(SequencedObject.class));
+      }
+
+      @Override
+      protected void openConnection() throws IOException
+      {
+         closed = false;
+      }
+
+      @Override
+      protected int sendUDP(Object object)
+      {
+         return sendTCP(object);
+      }
+
+      @Override
+      protected int sendTCP(Object object)
+      {
+         try
+         {
+            if (blockSender != null)
+               blockSender.await();
+            if (sendDurationMillis > 0)
+               Thread.sleep(sendDurationMillis);
+         }
+         catch (InterruptedException e)
+         {
+            throw new RuntimeException(e);
+         }
+
+         if (closed)
+            sentAfterClose = true;
+         sentObjects.add(object);
+         return 1;
+      }
+
+      @Override
+      public boolean isConnected()
+      {
+         return !closed;
+      }
+
+      @Override
+      public void closeConnection()
+      {
+         closed = true;
+      }
+   }
+
+   private static class SequencedObject
+   {
+      private final int producer;
+      private final int sequenceNumber;
+
+      private SequencedObject(int producer, int sequenceNumber)
+      {
+         this.producer = producer;
+         this.sequenceNumber = sequenceNumber;
+      }
+   }
+}
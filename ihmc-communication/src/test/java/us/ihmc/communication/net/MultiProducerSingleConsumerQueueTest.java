@@ -0,0 +1,102 @@
+package us.ihmc.communication.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class MultiProducerSingleConsumerQueueTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSingleThread()
+   {
+      MultiProducerSingleConsumerQueue<Integer> queue = new MultiProducerSingleConsumerQueue<>(3);
+      assertEquals(4, queue.capacity());
+      assertNull(queue.poll());
+
+      for (int i = 0; i < 4; i++)
+         assertTrue(queue.offer(i));
+      assertFalse(queue.offer(4));
+      assertEquals(4, queue.size());
+
+      for (int i = 0; i < 4; i++)
+         assertEquals(i, queue.poll().intValue());
+      assertNull(queue.poll());
+      assertTrue(queue.isEmpty());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testConcurrentProducers() throws InterruptedException
+   {
+      int numberOfProducers = 4;
+      int numberOfElementsPerProducer = 100000;
+      MultiProducerSingleConsumerQueue<Long> queue = new MultiProducerSingleConsumerQueue<>(64);
+      CountDownLatch startLatch = new CountDownLatch(1);
+      List<Thread> producers = new ArrayList<>();
+
+      for (int producerIndex = 0; producerIndex < numberOfProducers; producerIndex++)
+      {
+         long producerId = producerIndex;
+         Thread producer = new Thread(() ->
+         {
+            try
+            {
+               startLatch.await();
+            }
+            catch (InterruptedException e)
+            {
+               return;
+            }
+
+            for (long i = 0; i < numberOfElementsPerProducer; i++)
+            {
+               Long element = producerId * numberOfElementsPerProducer + i;
+               while (!queue.offer(element))
+                  Thread.yield();
+            }
+         });
+         producers.add(producer);
+         producer.start();
+      }
+
+      startLatch.countDown();
+
+      // Each producer's elements have to come out in order, and all of them exactly once.
+      long[] lastElements = new long[numberOfProducers];
+      for (int i = 0; i < numberOfProducers; i++)
+         lastElements[i] = -1;
+
+      int numberOfPolledElements = 0;
+      while (numberOfPolledElements < numberOfProducers * numberOfElementsPerProducer)
+      {
+         Long element = queue.poll();
+
+         if (element == null)
+         {
+            Thread.yield();
+            continue;
+         }
+
+         int producerId = (int) (element / numberOfElementsPerProducer);
+         long index = element % numberOfElementsPerProducer;
+         assertEquals(lastElements[producerId] + 1, index);
+         lastElements[producerId] = index;
+         numberOfPolledElements++;
+      }
+
+      for (Thread producer : producers)
+         producer.join();
+
+      assertNull(queue.poll());
+   }
+}
@@ -0,0 +1,107 @@
+package us.ihmc.communication.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class PooledKryoTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testRecycledInstancesDoNotLeakState()
+   {
+      Kryo writer = createKryo(new Kryo());
+      PooledKryo reader = (PooledKryo) createKryo(new PooledKryo());
+      KryoClassStatistics statistics = new KryoClassStatistics(TestObject.class);
+      reader.setStatistics(TestObject.class, statistics);
+      reader.enablePooling(TestObject.class, 4);
+      assertTrue(reader.isPoolingEnabled(TestObject.class));
+
+      TestObject first = roundTrip(writer, reader, new TestObject(1, "first", new double[] {1.0, 2.0}));
+      assertEquals(1, first.sequenceNumber);
+      assertEquals("first", first.name);
+      assertArrayEquals(new double[] {1.0, 2.0}, first.values, 0.0);
+      assertEquals(1, statistics.getNumberOfAllocatedObjects());
+      assertEquals(0, statistics.getNumberOfRecycledObjects());
+
+      // The released instance is reused, the fields that are null in the new message are cleared.
+      assertTrue(reader.release(first));
+      TestObject second = roundTrip(writer, reader, new TestObject(2, null, null));
+      assertSame(first, second);
+      assertEquals(2, second.sequenceNumber);
+      assertNull(second.name);
+      assertNull(second.values);
+      assertEquals(1, statistics.getNumberOfAllocatedObjects());
+      assertEquals(1, statistics.getNumberOfRecycledObjects());
+
+      // Without release, a new instance is allocated.
+      TestObject third = roundTrip(writer, reader, new TestObject(3, "third", new double[] {3.0}));
+      assertNotSame(second, third);
+      assertEquals(3, third.sequenceNumber);
+      assertEquals("third", third.name);
+      assertArrayEquals(new double[] {3.0}, third.values, 0.0);
+      assertEquals(2, statistics.getNumberOfAllocatedObjects());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testRelease()
+   {
+      PooledKryo kryo = (PooledKryo) createKryo(new PooledKryo());
+      assertFalse(kryo.isPoolingEnabled(TestObject.class));
+      assertFalse(kryo.release(new TestObject()));
+
+      kryo.enablePooling(TestObject.class, 2);
+      assertTrue(kryo.release(new TestObject()));
+      assertTrue(kryo.release(new TestObject()));
+      // The pool is full, the instance is left to the garbage collector.
+      assertFalse(kryo.release(new TestObject()));
+      // Other classes are not pooled.
+      assertFalse(kryo.release(new double[0]));
+   }
+
+   private static Kryo createKryo(Kryo kryo)
+   {
+      kryo.register(TestObject.class);
+      kryo.register(double[].class);
+      return kryo;
+   }
+
+   private static TestObject roundTrip(Kryo writer, Kryo reader, TestObject object)
+   {
+      Output output = new Output(1024);
+      writer.writeObject(output, object);
+      return reader.readObject(new Input(output.getBuffer(), 0, output.position()), TestObject.class);
+   }
+
+   // Member classes need to be static in order for deserialization to work
+   private static class TestObject
+   {
+      public int sequenceNumber;
+      public String name;
+      public double[] values;
+
+      public TestObject()
+      {
+      }
+
+      public TestObject(int sequenceNumber, String name, double[] values)
+      {
+         this.sequenceNumber = sequenceNumber;
+         this.name = name;
+         this.values = values;
+      }
+   }
+}
@@ -0,0 +1,125 @@
+package us.ihmc.communication.packetCommunicator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import controller_msgs.msg.dds.HandDesiredConfigurationMessage;
+import us.ihmc.communication.packetCommunicator.ConcurrentPacketQueue.OverflowPolicy;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
+
+public class ConcurrentPacketQueueTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testDropOldest()
+   {
+      ConcurrentPacketQueue<HandDesiredConfigurationMessage> queue = new ConcurrentPacketQueue<>(4, OverflowPolicy.DROP_OLDEST);
+      YoVariableRegistry registry = new YoVariableRegistry("test");
+      queue.createYoVariables("hand", registry);
+
+      for (int i = 0; i < 10; i++)
+         queue.put(createMessage(0, i));
+
+      assertEquals(4, queue.size());
+      assertEquals(6, queue.getNumberOfDroppedPackets());
+
+      for (int i = 6; i < 10; i++)
+         assertEquals(i, queue.getPacket().getSequenceId());
+      assertNull(queue.getPacket());
+      assertFalse(queue.isNewPacketAvailable());
+
+      assertEquals(0, ((YoInteger) registry.getVariable("handQueueDepth")).getIntegerValue());
+      assertEquals(6, ((YoLong) registry.getVariable("handNumberOfDroppedPackets")).getLongValue());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testKeepLatestPerKey()
+   {
+      ConcurrentPacketQueue<HandDesiredConfigurationMessage> queue = new ConcurrentPacketQueue<>(2, HandDesiredConfigurationMessage::getRobotSide);
+
+      for (int i = 0; i < 5; i++)
+         queue.put(createMessage(i % 2, i));
+
+      assertEquals(2, queue.size());
+      assertEquals(3, queue.getNumberOfDroppedPackets());
+
+      // The key that became pending first is polled first, with its latest packet.
+      HandDesiredConfigurationMessage first = queue.getPacket();
+      assertEquals(0, first.getRobotSide());
+      assertEquals(4, first.getSequenceId());
+      HandDesiredConfigurationMessage second = queue.getPacket();
+      assertEquals(1, second.getRobotSide());
+      assertEquals(3, second.getSequenceId());
+      assertNull(queue.getPacket());
+
+      queue.put(createMessage(1, 5));
+      queue.clear();
+      assertNull(queue.getPacket());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testBlockWithConcurrentProducers() throws InterruptedException
+   {
+      int numberOfProducers = 4;
+      int numberOfPacketsPerProducer = 20000;
+      ConcurrentPacketQueue<HandDesiredConfigurationMessage> queue = new ConcurrentPacketQueue<>(8, OverflowPolicy.BLOCK);
+      List<Thread> producers = new ArrayList<>();
+
+      for (int producerIndex = 0; producerIndex < numberOfProducers; producerIndex++)
+      {
+         int side = producerIndex;
+         Thread producer = new Thread(() ->
+         {
+            for (int i = 0; i < numberOfPacketsPerProducer; i++)
+               queue.put(createMessage(side, i));
+         });
+         producers.add(producer);
+         producer.start();
+      }
+
+      // No packet is dropped and the packets of each producer come out in order.
+      long[] lastPackets = new long[numberOfProducers];
+      for (int i = 0; i < numberOfProducers; i++)
+         lastPackets[i] = -1;
+
+      for (int i = 0; i < numberOfProducers * numberOfPacketsPerProducer;)
+      {
+         HandDesiredConfigurationMessage packet = queue.getPacket();
+
+         if (packet == null)
+         {
+            Thread.yield();
+            continue;
+         }
+
+         assertEquals(lastPackets[packet.getRobotSide()] + 1, packet.getSequenceId());
+         lastPackets[packet.getRobotSide()] = packet.getSequenceId();
+         i++;
+      }
+
+      for (Thread producer : producers)
+         producer.join();
+
+      assertEquals(0, queue.getNumberOfDroppedPackets());
+      assertNull(queue.getPacket());
+   }
+
+   private static HandDesiredConfigurationMessage createMessage(int robotSide, int index)
+   {
+      HandDesiredConfigurationMessage message = new HandDesiredConfigurationMessage();
+      message.setRobotSide((byte) robotSide);
+      message.setSequenceId(index);
+      return message;
+   }
+}
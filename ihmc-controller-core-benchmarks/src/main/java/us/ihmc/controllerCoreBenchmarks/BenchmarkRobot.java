@@ -0,0 +1,29 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+/**
+ * The robots the controller core benchmarks can be run with. The models are created headless such
+ * that no simulation or graphics is needed.
+ */
+public enum BenchmarkRobot
+{
+   ATLAS, VALKYRIE;
+
+   public DRCRobotModel createRobotModel()
+   {
+      switch (this)
+      {
+      case ATLAS:
+         return new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_FOREARMS, RobotTarget.SCS, true);
+      case VALKYRIE:
+         return new ValkyrieRobotModel(RobotTarget.SCS, true);
+      default:
+         throw new RuntimeException("Unhandled robot: " + this);
+      }
+   }
+}
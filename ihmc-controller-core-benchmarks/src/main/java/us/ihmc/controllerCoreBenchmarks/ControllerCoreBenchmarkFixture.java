@@ -0,0 +1,214 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCoreMode;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.virtualModelControl.VirtualModelControlCommand;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.ControllerCoreOptimizationSettings;
+import us.ihmc.graphicsDescription.yoGraphics.YoGraphicsListRegistry;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.sensorProcessing.outputData.JointDesiredOutputList;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+/**
+ * Holds a recorded walking sequence for a robot together with a {@link WholeBodyControllerCore}
+ * that has all three modules enabled and can replay the sequence tick by tick.
+ * <p>
+ * The controller core uses the same robot model as the recording, its QP solvers are
+ * {@link QPProblemRecorder}s such that the problems solved by the inverse dynamics module can be
+ * extracted and replayed on their own.
+ * </p>
+ */
+public class ControllerCoreBenchmarkFixture
+{
+   private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+
+   private final ControllerCoreSequenceRecorder recorder;
+   private final WholeBodyControlCoreToolbox toolbox;
+   private final WholeBodyControllerCore controllerCore;
+   private final List<QPProblemRecorder> qpSolvers = new ArrayList<>();
+
+   private final ControllerCoreCommand replayCommand = new ControllerCoreCommand(WholeBodyControllerCoreMode.INVERSE_DYNAMICS);
+   private int tickIndex = -1;
+
+   public ControllerCoreBenchmarkFixture(BenchmarkRobot robot)
+   {
+      DRCRobotModel robotModel = robot.createRobotModel();
+      recorder = new ControllerCoreSequenceRecorder(robotModel);
+      recorder.runWarmup();
+
+      if (recorder.getNumberOfTicks() == 0)
+         throw new RuntimeException("Nothing was recorded for " + robot);
+
+      FullHumanoidRobotModel fullRobotModel = recorder.getFullRobotModel();
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+      ControllerCoreOptimizationSettings optimizationSettings = createRecordingSettings(walkingControllerParameters.getMomentumOptimizationSettings());
+
+      toolbox = new WholeBodyControlCoreToolbox(robotModel.getControllerDT(), recorder.getGravityZ(), fullRobotModel.getRootJoint(),
+                                                recorder.getJointsToOptimizeFor(), recorder.getReferenceFrames().getCenterOfMassFrame(),
+                                                optimizationSettings, new YoGraphicsListRegistry(), registry);
+      toolbox.setJointPrivilegedConfigurationParameters(walkingControllerParameters.getJointPrivilegedConfigurationParameters());
+      toolbox.setupForInverseDynamicsSolver(recorder.getContactableBodies());
+      toolbox.setupForInverseKinematicsSolver();
+      toolbox.setupForVirtualModelControlSolver(fullRobotModel.getPelvis(), recorder.getContactableBodies());
+
+      JointDesiredOutputList controllerOutput = new JointDesiredOutputList(fullRobotModel.getControllableOneDoFJoints());
+      controllerCore = new WholeBodyControllerCore(toolbox, recorder.createFeedbackControlTemplate(), controllerOutput, registry);
+      controllerCore.initialize();
+   }
+
+   /**
+    * Wraps the robot settings such that every module of the controller core gets a
+    * {@link QPProblemRecorder} as QP solver.
+    */
+   private ControllerCoreOptimizationSettings createRecordingSettings(ControllerCoreOptimizationSettings settings)
+   {
+      InvocationHandler handler = (proxy, method, args) ->
+      {
+         if (method.getName().equals("getActiveSetQPSolver"))
+         {
+            QPProblemRecorder qpSolver = new QPProblemRecorder();
+            qpSolvers.add(qpSolver);
+            return qpSolver;
+         }
+
+         try
+         {
+            return method.invoke(settings, args);
+         }
+         catch (InvocationTargetException e)
+         {
+            throw e.getCause();
+         }
+      };
+
+      Class<?>[] interfaces = {ControllerCoreOptimizationSettings.class};
+      return (ControllerCoreOptimizationSettings) Proxy.newProxyInstance(ControllerCoreOptimizationSettings.class.getClassLoader(), interfaces, handler);
+   }
+
+   public int getNumberOfTicks()
+   {
+      return recorder.getNumberOfTicks();
+   }
+
+   /**
+    * Moves on to the next recorded tick, going back to the first one after the last, and sets the
+    * robot in the state it was for that tick.
+    *
+    * @return the index of the new tick.
+    */
+   public int nextTick()
+   {
+      tickIndex = (tickIndex + 1) % recorder.getNumberOfTicks();
+      recorder.applyRobotState(tickIndex);
+      return tickIndex;
+   }
+
+   /**
+    * Submits the command recorded for the given tick to the controller core, converted for the
+    * given mode.
+    * <p>
+    * The walking controller only runs in inverse dynamics mode, for the other modes the feedback
+    * commands drive the controller core. The inverse dynamics commands that are also virtual model
+    * control commands, such as the contact states, are passed on in virtual model control mode.
+    * </p>
+    */
+   public void submitRecordedCommand(int tickIndex, WholeBodyControllerCoreMode mode)
+   {
+      ControllerCoreCommand recordedCommand = recorder.getRecordedCommand(tickIndex);
+
+      replayCommand.setControllerCoreMode(mode);
+      replayCommand.clear();
+      replayCommand.getVirtualModelControlCommandList().clear();
+      replayCommand.getFeedbackControlCommandList().set(recordedCommand.getFeedbackControlCommandList());
+
+      switch (mode)
+      {
+      case INVERSE_DYNAMICS:
+         replayCommand.getInverseDynamicsCommandList().set(recordedCommand.getInverseDynamicsCommandList());
+         break;
+      case INVERSE_KINEMATICS:
+         replayCommand.getInverseKinematicsCommandList().set(recordedCommand.getInverseKinematicsCommandList());
+         break;
+      case VIRTUAL_MODEL:
+         replayCommand.getVirtualModelControlCommandList().set(recordedCommand.getVirtualModelControlCommandList());
+         addVirtualModelControlCommands(recordedCommand.getInverseDynamicsCommandList());
+         break;
+      default:
+         break;
+      }
+
+      replayCommand.completeLowLevelJointData(recordedCommand.getLowLevelOneDoFJointDesiredDataHolder());
+      controllerCore.submitControllerCoreCommand(replayCommand);
+   }
+
+   private void addVirtualModelControlCommands(InverseDynamicsCommandList commandList)
+   {
+      for (int i = 0; i < commandList.getNumberOfCommands(); i++)
+      {
+         InverseDynamicsCommand<?> command = commandList.getCommand(i);
+         if (command instanceof InverseDynamicsCommandList)
+            addVirtualModelControlCommands((InverseDynamicsCommandList) command);
+         else if (command instanceof VirtualModelControlCommand)
+            replayCommand.addVirtualModelControlCommand((VirtualModelControlCommand<?>) command);
+      }
+   }
+
+   /**
+    * Replays the whole sequence once in inverse dynamics mode and returns a copy of each QP solved
+    * by the inverse dynamics module.
+    */
+   public List<RecordedQPProblem> recordInverseDynamicsQPProblems()
+   {
+      for (int i = 0; i < qpSolvers.size(); i++)
+      {
+         qpSolvers.get(i).getRecordedProblems().clear();
+         qpSolvers.get(i).setRecording(true);
+      }
+
+      for (int i = 0; i < getNumberOfTicks(); i++)
+      {
+         submitRecordedCommand(nextTick(), WholeBodyControllerCoreMode.INVERSE_DYNAMICS);
+         controllerCore.compute();
+      }
+
+      List<RecordedQPProblem> problems = new ArrayList<>();
+      for (int i = 0; i < qpSolvers.size(); i++)
+      {
+         qpSolvers.get(i).setRecording(false);
+         problems.addAll(qpSolvers.get(i).getRecordedProblems());
+      }
+      return problems;
+   }
+
+   public ControllerCoreSequenceRecorder getRecorder()
+   {
+      return recorder;
+   }
+
+   public WholeBodyControlCoreToolbox getToolbox()
+   {
+      return toolbox;
+   }
+
+   public WholeBodyControllerCore getControllerCore()
+   {
+      return controllerCore;
+   }
+
+   public YoVariableRegistry getRegistry()
+   {
+      return registry;
+   }
+}
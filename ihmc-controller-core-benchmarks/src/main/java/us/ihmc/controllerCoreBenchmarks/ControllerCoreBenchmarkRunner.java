@@ -0,0 +1,31 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the controller core benchmarks with the GC profiler, such that next to the average time
+ * per tick in ns/op the bytes allocated per tick are reported as {@code gc.alloc.rate.norm} in B/op.
+ * <p>
+ * The regular JMH command line options can be given to narrow down the run, for instance
+ * {@code WholeBodyControllerCoreBenchmark -p robot=ATLAS -p mode=INVERSE_DYNAMICS}.
+ * </p>
+ */
+public class ControllerCoreBenchmarkRunner
+{
+   public static void main(String[] args) throws Exception
+   {
+      CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+      OptionsBuilder optionsBuilder = new OptionsBuilder();
+      optionsBuilder.parent(commandLineOptions);
+      if (commandLineOptions.getIncludes().isEmpty())
+         optionsBuilder.include(ControllerCoreBenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+      optionsBuilder.addProfiler(GCProfiler.class);
+      Options options = optionsBuilder.build();
+
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,226 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.warmup.HumanoidControllerWarmup;
+import us.ihmc.avatar.warmup.HumanoidControllerWarumupTools;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseKinematics.InverseKinematicsCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseKinematics.InverseKinematicsCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.virtualModelControl.VirtualModelControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.virtualModelControl.VirtualModelControlCommandList;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
+import us.ihmc.robotics.screwTheory.ScrewTools;
+
+/**
+ * Runs the walking controller offline and records, for every control tick, the state of the robot
+ * and a deep copy of the {@link ControllerCoreCommand} that the walking controller submitted to the
+ * controller core.
+ * <p>
+ * The recorded commands hold references to the rigid-bodies and joints of
+ * {@link #getFullRobotModel()}, so they can only be replayed on a controller core built for that
+ * same model. Replaying a tick is done by first calling {@link #applyRobotState(int)} and then
+ * submitting {@link #getRecordedCommand(int)}.
+ * </p>
+ */
+public class ControllerCoreSequenceRecorder extends HumanoidControllerWarmup
+{
+   private static final double standingDuration = 0.5;
+   private static final double steppingDuration = 1.5;
+
+   private final InverseDynamicsJoint[] allJoints;
+   private final DenseMatrix64F jointConfigurations;
+   private final DenseMatrix64F jointVelocities;
+
+   private final List<DenseMatrix64F> recordedJointConfigurations = new ArrayList<>();
+   private final List<DenseMatrix64F> recordedJointVelocities = new ArrayList<>();
+   private final List<ControllerCoreCommand> recordedCommands = new ArrayList<>();
+
+   public ControllerCoreSequenceRecorder(DRCRobotModel robotModel)
+   {
+      super(robotModel);
+
+      allJoints = ScrewTools.computeSubtreeJoints(getFullRobotModel().getElevator());
+      int configurationSize = 0;
+      for (InverseDynamicsJoint joint : allJoints)
+         configurationSize += joint.getConfigurationMatrixSize();
+      jointConfigurations = new DenseMatrix64F(configurationSize, 1);
+      jointVelocities = new DenseMatrix64F(ScrewTools.computeDegreesOfFreedom(allJoints), 1);
+
+      // The listener is called after the tick, the command was computed from the state before the tick.
+      storeRobotState();
+      addTickListener(this::recordTick);
+   }
+
+   /**
+    * Stands for a bit, then takes two steps in place while moving the chest and the arms such that
+    * most of the tasks of the walking controller are used.
+    */
+   @Override
+   public void runWarmup()
+   {
+      simulate(standingDuration);
+
+      HumanoidReferenceFrames referenceFrames = getReferenceFrames();
+      FullHumanoidRobotModel fullRobotModel = getFullRobotModel();
+      submitMessage(HumanoidControllerWarumupTools.createStepsInPlace(referenceFrames));
+      submitMessage(HumanoidControllerWarumupTools.createChestMessage(referenceFrames));
+      for (RobotSide robotSide : RobotSide.values)
+         submitMessage(HumanoidControllerWarumupTools.createArmMessage(fullRobotModel, robotSide));
+      simulate(steppingDuration);
+   }
+
+   @Override
+   public HumanoidReferenceFrames getReferenceFrames()
+   {
+      return super.getReferenceFrames();
+   }
+
+   public int getNumberOfTicks()
+   {
+      return recordedCommands.size();
+   }
+
+   /**
+    * Sets the robot to the state it was in at the beginning of the given tick and updates the frames.
+    */
+   public void applyRobotState(int tickIndex)
+   {
+      ScrewTools.setJointPositions(allJoints, recordedJointConfigurations.get(tickIndex));
+      ScrewTools.setVelocities(allJoints, recordedJointVelocities.get(tickIndex));
+      getFullRobotModel().updateFrames();
+      getReferenceFrames().updateFrames();
+   }
+
+   /**
+    * @return the command submitted by the walking controller during the given tick. Not to be
+    *         modified, the controller core clears the commands it is given so submit a copy of it.
+    */
+   public ControllerCoreCommand getRecordedCommand(int tickIndex)
+   {
+      return recordedCommands.get(tickIndex);
+   }
+
+   private void recordTick()
+   {
+      recordedJointConfigurations.add(new DenseMatrix64F(jointConfigurations));
+      recordedJointVelocities.add(new DenseMatrix64F(jointVelocities));
+      recordedCommands.add(copyControllerCoreCommand(getControllerCoreCommand()));
+      storeRobotState();
+   }
+
+   private void storeRobotState()
+   {
+      ScrewTools.getJointPositions(allJoints, jointConfigurations);
+      ScrewTools.getJointVelocitiesMatrix(allJoints, jointVelocities);
+   }
+
+   /**
+    * Creates a deep copy of the given command. {@link ControllerCoreCommand#set(ControllerCoreCommand)}
+    * only copies the references to the commands which are reused by the controller at every tick.
+    */
+   public static ControllerCoreCommand copyControllerCoreCommand(ControllerCoreCommand other)
+   {
+      ControllerCoreCommand copy = new ControllerCoreCommand(other.getControllerCoreMode());
+      copy.getInverseDynamicsCommandList().set(copyInverseDynamicsCommand(other.getInverseDynamicsCommandList()));
+      copy.getInverseKinematicsCommandList().set(copyInverseKinematicsCommand(other.getInverseKinematicsCommandList()));
+      copy.getVirtualModelControlCommandList().set(copyVirtualModelControlCommand(other.getVirtualModelControlCommandList()));
+      copy.getFeedbackControlCommandList().set(copyFeedbackControlCommand(other.getFeedbackControlCommandList()));
+      copy.completeLowLevelJointData(other.getLowLevelOneDoFJointDesiredDataHolder());
+      if (other.isReinitializationRequested())
+         copy.requestReinitialization();
+      return copy;
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private static <T extends InverseDynamicsCommand<?>> T copyInverseDynamicsCommand(T command)
+   {
+      if (command instanceof InverseDynamicsCommandList)
+      {
+         InverseDynamicsCommandList list = (InverseDynamicsCommandList) command;
+         InverseDynamicsCommandList copy = new InverseDynamicsCommandList();
+         for (int i = 0; i < list.getNumberOfCommands(); i++)
+            copy.addCommand(copyInverseDynamicsCommand(list.getCommand(i)));
+         return (T) copy;
+      }
+
+      InverseDynamicsCommand copy = newInstance(command);
+      copy.set(command);
+      return (T) copy;
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private static <T extends InverseKinematicsCommand<?>> T copyInverseKinematicsCommand(T command)
+   {
+      if (command instanceof InverseKinematicsCommandList)
+      {
+         InverseKinematicsCommandList list = (InverseKinematicsCommandList) command;
+         InverseKinematicsCommandList copy = new InverseKinematicsCommandList();
+         for (int i = 0; i < list.getNumberOfCommands(); i++)
+            copy.addCommand(copyInverseKinematicsCommand(list.getCommand(i)));
+         return (T) copy;
+      }
+
+      InverseKinematicsCommand copy = newInstance(command);
+      copy.set(command);
+      return (T) copy;
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private static <T extends VirtualModelControlCommand<?>> T copyVirtualModelControlCommand(T command)
+   {
+      if (command instanceof VirtualModelControlCommandList)
+      {
+         VirtualModelControlCommandList list = (VirtualModelControlCommandList) command;
+         VirtualModelControlCommandList copy = new VirtualModelControlCommandList();
+         for (int i = 0; i < list.getNumberOfCommands(); i++)
+            copy.addCommand(copyVirtualModelControlCommand(list.getCommand(i)));
+         return (T) copy;
+      }
+
+      VirtualModelControlCommand copy = newInstance(command);
+      copy.set(command);
+      return (T) copy;
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private static <T extends FeedbackControlCommand<?>> T copyFeedbackControlCommand(T command)
+   {
+      if (command instanceof FeedbackControlCommandList)
+      {
+         FeedbackControlCommandList list = (FeedbackControlCommandList) command;
+         FeedbackControlCommandList copy = new FeedbackControlCommandList();
+         for (int i = 0; i < list.getNumberOfCommands(); i++)
+            copy.addCommand(copyFeedbackControlCommand(list.getCommand(i)));
+         return (T) copy;
+      }
+
+      FeedbackControlCommand copy = newInstance(command);
+      copy.set(command);
+      return (T) copy;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static <T> T newInstance(T command)
+   {
+      try
+      {
+         return (T) command.getClass().getDeclaredConstructor().newInstance();
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new RuntimeException("Cannot copy commands of type " + command.getClass().getSimpleName(), e);
+      }
+   }
+}
@@ -0,0 +1,194 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.data.DenseMatrix64F;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.CenterOfMassFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.FeedbackControlCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.OrientationFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.PointFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.feedbackController.SpatialFeedbackControlCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.JointspaceAccelerationCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.MomentumRateCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.PlaneContactStateCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.SpatialAccelerationCommand;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.CentroidalMomentumHandler;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.DynamicsMatrixCalculator;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInputCalculator;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.QPInput;
+import us.ihmc.commonWalkingControlModules.wrenchDistribution.WrenchMatrixCalculator;
+
+/**
+ * Measures the individual stages of the inverse dynamics module on the states of a recorded
+ * walking sequence.
+ * <p>
+ * The robot state of the next tick is set before each invocation, outside of the measurement,
+ * together with the centroidal momentum matrix and the contact matrices the stages depend on.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ControllerCoreStagesBenchmark
+{
+   @Param({"ATLAS", "VALKYRIE"})
+   public BenchmarkRobot robot;
+
+   private ControllerCoreBenchmarkFixture fixture;
+   private CentroidalMomentumHandler centroidalMomentumHandler;
+   private MotionQPInputCalculator motionQPInputCalculator;
+   private WrenchMatrixCalculator wrenchMatrixCalculator;
+   private DynamicsMatrixCalculator dynamicsMatrixCalculator;
+   private QPInput motionQPInput;
+
+   private final List<List<InverseDynamicsCommand<?>>> motionCommandsPerTick = new ArrayList<>();
+   private final List<List<PlaneContactStateCommand>> contactStateCommandsPerTick = new ArrayList<>();
+   private int tickIndex;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      fixture = new ControllerCoreBenchmarkFixture(robot);
+      WholeBodyControlCoreToolbox toolbox = fixture.getToolbox();
+      centroidalMomentumHandler = toolbox.getCentroidalMomentumHandler();
+      motionQPInputCalculator = toolbox.getMotionQPInputCalculator();
+      wrenchMatrixCalculator = toolbox.getWrenchMatrixCalculator();
+      dynamicsMatrixCalculator = new DynamicsMatrixCalculator(toolbox, wrenchMatrixCalculator);
+      motionQPInput = new QPInput(toolbox.getJointIndexHandler().getNumberOfDoFs());
+
+      for (int i = 0; i < fixture.getNumberOfTicks(); i++)
+      {
+         ControllerCoreCommand command = fixture.getRecorder().getRecordedCommand(i);
+         List<InverseDynamicsCommand<?>> motionCommands = new ArrayList<>();
+         List<PlaneContactStateCommand> contactStateCommands = new ArrayList<>();
+         collectInverseDynamicsCommands(command.getInverseDynamicsCommandList(), motionCommands, contactStateCommands);
+         collectFeedbackCommands(command.getFeedbackControlCommandList(), motionCommands);
+         motionCommandsPerTick.add(motionCommands);
+         contactStateCommandsPerTick.add(contactStateCommands);
+      }
+   }
+
+   /**
+    * The motion commands the inverse dynamics module gets from the feedback controllers are the
+    * ones held by the feedback commands, their desired values differ from the robot but the
+    * conversion costs the same.
+    */
+   private static void collectFeedbackCommands(FeedbackControlCommandList commandList, List<InverseDynamicsCommand<?>> motionCommands)
+   {
+      for (int i = 0; i < commandList.getNumberOfCommands(); i++)
+      {
+         FeedbackControlCommand<?> command = commandList.getCommand(i);
+
+         if (command instanceof FeedbackControlCommandList)
+            collectFeedbackCommands((FeedbackControlCommandList) command, motionCommands);
+         else if (command instanceof SpatialFeedbackControlCommand)
+            motionCommands.add(((SpatialFeedbackControlCommand) command).getSpatialAccelerationCommand());
+         else if (command instanceof OrientationFeedbackControlCommand)
+            motionCommands.add(((OrientationFeedbackControlCommand) command).getSpatialAccelerationCommand());
+         else if (command instanceof PointFeedbackControlCommand)
+            motionCommands.add(((PointFeedbackControlCommand) command).getSpatialAccelerationCommand());
+         else if (command instanceof CenterOfMassFeedbackControlCommand)
+            motionCommands.add(((CenterOfMassFeedbackControlCommand) command).getMomentumRateCommand());
+      }
+   }
+
+   private static void collectInverseDynamicsCommands(InverseDynamicsCommandList commandList, List<InverseDynamicsCommand<?>> motionCommands,
+                                                      List<PlaneContactStateCommand> contactStateCommands)
+   {
+      for (int i = 0; i < commandList.getNumberOfCommands(); i++)
+      {
+         InverseDynamicsCommand<?> command = commandList.getCommand(i);
+
+         if (command instanceof InverseDynamicsCommandList)
+            collectInverseDynamicsCommands((InverseDynamicsCommandList) command, motionCommands, contactStateCommands);
+         else if (command instanceof SpatialAccelerationCommand || command instanceof JointspaceAccelerationCommand || command instanceof MomentumRateCommand)
+            motionCommands.add(command);
+         else if (command instanceof PlaneContactStateCommand)
+            contactStateCommands.add((PlaneContactStateCommand) command);
+      }
+   }
+
+   @Setup(Level.Invocation)
+   public void nextTick()
+   {
+      tickIndex = fixture.nextTick();
+
+      centroidalMomentumHandler.compute();
+
+      List<PlaneContactStateCommand> contactStateCommands = contactStateCommandsPerTick.get(tickIndex);
+      for (int i = 0; i < contactStateCommands.size(); i++)
+         wrenchMatrixCalculator.submitPlaneContactStateCommand(contactStateCommands.get(i));
+      wrenchMatrixCalculator.computeMatrices();
+   }
+
+   @Benchmark
+   public void robotStateUpdate()
+   {
+      fixture.getRecorder().applyRobotState(tickIndex);
+   }
+
+   @Benchmark
+   public DenseMatrix64F centroidalMomentumHandler()
+   {
+      centroidalMomentumHandler.compute();
+      return centroidalMomentumHandler.getCentroidalMomentumConvectiveTerm();
+   }
+
+   @Benchmark
+   public int motionQPInputCalculator()
+   {
+      List<InverseDynamicsCommand<?>> motionCommands = motionCommandsPerTick.get(tickIndex);
+      int numberOfInputs = 0;
+
+      for (int i = 0; i < motionCommands.size(); i++)
+      {
+         InverseDynamicsCommand<?> command = motionCommands.get(i);
+         boolean success;
+
+         if (command instanceof SpatialAccelerationCommand)
+            success = motionQPInputCalculator.convertSpatialAccelerationCommand((SpatialAccelerationCommand) command, motionQPInput);
+         else if (command instanceof JointspaceAccelerationCommand)
+            success = motionQPInputCalculator.convertJointspaceAccelerationCommand((JointspaceAccelerationCommand) command, motionQPInput);
+         else
+            success = motionQPInputCalculator.convertMomentumRateCommand((MomentumRateCommand) command, motionQPInput);
+
+         if (success)
+            numberOfInputs++;
+      }
+
+      if (motionQPInputCalculator.computePrivilegedJointAccelerations(motionQPInput))
+         numberOfInputs++;
+
+      return numberOfInputs;
+   }
+
+   @Benchmark
+   public DenseMatrix64F dynamicsMatrixCalculator()
+   {
+      dynamicsMatrixCalculator.compute();
+      return dynamicsMatrixCalculator.getTorqueMinimizationObjective();
+   }
+}
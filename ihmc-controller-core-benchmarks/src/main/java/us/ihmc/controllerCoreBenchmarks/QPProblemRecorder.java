@@ -0,0 +1,97 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolverWithInactiveVariables;
+
+/**
+ * Default solver of the controller core that keeps a copy of every problem it is asked to solve
+ * while recording is enabled.
+ */
+public class QPProblemRecorder extends SimpleEfficientActiveSetQPSolverWithInactiveVariables
+{
+   private final RecordedQPProblem currentProblem = new RecordedQPProblem();
+   private final List<RecordedQPProblem> recordedProblems = new ArrayList<>();
+   private boolean recording = false;
+
+   public void setRecording(boolean recording)
+   {
+      this.recording = recording;
+   }
+
+   public List<RecordedQPProblem> getRecordedProblems()
+   {
+      return recordedProblems;
+   }
+
+   @Override
+   public void setUseWarmStart(boolean useWarmStart)
+   {
+      currentProblem.setUseWarmStart(useWarmStart);
+      super.setUseWarmStart(useWarmStart);
+   }
+
+   @Override
+   public void setMaxNumberOfIterations(int maxNumberOfIterations)
+   {
+      currentProblem.setMaxNumberOfIterations(maxNumberOfIterations);
+      super.setMaxNumberOfIterations(maxNumberOfIterations);
+   }
+
+   @Override
+   public void setQuadraticCostFunction(DenseMatrix64F costQuadraticMatrix, DenseMatrix64F costLinearVector, double quadraticCostScalar)
+   {
+      currentProblem.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, quadraticCostScalar);
+      super.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, quadraticCostScalar);
+   }
+
+   @Override
+   public void setLowerBounds(DenseMatrix64F variableLowerBounds)
+   {
+      currentProblem.setLowerBounds(variableLowerBounds);
+      super.setLowerBounds(variableLowerBounds);
+   }
+
+   @Override
+   public void setUpperBounds(DenseMatrix64F variableUpperBounds)
+   {
+      currentProblem.setUpperBounds(variableUpperBounds);
+      super.setUpperBounds(variableUpperBounds);
+   }
+
+   @Override
+   public void setActiveVariables(DenseMatrix64F activeVariables)
+   {
+      currentProblem.setActiveVariables(activeVariables);
+      super.setActiveVariables(activeVariables);
+   }
+
+   @Override
+   public void setLinearInequalityConstraints(DenseMatrix64F linearInequalityConstraintCMatrix, DenseMatrix64F linearInequalityConstraintDVector)
+   {
+      currentProblem.setLinearInequalityConstraints(linearInequalityConstraintCMatrix, linearInequalityConstraintDVector);
+      super.setLinearInequalityConstraints(linearInequalityConstraintCMatrix, linearInequalityConstraintDVector);
+   }
+
+   @Override
+   public void setLinearEqualityConstraints(DenseMatrix64F linearEqualityConstraintsAMatrix, DenseMatrix64F linearEqualityConstraintsBVector)
+   {
+      currentProblem.setLinearEqualityConstraints(linearEqualityConstraintsAMatrix, linearEqualityConstraintsBVector);
+      super.setLinearEqualityConstraints(linearEqualityConstraintsAMatrix, linearEqualityConstraintsBVector);
+   }
+
+   @Override
+   public int solve(DenseMatrix64F solutionToPack)
+   {
+      if (recording)
+      {
+         RecordedQPProblem problem = new RecordedQPProblem();
+         problem.set(currentProblem);
+         recordedProblems.add(problem);
+      }
+      return super.solve(solutionToPack);
+   }
+}
@@ -0,0 +1,84 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.data.DenseMatrix64F;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.convexOptimization.quadraticProgram.ActiveSetQPSolverWithInactiveVariablesInterface;
+import us.ihmc.convexOptimization.quadraticProgram.JavaQuadProgSolverWithInactiveVariables;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolverWithInactiveVariables;
+
+/**
+ * Measures the active set solvers on the problems the inverse dynamics module had to solve during
+ * a recorded walking sequence. The problems are solved in order such that warm start behaves as on
+ * the robot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class QPSolverBenchmark
+{
+   public enum SolverType
+   {
+      SIMPLE_EFFICIENT, JAVA_QUAD_PROG;
+
+      public ActiveSetQPSolverWithInactiveVariablesInterface createSolver()
+      {
+         switch (this)
+         {
+         case SIMPLE_EFFICIENT:
+            return new SimpleEfficientActiveSetQPSolverWithInactiveVariables();
+         case JAVA_QUAD_PROG:
+            return new JavaQuadProgSolverWithInactiveVariables();
+         default:
+            throw new RuntimeException("Unhandled solver: " + this);
+         }
+      }
+   }
+
+   @Param({"ATLAS", "VALKYRIE"})
+   public BenchmarkRobot robot;
+
+   @Param({"SIMPLE_EFFICIENT", "JAVA_QUAD_PROG"})
+   public SolverType solverType;
+
+   private List<RecordedQPProblem> problems;
+   private ActiveSetQPSolverWithInactiveVariablesInterface solver;
+   private final DenseMatrix64F solution = new DenseMatrix64F(0, 0);
+   private int problemIndex = -1;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      problems = new ControllerCoreBenchmarkFixture(robot).recordInverseDynamicsQPProblems();
+      if (problems.isEmpty())
+         throw new RuntimeException("No QP was recorded for " + robot);
+
+      solver = solverType.createSolver();
+      solution.reshape(problems.get(0).getNumberOfVariables(), 1);
+   }
+
+   @Benchmark
+   public int solve()
+   {
+      problemIndex = (problemIndex + 1) % problems.size();
+      problems.get(problemIndex).submit(solver);
+      return solver.solve(solution);
+   }
+}
@@ -0,0 +1,106 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.convexOptimization.quadraticProgram.ActiveSetQPSolverWithInactiveVariablesInterface;
+
+/**
+ * Copy of a quadratic program as it was given to the active set solver by the inverse dynamics
+ * module, such that it can be replayed on any solver implementation.
+ */
+public class RecordedQPProblem
+{
+   private final DenseMatrix64F quadraticCostMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F linearCostVector = new DenseMatrix64F(0, 0);
+   private double quadraticCostScalar = 0.0;
+   private final DenseMatrix64F lowerBounds = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F upperBounds = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F activeVariables = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F inequalityMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F inequalityVector = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F equalityMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F equalityVector = new DenseMatrix64F(0, 0);
+   private boolean useWarmStart = false;
+   private int maxNumberOfIterations = Integer.MAX_VALUE;
+
+   public void set(RecordedQPProblem other)
+   {
+      quadraticCostMatrix.set(other.quadraticCostMatrix);
+      linearCostVector.set(other.linearCostVector);
+      quadraticCostScalar = other.quadraticCostScalar;
+      lowerBounds.set(other.lowerBounds);
+      upperBounds.set(other.upperBounds);
+      activeVariables.set(other.activeVariables);
+      inequalityMatrix.set(other.inequalityMatrix);
+      inequalityVector.set(other.inequalityVector);
+      equalityMatrix.set(other.equalityMatrix);
+      equalityVector.set(other.equalityVector);
+      useWarmStart = other.useWarmStart;
+      maxNumberOfIterations = other.maxNumberOfIterations;
+   }
+
+   public void setQuadraticCostFunction(DenseMatrix64F quadraticCostMatrix, DenseMatrix64F linearCostVector, double quadraticCostScalar)
+   {
+      this.quadraticCostMatrix.set(quadraticCostMatrix);
+      this.linearCostVector.set(linearCostVector);
+      this.quadraticCostScalar = quadraticCostScalar;
+   }
+
+   public void setLowerBounds(DenseMatrix64F lowerBounds)
+   {
+      this.lowerBounds.set(lowerBounds);
+   }
+
+   public void setUpperBounds(DenseMatrix64F upperBounds)
+   {
+      this.upperBounds.set(upperBounds);
+   }
+
+   public void setActiveVariables(DenseMatrix64F activeVariables)
+   {
+      this.activeVariables.set(activeVariables);
+   }
+
+   public void setLinearInequalityConstraints(DenseMatrix64F inequalityMatrix, DenseMatrix64F inequalityVector)
+   {
+      this.inequalityMatrix.set(inequalityMatrix);
+      this.inequalityVector.set(inequalityVector);
+   }
+
+   public void setLinearEqualityConstraints(DenseMatrix64F equalityMatrix, DenseMatrix64F equalityVector)
+   {
+      this.equalityMatrix.set(equalityMatrix);
+      this.equalityVector.set(equalityVector);
+   }
+
+   public void setUseWarmStart(boolean useWarmStart)
+   {
+      this.useWarmStart = useWarmStart;
+   }
+
+   public void setMaxNumberOfIterations(int maxNumberOfIterations)
+   {
+      this.maxNumberOfIterations = maxNumberOfIterations;
+   }
+
+   public int getNumberOfVariables()
+   {
+      return quadraticCostMatrix.getNumRows();
+   }
+
+   /**
+    * Clears the solver and sets it up with this problem, in the same order as
+    * {@code InverseDynamicsQPSolver} does.
+    */
+   public void submit(ActiveSetQPSolverWithInactiveVariablesInterface solver)
+   {
+      solver.clear();
+      solver.setUseWarmStart(useWarmStart);
+      solver.setMaxNumberOfIterations(maxNumberOfIterations);
+      solver.setQuadraticCostFunction(quadraticCostMatrix, linearCostVector, quadraticCostScalar);
+      solver.setVariableBounds(lowerBounds, upperBounds);
+      solver.setActiveVariables(activeVariables);
+      solver.setLinearInequalityConstraints(inequalityMatrix, inequalityVector);
+      solver.setLinearEqualityConstraints(equalityMatrix, equalityVector);
+   }
+}
@@ -0,0 +1,61 @@
+package us.ihmc.controllerCoreBenchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCoreMode;
+import us.ihmc.sensorProcessing.outputData.JointDesiredOutputListReadOnly;
+
+/**
+ * Measures a complete controller core tick, {@code submitControllerCoreCommand()} and
+ * {@code compute()}, while replaying a recorded walking sequence.
+ * <p>
+ * Setting the robot state of the tick is included in the measurement, its cost is measured on its
+ * own by {@link ControllerCoreStagesBenchmark#robotStateUpdate()}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class WholeBodyControllerCoreBenchmark
+{
+   @Param({"ATLAS", "VALKYRIE"})
+   public BenchmarkRobot robot;
+
+   @Param({"INVERSE_DYNAMICS", "INVERSE_KINEMATICS", "VIRTUAL_MODEL"})
+   public WholeBodyControllerCoreMode mode;
+
+   private ControllerCoreBenchmarkFixture fixture;
+   private WholeBodyControllerCore controllerCore;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      fixture = new ControllerCoreBenchmarkFixture(robot);
+      controllerCore = fixture.getControllerCore();
+   }
+
+   @Benchmark
+   public JointDesiredOutputListReadOnly controllerCoreTick()
+   {
+      fixture.submitRecordedCommand(fixture.nextTick(), mode);
+      controllerCore.compute();
+      return controllerCore.getOutputForLowLevelController();
+   }
+}
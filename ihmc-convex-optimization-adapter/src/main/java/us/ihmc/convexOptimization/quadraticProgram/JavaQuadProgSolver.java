@@ -1,6 +1,7 @@
 package us.ihmc.convexOptimization.quadraticProgram;
 
 import gnu.trove.list.array.TIntArrayList;
+import org.ejml.alg.dense.decomposition.TriangularSolver;
 import org.ejml.data.DenseMatrix64F;
 
 import org.ejml.factory.DecompositionFactory;
@@ -8,6 +9,8 @@ import org.ejml.factory.LinearSolverFactory;
 import org.ejml.interfaces.decomposition.CholeskyDecomposition;
 import org.ejml.interfaces.linsol.LinearSolver;
 import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
+import us.ihmc.commons.Conversions;
 import us.ihmc.commons.MathTools;
 import us.ihmc.robotics.linearAlgebra.MatrixTools;
 import us.ihmc.tools.exceptions.NoConvergenceException;
@@ -38,6 +41,12 @@ import us.ihmc.tools.exceptions.NoConvergenceException;
  * s.t.
  *     CE^T x = ce0
  *     CI^T x <= ci0
+ *
+ * When the problem size is bounded, call {@link #setMaximumProblemSize(int, int, int)} once
+ * beforehand such that the solver preallocates all its workspaces and solves without allocating.
+ * The factorization of the quadratic cost is kept between solves and reused as long as the
+ * quadratic cost does not change, i.e. when only the linear cost, the constraints or the bounds
+ * change.
  */
 public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
 {
@@ -76,10 +85,23 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
    private final DenseMatrix64F q_augmented = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F Q_augmented_inv = new DenseMatrix64F(0, 0);
 
-   private final CholeskyDecomposition<DenseMatrix64F> decomposer = DecompositionFactory.chol(defaultSize, false);
+   private final CholeskyDecomposition<DenseMatrix64F> decomposer = DecompositionFactory.chol(defaultSize, true);
    private final LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.linear(defaultSize);
 
    private final DenseMatrix64F decomposedQuadraticCostQMatrix = new DenseMatrix64F(0, 0);
+   /** Inverse of the upper Cholesky factor of the quadratic cost, this is the initial value of {@link #J}. */
+   private final DenseMatrix64F inverseCholeskyFactor = new DenseMatrix64F(0, 0);
+   /** Copy of the quadratic cost matrix that {@link #inverseCholeskyFactor} was computed from. */
+   private final DenseMatrix64F factorizedQuadraticCostQMatrix = new DenseMatrix64F(0, 0);
+   private double inverseCholeskyFactorTrace;
+   private boolean factorizationReused = false;
+   private long factorizationDuration = 0;
+   private long solveDuration = 0;
+
+   /** Capacity of the active and inactive set lists, which are not exposed by {@link TIntArrayList}. */
+   private int indexListsCapacity = 0;
+   private int numberOfAllocations = 0;
+   private int numberOfAllocationsInLastSolve = 0;
 
    private final DenseMatrix64F totalLinearInequalityConstraintsCMatrix = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F totalLinearInequalityConstraintsDVector = new DenseMatrix64F(0, 0);
@@ -104,6 +126,130 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
 
    protected final DenseMatrix64F computedObjectiveFunctionValue = new DenseMatrix64F(1, 1);
 
+   /**
+    * Preallocates all the internal workspaces for problems up to the given size.
+    * <p>
+    * As long as the problems passed to this solver do not exceed these sizes, setting up the
+    * problem and solving it does not allocate memory, which can be verified with
+    * {@link #getNumberOfAllocationsInLastSolve()}. Larger problems can still be solved, the
+    * workspaces are then grown as needed. This is meant to be called before setting up the
+    * problem.
+    * </p>
+    *
+    * @param maximumNumberOfVariables the maximum size of the quadratic cost.
+    * @param maximumNumberOfEqualityConstraints the maximum number of equality constraints.
+    * @param maximumNumberOfInequalityConstraints the maximum number of inequality constraints,
+    *           not including the variable bounds.
+    */
+   public void setMaximumProblemSize(int maximumNumberOfVariables, int maximumNumberOfEqualityConstraints, int maximumNumberOfInequalityConstraints)
+   {
+      int n = maximumNumberOfVariables;
+      int maximumNumberOfTotalInequalityConstraints = maximumNumberOfInequalityConstraints + 2 * n;
+      int maximumNumberOfConstraints = maximumNumberOfEqualityConstraints + maximumNumberOfTotalInequalityConstraints;
+
+      DenseMatrix64F[] squareMatrices = {quadraticCostQMatrix, decomposedQuadraticCostQMatrix, inverseCholeskyFactor, factorizedQuadraticCostQMatrix, J, R,
+            lowerBoundsCMatrix, upperBoundsCMatrix};
+      for (DenseMatrix64F matrix : squareMatrices)
+         ensureCapacity(matrix, n * n);
+
+      DenseMatrix64F[] variableVectors = {quadraticCostQVector, variableLowerBounds, variableUpperBounds, stepDirectionInPrimalSpace, d,
+            violatedConstraintNormal, previousSolution, tempMatrix, lagrangeLowerBoundMultipliersToThrowAway, lagrangeUpperBoundMultipliersToThrowAway,
+            solutionWorkspace, lagrangeLowerBoundMultipliersWorkspace, lagrangeUpperBoundMultipliersWorkspace};
+      for (DenseMatrix64F vector : variableVectors)
+         ensureCapacity(vector, n);
+
+      DenseMatrix64F[] constraintVectors = {infeasibilityMultiplier, lagrangeMultipliers, previousLagrangeMultipliers};
+      for (DenseMatrix64F vector : constraintVectors)
+         ensureCapacity(vector, maximumNumberOfConstraints);
+
+      ensureCapacity(linearEqualityConstraintsAMatrix, n * maximumNumberOfEqualityConstraints);
+      ensureCapacity(linearEqualityConstraintsBVector, maximumNumberOfEqualityConstraints);
+      ensureCapacity(lagrangeEqualityConstraintMultipliersToThrowAway, maximumNumberOfEqualityConstraints);
+      ensureCapacity(lagrangeEqualityConstraintMultipliersWorkspace, maximumNumberOfEqualityConstraints);
+      ensureCapacity(linearInequalityConstraintsCMatrixO, n * maximumNumberOfInequalityConstraints);
+      ensureCapacity(linearInequalityConstraintsDVectorO, maximumNumberOfInequalityConstraints);
+      ensureCapacity(lagrangeInequalityConstraintMultipliersToThrowAway, maximumNumberOfInequalityConstraints);
+      ensureCapacity(lagrangeInequalityConstraintMultipliersWorkspace, maximumNumberOfInequalityConstraints);
+      ensureCapacity(totalLinearInequalityConstraintsCMatrix, n * maximumNumberOfTotalInequalityConstraints);
+      ensureCapacity(totalLinearInequalityConstraintsDVector, maximumNumberOfTotalInequalityConstraints);
+      ensureCapacity(inequalityConstraintViolations, maximumNumberOfTotalInequalityConstraints);
+      ensureIndexListsCapacity(maximumNumberOfConstraints);
+
+      if (n > 0)
+      { // Decomposing once at the maximum size grows the internal storage of the decomposer.
+         decomposedQuadraticCostQMatrix.reshape(n, n);
+         CommonOps.setIdentity(decomposedQuadraticCostQMatrix);
+         decomposer.decompose(decomposedQuadraticCostQMatrix);
+         decomposedQuadraticCostQMatrix.reshape(0, 0);
+      }
+   }
+
+   /**
+    * Gets the number of times the internal workspaces of this solver had to be grown since the end
+    * of the solve before the last one, i.e. while setting up and solving the last problem.
+    * <p>
+    * This is zero when the problem fits in the sizes given to
+    * {@link #setMaximumProblemSize(int, int, int)}, or after a first solve of a problem of the same
+    * size.
+    * </p>
+    */
+   public int getNumberOfAllocationsInLastSolve()
+   {
+      return numberOfAllocationsInLastSolve;
+   }
+
+   @Override
+   public double getLastFactorizationTime()
+   {
+      return Conversions.nanosecondsToSeconds(factorizationDuration);
+   }
+
+   @Override
+   public double getLastIterationsTime()
+   {
+      return Conversions.nanosecondsToSeconds(solveDuration - factorizationDuration);
+   }
+
+   @Override
+   public boolean wasLastFactorizationReused()
+   {
+      return factorizationReused;
+   }
+
+   private void ensureCapacity(DenseMatrix64F matrix, int numberOfElements)
+   {
+      if (numberOfElements > matrix.data.length)
+      {
+         matrix.data = new double[numberOfElements];
+         numberOfAllocations++;
+      }
+   }
+
+   private void reshape(DenseMatrix64F matrix, int numberOfRows, int numberOfColumns)
+   {
+      ensureCapacity(matrix, numberOfRows * numberOfColumns);
+      matrix.reshape(numberOfRows, numberOfColumns);
+   }
+
+   private void set(DenseMatrix64F matrixToSet, DenseMatrix64F other)
+   {
+      ensureCapacity(matrixToSet, other.getNumElements());
+      matrixToSet.set(other);
+   }
+
+   private void ensureIndexListsCapacity(int capacity)
+   {
+      if (capacity <= indexListsCapacity)
+         return;
+
+      activeSetIndices.ensureCapacity(capacity);
+      previousActiveSetIndices.ensureCapacity(capacity);
+      inactiveSetIndices.ensureCapacity(capacity);
+      excludeConstraintFromActiveSet.ensureCapacity(capacity);
+      indexListsCapacity = capacity;
+      numberOfAllocations++;
+   }
+
 
    public void setRequireInequalityConstraintsSatisfied(boolean requireInequalityConstraintsSatisfied)
    {
@@ -156,10 +302,10 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       if (numberOfLowerBounds != quadraticCostQMatrix.getNumRows())
          throw new RuntimeException("variableLowerBounds.getNumRows() != quadraticCostQMatrix.getNumRows()");
 
-      lowerBoundsCMatrix.reshape(numberOfLowerBounds, numberOfLowerBounds);
+      reshape(lowerBoundsCMatrix, numberOfLowerBounds, numberOfLowerBounds);
       CommonOps.setIdentity(lowerBoundsCMatrix);
 
-      this.variableLowerBounds.set(variableLowerBounds);
+      set(this.variableLowerBounds, variableLowerBounds);
       CommonOps.scale(-1.0, this.variableLowerBounds);
    }
 
@@ -170,11 +316,11 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       if (numberOfUpperBounds != quadraticCostQMatrix.getNumRows())
          throw new RuntimeException("variableUpperBounds.getNumRows() != quadraticCostQMatrix.getNumRows()");
 
-      upperBoundsCMatrix.reshape(numberOfUpperBounds, numberOfUpperBounds);
+      reshape(upperBoundsCMatrix, numberOfUpperBounds, numberOfUpperBounds);
       CommonOps.setIdentity(upperBoundsCMatrix);
       CommonOps.scale(-1.0, upperBoundsCMatrix);
 
-      this.variableUpperBounds.set(variableUpperBounds);
+      set(this.variableUpperBounds, variableUpperBounds);
    }
 
    @Override
@@ -187,8 +333,8 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       if (costQuadraticMatrix.getNumRows() != costQuadraticMatrix.getNumCols())
          throw new RuntimeException("costQuadraticMatrix.getNumRows() != costQuadraticMatrix.getNumCols()");
 
-      this.quadraticCostQMatrix.set(costQuadraticMatrix);
-      this.quadraticCostQVector.set(costLinearVector);
+      set(this.quadraticCostQMatrix, costQuadraticMatrix);
+      set(this.quadraticCostQVector, costLinearVector);
       this.quadraticCostScalar = quadraticCostScalar;
    }
 
@@ -214,11 +360,11 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       if (linearEqualityConstraintsAMatrix.getNumCols() != quadraticCostQMatrix.getNumCols())
          throw new RuntimeException("linearEqualityConstraintsAMatrix.getNumCols() != quadraticCostQMatrix.getNumCols()");
 
-      this.linearEqualityConstraintsAMatrix.reshape(quadraticCostQMatrix.getNumCols(), numberOfEqualityConstraints);
+      reshape(this.linearEqualityConstraintsAMatrix, quadraticCostQMatrix.getNumCols(), numberOfEqualityConstraints);
       CommonOps.transpose(linearEqualityConstraintsAMatrix, this.linearEqualityConstraintsAMatrix);
       CommonOps.scale(-1.0, this.linearEqualityConstraintsAMatrix);
 
-      this.linearEqualityConstraintsBVector.set(linearEqualityConstraintsBVector);
+      set(this.linearEqualityConstraintsBVector, linearEqualityConstraintsBVector);
    }
 
    @Override
@@ -233,11 +379,11 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       if (linearInequalityConstraintCMatrix.getNumCols() != quadraticCostQMatrix.getNumCols())
          throw new RuntimeException("linearInequalityConstraintCMatrix.getNumCols() != quadraticCostQMatrix.getNumCols()");
 
-      this.linearInequalityConstraintsCMatrixO.reshape(quadraticCostQMatrix.getNumCols(), numberOfInequalityConstraints);
+      reshape(this.linearInequalityConstraintsCMatrixO, quadraticCostQMatrix.getNumCols(), numberOfInequalityConstraints);
       CommonOps.transpose(linearInequalityConstraintCMatrix, this.linearInequalityConstraintsCMatrixO);
       CommonOps.scale(-1.0, this.linearInequalityConstraintsCMatrixO);
 
-      this.linearInequalityConstraintsDVectorO.set(linearInequalityConstraintDVector);
+      set(this.linearInequalityConstraintsDVectorO, linearInequalityConstraintDVector);
    }
 
    @Override
@@ -256,32 +402,36 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
    @Override
    public int solve(double[] solutionToPack)
    {
-      int numberOfEqualityConstraints = linearEqualityConstraintsBVector.getNumRows();
-      int numberOfInequalityConstraints = linearInequalityConstraintsDVectorO.getNumRows();
-
-      double[] lagrangeEqualityConstraintMultipliersToPack = new double[numberOfEqualityConstraints];
-      double[] lagrangeInequalityConstraintMultipliersToPack = new double[numberOfInequalityConstraints];
-
-      return solve(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack);
+      return solveAndPack(solutionToPack, null, null, null, null);
    }
 
    @Override
    public int solve(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack, double[] lagrangeInequalityConstraintMultipliersToPack)
    {
-      int numberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
-      int numberOfUpperBoundConstraints = variableUpperBounds.getNumRows();
-
-      double[] lagrangeLowerBoundsConstraintMultipliersToPack = new double[numberOfLowerBoundConstraints];
-      double[] lagrangeUpperBoundsConstraintMultipliersToPack = new double[numberOfUpperBoundConstraints];
-
-      return solve(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
-                   lagrangeLowerBoundsConstraintMultipliersToPack, lagrangeUpperBoundsConstraintMultipliersToPack);
+      return solveAndPack(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, null, null);
    }
 
 
    @Override
    public int solve(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack, double[] lagrangeInequalityConstraintMultipliersToPack,
          double[] lagrangeLowerBoundMultipliersToPack, double[] lagrangeUpperBoundMultipliersToPack)
+   {
+      return solveAndPack(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
+                          lagrangeLowerBoundMultipliersToPack, lagrangeUpperBoundMultipliersToPack);
+   }
+
+   private final DenseMatrix64F solutionWorkspace = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeEqualityConstraintMultipliersWorkspace = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeInequalityConstraintMultipliersWorkspace = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeLowerBoundMultipliersWorkspace = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeUpperBoundMultipliersWorkspace = new DenseMatrix64F(0, 0);
+
+   /**
+    * Solves the problem using the workspaces of this solver and copies the result into the given
+    * arrays. The multipliers which array is {@code null} are not packed.
+    */
+   private int solveAndPack(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack,
+         double[] lagrangeInequalityConstraintMultipliersToPack, double[] lagrangeLowerBoundMultipliersToPack, double[] lagrangeUpperBoundMultipliersToPack)
    {
       int numberOfVariables = quadraticCostQMatrix.getNumCols();
       int numberOfEqualityConstraints = linearEqualityConstraintsBVector.getNumRows();
@@ -292,57 +442,31 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
 
       if (solutionToPack.length != numberOfVariables)
          throw new RuntimeException("solutionToPack.length != numberOfVariables");
-      if (lagrangeEqualityConstraintMultipliersToPack.length != numberOfEqualityConstraints)
+      if (lagrangeEqualityConstraintMultipliersToPack != null && lagrangeEqualityConstraintMultipliersToPack.length != numberOfEqualityConstraints)
          throw new RuntimeException("lagrangeEqualityConstraintMultipliersToPack.length != numberOfEqualityConstraints");
-      if (lagrangeInequalityConstraintMultipliersToPack.length != numberOfInequalityConstraints)
+      if (lagrangeInequalityConstraintMultipliersToPack != null && lagrangeInequalityConstraintMultipliersToPack.length != numberOfInequalityConstraints)
          throw new RuntimeException("lagrangeInequalityConstraintMultipliersToPack.length != numberOfInequalityConstraints");
 
-      if (lagrangeLowerBoundMultipliersToPack.length != numberOfLowerBoundConstraints)
+      if (lagrangeLowerBoundMultipliersToPack != null && lagrangeLowerBoundMultipliersToPack.length != numberOfLowerBoundConstraints)
          throw new RuntimeException("lagrangeLowerBoundsConstraintMultipliersToPack.length != numberOfLowerBoundConstraints. numberOfLowerBoundConstraints = "
                                           + numberOfLowerBoundConstraints);
-      if (lagrangeUpperBoundMultipliersToPack.length != numberOfUpperBoundConstraints)
+      if (lagrangeUpperBoundMultipliersToPack != null && lagrangeUpperBoundMultipliersToPack.length != numberOfUpperBoundConstraints)
          throw new RuntimeException("lagrangeUpperBoundsConstraintMultipliersToPack.length != numberOfUpperBoundConstraints");
 
-      DenseMatrix64F solution = new DenseMatrix64F(numberOfVariables, 1);
-      DenseMatrix64F lagrangeEqualityConstraintMultipliers = new DenseMatrix64F(numberOfEqualityConstraints, 1);
-      DenseMatrix64F lagrangeInequalityConstraintMultipliers = new DenseMatrix64F(numberOfInequalityConstraints, 1);
-      DenseMatrix64F lagrangeLowerBoundConstraintMultipliers = new DenseMatrix64F(numberOfLowerBoundConstraints, 1);
-      DenseMatrix64F lagrangeUpperBoundConstraintMultipliers = new DenseMatrix64F(numberOfUpperBoundConstraints, 1);
-
-      int numberOfIterations = solve(solution, lagrangeEqualityConstraintMultipliers, lagrangeInequalityConstraintMultipliers,
-                                     lagrangeLowerBoundConstraintMultipliers, lagrangeUpperBoundConstraintMultipliers);
+      int numberOfIterations = solve(solutionWorkspace, lagrangeEqualityConstraintMultipliersWorkspace, lagrangeInequalityConstraintMultipliersWorkspace,
+                                     lagrangeLowerBoundMultipliersWorkspace, lagrangeUpperBoundMultipliersWorkspace);
 
-      double[] solutionData = solution.getData();
-
-      for (int i = 0; i < numberOfVariables; i++)
-      {
-         solutionToPack[i] = solutionData[i];
-      }
+      System.arraycopy(solutionWorkspace.getData(), 0, solutionToPack, 0, numberOfVariables);
 
-      double[] lagrangeEqualityConstraintMultipliersData = lagrangeEqualityConstraintMultipliers.getData();
-      double[] lagrangeInequalityConstraintMultipliersData = lagrangeInequalityConstraintMultipliers.getData();
-      double[] lagrangeLowerBoundMultipliersData = lagrangeLowerBoundConstraintMultipliers.getData();
-      double[] lagrangeUpperBoundMultipliersData = lagrangeUpperBoundConstraintMultipliers.getData();
-
-      for (int i = 0; i < numberOfEqualityConstraints; i++)
-      {
-         lagrangeEqualityConstraintMultipliersToPack[i] = lagrangeEqualityConstraintMultipliersData[i];
-      }
-
-      for (int i = 0; i < numberOfInequalityConstraints; i++)
-      {
-         lagrangeInequalityConstraintMultipliersToPack[i] = lagrangeInequalityConstraintMultipliersData[i];
-      }
-
-      for (int i = 0; i < numberOfLowerBoundConstraints; i++)
-      {
-         lagrangeLowerBoundMultipliersToPack[i] = lagrangeLowerBoundMultipliersData[i];
-      }
-
-      for (int i = 0; i < numberOfUpperBoundConstraints; i++)
-      {
-         lagrangeUpperBoundMultipliersToPack[i] = lagrangeUpperBoundMultipliersData[i];
-      }
+      if (lagrangeEqualityConstraintMultipliersToPack != null)
+         System.arraycopy(lagrangeEqualityConstraintMultipliersWorkspace.getData(), 0, lagrangeEqualityConstraintMultipliersToPack, 0, numberOfEqualityConstraints);
+      if (lagrangeInequalityConstraintMultipliersToPack != null)
+         System.arraycopy(lagrangeInequalityConstraintMultipliersWorkspace.getData(), 0, lagrangeInequalityConstraintMultipliersToPack, 0,
+                          numberOfInequalityConstraints);
+      if (lagrangeLowerBoundMultipliersToPack != null)
+         System.arraycopy(lagrangeLowerBoundMultipliersWorkspace.getData(), 0, lagrangeLowerBoundMultipliersToPack, 0, numberOfLowerBoundConstraints);
+      if (lagrangeUpperBoundMultipliersToPack != null)
+         System.arraycopy(lagrangeUpperBoundMultipliersWorkspace.getData(), 0, lagrangeUpperBoundMultipliersToPack, 0, numberOfUpperBoundConstraints);
 
       return numberOfIterations;
    }
@@ -372,6 +496,21 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
    public int solve(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack,
          DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack, DenseMatrix64F lagrangeLowerBoundMultipliersToPack,
          DenseMatrix64F lagrangeUpperBoundMultipliersToPack)
+   {
+      long solveStartTime = System.nanoTime();
+      int numberOfIterations = solveInternal(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
+                                             lagrangeLowerBoundMultipliersToPack, lagrangeUpperBoundMultipliersToPack);
+      solveDuration = System.nanoTime() - solveStartTime;
+
+      numberOfAllocationsInLastSolve = numberOfAllocations;
+      numberOfAllocations = 0;
+
+      return numberOfIterations;
+   }
+
+   private int solveInternal(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack,
+         DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack, DenseMatrix64F lagrangeLowerBoundMultipliersToPack,
+         DenseMatrix64F lagrangeUpperBoundMultipliersToPack)
    {
       numberOfEqualityConstraints = linearEqualityConstraintsBVector.getNumRows();
       numberOfLowerBounds = variableLowerBounds.getNumRows();
@@ -379,15 +518,15 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       numberOfInequalityConstraints = linearInequalityConstraintsDVectorO.getNumRows();
       problemSize = quadraticCostQMatrix.getNumCols();
 
-      solutionToPack.reshape(problemSize, 1);
+      reshape(solutionToPack, problemSize, 1);
       solutionToPack.zero();
-      lagrangeEqualityConstraintMultipliersToPack.reshape(numberOfEqualityConstraints, 1);
+      reshape(lagrangeEqualityConstraintMultipliersToPack, numberOfEqualityConstraints, 1);
       lagrangeEqualityConstraintMultipliersToPack.zero();
-      lagrangeInequalityConstraintMultipliersToPack.reshape(numberOfInequalityConstraints, 1);
+      reshape(lagrangeInequalityConstraintMultipliersToPack, numberOfInequalityConstraints, 1);
       lagrangeInequalityConstraintMultipliersToPack.zero();
-      lagrangeLowerBoundMultipliersToPack.reshape(numberOfLowerBounds, 1);
+      reshape(lagrangeLowerBoundMultipliersToPack, numberOfLowerBounds, 1);
       lagrangeLowerBoundMultipliersToPack.zero();
-      lagrangeUpperBoundMultipliersToPack.reshape(numberOfUpperBounds, 1);
+      reshape(lagrangeUpperBoundMultipliersToPack, numberOfUpperBounds, 1);
       lagrangeUpperBoundMultipliersToPack.zero();
 
       reshape();
@@ -399,23 +538,24 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       double stepLength; // step length, minimum of partial step (maximumStepInDualSpace) and full step (minimumStepInPrimalSpace);
       int mostViolatedConstraintIndex = 0; // this is the index of the constraint to be added to the active set
 
-      J.reshape(problemSize, problemSize);
-
       /** Preprocessing phase */
 
       // compute the trace of the original matrix quadraticCostQMatrix
       c1 = CommonOps.trace(quadraticCostQMatrix);
 
-      // decompose the matrix quadraticCostQMatrix in the form L^T L
-      decomposedQuadraticCostQMatrix.set(quadraticCostQMatrix);
-      decomposer.decompose(decomposedQuadraticCostQMatrix);
+      long factorizationStartTime = System.nanoTime();
+      // The factorization only depends on the quadratic cost, which is often the same as for the previous solve.
+      factorizationReused = MatrixFeatures.isIdentical(quadraticCostQMatrix, factorizedQuadraticCostQMatrix, 0.0);
+      if (!factorizationReused)
+         computeInverseCholeskyFactor();
+      factorizationDuration = System.nanoTime() - factorizationStartTime;
 
       R_norm = 1.0; // this variable will hold the norm of the matrix R
 
-      // compute the inverse of the factorized matrix G^-1, this is the initial value for H //// TODO: 5/14/17 combine this with the decomposition 
-      solver.setA(decomposedQuadraticCostQMatrix);
-      solver.invert(J);
-      c2 = CommonOps.trace(J);
+      // the inverse of the factorized matrix G^-1 is the initial value for H
+      reshape(J, problemSize, problemSize);
+      J.set(inverseCholeskyFactor);
+      c2 = inverseCholeskyFactorTrace;
 
       int numberOfIterations = 0;
 
@@ -474,7 +614,7 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
             // Find the unconstrained minimizer of the quadratic form 0.5 * x G x + g0 x
             // this is the feasible point in the dual space.
             // x = -G^-1 * g0 = -J * J^T * g0
-            tempMatrix.reshape(problemSize, 1);
+            reshape(tempMatrix, problemSize, 1);
             CommonOps.multTransA(J, quadraticCostQVector, tempMatrix);
             CommonOps.mult(-1.0, J, tempMatrix, solutionToPack);
 
@@ -489,7 +629,7 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
          // Find the unconstrained minimizer of the quadratic form 0.5 * x G x + g0 x
          // this is the feasible point in the dual space.
          // x = -G^-1 * g0 = -J * J^T * g0
-         tempMatrix.reshape(problemSize, 1);
+         reshape(tempMatrix, problemSize, 1);
          CommonOps.multTransA(J, quadraticCostQVector, tempMatrix);
          CommonOps.mult(-1.0, J, tempMatrix, solutionToPack);
 
@@ -657,6 +797,31 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
    }
 
 
+   /**
+    * Decomposes the quadratic cost in the form L L^T and computes J = L^-T, such that G^-1 = J J^T.
+    * The triangular factor is inverted in place, which does not allocate contrary to a general
+    * purpose solver.
+    */
+   private void computeInverseCholeskyFactor()
+   {
+      set(decomposedQuadraticCostQMatrix, quadraticCostQMatrix);
+      decomposer.decompose(decomposedQuadraticCostQMatrix);
+
+      // The decomposition is done in place and may leave the upper triangular part untouched.
+      for (int row = 0; row < problemSize; row++)
+      {
+         for (int col = row + 1; col < problemSize; col++)
+            decomposedQuadraticCostQMatrix.unsafe_set(row, col, 0.0);
+      }
+
+      TriangularSolver.invertLower(decomposedQuadraticCostQMatrix.data, problemSize);
+      reshape(inverseCholeskyFactor, problemSize, problemSize);
+      CommonOps.transpose(decomposedQuadraticCostQMatrix, inverseCholeskyFactor);
+      inverseCholeskyFactorTrace = CommonOps.trace(inverseCholeskyFactor);
+
+      set(factorizedQuadraticCostQMatrix, quadraticCostQMatrix);
+   }
+
    private void compute_d()
    {
       // compute d = H^T * np
@@ -1001,16 +1166,17 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
 
       totalNumberOfInequalityConstraints = numberOfInequalityConstraints + numberOfLowerBounds + numberOfUpperBounds;
 
-      R.reshape(problemSize, problemSize);
-      inequalityConstraintViolations.reshape(totalNumberOfInequalityConstraints, 1);
-      stepDirectionInPrimalSpace.reshape(problemSize, 1);
-      infeasibilityMultiplier.reshape(numberOfConstraints, 1);
-      d.reshape(problemSize, 1);
-      violatedConstraintNormal.reshape(problemSize, 1);
-      lagrangeMultipliers.reshape(numberOfConstraints, 1);
-      previousSolution.reshape(problemSize, 1);
-      previousLagrangeMultipliers.reshape(numberOfConstraints, 1);
-
+      reshape(R, problemSize, problemSize);
+      reshape(inequalityConstraintViolations, totalNumberOfInequalityConstraints, 1);
+      reshape(stepDirectionInPrimalSpace, problemSize, 1);
+      reshape(infeasibilityMultiplier, numberOfConstraints, 1);
+      reshape(d, problemSize, 1);
+      reshape(violatedConstraintNormal, problemSize, 1);
+      reshape(lagrangeMultipliers, numberOfConstraints, 1);
+      reshape(previousSolution, problemSize, 1);
+      reshape(previousLagrangeMultipliers, numberOfConstraints, 1);
+
+      ensureIndexListsCapacity(numberOfConstraints);
       activeSetIndices.resetQuick();
       previousActiveSetIndices.resetQuick();
       inactiveSetIndices.resetQuick();
@@ -1022,8 +1188,8 @@ public class JavaQuadProgSolver extends AbstractSimpleActiveSetQPSolver
       excludeConstraintFromActiveSet.fill(0, totalNumberOfInequalityConstraints, FALSE);
 
       // compile all the inequality constraints into one matrix
-      totalLinearInequalityConstraintsCMatrix.reshape(problemSize, numberOfInequalityConstraints + numberOfLowerBounds + numberOfUpperBounds);
-      totalLinearInequalityConstraintsDVector.reshape(numberOfInequalityConstraints + numberOfLowerBounds + numberOfUpperBounds, 1);
+      reshape(totalLinearInequalityConstraintsCMatrix, problemSize, numberOfInequalityConstraints + numberOfLowerBounds + numberOfUpperBounds);
+      reshape(totalLinearInequalityConstraintsDVector, numberOfInequalityConstraints + numberOfLowerBounds + numberOfUpperBounds, 1);
 
       // add inequality constraints to total inequality constraint
       MatrixTools.setMatrixBlock(totalLinearInequalityConstraintsCMatrix, 0, 0, linearInequalityConstraintsCMatrixO, 0, 0, problemSize, numberOfInequalityConstraints, 1.0);
@@ -8,6 +8,53 @@ public interface SimpleActiveSetQPSolverInterface extends ActiveSetQPSolver
 
    public abstract void resetActiveConstraints();
 
+   /**
+    * Gets the time spent during the last solve factorizing the quadratic cost.
+    *
+    * @return the duration in seconds, or {@link Double#NaN} if the solver does not measure it.
+    */
+   public default double getLastFactorizationTime()
+   {
+      return Double.NaN;
+   }
+
+   /**
+    * Gets the time spent during the last solve in the active set iterations, excluding the
+    * factorization of the quadratic cost.
+    *
+    * @return the duration in seconds, or {@link Double#NaN} if the solver does not measure it.
+    */
+   public default double getLastIterationsTime()
+   {
+      return Double.NaN;
+   }
+
+   /**
+    * Sets whether the quadratic cost is factorized with a Cholesky decomposition. Only used by
+    * solvers that support it, disabled by default.
+    */
+   public default void setUseCholeskyFactorization(boolean useCholeskyFactorization)
+   {
+   }
+
+   /**
+    * Tells the solver that the quadratic cost, and the active variables for solvers that support
+    * them, are identical to the previous solve, such that its factorization can be reused. Only
+    * applies to the next solve.
+    */
+   public default void notifyQuadraticCostUnchanged()
+   {
+   }
+
+   /**
+    * Whether the last solve reused the factorization of the quadratic cost from the previous solve
+    * because the cost had not changed.
+    */
+   public default boolean wasLastFactorizationReused()
+   {
+      return false;
+   }
+
    public abstract int solve(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack,
                              double[] lagrangeInequalityConstraintMultipliersToPack, double[] lagrangeLowerBoundMultipliersToPack,
                              double[] lagrangeUpperBoundMultipliersToPack);
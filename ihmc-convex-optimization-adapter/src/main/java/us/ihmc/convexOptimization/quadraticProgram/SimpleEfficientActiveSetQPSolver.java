@@ -6,6 +6,7 @@ import org.ejml.interfaces.linsol.LinearSolver;
 import org.ejml.ops.CommonOps;
 
 import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.commons.Conversions;
 import us.ihmc.commons.PrintTools;
 import us.ihmc.robotics.linearAlgebra.MatrixTools;
 
@@ -95,6 +96,14 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
    protected final DenseMatrix64F computedObjectiveFunctionValue = new DenseMatrix64F(1, 1);
 
    private final LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.linear(0);
+   private final LinearSolver<DenseMatrix64F> choleskySolver = LinearSolverFactory.symmPosDef(0);
+   private final DenseMatrix64F choleskyInput = new DenseMatrix64F(0, 0);
+   private boolean useCholeskyFactorization = false;
+   private boolean hasFactorization = false;
+   private boolean quadraticCostUnchanged = false;
+   private boolean factorizationReused = false;
+   private long factorizationDuration = 0;
+   private long solveDuration = 0;
 
    private final DenseMatrix64F lowerBoundViolations = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F upperBoundViolations = new DenseMatrix64F(0, 0);
@@ -305,6 +314,41 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
       return numberOfIterations;
    }
 
+   @Override
+   public double getLastFactorizationTime()
+   {
+      return Conversions.nanosecondsToSeconds(factorizationDuration);
+   }
+
+   @Override
+   public double getLastIterationsTime()
+   {
+      return Conversions.nanosecondsToSeconds(solveDuration - factorizationDuration);
+   }
+
+   @Override
+   public boolean wasLastFactorizationReused()
+   {
+      return factorizationReused;
+   }
+
+   /**
+    * Sets whether the quadratic cost is inverted with a Cholesky decomposition instead of an LU
+    * decomposition. The Cholesky decomposition is cheaper but requires the cost to be positive
+    * definite, the LU decomposition is used as fall back otherwise. Disabled by default.
+    */
+   @Override
+   public void setUseCholeskyFactorization(boolean useCholeskyFactorization)
+   {
+      this.useCholeskyFactorization = useCholeskyFactorization;
+   }
+
+   @Override
+   public void notifyQuadraticCostUnchanged()
+   {
+      quadraticCostUnchanged = true;
+   }
+
    @Override
    public void setUseWarmStart(boolean useWarmStart)
    {
@@ -372,14 +416,19 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
       lagrangeUpperBoundConstraintMultipliersToPack.reshape(numberOfUpperBoundConstraints, 1);
       lagrangeUpperBoundConstraintMultipliersToPack.zero();
 
+      long solveStartTime = System.nanoTime();
       computeQInverseAndAQInverse();
+      factorizationDuration = System.nanoTime() - solveStartTime;
 
       solveEqualityConstrainedSubproblemEfficiently(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
                                                     lagrangeLowerBoundConstraintMultipliersToPack, lagrangeUpperBoundConstraintMultipliersToPack);
 
       //      System.out.println(numberOfInequalityConstraints + ", " + numberOfLowerBoundConstraints + ", " + numberOfUpperBoundConstraints);
       if ((numberOfInequalityConstraints == 0) && (numberOfLowerBoundConstraints == 0) && (numberOfUpperBoundConstraints == 0))
+      {
+         solveDuration = System.nanoTime() - solveStartTime;
          return numberOfIterations;
+      }
 
       for (int i = 0; i < maxNumberOfIterations; i++)
       {
@@ -389,12 +438,16 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
          numberOfIterations++;
 
          if (!activeSetWasModified)
+         {
+            solveDuration = System.nanoTime() - solveStartTime;
             return numberOfIterations;
+         }
       }
 
       for (int i = 0; i < numberOfVariables; i++)
          solutionToPack.set(i, 0, Double.NaN);
 
+      solveDuration = System.nanoTime() - solveStartTime;
       return numberOfIterations;
    }
 
@@ -427,6 +480,28 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
       return false;
    }
 
+   /**
+    * Inverts the quadratic cost into {@link #QInverse} using a Cholesky decomposition.
+    *
+    * @return false if the cost is not positive definite, in which case {@link #QInverse} is not
+    *         computed.
+    */
+   private boolean invertWithCholesky()
+   {
+      DenseMatrix64F choleskyA = quadraticCostQMatrix;
+      if (choleskySolver.modifiesA())
+      {
+         choleskyInput.set(quadraticCostQMatrix);
+         choleskyA = choleskyInput;
+      }
+
+      if (!choleskySolver.setA(choleskyA))
+         return false;
+
+      choleskySolver.invert(QInverse);
+      return true;
+   }
+
    private void computeQInverseAndAQInverse()
    {
       int numberOfVariables = quadraticCostQMatrix.getNumRows();
@@ -434,10 +509,23 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
 
       ATranspose.reshape(linearEqualityConstraintsAMatrix.getNumCols(), linearEqualityConstraintsAMatrix.getNumRows());
       CommonOps.transpose(linearEqualityConstraintsAMatrix, ATranspose);
-      QInverse.reshape(numberOfVariables, numberOfVariables);
 
-      solver.setA(quadraticCostQMatrix);
-      solver.invert(QInverse);
+      // The inverse only depends on the quadratic cost, the caller tells us when it is the same as for the previous solve.
+      factorizationReused = quadraticCostUnchanged && hasFactorization && QInverse.getNumRows() == numberOfVariables;
+      quadraticCostUnchanged = false;
+
+      if (!factorizationReused)
+      {
+         QInverse.reshape(numberOfVariables, numberOfVariables);
+
+         if (!useCholeskyFactorization || !invertWithCholesky())
+         {
+            solver.setA(quadraticCostQMatrix);
+            solver.invert(QInverse);
+         }
+
+         hasFactorization = true;
+      }
 
       AQInverse.reshape(numberOfEqualityConstraints, numberOfVariables);
       QInverseATranspose.reshape(numberOfVariables, numberOfEqualityConstraints);
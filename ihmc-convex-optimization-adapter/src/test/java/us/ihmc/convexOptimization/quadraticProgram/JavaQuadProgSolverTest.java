@@ -157,6 +157,41 @@ public class JavaQuadProgSolverTest extends AbstractSimpleActiveSetQPSolverTest
       PrintTools.info("Simple solve time : " + simpleTimer.getAverageTime());
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testFixedStructureOnKiwiDataset20170712()
+   {
+      ActualDatasetFromKiwi20170712 dataset = new ActualDatasetFromKiwi20170712();
+      int problemSize = dataset.getProblemSize();
+
+      JavaQuadProgSolver fixedStructureSolver = new JavaQuadProgSolver();
+      fixedStructureSolver.setMaximumProblemSize(problemSize, 0, 0);
+
+      DenseMatrix64F costLinearVector = new DenseMatrix64F(dataset.getCostLinearVector());
+      DenseMatrix64F expectedSolution = new DenseMatrix64F(problemSize, 1);
+      DenseMatrix64F solution = new DenseMatrix64F(problemSize, 1);
+
+      for (int repeat = 0; repeat < 3; repeat++)
+      {
+         // Only the gradient changes from one solve to the next, the Hessian does not.
+         CommonOps.scale(1.0 + 0.1 * repeat, dataset.getCostLinearVector(), costLinearVector);
+
+         JavaQuadProgSolver referenceSolver = new JavaQuadProgSolver();
+         referenceSolver.setQuadraticCostFunction(dataset.getCostQuadraticMatrix(), costLinearVector, 0.0);
+         referenceSolver.setVariableBounds(dataset.getVariableLowerBounds(), dataset.getVariableUpperBounds());
+         referenceSolver.solve(expectedSolution);
+
+         fixedStructureSolver.clear();
+         fixedStructureSolver.setQuadraticCostFunction(dataset.getCostQuadraticMatrix(), costLinearVector, 0.0);
+         fixedStructureSolver.setVariableBounds(dataset.getVariableLowerBounds(), dataset.getVariableUpperBounds());
+         fixedStructureSolver.solve(solution);
+
+         assertEquals(0, fixedStructureSolver.getNumberOfAllocationsInLastSolve());
+         assertEquals(repeat > 0, fixedStructureSolver.wasLastFactorizationReused());
+         JUnitTools.assertMatrixEquals(expectedSolution, solution, 1.0e-10);
+      }
+   }
+
    @ContinuousIntegrationTest(estimatedDuration = 0.1)
    @Test(timeout = 30000)
    public void testAgainstStandardQuadProg() throws NoConvergenceException
@@ -162,4 +162,74 @@ public class SimpleEfficientActiveSetQPSolverTest extends AbstractSimpleActiveSe
 
       assertTrue(numberOfIterationsWithWarmStart < numberOfIterationsWithoutWarmStart);
    }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testFactorizationIsReusedWhenCostIsUnchanged()
+   {
+      SimpleActiveSetQPSolverInterface solver = createSolverToTest();
+      DenseMatrix64F solution = new DenseMatrix64F(2, 1);
+
+      // Minimize x^2 + y^2 - 2x - 4y, solution is (1, 2).
+      double[][] costQuadraticMatrix = new double[][] {{2.0, 0.0}, {0.0, 2.0}};
+      solver.clear();
+      solver.setQuadraticCostFunction(costQuadraticMatrix, new double[] {-2.0, -4.0}, 0.0);
+      solver.solve(solution);
+      assertFalse(solver.wasLastFactorizationReused());
+      assertEquals(1.0, solution.get(0), 1e-10);
+      assertEquals(2.0, solution.get(1), 1e-10);
+      assertTrue(solver.getLastFactorizationTime() >= 0.0);
+      assertTrue(solver.getLastIterationsTime() >= 0.0);
+
+      // Same quadratic cost, only the linear term changes, solution is (-3, 0.5).
+      solver.clear();
+      solver.setQuadraticCostFunction(costQuadraticMatrix, new double[] {6.0, -1.0}, 0.0);
+      solver.notifyQuadraticCostUnchanged();
+      solver.solve(solution);
+      assertTrue(solver.wasLastFactorizationReused());
+      assertEquals(-3.0, solution.get(0), 1e-10);
+      assertEquals(0.5, solution.get(1), 1e-10);
+
+      // Same quadratic cost without notifying the solver, the factorization is recomputed.
+      solver.clear();
+      solver.setQuadraticCostFunction(costQuadraticMatrix, new double[] {6.0, -1.0}, 0.0);
+      solver.solve(solution);
+      assertFalse(solver.wasLastFactorizationReused());
+      assertEquals(-3.0, solution.get(0), 1e-10);
+      assertEquals(0.5, solution.get(1), 1e-10);
+
+      // Different quadratic cost, minimize 2x^2 + y^2 - 2x - 4y, solution is (0.5, 2).
+      solver.clear();
+      solver.setQuadraticCostFunction(new double[][] {{4.0, 0.0}, {0.0, 2.0}}, new double[] {-2.0, -4.0}, 0.0);
+      solver.solve(solution);
+      assertFalse(solver.wasLastFactorizationReused());
+      assertEquals(0.5, solution.get(0), 1e-10);
+      assertEquals(2.0, solution.get(1), 1e-10);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testCholeskyFactorization()
+   {
+      SimpleActiveSetQPSolverInterface solver = createSolverToTest();
+      solver.setUseCholeskyFactorization(true);
+      DenseMatrix64F solution = new DenseMatrix64F(2, 1);
+
+      // Minimize 2x^2 + y^2 - 2x - 4y subject to x + y = 1, solution is (0, 1).
+      solver.clear();
+      solver.setQuadraticCostFunction(new double[][] {{4.0, 0.0}, {0.0, 2.0}}, new double[] {-2.0, -4.0}, 0.0);
+      solver.setLinearEqualityConstraints(new double[][] {{1.0, 1.0}}, new double[] {1.0});
+      solver.solve(solution);
+      assertEquals(0.0, solution.get(0), 1e-10);
+      assertEquals(1.0, solution.get(1), 1e-10);
+
+      // The cost is not positive definite, the solver falls back to the LU decomposition.
+      // Minimize -x^2 + y^2 subject to x = 1, solution is (1, 0).
+      solver.clear();
+      solver.setQuadraticCostFunction(new double[][] {{-2.0, 0.0}, {0.0, 2.0}}, new double[] {0.0, 0.0}, 0.0);
+      solver.setLinearEqualityConstraints(new double[][] {{1.0, 0.0}}, new double[] {1.0});
+      solver.solve(solution);
+      assertEquals(1.0, solution.get(0), 1e-10);
+      assertEquals(0.0, solution.get(1), 1e-10);
+   }
 }
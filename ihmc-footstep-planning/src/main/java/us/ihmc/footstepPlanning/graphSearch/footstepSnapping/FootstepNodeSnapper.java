@@ -1,13 +1,12 @@
 package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
 
-import java.util.HashMap;
-
+import gnu.trove.map.hash.TLongObjectHashMap;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 
 public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
 {
-   private final HashMap<FootstepNode, FootstepNodeSnapData> snapDataHolder = new HashMap<>();
+   private final TLongObjectHashMap<FootstepNodeSnapData> snapDataHolder = new TLongObjectHashMap<>();
    protected PlanarRegionsList planarRegionsList;
 
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
@@ -18,9 +17,10 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
 
    public FootstepNodeSnapData snapFootstepNode(FootstepNode footstepNode)
    {
-      if (snapDataHolder.containsKey(footstepNode))
+      FootstepNodeSnapData cachedSnapData = snapDataHolder.get(footstepNode.getLongKey());
+      if (cachedSnapData != null)
       {
-         return snapDataHolder.get(footstepNode);
+         return cachedSnapData;
       }
       else if (planarRegionsList == null)
       {
@@ -41,13 +41,13 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
     */
    public void addSnapData(FootstepNode footstepNode, FootstepNodeSnapData snapData)
    {
-      snapDataHolder.put(footstepNode, snapData);
+      snapDataHolder.put(footstepNode.getLongKey(), snapData);
    }
 
    @Override
    public FootstepNodeSnapData getSnapData(FootstepNode node)
    {
-      return snapDataHolder.get(node);
+      return snapDataHolder.get(node.getLongKey());
    }
 
    protected abstract FootstepNodeSnapData snapInternal(FootstepNode footstepNode);
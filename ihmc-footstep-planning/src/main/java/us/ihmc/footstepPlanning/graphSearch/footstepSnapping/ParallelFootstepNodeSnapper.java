@@ -0,0 +1,125 @@
+package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+
+/**
+ * Snapper that can snap a batch of nodes concurrently on a {@link ForkJoinPool}.
+ * <p>
+ * Each worker thread gets its own snapper from the factory together with its own copy of the
+ * planar regions, since neither the snappers nor {@link us.ihmc.robotics.geometry.PlanarRegion}
+ * can be queried from several threads at once. The resulting snap data is stored in the shared
+ * cache of this snapper, so any subsequent call to {@link #snapFootstepNode(FootstepNode)} or
+ * {@link #getSnapData(FootstepNode)} from the planner thread is a cache hit. Since the snap data
+ * of a node only depends on the node and the planar regions, the result does not depend on the
+ * number of threads.
+ * </p>
+ */
+public class ParallelFootstepNodeSnapper extends FootstepNodeSnapper
+{
+   private final Supplier<? extends FootstepNodeSnapper> workerSnapperFactory;
+   private final ForkJoinPool pool;
+   private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+   private final List<FootstepNode> nodesToSnap = new ArrayList<>();
+   private volatile int planarRegionsVersion = 0;
+
+   public ParallelFootstepNodeSnapper(Supplier<? extends FootstepNodeSnapper> workerSnapperFactory)
+   {
+      this(workerSnapperFactory, ForkJoinPool.commonPool());
+   }
+
+   public ParallelFootstepNodeSnapper(Supplier<? extends FootstepNodeSnapper> workerSnapperFactory, ForkJoinPool pool)
+   {
+      this.workerSnapperFactory = workerSnapperFactory;
+      this.pool = pool;
+   }
+
+   @Override
+   public synchronized void setPlanarRegions(PlanarRegionsList planarRegionsList)
+   {
+      super.setPlanarRegions(planarRegionsList);
+      planarRegionsVersion++;
+   }
+
+   @Override
+   public synchronized FootstepNodeSnapData snapFootstepNode(FootstepNode footstepNode)
+   {
+      return super.snapFootstepNode(footstepNode);
+   }
+
+   @Override
+   public synchronized void addSnapData(FootstepNode footstepNode, FootstepNodeSnapData snapData)
+   {
+      super.addSnapData(footstepNode, snapData);
+   }
+
+   @Override
+   public synchronized FootstepNodeSnapData getSnapData(FootstepNode node)
+   {
+      return super.getSnapData(node);
+   }
+
+   /**
+    * Snaps all the given nodes that are not in the cache yet, distributing the work over the pool.
+    * Blocks until all of them are snapped.
+    */
+   public void snapFootstepNodes(Collection<FootstepNode> footstepNodes)
+   {
+      synchronized (this)
+      {
+         if (planarRegionsList == null)
+            return;
+
+         nodesToSnap.clear();
+         for (FootstepNode footstepNode : footstepNodes)
+         {
+            if (super.getSnapData(footstepNode) == null)
+               nodesToSnap.add(footstepNode);
+         }
+      }
+
+      if (nodesToSnap.size() < 2 || pool.getParallelism() < 2)
+      {
+         for (int i = 0; i < nodesToSnap.size(); i++)
+            snapFootstepNode(nodesToSnap.get(i));
+         return;
+      }
+
+      pool.submit(() -> nodesToSnap.parallelStream().forEach(node -> addSnapData(node, workers.get().snap(node)))).join();
+   }
+
+   @Override
+   protected FootstepNodeSnapData snapInternal(FootstepNode footstepNode)
+   {
+      return workers.get().snap(footstepNode);
+   }
+
+   private class Worker
+   {
+      private final FootstepNodeSnapper snapper = workerSnapperFactory.get();
+      private int version = -1;
+
+      FootstepNodeSnapData snap(FootstepNode footstepNode)
+      {
+         if (version != planarRegionsVersion)
+         {
+            PlanarRegionsList planarRegionsList;
+            synchronized (ParallelFootstepNodeSnapper.this)
+            {
+               planarRegionsList = ParallelFootstepNodeSnapper.this.planarRegionsList;
+               version = planarRegionsVersion;
+            }
+            snapper.setPlanarRegions(planarRegionsList == null ? null : planarRegionsList.copy());
+         }
+
+         return snapper.snapInternal(footstepNode);
+      }
+   }
+}
@@ -1,11 +1,16 @@
 package us.ihmc.footstepPlanning.graphSearch.graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
 /**
  * Class that maintains a directed graph of FootstepNodes.
  *
@@ -13,15 +18,29 @@ import java.util.List;
  * edges must start at known nodes. The class is initialized with a start node and maintains
  * shortest paths and costs to reach all nodes in the graph efficiently.
  *
+ * Nodes are identified by {@link FootstepNode#getLongKey()}. Costs and best parents are stored in
+ * primitive open addressing maps and edges in linked lists backed by arrays, so after the first
+ * plan the graph does not allocate when it is re-initialized and grown again.
+ *
  * @author Georg
  */
 public class FootstepGraph
 {
-   private final HashMap<FootstepEdge, EdgeCost> edgeCostMap = new HashMap<>();
-   private final HashMap<FootstepNode, NodeCost> nodeCostMap = new HashMap<>();
+   private static final int NO_EDGE = -1;
+   private static final int INITIAL_CAPACITY = 4096;
+
+   private final TLongObjectHashMap<FootstepNode> nodes = new TLongObjectHashMap<>(INITIAL_CAPACITY);
+   private final TLongDoubleHashMap nodeCosts = new TLongDoubleHashMap(INITIAL_CAPACITY);
+   private final TLongLongHashMap bestParents = new TLongLongHashMap(INITIAL_CAPACITY);
+   private final TLongIntHashMap firstOutgoingEdge = new TLongIntHashMap(INITIAL_CAPACITY, 0.5f, 0L, NO_EDGE);
 
-   private final HashMap<FootstepNode, HashSet<FootstepEdge>> outgoingEdges = new HashMap<>();
-   private final HashMap<FootstepNode, FootstepEdge> incomingBestEdge = new HashMap<>();
+   private long[] edgeEndNodes = new long[INITIAL_CAPACITY];
+   private double[] edgeCosts = new double[INITIAL_CAPACITY];
+   private int[] nextEdges = new int[INITIAL_CAPACITY];
+   private int numberOfEdges = 0;
+
+   private final TLongArrayList updatedNodes = new TLongArrayList();
+   private long startNodeKey;
 
    /**
     * Removes all nodes and edges stored in the graph and
@@ -31,54 +50,82 @@ public class FootstepGraph
     */
    public void initialize(FootstepNode startNode)
    {
-      edgeCostMap.clear();
-      nodeCostMap.clear();
-      outgoingEdges.clear();
-      incomingBestEdge.clear();
-
-      nodeCostMap.put(startNode, new NodeCost(0.0));
-      FootstepEdge edgeToStart = new FootstepEdge(null, startNode);
-      incomingBestEdge.put(startNode, edgeToStart);
+      nodes.clear();
+      nodeCosts.clear();
+      bestParents.clear();
+      firstOutgoingEdge.clear();
+      numberOfEdges = 0;
+      updatedNodes.resetQuick();
+
+      startNodeKey = startNode.getLongKey();
+      nodes.put(startNodeKey, startNode);
+      nodeCosts.put(startNodeKey, 0.0);
    }
 
    /**
     * Adds an edge to the graph and updates all path and node costs affected. The edge must
     * originate at a known node and the cost associated to moving along the edge must be given.
     *
+    * The keys of all nodes whose cost changed are available from {@link #getUpdatedNodes()} until the next call.
+    *
     * @param startNode
     * @param endNode
     * @param transitionCost
     */
    public void checkAndSetEdge(FootstepNode startNode, FootstepNode endNode, double transitionCost)
    {
-      checkNodeExists(startNode);
+      long startKey = startNode.getLongKey();
+      long endKey = endNode.getLongKey();
+      checkNodeExists(startKey);
+      updatedNodes.resetQuick();
 
-      FootstepEdge edge = new FootstepEdge(startNode, endNode);
-      if (edgeCostMap.containsKey(edge))
-         throw new RuntimeException("Edge exists already.");
+      for (int edge = firstOutgoingEdge.get(startKey); edge != NO_EDGE; edge = nextEdges[edge])
+      {
+         if (edgeEndNodes[edge] == endKey)
+            throw new RuntimeException("Edge exists already.");
+      }
 
-      if (!outgoingEdges.containsKey(startNode))
-         outgoingEdges.put(startNode, new HashSet<FootstepEdge>());
-      EdgeCost cost = new EdgeCost(transitionCost);
-      edgeCostMap.put(edge, cost);
-      outgoingEdges.get(startNode).add(edge);
+      addEdge(startKey, endKey, transitionCost);
 
-      double newNodeCost = nodeCostMap.get(startNode).getNodeCost() + transitionCost;
-      if (nodeCostMap.containsKey(endNode))
+      double newNodeCost = nodeCosts.get(startKey) + transitionCost;
+      if (nodeCosts.containsKey(endKey))
       {
-         double oldNodeCost = nodeCostMap.get(endNode).getNodeCost();
+         double oldNodeCost = nodeCosts.get(endKey);
          if (newNodeCost >= oldNodeCost)
             return;
 
-         nodeCostMap.put(endNode, new NodeCost(newNodeCost));
-         incomingBestEdge.put(endNode, edge);
-         updateChildCostsRecursively(endNode);
+         setBestParent(endKey, startKey, newNodeCost);
+         updateChildCostsRecursively(endKey);
       }
       else
       {
-         nodeCostMap.put(endNode, new NodeCost(newNodeCost));
-         incomingBestEdge.put(endNode, edge);
+         nodes.put(endKey, endNode);
+         setBestParent(endKey, startKey, newNodeCost);
+      }
+   }
+
+   private void addEdge(long startKey, long endKey, double transitionCost)
+   {
+      if (numberOfEdges == edgeEndNodes.length)
+      {
+         int capacity = 2 * edgeEndNodes.length;
+         edgeEndNodes = Arrays.copyOf(edgeEndNodes, capacity);
+         edgeCosts = Arrays.copyOf(edgeCosts, capacity);
+         nextEdges = Arrays.copyOf(nextEdges, capacity);
       }
+
+      int edge = numberOfEdges++;
+      edgeEndNodes[edge] = endKey;
+      edgeCosts[edge] = transitionCost;
+      nextEdges[edge] = firstOutgoingEdge.get(startKey);
+      firstOutgoingEdge.put(startKey, edge);
+   }
+
+   private void setBestParent(long nodeKey, long parentKey, double cost)
+   {
+      nodeCosts.put(nodeKey, cost);
+      bestParents.put(nodeKey, parentKey);
+      updatedNodes.add(nodeKey);
    }
 
    /**
@@ -86,9 +133,34 @@ public class FootstepGraph
     */
    public double getCostFromStart(FootstepNode node)
    {
-      checkNodeExists(node);
+      return getCostFromStart(node.getLongKey());
+   }
+
+   /**
+    * Gets the cost associated to traveling from the start node to the node with the given key.
+    */
+   public double getCostFromStart(long nodeKey)
+   {
+      checkNodeExists(nodeKey);
+
+      return nodeCosts.get(nodeKey);
+   }
+
+   /**
+    * Returns the node in the graph with the given key, or null if it does not exist.
+    */
+   public FootstepNode getNode(long nodeKey)
+   {
+      return nodes.get(nodeKey);
+   }
 
-      return nodeCostMap.get(node).getNodeCost();
+   /**
+    * Keys of the nodes whose cost from start got set or lowered by the last call to
+    * {@link #checkAndSetEdge(FootstepNode, FootstepNode, double)}.
+    */
+   public TLongArrayList getUpdatedNodes()
+   {
+      return updatedNodes;
    }
 
    /**
@@ -97,56 +169,68 @@ public class FootstepGraph
     */
    public List<FootstepNode> getPathFromStart(FootstepNode node)
    {
-      checkNodeExists(node);
+      long nodeKey = node.getLongKey();
+      checkNodeExists(nodeKey);
 
       ArrayList<FootstepNode> path = new ArrayList<>();
-      path.add(node);
+      path.add(nodes.get(nodeKey));
 
-      FootstepEdge edgeFromParent = incomingBestEdge.get(node);
-      while (edgeFromParent.getStartNode() != null)
+      while (nodeKey != startNodeKey)
       {
-         FootstepNode parentNode = edgeFromParent.getStartNode();
-         path.add(parentNode);
-         edgeFromParent = incomingBestEdge.get(parentNode);
+         nodeKey = bestParents.get(nodeKey);
+         path.add(nodes.get(nodeKey));
       }
 
       Collections.reverse(path);
       return path;
    }
 
+   /**
+    * Returns the number of steps required to travel from the start node to the given node.
+    */
+   public int getNumberOfStepsFromStart(FootstepNode node)
+   {
+      long nodeKey = node.getLongKey();
+      checkNodeExists(nodeKey);
+
+      int steps = 0;
+      while (nodeKey != startNodeKey)
+      {
+         nodeKey = bestParents.get(nodeKey);
+         steps++;
+      }
+      return steps;
+   }
+
    /**
     * Will check if a node exists in the graph.
     * @param node
     */
    public boolean doesNodeExist(FootstepNode node)
    {
-      return nodeCostMap.containsKey(node);
+      return nodeCosts.containsKey(node.getLongKey());
    }
 
-   private void updateChildCostsRecursively(FootstepNode node)
+   private void updateChildCostsRecursively(long nodeKey)
    {
-      if (!outgoingEdges.containsKey(node))
-         return;
-
-      double parentNodeCost = nodeCostMap.get(node).getNodeCost();
-      for (FootstepEdge outgoingEdge : outgoingEdges.get(node))
+      double parentNodeCost = nodeCosts.get(nodeKey);
+      for (int edge = firstOutgoingEdge.get(nodeKey); edge != NO_EDGE; edge = nextEdges[edge])
       {
-         double newCost = parentNodeCost + edgeCostMap.get(outgoingEdge).getEdgeCost();
-         FootstepNode childNode = outgoingEdge.getEndNode();
+         double newCost = parentNodeCost + edgeCosts[edge];
+         long childKey = edgeEndNodes[edge];
 
-         double oldCost = nodeCostMap.get(childNode).getNodeCost();
+         double oldCost = nodeCosts.get(childKey);
          if (oldCost <= newCost)
             continue;
 
-         nodeCostMap.put(childNode, new NodeCost(newCost));
-         incomingBestEdge.put(childNode, outgoingEdge);
-         updateChildCostsRecursively(childNode);
+         setBestParent(childKey, nodeKey, newCost);
+         updateChildCostsRecursively(childKey);
       }
    }
 
-   private void checkNodeExists(FootstepNode node)
+   private void checkNodeExists(long nodeKey)
    {
-      if (!nodeCostMap.containsKey(node))
+      if (!nodeCosts.containsKey(nodeKey))
          throw new RuntimeException("Node has not been added to graph yet.");
    }
 }
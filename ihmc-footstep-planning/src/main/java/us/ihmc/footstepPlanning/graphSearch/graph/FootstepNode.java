@@ -20,6 +20,7 @@ public class FootstepNode
    private Point2D midFootPoint;
 
    private final int hashCode;
+   private final long longKey;
 
    public FootstepNode(double x, double y)
    {
@@ -34,6 +35,7 @@ public class FootstepNode
       this.robotSide = robotSide;
 
       hashCode = computeHashCode(this);
+      longKey = computeLongKey(xIndex, yIndex, yawIndex, robotSide);
    }
 
    public double getX()
@@ -56,6 +58,43 @@ public class FootstepNode
       return robotSide;
    }
 
+   public int getXIndex()
+   {
+      return xIndex;
+   }
+
+   public int getYIndex()
+   {
+      return yIndex;
+   }
+
+   public int getYawIndex()
+   {
+      return yawIndex;
+   }
+
+   /**
+    * Unique key of this node, packing the grid indices and the robot side in a single long.
+    * Two nodes are equal if and only if their keys are equal.
+    */
+   public long getLongKey()
+   {
+      return longKey;
+   }
+
+   /**
+    * Packs the node indices in a long: 28 bits for the x and y index, 7 bits for the yaw index
+    * and 1 bit for the robot side. This covers +/- 6.7 km at the current grid resolution.
+    */
+   public static long computeLongKey(int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+   {
+      long key = ((long) xIndex & 0xFFFFFFFL) << 36;
+      key |= ((long) yIndex & 0xFFFFFFFL) << 8;
+      key |= ((long) yawIndex & 0x7FL) << 1;
+      key |= robotSide == RobotSide.RIGHT ? 1L : 0L;
+      return key;
+   }
+
    public double euclideanDistance(FootstepNode other)
    {
       double dx = getX() - other.getX();
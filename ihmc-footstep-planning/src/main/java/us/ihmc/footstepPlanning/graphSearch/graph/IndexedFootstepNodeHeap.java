@@ -0,0 +1,211 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import java.util.Arrays;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * Indexed binary min-heap of footstep node keys, used as the open set of the A* planner.
+ *
+ * Each node key is in the heap at most once. Its position is tracked in a primitive map, so the
+ * priority of a queued node can be lowered in O(log n) instead of queueing the node again. Nodes
+ * with equal priority are polled in insertion order, which makes the search deterministic.
+ *
+ * Storage is kept between plans, so clearing and refilling the heap does not allocate once it has
+ * grown to the size of the search.
+ */
+public class IndexedFootstepNodeHeap
+{
+   private static final int NOT_IN_HEAP = -1;
+
+   private final TLongIntHashMap positions;
+
+   private long[] keys;
+   private double[] priorities;
+   private long[] insertionOrder;
+   private int size = 0;
+   private long insertionCounter = 0;
+
+   public IndexedFootstepNodeHeap()
+   {
+      this(1024);
+   }
+
+   public IndexedFootstepNodeHeap(int initialCapacity)
+   {
+      positions = new TLongIntHashMap(initialCapacity, 0.5f, 0L, NOT_IN_HEAP);
+      keys = new long[initialCapacity];
+      priorities = new double[initialCapacity];
+      insertionOrder = new long[initialCapacity];
+   }
+
+   public void clear()
+   {
+      positions.clear();
+      size = 0;
+      insertionCounter = 0;
+   }
+
+   public boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public boolean contains(long key)
+   {
+      return positions.containsKey(key);
+   }
+
+   /**
+    * Adds the key to the heap or lowers its priority if it is already queued with a higher priority.
+    *
+    * @return true if the heap changed
+    */
+   public boolean insertOrDecrease(long key, double priority)
+   {
+      int position = positions.get(key);
+      if (position == NOT_IN_HEAP)
+      {
+         if (size == keys.length)
+         {
+            int capacity = 2 * keys.length;
+            keys = Arrays.copyOf(keys, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            insertionOrder = Arrays.copyOf(insertionOrder, capacity);
+         }
+
+         position = size++;
+         keys[position] = key;
+         priorities[position] = priority;
+         insertionOrder[position] = insertionCounter++;
+         positions.put(key, position);
+         siftUp(position);
+         return true;
+      }
+      else if (priority < priorities[position])
+      {
+         priorities[position] = priority;
+         siftUp(position);
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Changes the priority of a queued key, the key has to be in the heap.
+    */
+   public void update(long key, double priority)
+   {
+      int position = positions.get(key);
+      if (position == NOT_IN_HEAP)
+         throw new RuntimeException("Node is not in the heap.");
+
+      double oldPriority = priorities[position];
+      priorities[position] = priority;
+      if (priority < oldPriority)
+         siftUp(position);
+      else
+         siftDown(position);
+   }
+
+   public long peek()
+   {
+      if (size == 0)
+         throw new RuntimeException("Heap is empty.");
+      return keys[0];
+   }
+
+   public double peekPriority()
+   {
+      if (size == 0)
+         throw new RuntimeException("Heap is empty.");
+      return priorities[0];
+   }
+
+   /**
+    * Removes and returns the key with the lowest priority.
+    */
+   public long poll()
+   {
+      long top = peek();
+      positions.remove(top);
+
+      size--;
+      if (size > 0)
+      {
+         move(size, 0);
+         siftDown(0);
+      }
+      return top;
+   }
+
+   private boolean isLess(int a, int b)
+   {
+      if (priorities[a] != priorities[b])
+         return priorities[a] < priorities[b];
+      return insertionOrder[a] < insertionOrder[b];
+   }
+
+   private void siftUp(int position)
+   {
+      while (position > 0)
+      {
+         int parent = (position - 1) / 2;
+         if (!isLess(position, parent))
+            break;
+         swap(position, parent);
+         position = parent;
+      }
+   }
+
+   private void siftDown(int position)
+   {
+      while (true)
+      {
+         int left = 2 * position + 1;
+         if (left >= size)
+            break;
+
+         int smallest = left;
+         int right = left + 1;
+         if (right < size && isLess(right, left))
+            smallest = right;
+
+         if (!isLess(smallest, position))
+            break;
+         swap(position, smallest);
+         position = smallest;
+      }
+   }
+
+   private void move(int from, int to)
+   {
+      keys[to] = keys[from];
+      priorities[to] = priorities[from];
+      insertionOrder[to] = insertionOrder[from];
+      positions.put(keys[to], to);
+   }
+
+   private void swap(int a, int b)
+   {
+      long key = keys[a];
+      double priority = priorities[a];
+      long order = insertionOrder[a];
+
+      keys[a] = keys[b];
+      priorities[a] = priorities[b];
+      insertionOrder[a] = insertionOrder[b];
+
+      keys[b] = key;
+      priorities[b] = priority;
+      insertionOrder[b] = order;
+
+      positions.put(keys[a], a);
+      positions.put(keys[b], b);
+   }
+}
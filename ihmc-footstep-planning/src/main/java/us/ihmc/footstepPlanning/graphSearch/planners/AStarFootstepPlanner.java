@@ -1,5 +1,7 @@
 package us.ihmc.footstepPlanning.graphSearch.planners;
 
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
 import org.apache.commons.math3.util.Precision;
 import us.ihmc.commons.Conversions;
 import us.ihmc.commons.PrintTools;
@@ -12,10 +14,10 @@ import us.ihmc.footstepPlanning.graphSearch.FootstepPlannerParameters;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.*;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepGraph;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.graph.IndexedFootstepNodeHeap;
 import us.ihmc.footstepPlanning.graphSearch.graph.visualization.GraphVisualization;
 import us.ihmc.footstepPlanning.graphSearch.heuristics.CostToGoHeuristics;
 import us.ihmc.footstepPlanning.graphSearch.heuristics.DistanceAndYawBasedHeuristics;
-import us.ihmc.footstepPlanning.graphSearch.heuristics.NodeComparator;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.AlwaysValidNodeChecker;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.FootstepNodeChecker;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.FootstepNodeCheckerOfCheckers;
@@ -35,7 +37,7 @@ import us.ihmc.yoVariables.variable.YoLong;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
 
 public class AStarFootstepPlanner implements FootstepPlanner
 {
@@ -47,8 +49,8 @@ public class AStarFootstepPlanner implements FootstepPlanner
    private final FootstepPlannerParameters parameters;
 
    private SideDependentList<FootstepNode> goalNodes;
-   private HashSet<FootstepNode> expandedNodes;
-   private PriorityQueue<FootstepNode> stack;
+   private final TLongHashSet expandedNodes = new TLongHashSet();
+   private final IndexedFootstepNodeHeap stack = new IndexedFootstepNodeHeap();
    private FootstepNode startNode;
    private FootstepNode endNode;
    private PlanarRegionsList planarRegionsList;
@@ -60,6 +62,7 @@ public class AStarFootstepPlanner implements FootstepPlanner
    private final FootstepNodeExpansion nodeExpansion;
    private final FootstepCost stepCostCalculator;
    private final FootstepNodeSnapper snapper;
+   private ParallelFootstepNodeSnapper neighborSnapper;
 
    private final YoDouble timeout;
    private final YoDouble planningTime = new YoDouble("PlanningTime", registry);
@@ -99,6 +102,16 @@ public class AStarFootstepPlanner implements FootstepPlanner
       heuristics.setWeight(weight);
    }
 
+   /**
+    * Sets the snapper used by the node checker so the neighbors of each expanded node are snapped
+    * concurrently before they are checked. The checking and the graph updates stay on the planning
+    * thread in the expansion order, so the resulting plan is the same as without it.
+    */
+   public void setParallelNeighborSnapper(ParallelFootstepNodeSnapper neighborSnapper)
+   {
+      this.neighborSnapper = neighborSnapper;
+   }
+
    @Override
    public void setTimeout(double timeoutInSeconds)
    {
@@ -199,8 +212,7 @@ public class AStarFootstepPlanner implements FootstepPlanner
          throw new RuntimeException("Need to set goal before planning.");
       
       graph.initialize(startNode);
-      NodeComparator nodeComparator = new NodeComparator(graph, goalNodes, heuristics);
-      stack = new PriorityQueue<>(nodeComparator);
+      stack.clear();
 
       validGoalNode.set(true);
       for (RobotSide robotSide : RobotSide.values)
@@ -215,8 +227,8 @@ public class AStarFootstepPlanner implements FootstepPlanner
 //      RigidBodyTransform snapTransform = snapper.snapFootstepNode(startNode).getSnapTransform();
 //      FootstepNodeSnappingTools.constructGroundPlaneAroundFeet(planarRegionsList, startNode, snapTransform, parameters.getIdealFootstepWidth(), 0.5, 0.2,  0.5);
 
-      stack.add(startNode);
-      expandedNodes = new HashSet<>();
+      stack.insertOrDecrease(startNode.getLongKey(), computeNodeCost(startNode));
+      expandedNodes.clear();
       endNode = null;
 
       if (visualization != null)
@@ -240,10 +252,9 @@ public class AStarFootstepPlanner implements FootstepPlanner
       {
          iterations++;
          
-         FootstepNode nodeToExpand = stack.poll();
-         if (expandedNodes.contains(nodeToExpand))
+         FootstepNode nodeToExpand = graph.getNode(stack.poll());
+         if (!expandedNodes.add(nodeToExpand.getLongKey()))
             continue;
-         expandedNodes.add(nodeToExpand);
 
          if (visualization != null)
          {
@@ -258,6 +269,9 @@ public class AStarFootstepPlanner implements FootstepPlanner
 
          HashSet<FootstepNode> neighbors = nodeExpansion.expandNode(nodeToExpand);
          expandedNodesCount += neighbors.size();
+         if (neighborSnapper != null)
+            neighborSnapper.snapFootstepNodes(neighbors);
+
          for (FootstepNode neighbor : neighbors)
          {
             /** Checks if the footstep (center of the foot) is on a planar region*/
@@ -269,9 +283,7 @@ public class AStarFootstepPlanner implements FootstepPlanner
 
             double cost = stepCostCalculator.compute(nodeToExpand, neighbor);
             graph.checkAndSetEdge(nodeToExpand, neighbor, cost);
-
-            if(endNode == null || stack.comparator().compare(neighbor, endNode) < 0)
-               stack.add(neighbor);
+            updateStack();
          }
 
          long timeInNano = System.nanoTime();
@@ -286,6 +298,33 @@ public class AStarFootstepPlanner implements FootstepPlanner
       numberOfExpandedNodes.set(expandedNodesCount / iterations);
    }
 
+   /**
+    * Queues the nodes whose cost from start changed due to the last edge added to the graph, or lowers
+    * their priority if they are queued already.
+    */
+   private void updateStack()
+   {
+      TLongArrayList updatedNodes = graph.getUpdatedNodes();
+      double endNodeCost = endNode == null ? Double.POSITIVE_INFINITY : computeNodeCost(endNode);
+
+      for (int i = 0; i < updatedNodes.size(); i++)
+      {
+         long nodeKey = updatedNodes.get(i);
+         if (expandedNodes.contains(nodeKey))
+            continue;
+
+         FootstepNode node = graph.getNode(nodeKey);
+         double nodeCost = computeNodeCost(node);
+         if (nodeCost < endNodeCost)
+            stack.insertOrDecrease(nodeKey, nodeCost);
+      }
+   }
+
+   private double computeNodeCost(FootstepNode node)
+   {
+      return graph.getCostFromStart(node) + heuristics.compute(node, goalNodes.get(node.getRobotSide()));
+   }
+
    private boolean checkAndHandleNodeAtGoal(FootstepNode nodeToExpand)
    {
       if(!validGoalNode.getBooleanValue())
@@ -307,7 +346,7 @@ public class AStarFootstepPlanner implements FootstepPlanner
       if(!parameters.getReturnBestEffortPlan())
          return;
 
-      if(graph.getPathFromStart(nodeToExpand).size() - 1 < parameters.getMinimumStepsForBestEffortPlan())
+      if(graph.getNumberOfStepsFromStart(nodeToExpand) < parameters.getMinimumStepsForBestEffortPlan())
          return;
 
       if(endNode == null || heuristics.compute(nodeToExpand, goalNodes.get(nodeToExpand.getRobotSide())) < heuristics.compute(endNode, goalNodes.get(endNode.getRobotSide())))
@@ -376,4 +415,30 @@ public class AStarFootstepPlanner implements FootstepPlanner
                                                               registry);
       return planner;
    }
+
+   /**
+    * Same as {@link #createRoughTerrainPlanner(FootstepPlannerParameters, GraphVisualization, SideDependentList, FootstepNodeExpansion, YoVariableRegistry)}
+    * but the neighbors of each expanded node are snapped concurrently on the given pool.
+    */
+   public static AStarFootstepPlanner createParallelRoughTerrainPlanner(FootstepPlannerParameters parameters, GraphVisualization viz,
+                                                                        SideDependentList<ConvexPolygon2D> footPolygons, FootstepNodeExpansion expansion,
+                                                                        ForkJoinPool pool, YoVariableRegistry registry)
+   {
+      ParallelFootstepNodeSnapper snapper = new ParallelFootstepNodeSnapper(() -> new SimplePlanarRegionFootstepNodeSnapper(footPolygons), pool);
+      FootstepNodeSnapAndWiggler postProcessingSnapper = new FootstepNodeSnapAndWiggler(footPolygons, parameters, null);
+
+      SnapBasedNodeChecker nodeChecker = new SnapBasedNodeChecker(parameters, footPolygons, snapper);
+      PlanarRegionBaseOfCliffAvoider cliffAvoider = new PlanarRegionBaseOfCliffAvoider(parameters, snapper, footPolygons);
+      FootstepNodeCheckerOfCheckers checkerOfCheckers = new FootstepNodeCheckerOfCheckers(Arrays.asList(nodeChecker, cliffAvoider));
+
+      DistanceAndYawBasedHeuristics heuristics = new DistanceAndYawBasedHeuristics(parameters, registry);
+      DistanceAndYawBasedCost stepCostCalculator = new DistanceAndYawBasedCost(parameters);
+
+      heuristics.setWeight(1.5);
+
+      AStarFootstepPlanner planner = new AStarFootstepPlanner(parameters, checkerOfCheckers, heuristics, expansion, stepCostCalculator, postProcessingSnapper, viz,
+                                                              registry);
+      planner.setParallelNeighborSnapper(snapper);
+      return planner;
+   }
 }
@@ -0,0 +1,96 @@
+package us.ihmc.footstepPlanning.graphSearch.aStar;
+
+import java.util.concurrent.ForkJoinPool;
+
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.FootstepPlannerGoal;
+import us.ihmc.footstepPlanning.FootstepPlannerGoalType;
+import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.graphSearch.planners.AStarFootstepPlanner;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.simulationConstructionSetTools.util.planarRegions.PlanarRegionsListExamples;
+
+/**
+ * Compares the wall-clock planning time of the rough terrain A* planner with and without concurrent
+ * neighbor snapping for increasing pool sizes, and checks that all of them produce the same plan.
+ */
+public class AStarParallelSnappingBenchmark
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+   private static final int warmupIterations = 3;
+   private static final int iterations = 10;
+
+   public static void main(String[] args)
+   {
+      FramePose3D cinderBlockStart = new FramePose3D(worldFrame);
+      cinderBlockStart.setPosition(0.0, -0.7, 0.0);
+      FramePose3D cinderBlockGoal = new FramePose3D(worldFrame);
+      cinderBlockGoal.setPosition(9.0, 0.0, 0.0);
+      benchmark("Cinder block field", AStarParallelSnappingTest.createCinderBlockField(), cinderBlockStart, cinderBlockGoal);
+
+      double pathRadius = 3.5;
+      FramePose3D steppingStonesStart = new FramePose3D(worldFrame);
+      steppingStonesStart.setPosition(0.0, -0.7, 0.0);
+      steppingStonesStart.appendYawRotation(0.5 * Math.PI);
+      FramePose3D steppingStonesGoal = new FramePose3D(worldFrame);
+      steppingStonesGoal.setPosition(pathRadius + 0.5, pathRadius, 0.0);
+      benchmark("Stepping stones", PlanarRegionsListExamples.generateSteppingStonesEnvironment(pathRadius), steppingStonesStart, steppingStonesGoal);
+   }
+
+   private static void benchmark(String name, PlanarRegionsList planarRegionsList, FramePose3D start, FramePose3D goal)
+   {
+      System.out.println(name);
+
+      FootstepPlan expectedPlan = new FootstepPlan();
+      double sequentialTime = timePlanner(AStarParallelSnappingTest.createPlanner(null), planarRegionsList, start, goal, expectedPlan);
+      System.out.println(String.format("  sequential: %8.2f ms", sequentialTime));
+
+      int availableProcessors = Runtime.getRuntime().availableProcessors();
+      for (int parallelism = 1; parallelism <= availableProcessors; parallelism *= 2)
+      {
+         ForkJoinPool pool = new ForkJoinPool(parallelism);
+         FootstepPlan plan = new FootstepPlan();
+         double time = timePlanner(AStarParallelSnappingTest.createPlanner(pool), planarRegionsList, start, goal, plan);
+         pool.shutdown();
+
+         AStarParallelSnappingTest.assertPlansEqual(expectedPlan, plan);
+         System.out.println(String.format("  %2d threads: %8.2f ms, speedup %.2f", parallelism, time, sequentialTime / time));
+      }
+   }
+
+   private static double timePlanner(AStarFootstepPlanner planner, PlanarRegionsList planarRegionsList, FramePose3D start, FramePose3D goal,
+                                     FootstepPlan planToPack)
+   {
+      for (int i = 0; i < warmupIterations; i++)
+         plan(planner, planarRegionsList, start, goal);
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < iterations; i++)
+         plan(planner, planarRegionsList, start, goal);
+      double averageTime = (System.nanoTime() - startTime) / 1.0e6 / iterations;
+
+      FootstepPlan plan = planner.getPlan();
+      planToPack.clear();
+      for (int i = 0; i < plan.getNumberOfSteps(); i++)
+         planToPack.addFootstep(plan.getFootstep(i));
+      return averageTime;
+   }
+
+   private static void plan(AStarFootstepPlanner planner, PlanarRegionsList planarRegionsList, FramePose3D start, FramePose3D goalPose)
+   {
+      FootstepPlannerGoal goal = new FootstepPlannerGoal();
+      goal.setFootstepPlannerGoalType(FootstepPlannerGoalType.POSE_BETWEEN_FEET);
+      goal.setGoalPoseBetweenFeet(goalPose);
+
+      planner.setPlanarRegions(planarRegionsList);
+      planner.setInitialStanceFoot(start, RobotSide.RIGHT);
+      planner.setGoal(goal);
+
+      FootstepPlanningResult result = planner.plan();
+      if (!result.validForExecution())
+         throw new RuntimeException("Planner failed: " + result);
+   }
+}
@@ -0,0 +1,115 @@
+package us.ihmc.footstepPlanning.graphSearch.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.footstepPlanning.DefaultFootstepPlanningParameters;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.SimpleFootstep;
+import us.ihmc.footstepPlanning.graphSearch.FootstepPlannerParameters;
+import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.ParameterBasedNodeExpansion;
+import us.ihmc.footstepPlanning.graphSearch.planners.AStarFootstepPlanner;
+import us.ihmc.footstepPlanning.testTools.PlanningTestTools;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.geometry.PlanarRegionsListGenerator;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.simulationConstructionSetTools.util.planarRegions.PlanarRegionsListExamples;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class AStarParallelSnappingTest
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+   @ContinuousIntegrationTest(estimatedDuration = 2.0)
+   @Test(timeout = 60000)
+   public void testCinderBlockFieldPlanMatchesSequentialPlanner()
+   {
+      FramePose3D initialStanceFootPose = new FramePose3D(worldFrame);
+      initialStanceFootPose.setPosition(0.0, -0.7, 0.0);
+      FramePose3D goalPose = new FramePose3D(worldFrame);
+      goalPose.setPosition(9.0, 0.0, 0.0);
+
+      assertPlansMatch(createCinderBlockField(), initialStanceFootPose, RobotSide.RIGHT, goalPose);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 2.0)
+   @Test(timeout = 60000)
+   public void testSteppingStonesPlanMatchesSequentialPlanner()
+   {
+      double pathRadius = 3.5;
+      FramePose3D initialStanceFootPose = new FramePose3D(worldFrame);
+      initialStanceFootPose.setPosition(0.0, -0.7, 0.0);
+      initialStanceFootPose.appendYawRotation(0.5 * Math.PI);
+      FramePose3D goalPose = new FramePose3D(worldFrame);
+      goalPose.setPosition(pathRadius + 0.5, pathRadius, 0.0);
+
+      assertPlansMatch(PlanarRegionsListExamples.generateSteppingStonesEnvironment(pathRadius), initialStanceFootPose, RobotSide.RIGHT, goalPose);
+   }
+
+   private static void assertPlansMatch(PlanarRegionsList planarRegionsList, FramePose3D initialStanceFootPose, RobotSide initialStanceSide,
+                                        FramePose3D goalPose)
+   {
+      FootstepPlan expectedPlan = PlanningTestTools.runPlanner(createPlanner(null), initialStanceFootPose, initialStanceSide, goalPose, planarRegionsList,
+                                                               true);
+
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try
+      {
+         FootstepPlan plan = PlanningTestTools.runPlanner(createPlanner(pool), initialStanceFootPose, initialStanceSide, goalPose, planarRegionsList, true);
+         assertPlansEqual(expectedPlan, plan);
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+   }
+
+   static AStarFootstepPlanner createPlanner(ForkJoinPool pool)
+   {
+      FootstepPlannerParameters parameters = new DefaultFootstepPlanningParameters();
+      SideDependentList<ConvexPolygon2D> footPolygons = PlanningTestTools.createDefaultFootPolygons();
+      ParameterBasedNodeExpansion expansion = new ParameterBasedNodeExpansion(parameters);
+      YoVariableRegistry registry = new YoVariableRegistry("testRegistry");
+
+      if (pool == null)
+         return AStarFootstepPlanner.createRoughTerrainPlanner(parameters, null, footPolygons, expansion, registry);
+      else
+         return AStarFootstepPlanner.createParallelRoughTerrainPlanner(parameters, null, footPolygons, expansion, pool, registry);
+   }
+
+   static PlanarRegionsList createCinderBlockField()
+   {
+      PlanarRegionsListGenerator generator = new PlanarRegionsListGenerator();
+      generator.translate(0.0, 0.0, -0.001);
+      PlanarRegionsListExamples.generateCinderBlockField(generator, 0.4, 0.15, 21, 6, 0.1);
+      return generator.getPlanarRegionsList();
+   }
+
+   static void assertPlansEqual(FootstepPlan expectedPlan, FootstepPlan plan)
+   {
+      assertTrue(plan.getNumberOfSteps() > 0);
+      assertEquals(expectedPlan.getNumberOfSteps(), plan.getNumberOfSteps());
+
+      FramePose3D expectedPose = new FramePose3D();
+      FramePose3D pose = new FramePose3D();
+      for (int i = 0; i < plan.getNumberOfSteps(); i++)
+      {
+         SimpleFootstep expectedFootstep = expectedPlan.getFootstep(i);
+         SimpleFootstep footstep = plan.getFootstep(i);
+         assertEquals(expectedFootstep.getRobotSide(), footstep.getRobotSide());
+
+         expectedFootstep.getSoleFramePose(expectedPose);
+         footstep.getSoleFramePose(pose);
+         assertTrue("Footstep " + i + " differs: " + expectedPose + " vs " + pose, expectedPose.epsilonEquals(pose, 1.0e-10));
+      }
+   }
+}
@@ -0,0 +1,77 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import org.junit.Test;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@ContinuousIntegrationAnnotations.ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class IndexedFootstepNodeHeapTest
+{
+   private final Random random = new Random(3487235L);
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testAgainstPriorityQueue()
+   {
+      IndexedFootstepNodeHeap heap = new IndexedFootstepNodeHeap(4);
+      HashMap<Long, Double> priorities = new HashMap<>();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         long key = random.nextInt(500);
+         double priority = random.nextDouble();
+
+         boolean changed = heap.insertOrDecrease(key, priority);
+         Double previous = priorities.get(key);
+         assertEquals(previous == null || priority < previous, changed);
+         if (changed)
+            priorities.put(key, priority);
+      }
+
+      PriorityQueue<Double> expected = new PriorityQueue<>(priorities.values());
+      assertEquals(expected.size(), heap.size());
+      while (!heap.isEmpty())
+      {
+         double priority = heap.peekPriority();
+         long key = heap.poll();
+         assertEquals(expected.poll(), priority, 0.0);
+         assertEquals(priorities.get(key), priority, 0.0);
+         assertFalse(heap.contains(key));
+      }
+   }
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testTiesArePolledInInsertionOrder()
+   {
+      IndexedFootstepNodeHeap heap = new IndexedFootstepNodeHeap();
+      for (long key = 100; key > 0; key--)
+         heap.insertOrDecrease(key, 1.0);
+
+      for (long key = 100; key > 0; key--)
+         assertEquals(key, heap.poll());
+      assertTrue(heap.isEmpty());
+   }
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testLongKeyIsUnique()
+   {
+      HashSet<Long> keys = new HashSet<>();
+      HashSet<FootstepNode> nodes = new HashSet<>();
+      for (int i = 0; i < 10000; i++)
+      {
+         FootstepNode node = FootstepNode.generateRandomFootstepNode(random, 100.0);
+         assertEquals(nodes.add(node), keys.add(node.getLongKey()));
+      }
+   }
+}
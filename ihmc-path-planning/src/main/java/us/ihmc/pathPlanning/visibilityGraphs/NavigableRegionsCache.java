@@ -0,0 +1,313 @@
+package us.ihmc.pathPlanning.visibilityGraphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.Connection;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.InterRegionVisibilityMap;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.InterRegionConnectionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.NavigableRegionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.ObstacleRegionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphsParameters;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+/**
+ * Keeps the navigable regions and inter-region connections from one call to the next such that
+ * only the part of the visibility graph affected by a change in the planar regions is rebuilt.
+ * <p>
+ * The planar regions are identified by their ID. A navigable region is reused when its home region
+ * has not changed and no region that has changed, appeared, or disappeared is, or was, an obstacle
+ * for it. The connections between two navigable regions are reused when both regions are reused.
+ * </p>
+ * <p>
+ * When the regions do not all have a unique ID, or when the parameters have changed, the entire
+ * graph is rebuilt.
+ * </p>
+ */
+public class NavigableRegionsCache
+{
+   private static final double REGION_EPSILON = 1.0e-7;
+
+   private final Map<Integer, PlanarRegion> lastRegions = new HashMap<>();
+   private final Map<Integer, Entry> entries = new HashMap<>();
+   private final Map<Long, List<Connection>> interRegionConnections = new HashMap<>();
+   private double[] lastParameters = null;
+
+   private int numberOfReusedRegions = 0;
+   private int numberOfRebuiltRegions = 0;
+
+   /**
+    * Equivalent to {@link VisibilityGraphsFactory#createNavigableRegions(List, VisibilityGraphsParameters)}
+    * but only rebuilds the navigable regions affected by the changes since the last call.
+    */
+   public List<NavigableRegion> createNavigableRegions(List<PlanarRegion> allRegions, VisibilityGraphsParameters parameters)
+   {
+      numberOfReusedRegions = 0;
+      numberOfRebuiltRegions = 0;
+
+      if (allRegions.isEmpty())
+      {
+         clear();
+         return null;
+      }
+
+      double[] currentParameters = extractParameters(parameters);
+
+      if (!haveUniqueIds(allRegions))
+      {
+         clear();
+         List<NavigableRegion> navigableRegions = VisibilityGraphsFactory.createNavigableRegions(allRegions, parameters);
+         numberOfRebuiltRegions = navigableRegions.size();
+         return navigableRegions;
+      }
+
+      if (!Arrays.equals(currentParameters, lastParameters))
+      {
+         clear();
+         lastParameters = currentParameters;
+      }
+
+      // Find the regions that changed since the last call.
+      List<PlanarRegion> changedRegions = new ArrayList<>();
+      Set<Integer> removedRegionIds = new HashSet<>(lastRegions.keySet());
+
+      for (int i = 0; i < allRegions.size(); i++)
+      {
+         PlanarRegion region = allRegions.get(i);
+         removedRegionIds.remove(region.getRegionId());
+         PlanarRegion lastRegion = lastRegions.get(region.getRegionId());
+
+         if (lastRegion == null || !areRegionsEqual(region, lastRegion))
+            changedRegions.add(region);
+      }
+
+      ObstacleRegionFilter obstacleRegionFilter = parameters.getObstacleRegionFilter();
+      NavigableRegionFilter navigableRegionFilter = parameters.getNavigableRegionFilter();
+
+      List<Entry> newEntries = IntStream.range(0, allRegions.size()).parallel().mapToObj(candidateIndex ->
+      {
+         PlanarRegion candidate = allRegions.get(candidateIndex);
+         List<PlanarRegion> otherRegions = VisibilityGraphsFactory.otherRegions(allRegions, candidateIndex);
+
+         if (!navigableRegionFilter.isPlanarRegionNavigable(candidate, otherRegions))
+            return null;
+
+         Entry entry = entries.get(candidate.getRegionId());
+
+         if (entry != null && entry.isValid(candidate, changedRegions, removedRegionIds, obstacleRegionFilter))
+            return entry;
+
+         List<PlanarRegion> obstacleRegions = new ArrayList<>();
+         NavigableRegion navigableRegion = VisibilityGraphsFactory.createNavigableRegion(candidate, otherRegions, parameters, obstacleRegions);
+         return new Entry(navigableRegion, obstacleRegions);
+      }).filter(Objects::nonNull).collect(Collectors.toList());
+
+      Map<Integer, Entry> previousEntries = new HashMap<>(entries);
+      entries.clear();
+      lastRegions.clear();
+      allRegions.forEach(region -> lastRegions.put(region.getRegionId(), region));
+
+      List<NavigableRegion> navigableRegions = new ArrayList<>(newEntries.size());
+
+      for (Entry entry : newEntries)
+      {
+         entries.put(entry.getRegionId(), entry);
+         navigableRegions.add(entry.navigableRegion);
+
+         if (previousEntries.get(entry.getRegionId()) == entry)
+            numberOfReusedRegions++;
+         else
+            numberOfRebuiltRegions++;
+      }
+
+      return navigableRegions;
+   }
+
+   /**
+    * Equivalent to {@link VisibilityGraphsFactory#createInterRegionVisibilityMap(List, InterRegionConnectionFilter)}
+    * but reuses the connections between pairs of navigable regions that have not changed since the
+    * last call.
+    * <p>
+    * The given filter is assumed to only depend on the parameters used for the last call to
+    * {@link #createNavigableRegions(List, VisibilityGraphsParameters)}.
+    * </p>
+    */
+   public InterRegionVisibilityMap createInterRegionVisibilityMap(List<NavigableRegion> navigableRegions, InterRegionConnectionFilter filter)
+   {
+      navigableRegions.forEach(NavigableRegion::getVisibilityMapInWorld);
+
+      Map<Long, List<Connection>> lastInterRegionConnections = new HashMap<>(interRegionConnections);
+      interRegionConnections.clear();
+
+      boolean canUseCache = navigableRegions.stream().allMatch(region -> entries.get(region.getMapId()) != null
+            && entries.get(region.getMapId()).navigableRegion == region);
+
+      List<List<Connection>> connections = IntStream.range(0, navigableRegions.size()).parallel().mapToObj(sourceMapIndex ->
+      {
+         List<List<Connection>> sourceConnections = new ArrayList<>();
+         NavigableRegion sourceRegion = navigableRegions.get(sourceMapIndex);
+
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
+         {
+            NavigableRegion targetRegion = navigableRegions.get(targetMapIndex);
+            List<Connection> pairConnections = null;
+
+            if (canUseCache && isReused(sourceRegion) && isReused(targetRegion))
+               pairConnections = lastInterRegionConnections.get(pairKey(sourceRegion, targetRegion));
+            if (pairConnections == null)
+               pairConnections = VisibilityGraphsFactory.createInterRegionConnections(sourceRegion, targetRegion, filter);
+
+            sourceConnections.add(pairConnections);
+         }
+
+         return sourceConnections;
+      }).flatMap(List::stream).collect(Collectors.toList());
+
+      InterRegionVisibilityMap map = new InterRegionVisibilityMap();
+      int index = 0;
+
+      for (int sourceMapIndex = 0; sourceMapIndex < navigableRegions.size(); sourceMapIndex++)
+      {
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
+         {
+            List<Connection> pairConnections = connections.get(index++);
+            map.addConnections(pairConnections);
+
+            if (canUseCache)
+               interRegionConnections.put(pairKey(navigableRegions.get(sourceMapIndex), navigableRegions.get(targetMapIndex)), pairConnections);
+         }
+      }
+
+      return map;
+   }
+
+   private boolean isReused(NavigableRegion navigableRegion)
+   {
+      Entry entry = entries.get(navigableRegion.getMapId());
+      return entry != null && entry.wasReused;
+   }
+
+   /**
+    * The key does not depend on the order of the two regions, the connections are the same in both
+    * directions.
+    */
+   private static long pairKey(NavigableRegion regionA, NavigableRegion regionB)
+   {
+      int minId = Math.min(regionA.getMapId(), regionB.getMapId());
+      int maxId = Math.max(regionA.getMapId(), regionB.getMapId());
+      return ((long) minId << 32) | (maxId & 0xFFFFFFFFL);
+   }
+
+   public void clear()
+   {
+      lastRegions.clear();
+      entries.clear();
+      interRegionConnections.clear();
+      lastParameters = null;
+   }
+
+   /** @return the number of navigable regions reused during the last update. */
+   public int getNumberOfReusedRegions()
+   {
+      return numberOfReusedRegions;
+   }
+
+   /** @return the number of navigable regions rebuilt during the last update. */
+   public int getNumberOfRebuiltRegions()
+   {
+      return numberOfRebuiltRegions;
+   }
+
+   private static boolean haveUniqueIds(List<PlanarRegion> regions)
+   {
+      Set<Integer> ids = new HashSet<>();
+
+      for (int i = 0; i < regions.size(); i++)
+      {
+         PlanarRegion region = regions.get(i);
+         if (!region.hasARegionId() || !ids.add(region.getRegionId()))
+            return false;
+      }
+
+      return true;
+   }
+
+   private static boolean areRegionsEqual(PlanarRegion regionA, PlanarRegion regionB)
+   {
+      if (regionA.getConcaveHullSize() != regionB.getConcaveHullSize())
+         return false;
+
+      for (int i = 0; i < regionA.getConcaveHullSize(); i++)
+      {
+         if (!regionA.getConcaveHullVertex(i).epsilonEquals(regionB.getConcaveHullVertex(i), REGION_EPSILON))
+            return false;
+      }
+
+      return regionA.epsilonEquals(regionB, REGION_EPSILON);
+   }
+
+   /**
+    * The filters and calculators provided by the parameters are assumed to only depend on these
+    * values.
+    */
+   private static double[] extractParameters(VisibilityGraphsParameters parameters)
+   {
+      return new double[] {parameters.getMaxInterRegionConnectionLength(), parameters.getNormalZThresholdForAccessibleRegions(),
+            parameters.getExtrusionDistance(), parameters.getExtrusionDistanceIfNotTooHighToStep(), parameters.getTooHighToStepDistance(),
+            parameters.getClusterResolution(), parameters.getPlanarRegionMinArea(), parameters.getPlanarRegionMinSize(), parameters.getRegionOrthogonalAngle()};
+   }
+
+   private static class Entry
+   {
+      private final NavigableRegion navigableRegion;
+      private final Set<Integer> obstacleRegionIds;
+      private boolean wasReused = false;
+
+      private Entry(NavigableRegion navigableRegion, List<PlanarRegion> obstacleRegions)
+      {
+         this.navigableRegion = navigableRegion;
+         obstacleRegionIds = obstacleRegions.stream().map(PlanarRegion::getRegionId).collect(Collectors.toSet());
+      }
+
+      private int getRegionId()
+      {
+         return navigableRegion.getMapId();
+      }
+
+      private boolean isValid(PlanarRegion homeRegion, List<PlanarRegion> changedRegions, Set<Integer> removedRegionIds,
+                              ObstacleRegionFilter obstacleRegionFilter)
+      {
+         wasReused = false;
+
+         for (int i = 0; i < changedRegions.size(); i++)
+         {
+            PlanarRegion changedRegion = changedRegions.get(i);
+
+            if (changedRegion == homeRegion)
+               return false;
+            if (obstacleRegionIds.contains(changedRegion.getRegionId()))
+               return false;
+            if (obstacleRegionFilter.isRegionValidObstacle(changedRegion, navigableRegion.getHomeRegion()))
+               return false;
+         }
+
+         for (Integer removedRegionId : removedRegionIds)
+         {
+            if (obstacleRegionIds.contains(removedRegionId))
+               return false;
+         }
+
+         wasReused = true;
+         return true;
+      }
+   }
+}
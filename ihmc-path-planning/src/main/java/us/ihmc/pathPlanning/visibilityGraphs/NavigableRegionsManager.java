@@ -37,6 +37,9 @@ public class NavigableRegionsManager
 
    private InterRegionVisibilityMap interRegionVisibilityMap;
 
+   /** Allows to only rebuild the part of the graph affected by the changes in the planar regions between two body path calculations. */
+   private final NavigableRegionsCache navigableRegionsCache = new NavigableRegionsCache();
+
    public NavigableRegionsManager()
    {
       this(null, null);
@@ -90,8 +93,8 @@ public class NavigableRegionsManager
 
       long startBodyPathComputation = System.currentTimeMillis();
 
-      navigableRegions = VisibilityGraphsFactory.createNavigableRegions(regions, parameters);
-      interRegionVisibilityMap = VisibilityGraphsFactory.createInterRegionVisibilityMap(navigableRegions, parameters.getInterRegionConnectionFilter());
+      navigableRegions = navigableRegionsCache.createNavigableRegions(regions, parameters);
+      interRegionVisibilityMap = navigableRegionsCache.createInterRegionVisibilityMap(navigableRegions, parameters.getInterRegionConnectionFilter());
       double searchHostEpsilon = parameters.getSearchHostRegionEpsilon();
       startMap = VisibilityGraphsFactory.createSingleSourceVisibilityMap(start, navigableRegions, searchHostEpsilon,
                                                                          interRegionVisibilityMap.getVisibilityMapInLocal());
@@ -225,6 +228,11 @@ public class NavigableRegionsManager
       return navigableRegions;
    }
 
+   public NavigableRegionsCache getNavigableRegionsCache()
+   {
+      return navigableRegionsCache;
+   }
+
    public InterRegionVisibilityMap getInterRegionConnections()
    {
       return interRegionVisibilityMap;
@@ -1,12 +1,15 @@
 package us.ihmc.pathPlanning.visibilityGraphs;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
@@ -33,33 +36,71 @@ public class VisibilityGraphsFactory
     */
    private static final boolean ENABLE_GREEDY_FILTERS = true;
 
+   /**
+    * Creates the navigable regions for all the given regions that pass the navigable region filter.
+    * <p>
+    * The regions are processed in parallel, the resulting list is in the same order as
+    * {@code allRegions}.
+    * </p>
+    */
    public static List<NavigableRegion> createNavigableRegions(List<PlanarRegion> allRegions, VisibilityGraphsParameters parameters)
    {
       if (allRegions.isEmpty())
          return null;
 
-      List<NavigableRegion> navigableRegions = new ArrayList<>(allRegions.size());
-
       NavigableRegionFilter navigableRegionFilter = parameters.getNavigableRegionFilter();
 
-      for (int candidateIndex = 0; candidateIndex < allRegions.size(); candidateIndex++)
+      return IntStream.range(0, allRegions.size()).parallel().mapToObj(candidateIndex ->
       {
          PlanarRegion candidate = allRegions.get(candidateIndex);
-
-         List<PlanarRegion> otherRegions = new ArrayList<>(allRegions);
-         Collections.swap(otherRegions, candidateIndex, otherRegions.size() - 1);
-         otherRegions.remove(otherRegions.size() - 1);
+         List<PlanarRegion> otherRegions = otherRegions(allRegions, candidateIndex);
 
          if (!navigableRegionFilter.isPlanarRegionNavigable(candidate, otherRegions))
-            continue;
+            return null;
 
-         navigableRegions.add(createNavigableRegion(candidate, otherRegions, parameters));
-      }
+         return createNavigableRegion(candidate, otherRegions, parameters);
+      }).filter(Objects::nonNull).collect(Collectors.toList());
+   }
 
-      return navigableRegions;
+   /**
+    * Creates a view of {@code allRegions} without the region at {@code candidateIndex}. The last
+    * region takes the place of the removed one.
+    */
+   static List<PlanarRegion> otherRegions(List<PlanarRegion> allRegions, int candidateIndex)
+   {
+      int lastIndex = allRegions.size() - 1;
+
+      return new AbstractList<PlanarRegion>()
+      {
+         @Override
+         public PlanarRegion get(int index)
+         {
+            if (index < 0 || index >= lastIndex)
+               throw new IndexOutOfBoundsException("Index: " + index + ", size: " + lastIndex);
+            return allRegions.get(index == candidateIndex ? lastIndex : index);
+         }
+
+         @Override
+         public int size()
+         {
+            return lastIndex;
+         }
+      };
    }
 
    public static NavigableRegion createNavigableRegion(PlanarRegion region, List<PlanarRegion> otherRegions, VisibilityGraphsParameters parameters)
+   {
+      return createNavigableRegion(region, otherRegions, parameters, null);
+   }
+
+   /**
+    * Creates the navigable region for {@code region}.
+    *
+    * @param obstacleRegionsToPack the list in which the regions from {@code otherRegions} that are
+    *           considered as obstacles are stored. Can be {@code null}.
+    */
+   public static NavigableRegion createNavigableRegion(PlanarRegion region, List<PlanarRegion> otherRegions, VisibilityGraphsParameters parameters,
+                                                       List<PlanarRegion> obstacleRegionsToPack)
    {
       PlanarRegionFilter planarRegionFilter = parameters.getPlanarRegionFilter();
       double orthogonalAngle = parameters.getRegionOrthogonalAngle();
@@ -68,13 +109,22 @@ public class VisibilityGraphsFactory
       ObstacleExtrusionDistanceCalculator obstacleCalculator = parameters.getObstacleExtrusionDistanceCalculator();
       ObstacleRegionFilter obstacleRegionFilter = parameters.getObstacleRegionFilter();
       return createNavigableRegion(region, otherRegions, orthogonalAngle, clusterResolution, obstacleRegionFilter, planarRegionFilter, navigableCalculator,
-                                   obstacleCalculator);
+                                   obstacleCalculator, obstacleRegionsToPack);
    }
 
    public static NavigableRegion createNavigableRegion(PlanarRegion region, List<PlanarRegion> otherRegions, double orthogonalAngle, double clusterResolution,
                                                        ObstacleRegionFilter obstacleRegionFilter, PlanarRegionFilter filter,
                                                        NavigableExtrusionDistanceCalculator navigableCalculator,
                                                        ObstacleExtrusionDistanceCalculator obstacleCalculator)
+   {
+      return createNavigableRegion(region, otherRegions, orthogonalAngle, clusterResolution, obstacleRegionFilter, filter, navigableCalculator,
+                                   obstacleCalculator, null);
+   }
+
+   private static NavigableRegion createNavigableRegion(PlanarRegion region, List<PlanarRegion> otherRegions, double orthogonalAngle,
+                                                        double clusterResolution, ObstacleRegionFilter obstacleRegionFilter, PlanarRegionFilter filter,
+                                                        NavigableExtrusionDistanceCalculator navigableCalculator,
+                                                        ObstacleExtrusionDistanceCalculator obstacleCalculator, List<PlanarRegion> obstacleRegionsToPack)
    {
       NavigableRegion navigableRegion = new NavigableRegion(region);
       PlanarRegion homeRegion = navigableRegion.getHomeRegion();
@@ -82,6 +132,9 @@ public class VisibilityGraphsFactory
       List<PlanarRegion> obstacleRegions = otherRegions.stream().filter(candidate -> obstacleRegionFilter.isRegionValidObstacle(candidate, homeRegion))
                                                        .collect(Collectors.toList());
 
+      if (obstacleRegionsToPack != null)
+         obstacleRegionsToPack.addAll(obstacleRegions);
+
       obstacleRegions = PlanarRegionTools.filterRegionsByTruncatingVerticesBeneathHomeRegion(obstacleRegions, homeRegion,
                                                                                              DEPTH_THRESHOLD_FOR_CONVEX_DECOMPOSITION, filter);
 
@@ -298,35 +351,49 @@ public class VisibilityGraphsFactory
 
    public static InterRegionVisibilityMap createInterRegionVisibilityMap(List<NavigableRegion> navigableRegions, InterRegionConnectionFilter filter)
    {
-      InterRegionVisibilityMap map = new InterRegionVisibilityMap();
+      // The maps in world are computed lazily, they have to be available before going parallel.
+      navigableRegions.forEach(NavigableRegion::getVisibilityMapInWorld);
 
-      for (int sourceMapIndex = 0; sourceMapIndex < navigableRegions.size(); sourceMapIndex++)
+      List<List<Connection>> connections = IntStream.range(0, navigableRegions.size()).parallel().mapToObj(sourceMapIndex ->
       {
-         VisibilityMap sourceMap = navigableRegions.get(sourceMapIndex).getVisibilityMapInWorld();
-         Set<ConnectionPoint3D> sourcePoints = sourceMap.getVertices();
+         List<Connection> sourceConnections = new ArrayList<>();
+         NavigableRegion sourceRegion = navigableRegions.get(sourceMapIndex);
 
-         for (ConnectionPoint3D source : sourcePoints)
-         {
-            for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
-            {
-               VisibilityMap targetMap = navigableRegions.get(targetMapIndex).getVisibilityMapInWorld();
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
+            sourceConnections.addAll(createInterRegionConnections(sourceRegion, navigableRegions.get(targetMapIndex), filter));
 
-               Set<ConnectionPoint3D> targetPoints = targetMap.getVertices();
+         return sourceConnections;
+      }).collect(Collectors.toList());
 
-               for (ConnectionPoint3D target : targetPoints)
-               {
-                  if (source.getRegionId() == target.getRegionId())
-                     continue;
+      InterRegionVisibilityMap map = new InterRegionVisibilityMap();
+      connections.forEach(map::addConnections);
+      return map;
+   }
+
+   /**
+    * Creates the valid connections going from the visibility map of {@code sourceRegion} to the one
+    * of {@code targetRegion}.
+    */
+   public static List<Connection> createInterRegionConnections(NavigableRegion sourceRegion, NavigableRegion targetRegion, InterRegionConnectionFilter filter)
+   {
+      List<Connection> connections = new ArrayList<>();
+      Set<ConnectionPoint3D> sourcePoints = sourceRegion.getVisibilityMapInWorld().getVertices();
+      Set<ConnectionPoint3D> targetPoints = targetRegion.getVisibilityMapInWorld().getVertices();
 
-                  if (filter.isConnectionValid(source, target))
-                  {
-                     map.addConnection(source, target);
-                  }
-               }
+      for (ConnectionPoint3D source : sourcePoints)
+      {
+         for (ConnectionPoint3D target : targetPoints)
+         {
+            if (source.getRegionId() == target.getRegionId())
+               continue;
+
+            if (filter.isConnectionValid(source, target))
+            {
+               connections.add(new Connection(source, target));
             }
          }
       }
 
-      return map;
+      return connections;
    }
 }
@@ -0,0 +1,289 @@
+package us.ihmc.pathPlanning.visibilityGraphs.tools;
+
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox2D;
+import us.ihmc.euclid.geometry.tools.EuclidGeometryTools;
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster.ExtrusionSide;
+
+/**
+ * Uniform grid over the edges of the non-navigable extrusions of a group of clusters, used to
+ * speed up the visibility checks performed when building the visibility map of a region.
+ * <p>
+ * Each edge is registered in every cell its bounding box overlaps. A query only tests the edges
+ * registered in the cells traversed by the line of sight, which gives the same result as
+ * {@link VisibilityTools#isPointVisibleForStaticMaps(List, Point2DReadOnly, Point2DReadOnly)} at a
+ * fraction of the cost when the clusters have many vertices.
+ * </p>
+ * <p>
+ * The index is a snapshot of the clusters at construction time and is not thread-safe: queries
+ * use an internal marker to test each edge only once.
+ * </p>
+ */
+public class ClusterEdgeIndex
+{
+   /** Margin used when registering the edges and the queries in the cells to account for the tolerance of the intersection test. */
+   private static final double CELL_MARGIN = 1.0e-5;
+   private static final int TARGET_EDGES_PER_CELL = 4;
+   private static final int MAX_CELLS_PER_AXIS = 128;
+
+   private final List<Cluster> clusters;
+   private final Point2DReadOnly[] edgeStarts;
+   private final Point2DReadOnly[] edgeEnds;
+   private final int[] edgeClusterIndices;
+   private final int[] edgeQueryMarkers;
+   private int queryMarker = 0;
+
+   private final int numberOfEdges;
+   private final double gridMinX, gridMinY, gridMaxX, gridMaxY;
+   private final double cellSize;
+   private final int numberOfColumns, numberOfRows;
+   /** Edge indices of each cell, the edges of the cell {@code i} are in {@code cellEdges[cellStarts[i]..cellStarts[i + 1]]}. */
+   private final int[] cellStarts;
+   private final int[] cellEdges;
+
+   public ClusterEdgeIndex(List<Cluster> clusters)
+   {
+      this.clusters = clusters;
+
+      int edgeCount = 0;
+      for (int clusterIndex = 0; clusterIndex < clusters.size(); clusterIndex++)
+         edgeCount += Math.max(0, clusters.get(clusterIndex).getNumberOfNonNavigableExtrusions() - 1);
+      numberOfEdges = edgeCount;
+
+      edgeStarts = new Point2DReadOnly[numberOfEdges];
+      edgeEnds = new Point2DReadOnly[numberOfEdges];
+      edgeClusterIndices = new int[numberOfEdges];
+      edgeQueryMarkers = new int[numberOfEdges];
+
+      double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+      int edgeIndex = 0;
+
+      for (int clusterIndex = 0; clusterIndex < clusters.size(); clusterIndex++)
+      {
+         List<Point2D> extrusions = clusters.get(clusterIndex).getNonNavigableExtrusionsInLocal2D();
+
+         for (int i = 0; i < extrusions.size() - 1; i++)
+         {
+            Point2D start = extrusions.get(i);
+            Point2D end = extrusions.get(i + 1);
+            edgeStarts[edgeIndex] = start;
+            edgeEnds[edgeIndex] = end;
+            edgeClusterIndices[edgeIndex] = clusterIndex;
+            edgeIndex++;
+
+            minX = Math.min(minX, Math.min(start.getX(), end.getX()));
+            minY = Math.min(minY, Math.min(start.getY(), end.getY()));
+            maxX = Math.max(maxX, Math.max(start.getX(), end.getX()));
+            maxY = Math.max(maxY, Math.max(start.getY(), end.getY()));
+         }
+      }
+
+      if (numberOfEdges == 0)
+      {
+         gridMinX = gridMinY = gridMaxX = gridMaxY = 0.0;
+         cellSize = 1.0;
+         numberOfColumns = numberOfRows = 0;
+         cellStarts = new int[1];
+         cellEdges = new int[0];
+         return;
+      }
+
+      gridMinX = minX - CELL_MARGIN;
+      gridMinY = minY - CELL_MARGIN;
+      gridMaxX = maxX + CELL_MARGIN;
+      gridMaxY = maxY + CELL_MARGIN;
+
+      double width = gridMaxX - gridMinX;
+      double height = gridMaxY - gridMinY;
+      double targetNumberOfCells = Math.max(1.0, (double) numberOfEdges / TARGET_EDGES_PER_CELL);
+      double size = Math.sqrt(width * height / targetNumberOfCells);
+      size = Math.max(size, Math.max(width, height) / MAX_CELLS_PER_AXIS);
+      cellSize = size;
+      numberOfColumns = Math.max(1, (int) Math.ceil(width / cellSize));
+      numberOfRows = Math.max(1, (int) Math.ceil(height / cellSize));
+
+      // Two passes to store the cells in a compact array: count first, then fill.
+      int numberOfCells = numberOfColumns * numberOfRows;
+      int[] cellCounts = new int[numberOfCells];
+
+      for (int i = 0; i < numberOfEdges; i++)
+      {
+         int columnMin = column(Math.min(edgeStarts[i].getX(), edgeEnds[i].getX()) - CELL_MARGIN);
+         int columnMax = column(Math.max(edgeStarts[i].getX(), edgeEnds[i].getX()) + CELL_MARGIN);
+         int rowMin = row(Math.min(edgeStarts[i].getY(), edgeEnds[i].getY()) - CELL_MARGIN);
+         int rowMax = row(Math.max(edgeStarts[i].getY(), edgeEnds[i].getY()) + CELL_MARGIN);
+
+         for (int column = columnMin; column <= columnMax; column++)
+         {
+            for (int row = rowMin; row <= rowMax; row++)
+               cellCounts[cellIndex(column, row)]++;
+         }
+      }
+
+      cellStarts = new int[numberOfCells + 1];
+      for (int i = 0; i < numberOfCells; i++)
+         cellStarts[i + 1] = cellStarts[i] + cellCounts[i];
+
+      cellEdges = new int[cellStarts[numberOfCells]];
+      Arrays.fill(cellCounts, 0);
+
+      for (int i = 0; i < numberOfEdges; i++)
+      {
+         int columnMin = column(Math.min(edgeStarts[i].getX(), edgeEnds[i].getX()) - CELL_MARGIN);
+         int columnMax = column(Math.max(edgeStarts[i].getX(), edgeEnds[i].getX()) + CELL_MARGIN);
+         int rowMin = row(Math.min(edgeStarts[i].getY(), edgeEnds[i].getY()) - CELL_MARGIN);
+         int rowMax = row(Math.max(edgeStarts[i].getY(), edgeEnds[i].getY()) + CELL_MARGIN);
+
+         for (int column = columnMin; column <= columnMax; column++)
+         {
+            for (int row = rowMin; row <= rowMax; row++)
+            {
+               int cellIndex = cellIndex(column, row);
+               cellEdges[cellStarts[cellIndex] + cellCounts[cellIndex]++] = i;
+            }
+         }
+      }
+   }
+
+   /**
+    * Tests whether the line segment from {@code observer} to {@code targetPoint} crosses any of the
+    * indexed edges.
+    * <p>
+    * Equivalent to {@link VisibilityTools#isPointVisibleForStaticMaps(List, Point2DReadOnly, Point2DReadOnly)}
+    * called with the clusters this index was built from.
+    * </p>
+    */
+   public boolean isPointVisible(Point2DReadOnly observer, Point2DReadOnly targetPoint)
+   {
+      if (numberOfEdges == 0)
+         return true;
+
+      double queryMinX = Math.min(observer.getX(), targetPoint.getX()) - CELL_MARGIN;
+      double queryMaxX = Math.max(observer.getX(), targetPoint.getX()) + CELL_MARGIN;
+      double queryMinY = Math.min(observer.getY(), targetPoint.getY()) - CELL_MARGIN;
+      double queryMaxY = Math.max(observer.getY(), targetPoint.getY()) + CELL_MARGIN;
+
+      if (queryMaxX < gridMinX || queryMinX > gridMaxX || queryMaxY < gridMinY || queryMinY > gridMaxY)
+         return true;
+
+      nextQueryMarker();
+
+      double dx = targetPoint.getX() - observer.getX();
+      double dy = targetPoint.getY() - observer.getY();
+      boolean isVertical = Math.abs(dx) < CELL_MARGIN;
+
+      int columnMin = column(queryMinX);
+      int columnMax = column(queryMaxX);
+
+      // Visits the columns traversed by the segment, and in each column the rows covered by the part of the segment lying in the column.
+      for (int column = columnMin; column <= columnMax; column++)
+      {
+         double sliceMinY, sliceMaxY;
+
+         if (isVertical)
+         {
+            sliceMinY = queryMinY;
+            sliceMaxY = queryMaxY;
+         }
+         else
+         {
+            double sliceMinX = Math.max(queryMinX, gridMinX + column * cellSize - CELL_MARGIN);
+            double sliceMaxX = Math.min(queryMaxX, gridMinX + (column + 1) * cellSize + CELL_MARGIN);
+            double y0 = observer.getY() + (sliceMinX - observer.getX()) * dy / dx;
+            double y1 = observer.getY() + (sliceMaxX - observer.getX()) * dy / dx;
+            sliceMinY = Math.max(queryMinY, Math.min(y0, y1) - CELL_MARGIN);
+            sliceMaxY = Math.min(queryMaxY, Math.max(y0, y1) + CELL_MARGIN);
+         }
+
+         int rowMin = row(sliceMinY);
+         int rowMax = row(sliceMaxY);
+
+         for (int row = rowMin; row <= rowMax; row++)
+         {
+            if (!isCellVisible(cellIndex(column, row), observer, targetPoint))
+               return false;
+         }
+      }
+
+      return true;
+   }
+
+   private boolean isCellVisible(int cellIndex, Point2DReadOnly observer, Point2DReadOnly targetPoint)
+   {
+      for (int i = cellStarts[cellIndex]; i < cellStarts[cellIndex + 1]; i++)
+      {
+         int edgeIndex = cellEdges[i];
+
+         if (edgeQueryMarkers[edgeIndex] == queryMarker)
+            continue;
+         edgeQueryMarkers[edgeIndex] = queryMarker;
+
+         if (EuclidGeometryTools.doLineSegment2DsIntersect(edgeStarts[edgeIndex], edgeEnds[edgeIndex], observer, targetPoint))
+         {
+            if (!isClusterSkipped(clusters.get(edgeClusterIndices[edgeIndex]), observer, targetPoint))
+               return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Same shortcut as in {@link VisibilityTools#isPointVisibleForStaticMaps(List, Point2DReadOnly, Point2DReadOnly)},
+    * only evaluated when one of the edges of the cluster is hit such that both checks always agree.
+    */
+   private static boolean isClusterSkipped(Cluster cluster, Point2DReadOnly observer, Point2DReadOnly targetPoint)
+   {
+      if (cluster.getExtrusionSide() != ExtrusionSide.OUTSIDE)
+         return false;
+
+      BoundingBox2D boundingBox = cluster.getNonNavigableExtrusionsBoundingBox();
+
+      if (boundingBox.isInsideInclusive(observer) && boundingBox.isInsideInclusive(targetPoint))
+         return false;
+
+      return !boundingBox.doesIntersectWithLineSegment2D(observer, targetPoint);
+   }
+
+   private void nextQueryMarker()
+   {
+      queryMarker++;
+
+      if (queryMarker == Integer.MAX_VALUE)
+      {
+         Arrays.fill(edgeQueryMarkers, 0);
+         queryMarker = 1;
+      }
+   }
+
+   private int column(double x)
+   {
+      return Math.min(numberOfColumns - 1, Math.max(0, (int) Math.floor((x - gridMinX) / cellSize)));
+   }
+
+   private int row(double y)
+   {
+      return Math.min(numberOfRows - 1, Math.max(0, (int) Math.floor((y - gridMinY) / cellSize)));
+   }
+
+   private int cellIndex(int column, int row)
+   {
+      return column * numberOfRows + row;
+   }
+
+   public int getNumberOfEdges()
+   {
+      return numberOfEdges;
+   }
+
+   public int getNumberOfCells()
+   {
+      return numberOfColumns * numberOfRows;
+   }
+}
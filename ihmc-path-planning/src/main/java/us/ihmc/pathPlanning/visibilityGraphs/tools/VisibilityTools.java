@@ -71,10 +71,11 @@ public class VisibilityTools
       PlanarRegion homeRegion = navigableRegion.getHomeRegion();
       Set<Connection> connections = new HashSet<>();
       List<boolean[]> navigability = new ArrayList<>(clusters.size());
+      ClusterEdgeIndex edgeIndex = new ClusterEdgeIndex(clusters);
 
       for (Cluster cluster : clusters)
       {
-         navigability.add(addClusterSelfVisibility(cluster, homeRegion, clusters, regionId, connections));
+         navigability.add(addClusterSelfVisibility(cluster, homeRegion, clusters, edgeIndex, regionId, connections));
       }
 
       for (int sourceIndex = 0; sourceIndex < clusters.size(); sourceIndex++)
@@ -87,7 +88,7 @@ public class VisibilityTools
             Cluster target = clusters.get(targetIndex);
             boolean[] targetNavigability = navigability.get(targetIndex);
 
-            addCrossClusterVisibility(source, sourceNavigability, target, targetNavigability, clusters, regionId, connections);
+            addCrossClusterVisibility(source, sourceNavigability, target, targetNavigability, edgeIndex, regionId, connections);
          }
       }
 
@@ -104,13 +105,15 @@ public class VisibilityTools
     * @param homeRegion the region to which the clusters belong to. Not modified.
     * @param allClusters list containing all the clusters to consider for the visibility check
     *           including {@code clusterToBuildMapOf}. Not modified.
+    * @param allClustersEdgeIndex the index over the edges of {@code allClusters} used for the
+    *           visibility check.
     * @param mapId the ID used to create the connections.
     * @param connectionsToPack the collection in which the connections are stored. Modified.
     * @return an array of booleans informing on whether each individual navigable extrusion of
     *         {@code clusterToBuildMapOf} is actually navigable or not.
     */
-   private static boolean[] addClusterSelfVisibility(Cluster clusterToBuildMapOf, PlanarRegion homeRegion, List<Cluster> allClusters, int mapId,
-                                                     Collection<Connection> connectionsToPack)
+   private static boolean[] addClusterSelfVisibility(Cluster clusterToBuildMapOf, PlanarRegion homeRegion, List<Cluster> allClusters,
+                                                     ClusterEdgeIndex allClustersEdgeIndex, int mapId, Collection<Connection> connectionsToPack)
    {
       List<Point2D> navigableExtrusions = clusterToBuildMapOf.getNavigableExtrusionsInLocal2D();
 
@@ -177,7 +180,7 @@ public class VisibilityTools
             }
 
             // Finally run the expensive test to verify if the target can be seen from the source.
-            if (isPointVisibleForStaticMaps(allClusters, source, target))
+            if (allClustersEdgeIndex.isPointVisible(source, target))
                connectionsToPack.add(new Connection(source, mapId, target, mapId));
          }
       }
@@ -201,13 +204,13 @@ public class VisibilityTools
     * @param targetNavigability the array containing the information of whether or not each
     *           individual navigable extrusion of {@code targetCluster} is actually navigable. Not
     *           modified.
-    * @param allClusters list containing all the clusters to consider for the visibility check
-    *           including {@code sourceCluster} and {@code targetCluster}. Not modified.
+    * @param allClustersEdgeIndex the index over the edges of all the clusters to consider for the
+    *           visibility check including {@code sourceCluster} and {@code targetCluster}.
     * @param mapId the ID used to create the connections.
     * @param connectionsToPack the collection in which the connections are stored. Modified.
     */
    private static void addCrossClusterVisibility(Cluster sourceCluster, boolean[] sourceNavigability, Cluster targetCluster, boolean[] targetNavigability,
-                                                 List<Cluster> allClusters, int mapId, Collection<Connection> connectionsToPack)
+                                                 ClusterEdgeIndex allClustersEdgeIndex, int mapId, Collection<Connection> connectionsToPack)
    {
       Vector2D directionToCheck = new Vector2D();
       Vector2D nextEdge = new Vector2D();
@@ -251,7 +254,7 @@ public class VisibilityTools
                }
             }
 
-            if (isPointVisibleForStaticMaps(allClusters, source, target))
+            if (allClustersEdgeIndex.isPointVisible(source, target))
                connectionsToPack.add(new Connection(source, mapId, target, mapId));
          }
       }
@@ -275,13 +278,15 @@ public class VisibilityTools
          }
       }
 
+      ClusterEdgeIndex edgeIndex = new ClusterEdgeIndex(clusters);
+
       for (int j = 0; j < listOfTargetPoints.size(); j++)
       {
          Point2D target = listOfTargetPoints.get(j);
 
          if (observer.distanceXYSquared(target) > MAGIC_NUMBER)
          {
-            boolean targetIsVisible = isPointVisibleForStaticMaps(clusters, observer2D, target);
+            boolean targetIsVisible = edgeIndex.isPointVisible(observer2D, target);
 
             if (targetIsVisible)
             {
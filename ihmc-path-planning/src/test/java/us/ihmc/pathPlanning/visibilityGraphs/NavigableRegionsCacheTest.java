@@ -0,0 +1,105 @@
+package us.ihmc.pathPlanning.visibilityGraphs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.InterRegionVisibilityMap;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphsParameters;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+public class NavigableRegionsCacheTest
+{
+   @Test(timeout = 30000)
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   public void testOnlyAffectedRegionsAreRebuilt()
+   {
+      VisibilityGraphsParameters parameters = new DefaultVisibilityGraphParameters();
+      NavigableRegionsCache cache = new NavigableRegionsCache();
+
+      List<PlanarRegion> regions = createEnvironment(1.0);
+      assertCacheMatchesFactory(cache, regions, parameters);
+      assertEquals(0, cache.getNumberOfReusedRegions());
+      assertEquals(regions.size(), cache.getNumberOfRebuiltRegions());
+
+      // Same environment, new instances of the regions.
+      regions = createEnvironment(1.0);
+      assertCacheMatchesFactory(cache, regions, parameters);
+      assertEquals(regions.size(), cache.getNumberOfReusedRegions());
+      assertEquals(0, cache.getNumberOfRebuiltRegions());
+
+      // Moving one platform only affects the floor and the platform itself.
+      regions = createEnvironment(1.2);
+      assertCacheMatchesFactory(cache, regions, parameters);
+      assertEquals(regions.size() - 2, cache.getNumberOfReusedRegions());
+      assertEquals(2, cache.getNumberOfRebuiltRegions());
+
+      // Removing a platform only affects the floor.
+      regions = createEnvironment(1.2);
+      regions.remove(regions.size() - 1);
+      assertCacheMatchesFactory(cache, regions, parameters);
+      assertEquals(regions.size() - 1, cache.getNumberOfReusedRegions());
+      assertEquals(1, cache.getNumberOfRebuiltRegions());
+   }
+
+   private static void assertCacheMatchesFactory(NavigableRegionsCache cache, List<PlanarRegion> regions, VisibilityGraphsParameters parameters)
+   {
+      List<NavigableRegion> expectedRegions = VisibilityGraphsFactory.createNavigableRegions(regions, parameters);
+      InterRegionVisibilityMap expectedInterRegionMap = VisibilityGraphsFactory.createInterRegionVisibilityMap(expectedRegions,
+                                                                                                              parameters.getInterRegionConnectionFilter());
+
+      List<NavigableRegion> actualRegions = cache.createNavigableRegions(regions, parameters);
+      InterRegionVisibilityMap actualInterRegionMap = cache.createInterRegionVisibilityMap(actualRegions, parameters.getInterRegionConnectionFilter());
+
+      assertEquals(expectedRegions.size(), actualRegions.size());
+
+      for (int i = 0; i < expectedRegions.size(); i++)
+      {
+         NavigableRegion expected = expectedRegions.get(i);
+         NavigableRegion actual = actualRegions.get(i);
+         assertEquals(expected.getMapId(), actual.getMapId());
+         assertEquals(expected.getVisibilityMapInLocal().getConnections(), actual.getVisibilityMapInLocal().getConnections());
+      }
+
+      assertEquals(expectedInterRegionMap.getVisibilityMapInLocal().getConnections(), actualInterRegionMap.getVisibilityMapInLocal().getConnections());
+   }
+
+   /**
+    * Creates a floor with four small platforms on it. The last platform is located at
+    * {@code (lastPlatformPosition, lastPlatformPosition)}.
+    */
+   private static List<PlanarRegion> createEnvironment(double lastPlatformPosition)
+   {
+      List<PlanarRegion> regions = new ArrayList<>();
+      regions.add(createHorizontalRegion(1, 0.0, 0.0, 0.0, 4.0));
+      regions.add(createHorizontalRegion(2, -1.0, -1.0, 0.15, 0.4));
+      regions.add(createHorizontalRegion(3, -1.0, 1.0, 0.15, 0.4));
+      regions.add(createHorizontalRegion(4, 1.0, -1.0, 0.15, 0.4));
+      regions.add(createHorizontalRegion(5, lastPlatformPosition, lastPlatformPosition, 0.15, 0.4));
+      return regions;
+   }
+
+   private static PlanarRegion createHorizontalRegion(int regionId, double x, double y, double z, double size)
+   {
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setTranslation(x, y, z);
+
+      ConvexPolygon2D polygon = new ConvexPolygon2D();
+      polygon.addVertex(0.5 * size, 0.5 * size);
+      polygon.addVertex(0.5 * size, -0.5 * size);
+      polygon.addVertex(-0.5 * size, -0.5 * size);
+      polygon.addVertex(-0.5 * size, 0.5 * size);
+      polygon.update();
+
+      PlanarRegion region = new PlanarRegion(transform, polygon);
+      region.setRegionId(regionId);
+      return region;
+   }
+}
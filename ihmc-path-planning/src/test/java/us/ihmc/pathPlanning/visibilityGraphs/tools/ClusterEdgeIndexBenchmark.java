@@ -0,0 +1,121 @@
+package us.ihmc.pathPlanning.visibilityGraphs.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.pathPlanning.visibilityGraphs.DefaultVisibilityGraphParameters;
+import us.ihmc.pathPlanning.visibilityGraphs.VisibilityGraphsFactory;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
+import us.ihmc.pathPlanning.visibilityGraphs.tools.VisibilityGraphsIOTools.VisibilityGraphsUnitTestDataset;
+import us.ihmc.pathPlanning.visibilityGraphs.ui.VisibilityGraphsDataExporter;
+
+/**
+ * Compares the time spent in the visibility checks of the static visibility maps when scanning
+ * every cluster edge and when querying a {@link ClusterEdgeIndex}, for every navigable region of
+ * the visibility graphs datasets, and checks that both give the same result.
+ * <p>
+ * Only the regions with at least {@link #minimumNumberOfObstacleVertices} obstacle vertices are
+ * reported.
+ * </p>
+ */
+public class ClusterEdgeIndexBenchmark
+{
+   private static final int minimumNumberOfObstacleVertices = 100;
+   private static final int warmupIterations = 3;
+   private static final int iterations = 10;
+
+   public static void main(String[] args)
+   {
+      List<VisibilityGraphsUnitTestDataset> datasets = VisibilityGraphsIOTools.loadAllDatasets(VisibilityGraphsDataExporter.class);
+      DefaultVisibilityGraphParameters parameters = new DefaultVisibilityGraphParameters();
+
+      double totalLinearTime = 0.0;
+      double totalIndexedTime = 0.0;
+
+      for (VisibilityGraphsUnitTestDataset dataset : datasets)
+      {
+         List<NavigableRegion> navigableRegions = VisibilityGraphsFactory.createNavigableRegions(dataset.getPlanarRegionsList().getPlanarRegionsAsList(),
+                                                                                                 parameters);
+         if (navigableRegions == null)
+            continue;
+
+         for (NavigableRegion navigableRegion : navigableRegions)
+         {
+            List<Cluster> clusters = navigableRegion.getAllClusters();
+            int numberOfObstacleVertices = clusters.stream().mapToInt(Cluster::getNumberOfNonNavigableExtrusions).sum();
+
+            if (numberOfObstacleVertices < minimumNumberOfObstacleVertices)
+               continue;
+
+            List<Point2D> vertices = new ArrayList<>();
+            clusters.forEach(cluster -> vertices.addAll(cluster.getNavigableExtrusionsInLocal2D()));
+
+            boolean[] expectedVisibility = new boolean[vertices.size() * vertices.size()];
+            boolean[] visibility = new boolean[vertices.size() * vertices.size()];
+            double linearTime = timeLinearScan(clusters, vertices, expectedVisibility);
+            double indexedTime = timeIndexed(clusters, vertices, visibility);
+
+            for (int i = 0; i < visibility.length; i++)
+            {
+               if (visibility[i] != expectedVisibility[i])
+                  throw new RuntimeException("Visibility mismatch in " + dataset.getDatasetName() + ", region " + navigableRegion.getMapId());
+            }
+
+            totalLinearTime += linearTime;
+            totalIndexedTime += indexedTime;
+            System.out.println(String.format("%s, region %d: %d obstacle vertices, %d queries, linear: %8.2f ms, indexed: %8.2f ms, speedup %.2f",
+                                             dataset.getDatasetName(), navigableRegion.getMapId(), numberOfObstacleVertices, visibility.length,
+                                             linearTime, indexedTime, linearTime / indexedTime));
+         }
+      }
+
+      System.out.println(String.format("Total: linear: %8.2f ms, indexed: %8.2f ms, speedup %.2f", totalLinearTime, totalIndexedTime,
+                                       totalLinearTime / totalIndexedTime));
+   }
+
+   private static double timeLinearScan(List<Cluster> clusters, List<Point2D> vertices, boolean[] visibilityToPack)
+   {
+      for (int i = 0; i < warmupIterations; i++)
+         checkLinearScan(clusters, vertices, visibilityToPack);
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < iterations; i++)
+         checkLinearScan(clusters, vertices, visibilityToPack);
+      return (System.nanoTime() - startTime) / 1.0e6 / iterations;
+   }
+
+   private static double timeIndexed(List<Cluster> clusters, List<Point2D> vertices, boolean[] visibilityToPack)
+   {
+      for (int i = 0; i < warmupIterations; i++)
+         checkIndexed(clusters, vertices, visibilityToPack);
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < iterations; i++)
+         checkIndexed(clusters, vertices, visibilityToPack);
+      return (System.nanoTime() - startTime) / 1.0e6 / iterations;
+   }
+
+   private static void checkLinearScan(List<Cluster> clusters, List<Point2D> vertices, boolean[] visibilityToPack)
+   {
+      for (int source = 0; source < vertices.size(); source++)
+      {
+         for (int target = 0; target < vertices.size(); target++)
+            visibilityToPack[source * vertices.size() + target] = VisibilityTools.isPointVisibleForStaticMaps(clusters, vertices.get(source),
+                                                                                                              vertices.get(target));
+      }
+   }
+
+   /** Includes the construction of the index as it is rebuilt for every visibility map. */
+   private static void checkIndexed(List<Cluster> clusters, List<Point2D> vertices, boolean[] visibilityToPack)
+   {
+      ClusterEdgeIndex edgeIndex = new ClusterEdgeIndex(clusters);
+
+      for (int source = 0; source < vertices.size(); source++)
+      {
+         for (int target = 0; target < vertices.size(); target++)
+            visibilityToPack[source * vertices.size() + target] = edgeIndex.isPointVisible(vertices.get(source), vertices.get(target));
+      }
+   }
+}
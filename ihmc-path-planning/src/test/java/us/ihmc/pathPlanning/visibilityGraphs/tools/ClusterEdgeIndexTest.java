@@ -0,0 +1,102 @@
+package us.ihmc.pathPlanning.visibilityGraphs.tools;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
+import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster.ExtrusionSide;
+
+public class ClusterEdgeIndexTest
+{
+   private static final int ITERATIONS = 5000;
+
+   @Test(timeout = 30000)
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   public void testAgainstLinearScan()
+   {
+      Random random = new Random(9843L);
+
+      for (int environment = 0; environment < 10; environment++)
+      {
+         List<Cluster> clusters = new ArrayList<>();
+         clusters.add(nextCluster(random, 0.0, 0.0, 5.0, 40, ExtrusionSide.INSIDE));
+         int numberOfObstacles = 1 + random.nextInt(30);
+
+         for (int i = 0; i < numberOfObstacles; i++)
+            clusters.add(nextCluster(random, nextDouble(random, 4.0), nextDouble(random, 4.0), 0.1 + 0.5 * random.nextDouble(), 3 + random.nextInt(20),
+                                     ExtrusionSide.OUTSIDE));
+
+         ClusterEdgeIndex edgeIndex = new ClusterEdgeIndex(clusters);
+
+         for (int i = 0; i < ITERATIONS; i++)
+         {
+            Point2D observer = new Point2D(nextDouble(random, 6.0), nextDouble(random, 6.0));
+            Point2D target = new Point2D(nextDouble(random, 6.0), nextDouble(random, 6.0));
+
+            if (random.nextInt(10) == 0)
+            { // Exercise the vertical and horizontal lines of sight.
+               if (random.nextBoolean())
+                  target.setX(observer.getX());
+               else
+                  target.setY(observer.getY());
+            }
+
+            assertEquals(VisibilityTools.isPointVisibleForStaticMaps(clusters, observer, target), edgeIndex.isPointVisible(observer, target));
+         }
+
+         // Lines of sight between the extrusions themselves, as done when building the visibility maps.
+         for (int i = 0; i < ITERATIONS; i++)
+         {
+            Point2D observer = nextExtrusion(random, clusters);
+            Point2D target = nextExtrusion(random, clusters);
+            assertEquals(VisibilityTools.isPointVisibleForStaticMaps(clusters, observer, target), edgeIndex.isPointVisible(observer, target));
+         }
+      }
+   }
+
+   @Test(timeout = 30000)
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   public void testEmptyIndex()
+   {
+      ClusterEdgeIndex edgeIndex = new ClusterEdgeIndex(new ArrayList<>());
+      assertEquals(0, edgeIndex.getNumberOfEdges());
+      assertEquals(true, edgeIndex.isPointVisible(new Point2D(0.0, 0.0), new Point2D(1.0, 1.0)));
+   }
+
+   private static Cluster nextCluster(Random random, double centerX, double centerY, double radius, int numberOfVertices, ExtrusionSide extrusionSide)
+   {
+      List<Point2D> extrusions = new ArrayList<>();
+
+      for (int i = 0; i < numberOfVertices; i++)
+      {
+         double angle = -2.0 * Math.PI * i / numberOfVertices;
+         double vertexRadius = radius * (0.7 + 0.3 * random.nextDouble());
+         extrusions.add(new Point2D(centerX + vertexRadius * Math.cos(angle), centerY + vertexRadius * Math.sin(angle)));
+      }
+      extrusions.add(new Point2D(extrusions.get(0)));
+
+      Cluster cluster = new Cluster();
+      cluster.setExtrusionSide(extrusionSide);
+      cluster.addNonNavigableExtrusionsInLocal2D(extrusions);
+      cluster.updateBoundingBox();
+      return cluster;
+   }
+
+   private static Point2D nextExtrusion(Random random, List<Cluster> clusters)
+   {
+      Cluster cluster = clusters.get(random.nextInt(clusters.size()));
+      return new Point2D(cluster.getNonNavigableExtrusionInLocal2D(random.nextInt(cluster.getNumberOfNonNavigableExtrusions())));
+   }
+
+   private static double nextDouble(Random random, double minMax)
+   {
+      return minMax * (2.0 * random.nextDouble() - 1.0);
+   }
+}
@@ -0,0 +1,122 @@
+package us.ihmc.robotDataLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only view of a log index that works directly on the memory mapped index file.
+ * 
+ * Unlike {@link LogIndex}, no entries are copied to the heap when opening the index. Timestamps are
+ * binary searched straight from the mapping, so opening a multi-hour log is constant time and the OS
+ * page cache takes care of keeping the hot parts of the index in memory.
+ * 
+ * The index file is mapped in segments to allow index files larger than 2GB.
+ *
+ */
+public class MemoryMappedLogIndex
+{
+   private static final int ENTRY_SIZE = 16;
+   private static final int ENTRIES_PER_SEGMENT = 1 << 26;
+
+   private final MappedByteBuffer[] segments;
+   private final int numberOfEntries;
+   private final long dataSize;
+
+   /**
+    * Map the index file
+    * 
+    * @param indexData index file
+    * @param dataSize size of the data file the index points into, used to calculate the compressed size of the last entry
+    * @throws IOException
+    */
+   public MemoryMappedLogIndex(File indexData, long dataSize) throws IOException
+   {
+      this.dataSize = dataSize;
+
+      try (RandomAccessFile indexFile = new RandomAccessFile(indexData, "r"); FileChannel indexChannel = indexFile.getChannel())
+      {
+         long entries = indexChannel.size() / ENTRY_SIZE;
+         if (entries > Integer.MAX_VALUE)
+         {
+            throw new IOException("Index file " + indexData + " contains more than " + Integer.MAX_VALUE + " entries");
+         }
+         numberOfEntries = (int) entries;
+
+         int numberOfSegments = (numberOfEntries + ENTRIES_PER_SEGMENT - 1) / ENTRIES_PER_SEGMENT;
+         segments = new MappedByteBuffer[numberOfSegments];
+         for (int i = 0; i < numberOfSegments; i++)
+         {
+            long start = (long) i * ENTRIES_PER_SEGMENT;
+            long length = Math.min(ENTRIES_PER_SEGMENT, numberOfEntries - start);
+            segments[i] = indexChannel.map(MapMode.READ_ONLY, start * ENTRY_SIZE, length * ENTRY_SIZE);
+         }
+      }
+   }
+
+   private long getLong(int entry, int field)
+   {
+      MappedByteBuffer segment = segments[entry / ENTRIES_PER_SEGMENT];
+      return segment.getLong((entry % ENTRIES_PER_SEGMENT) * ENTRY_SIZE + field);
+   }
+
+   public long getTimestamp(int entry)
+   {
+      return getLong(entry, 0);
+   }
+
+   public long getDataOffset(int entry)
+   {
+      return getLong(entry, 8);
+   }
+
+   public int getCompressedSize(int entry)
+   {
+      long end = entry + 1 < numberOfEntries ? getDataOffset(entry + 1) : dataSize;
+      return (int) (end - getDataOffset(entry));
+   }
+
+   /**
+    * Binary search for the first entry with a timestamp greater or equal to inStamp. 
+    * 
+    * Behaves like {@link LogIndex#seek(long)}
+    * 
+    * @param inStamp timestamp to search for
+    * @return entry
+    */
+   public int seek(long inStamp)
+   {
+      int head = 0;
+      int tail = numberOfEntries;
+      int position = -1;
+
+      while (head < tail)
+      {
+         position = head + (tail - head) / 2;
+         long timestamp = getTimestamp(position);
+
+         if (timestamp < inStamp)
+         {
+            head = position + 1;
+         }
+         else
+         {
+            tail = position;
+         }
+      }
+      return position;
+   }
+
+   public int getNumberOfEntries()
+   {
+      return numberOfEntries;
+   }
+
+   public long getInitialTimestamp()
+   {
+      return getTimestamp(0);
+   }
+}
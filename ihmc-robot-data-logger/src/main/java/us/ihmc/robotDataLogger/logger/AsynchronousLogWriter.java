@@ -0,0 +1,325 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.concurrent.Builder;
+import us.ihmc.concurrent.ConcurrentRingBuffer;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Writes log ticks to disk on a dedicated thread.
+ * 
+ * The receive thread copies each tick into a preallocated ring buffer and returns immediately. The
+ * writer thread compresses the queued ticks into a single batch buffer and writes the data and the
+ * coalesced index entries with one write call per file. A disk stall therefore fills the ring
+ * instead of blocking the receive thread. When the ring is full, ticks are dropped and counted, see
+ * {@link #getDroppedTicks()}.
+ * 
+ * The on-disk format is identical to the synchronous writer, every tick is compressed separately
+ * to keep random access through the index.
+ *
+ */
+public class AsynchronousLogWriter extends Thread
+{
+   private static final int FLUSH_EVERY_N_PACKETS = 250;
+
+   private final Object channelLock = new Object();
+
+   private final FileChannel dataChannel;
+   private final FileChannel indexChannel;
+   private final boolean flushAggressivelyToDisk;
+
+   private final ConcurrentRingBuffer<LogTick> ringBuffer;
+
+   private final int batchSize;
+   private final ByteBuffer dataBatch;
+   private final ByteBuffer indexBatch;
+   private final long[] batchTimestamps;
+   private final int[] batchOffsets;
+   private int ticksInBatch = 0;
+   private int batchGeneration = 0;
+
+   private long dataPosition = 0;
+   private long ticksSinceFlush = 0;
+
+   private volatile boolean running = true;
+   private volatile int generation = 0;
+
+   // Only written by the receive thread
+   private volatile long ticksReceived = 0;
+   private volatile long droppedTicks = 0;
+   // Only written by the writer thread
+   private long ticksConsumed = 0;
+   private volatile long ticksWritten = 0;
+   private volatile int maximumLag = 0;
+
+   private static class LogTick
+   {
+      private long timestamp;
+      private int generation;
+      private final ByteBuffer data;
+
+      private LogTick(int bufferSize)
+      {
+         data = ByteBuffer.allocate(bufferSize);
+      }
+   }
+
+   /**
+    * 
+    * @param dataChannel Channel to write compressed data to. Ownership is transferred to the writer.
+    * @param indexChannel Channel to write index entries to. Ownership is transferred to the writer.
+    * @param bufferSize Size of a single uncompressed tick
+    * @param capacity Number of ticks that can be queued before ticks get dropped
+    * @param batchSize Maximum number of ticks to write in one call
+    * @param flushAggressivelyToDisk Force data to disk every {@value #FLUSH_EVERY_N_PACKETS} ticks
+    */
+   public AsynchronousLogWriter(FileChannel dataChannel, FileChannel indexChannel, int bufferSize, int capacity, int batchSize,
+                                boolean flushAggressivelyToDisk)
+   {
+      super("AsynchronousLogWriter");
+
+      this.dataChannel = dataChannel;
+      this.indexChannel = indexChannel;
+      this.flushAggressivelyToDisk = flushAggressivelyToDisk;
+
+      this.ringBuffer = new ConcurrentRingBuffer<>(new Builder<LogTick>()
+      {
+         @Override
+         public LogTick newInstance()
+         {
+            return new LogTick(bufferSize);
+         }
+      }, capacity);
+
+      this.batchSize = batchSize;
+      this.dataBatch = ByteBuffer.allocate(batchSize * SnappyUtils.maxCompressedLength(bufferSize));
+      this.indexBatch = ByteBuffer.allocate(batchSize * 16);
+      this.batchTimestamps = new long[batchSize];
+      this.batchOffsets = new int[batchSize];
+   }
+
+   /**
+    * Queue a tick for writing. Called from the receive thread.
+    * 
+    * @param timestamp timestamp of the tick
+    * @param data uncompressed tick data, from position to limit. Gets copied.
+    * @return false if the queue was full and the tick has been dropped
+    */
+   public boolean write(long timestamp, ByteBuffer data)
+   {
+      LogTick tick = ringBuffer.next();
+      if (tick == null)
+      {
+         droppedTicks++;
+         return false;
+      }
+
+      tick.timestamp = timestamp;
+      tick.generation = generation;
+      tick.data.clear();
+      tick.data.put(data);
+      tick.data.flip();
+      ringBuffer.commit();
+
+      ticksReceived++;
+      return true;
+   }
+
+   /**
+    * Discard all queued ticks and truncate the log files
+    * 
+    * @throws IOException
+    */
+   public void clear() throws IOException
+   {
+      synchronized (channelLock)
+      {
+         generation++;
+         dataChannel.truncate(0);
+         indexChannel.truncate(0);
+         dataPosition = 0;
+      }
+   }
+
+   /**
+    * Write all queued ticks, close the channels and wait for the writer thread to finish
+    */
+   public void close()
+   {
+      running = false;
+      try
+      {
+         join();
+      }
+      catch (InterruptedException e)
+      {
+         e.printStackTrace();
+      }
+   }
+
+   @Override
+   public void run()
+   {
+      try
+      {
+         while (running)
+         {
+            if (!processQueue())
+            {
+               ThreadTools.sleep(1);
+            }
+         }
+
+         // Empty the queue
+         while (processQueue())
+            ;
+
+         synchronized (channelLock)
+         {
+            dataChannel.force(true);
+            indexChannel.force(true);
+         }
+      }
+      catch (IOException e)
+      {
+         e.printStackTrace();
+      }
+      finally
+      {
+         try
+         {
+            dataChannel.close();
+            indexChannel.close();
+         }
+         catch (IOException e)
+         {
+            e.printStackTrace();
+         }
+      }
+   }
+
+   /**
+    * @return true if ticks were available in the queue
+    */
+   private boolean processQueue() throws IOException
+   {
+      if (!ringBuffer.poll())
+      {
+         return false;
+      }
+
+      LogTick tick;
+      while ((tick = ringBuffer.read()) != null)
+      {
+         ticksConsumed++;
+
+         int currentGeneration = generation;
+         if (tick.generation != currentGeneration)
+         {
+            continue; // Queued before the log got cleared
+         }
+         if (ticksInBatch > 0 && batchGeneration != currentGeneration)
+         {
+            ticksInBatch = 0;
+            dataBatch.clear();
+         }
+
+         batchGeneration = currentGeneration;
+         batchTimestamps[ticksInBatch] = tick.timestamp;
+         batchOffsets[ticksInBatch] = dataBatch.position();
+         SnappyUtils.compress(tick.data, dataBatch);
+         ticksInBatch++;
+
+         if (ticksInBatch == batchSize)
+         {
+            writeBatch();
+         }
+      }
+      ringBuffer.flush();
+
+      writeBatch();
+      return true;
+   }
+
+   private void writeBatch() throws IOException
+   {
+      int written = ticksInBatch;
+      synchronized (channelLock)
+      {
+         if (ticksInBatch > 0 && batchGeneration == generation)
+         {
+            indexBatch.clear();
+            for (int i = 0; i < ticksInBatch; i++)
+            {
+               indexBatch.putLong(batchTimestamps[i]);
+               indexBatch.putLong(dataPosition + batchOffsets[i]);
+            }
+            indexBatch.flip();
+            dataBatch.flip();
+
+            dataPosition += dataBatch.remaining();
+            while (dataBatch.hasRemaining())
+            {
+               dataChannel.write(dataBatch);
+            }
+            while (indexBatch.hasRemaining())
+            {
+               indexChannel.write(indexBatch);
+            }
+
+            if (flushAggressivelyToDisk)
+            {
+               ticksSinceFlush += ticksInBatch;
+               if (ticksSinceFlush >= FLUSH_EVERY_N_PACKETS)
+               {
+                  indexChannel.force(false);
+                  dataChannel.force(false);
+                  ticksSinceFlush = 0;
+               }
+            }
+         }
+         else
+         {
+            written = 0;
+         }
+      }
+
+      ticksInBatch = 0;
+      dataBatch.clear();
+
+      int lag = (int) (ticksReceived - ticksConsumed);
+      if (lag > maximumLag)
+      {
+         maximumLag = lag;
+      }
+      ticksWritten += written;
+   }
+
+   /**
+    * @return number of ticks dropped because the queue was full
+    */
+   public long getDroppedTicks()
+   {
+      return droppedTicks;
+   }
+
+   /**
+    * @return maximum number of ticks that were received but not yet written to disk
+    */
+   public int getMaximumLag()
+   {
+      return maximumLag;
+   }
+
+   /**
+    * @return number of ticks written to disk
+    */
+   public long getTicksWritten()
+   {
+      return ticksWritten;
+   }
+}
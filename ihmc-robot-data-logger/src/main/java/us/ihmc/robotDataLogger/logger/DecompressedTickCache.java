@@ -0,0 +1,102 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * Least recently used cache of decompressed log ticks.
+ * 
+ * Used to avoid decompressing the same ticks over and over again when scrubbing back and forth
+ * through a log. The buffers are allocated up front and recycled on eviction.
+ * 
+ * Not thread safe.
+ *
+ */
+public class DecompressedTickCache
+{
+   private final int capacity;
+   private final int bufferSize;
+   private final LinkedHashMap<Integer, ByteBuffer> cache;
+
+   private long hits = 0;
+   private long misses = 0;
+
+   /**
+    * 
+    * @param capacity Number of ticks to keep
+    * @param bufferSize Size of a decompressed tick
+    */
+   public DecompressedTickCache(int capacity, int bufferSize)
+   {
+      if (capacity < 1)
+      {
+         throw new IllegalArgumentException("Capacity should be at least 1");
+      }
+      this.capacity = capacity;
+      this.bufferSize = bufferSize;
+      this.cache = new LinkedHashMap<>(2 * capacity, 0.75f, true);
+   }
+
+   /**
+    * Get a previously decompressed tick
+    * 
+    * @param position index of the tick
+    * @return Rewound buffer with the tick data, or null if the tick is not in the cache
+    */
+   public ByteBuffer get(int position)
+   {
+      ByteBuffer data = cache.get(position);
+      if (data == null)
+      {
+         misses++;
+         return null;
+      }
+      hits++;
+      data.rewind();
+      return data;
+   }
+
+   /**
+    * Reserve a buffer to decompress tick at position in. If the cache is full, the least recently used tick gets evicted.
+    * 
+    * @param position index of the tick
+    * @return Cleared buffer to write the decompressed data in. Flip before reading.
+    */
+   public ByteBuffer reserve(int position)
+   {
+      ByteBuffer buffer;
+      if (cache.size() >= capacity)
+      {
+         Iterator<Entry<Integer, ByteBuffer>> eldest = cache.entrySet().iterator();
+         buffer = eldest.next().getValue();
+         eldest.remove();
+      }
+      else
+      {
+         buffer = ByteBuffer.allocate(bufferSize);
+      }
+      buffer.clear();
+      cache.put(position, buffer);
+      return buffer;
+   }
+
+   /**
+    * Drop the tick at position, for example when decompression failed
+    */
+   public void invalidate(int position)
+   {
+      cache.remove(position);
+   }
+
+   public long getHits()
+   {
+      return hits;
+   }
+
+   public long getMisses()
+   {
+      return misses;
+   }
+}
@@ -0,0 +1,77 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only memory mapping of the compressed log data.
+ * 
+ * The file is mapped in overlapping segments of 1GB so logs larger than 2GB can be mapped. Each
+ * segment overlaps the next by the maximum compressed size of a single tick, so every tick can be
+ * read from a single segment.
+ * 
+ * Not thread safe.
+ *
+ */
+public class MemoryMappedLogData
+{
+   private static final long SEGMENT_SIZE = 1L << 30;
+
+   private final ByteBuffer[] segments;
+   private final long size;
+   private final int maximumTickSize;
+
+   /**
+    * 
+    * @param logData compressed data file
+    * @param maximumTickSize maximum size of a single compressed tick
+    * @throws IOException
+    */
+   public MemoryMappedLogData(File logData, int maximumTickSize) throws IOException
+   {
+      this.maximumTickSize = maximumTickSize;
+      try (RandomAccessFile dataFile = new RandomAccessFile(logData, "r"); FileChannel dataChannel = dataFile.getChannel())
+      {
+         size = dataChannel.size();
+         int numberOfSegments = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+         segments = new ByteBuffer[numberOfSegments];
+         for (int i = 0; i < numberOfSegments; i++)
+         {
+            long start = i * SEGMENT_SIZE;
+            long length = Math.min(SEGMENT_SIZE + maximumTickSize, size - start);
+            // Keep a duplicate of each mapping to be able to move position/limit without allocating views
+            segments[i] = dataChannel.map(MapMode.READ_ONLY, start, length).duplicate();
+         }
+      }
+   }
+
+   /**
+    * Copy size bytes starting at offset into target 
+    * 
+    * @param offset Offset in the data file
+    * @param size Number of bytes to read, cannot be larger than the maximum tick size
+    * @param target Buffer to put data in, position gets advanced by size
+    */
+   public void read(long offset, int size, ByteBuffer target)
+   {
+      if (size > maximumTickSize)
+      {
+         throw new IllegalArgumentException("Cannot read " + size + " bytes, maximum tick size is " + maximumTickSize);
+      }
+
+      ByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+      int segmentOffset = (int) (offset % SEGMENT_SIZE);
+      segment.limit(segmentOffset + size);
+      segment.position(segmentOffset);
+      target.put(segment);
+   }
+
+   public long size()
+   {
+      return size;
+   }
+}
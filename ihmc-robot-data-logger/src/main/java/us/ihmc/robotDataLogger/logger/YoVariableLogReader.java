@@ -11,6 +11,7 @@ import com.google.common.io.Files;
 
 import us.ihmc.robotDataLogger.LogIndex;
 import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.MemoryMappedLogIndex;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
 import us.ihmc.tools.compression.SnappyUtils;
 
@@ -33,16 +34,41 @@ public class YoVariableLogReader
    private ByteBuffer uncompressedData;
    private FileInputStream logInputStream;
    
+   private final boolean memoryMapped;
+   private final int decompressedTickCacheSize;
+   private MemoryMappedLogData mappedLogData;
+   private MemoryMappedLogIndex mappedLogIndex;
+   private DecompressedTickCache decompressedTickCache;
+   
    protected final File properties;
    private final File model;
    private final File resourceBundle;
    private final File summary;
 
    public YoVariableLogReader(File logDirectory, LogProperties logProperties)
+   {
+      this(logDirectory, logProperties, false, 0);
+   }
+
+   /**
+    * Create a new log reader
+    * 
+    * When memoryMapped is true, the data and index files are memory mapped instead of read through a
+    * FileChannel. Timestamps are searched directly in the mapped index, which makes opening large logs
+    * near instantaneous.
+    * 
+    * @param logDirectory directory containing the log
+    * @param logProperties properties of the log
+    * @param memoryMapped memory map the data and index files
+    * @param decompressedTickCacheSize number of decompressed ticks to keep in a LRU cache, 0 to disable.
+    */
+   public YoVariableLogReader(File logDirectory, LogProperties logProperties, boolean memoryMapped, int decompressedTickCacheSize)
    {
 
       this.logDirectory = logDirectory;
       this.logProperties = logProperties;
+      this.memoryMapped = memoryMapped;
+      this.decompressedTickCacheSize = decompressedTickCacheSize;
 
       
       properties = new File(logDirectory, YoVariableLoggerListener.propertyFile);
@@ -106,15 +132,30 @@ public class YoVariableLogReader
                throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
             }
 
-            logInputStream = new FileInputStream(logdata);
-            logChannel = logInputStream.getChannel();
-
-            logIndex = new LogIndex(index, logChannel.size());
             int bufferSize = logLineLength * 8;
-            compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+            int maximumCompressedSize = SnappyUtils.maxCompressedLength(bufferSize);
+            compressedData = ByteBuffer.allocate(maximumCompressedSize);
             uncompressedData = ByteBuffer.allocate(bufferSize);
-            
-            numberOfEntries = logIndex.getNumberOfEntries();
+
+            if (memoryMapped)
+            {
+               mappedLogData = new MemoryMappedLogData(logdata, maximumCompressedSize);
+               mappedLogIndex = new MemoryMappedLogIndex(index, mappedLogData.size());
+               numberOfEntries = mappedLogIndex.getNumberOfEntries();
+            }
+            else
+            {
+               logInputStream = new FileInputStream(logdata);
+               logChannel = logInputStream.getChannel();
+
+               logIndex = new LogIndex(index, logChannel.size());
+               numberOfEntries = logIndex.getNumberOfEntries();
+            }
+
+            if (decompressedTickCacheSize > 0)
+            {
+               decompressedTickCache = new DecompressedTickCache(decompressedTickCacheSize, bufferSize);
+            }
             initialized = true;
          }
          catch (IOException e)
@@ -137,6 +178,16 @@ public class YoVariableLogReader
    
    public void close()
    {
+      // Mapped buffers get unmapped when they are garbage collected
+      mappedLogData = null;
+      mappedLogIndex = null;
+      decompressedTickCache = null;
+
+      if (logChannel == null)
+      {
+         return;
+      }
+
       try
       {
          logChannel.close();
@@ -150,21 +201,37 @@ public class YoVariableLogReader
 
    protected int getPosition(long timestamp) throws IOException
    {
+      if (memoryMapped)
+      {
+         return mappedLogIndex.seek(timestamp);
+      }
       return logIndex.seek(timestamp);
    }
    
    protected long getDataOffset(int position)
    {
+      if (memoryMapped)
+      {
+         return mappedLogIndex.getDataOffset(position);
+      }
       return logIndex.dataOffsets[position];
    }
    
    protected int getCompressedSize(int position)
    {
+      if (memoryMapped)
+      {
+         return mappedLogIndex.getCompressedSize(position);
+      }
       return logIndex.compressedSizes[position];
    }
    
    protected long getTimestamp(int position)
    {
+      if (memoryMapped)
+      {
+         return mappedLogIndex.getTimestamp(position);
+      }
       return logIndex.timestamps[position];
    }
    
@@ -172,18 +239,56 @@ public class YoVariableLogReader
    {
       int size = getCompressedSize(position);
       long startOffset = getDataOffset(position);
-      logChannel.position(startOffset);
       compressedData.clear();
-      compressedData.limit(size);
-      logChannel.read(compressedData);
+      if (memoryMapped)
+      {
+         mappedLogData.read(startOffset, size, compressedData);
+      }
+      else
+      {
+         logChannel.position(startOffset);
+         compressedData.limit(size);
+         logChannel.read(compressedData);
+      }
       compressedData.flip();
       
       return compressedData;
       
    }
    
+   /**
+    * Read and decompress the data at position.
+    * 
+    * The returned buffer is owned by the reader and only valid until the next call to readData.
+    * 
+    * @param position index of the tick
+    * @return decompressed data
+    * @throws IOException
+    */
    protected ByteBuffer readData(int position) throws IOException
    {
+      if (decompressedTickCache != null)
+      {
+         ByteBuffer cached = decompressedTickCache.get(position);
+         if (cached != null)
+         {
+            return cached;
+         }
+
+         ByteBuffer target = decompressedTickCache.reserve(position);
+         try
+         {
+            SnappyUtils.uncompress(readCompressedData(position), target);
+         }
+         catch (IOException | RuntimeException e)
+         {
+            decompressedTickCache.invalidate(position);
+            throw e;
+         }
+         target.flip();
+         return target;
+      }
+
       ByteBuffer compressedData = readCompressedData(position);
       uncompressedData.clear();
       SnappyUtils.uncompress(compressedData, uncompressedData);
@@ -25,12 +25,12 @@ import us.ihmc.robotDataLogger.handshake.LogHandshake;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.rtps.LogParticipantSettings;
-import us.ihmc.tools.compression.SnappyUtils;
 import us.ihmc.yoVariables.variable.YoVariable;
 
 public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 {
-   private static final int FLUSH_EVERY_N_PACKETS = 250;
+   private static final int WRITER_QUEUE_CAPACITY = 1024;
+   private static final int WRITER_BATCH_SIZE = 32;
    
    public static final String propertyFile = "robotData.log";
    private static final String handshakeFilename = "handshake.yaml";
@@ -50,9 +50,7 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
    private final YoVariableLoggerOptions options;
    private FileChannel dataChannel;
    private FileChannel indexChannel;
-
-   private final ByteBuffer indexBuffer = ByteBuffer.allocate(16);
-   private ByteBuffer compressedBuffer;
+   private AsynchronousLogWriter logWriter;
 
    private volatile boolean connected = false;
 
@@ -62,8 +60,6 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
    private final ArrayList<CameraAnnouncement> cameras = new ArrayList<>();
 
    private boolean clearingLog = false;
-   
-   private long currentIndex = 0;
 
    private long lastReceivedTimestamp = Long.MIN_VALUE;
    
@@ -176,44 +172,20 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 
       synchronized (synchronizer)
       {
-         if (!clearingLog && dataChannel != null)
+         if (!clearingLog && logWriter != null)
          {
-            try
+            if(yoVariableSummarizer != null)
             {
-               if(yoVariableSummarizer != null)
-               {
-                  yoVariableSummarizer.setBuffer(buffer);
-               }
-               buffer.clear();
-               compressedBuffer.clear();
-               SnappyUtils.compress(buffer, compressedBuffer);
-               compressedBuffer.flip();
-
-               indexBuffer.clear();
-               indexBuffer.putLong(timestamp);
-               indexBuffer.putLong(dataChannel.position());
-               indexBuffer.flip();
-
-               indexChannel.write(indexBuffer);
-               dataChannel.write(compressedBuffer);
-               
-               if(flushAggressivelyToDisk)
-               {
-                  if(++currentIndex % FLUSH_EVERY_N_PACKETS == 0)
-                  {
-                     indexChannel.force(false);
-                     dataChannel.force(false);
-                  }                  
-               }
-               
-               if(yoVariableSummarizer != null)
-               {
-                  yoVariableSummarizer.update();
-               }
+               yoVariableSummarizer.setBuffer(buffer);
             }
-            catch (IOException e)
+            buffer.clear();
+            
+            // Compression and disk access happen on the writer thread
+            logWriter.write(timestamp, buffer);
+            
+            if(yoVariableSummarizer != null)
             {
-               throw new RuntimeException(e);
+               yoVariableSummarizer.update();
             }
          }
       }
@@ -243,14 +215,23 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 
    public void disconnected()
    {
-      try
+      AsynchronousLogWriter logWriter;
+      synchronized (synchronizer)
       {
-         dataChannel.close();
-         indexChannel.close();
+         logWriter = this.logWriter;
+         this.logWriter = null;
       }
-      catch (IOException e)
+      
+      if (logWriter != null)
       {
-         e.printStackTrace();
+         // Writes the remaining ticks and closes the data and index channel
+         logWriter.close();
+         
+         if (logWriter.getDroppedTicks() > 0)
+         {
+            System.err.println("Dropped " + logWriter.getDroppedTicks() + " ticks because the disk could not keep up. Maximum writer lag: "
+                  + logWriter.getMaximumLag() + " ticks.");
+         }
       }
 
       for (VideoDataLoggerInterface videoDataLogger : videoDataLoggers)
@@ -353,7 +334,6 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       
 
       int bufferSize = handshakeParser.getBufferSize();
-      this.compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
       
       // Initialize disk format variables
       this.dataBuffer = ByteBuffer.allocate(bufferSize);
@@ -415,6 +395,12 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       {
          e.printStackTrace();
       }
+      
+      synchronized (synchronizer)
+      {
+         logWriter = new AsynchronousLogWriter(dataChannel, indexChannel, bufferSize, WRITER_QUEUE_CAPACITY, WRITER_BATCH_SIZE, flushAggressivelyToDisk);
+         logWriter.start();
+      }
    }
 
    @Override
@@ -443,8 +429,10 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       try
       {
          System.out.println("Clearing log.");
-         dataChannel.truncate(0);
-         indexChannel.truncate(0);
+         if (logWriter != null)
+         {
+            logWriter.clear();
+         }
          for (VideoDataLoggerInterface videoDataLogger : videoDataLoggers)
          {
             videoDataLogger.restart();
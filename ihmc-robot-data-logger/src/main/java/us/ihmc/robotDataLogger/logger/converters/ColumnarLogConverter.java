@@ -0,0 +1,251 @@
+package us.ihmc.robotDataLogger.logger.converters;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.variable.YoVariable;
+import us.ihmc.yoVariables.variable.YoVariableType;
+
+/**
+ * Converts a compressed log into a columnar layout for fast per-variable queries.
+ * 
+ * The log is cut in blocks of blockSize ticks. Within a block every column (timestamp, variables and
+ * joint states) is stored as a separate Snappy compressed run of long bits. Each value is XOR'ed with
+ * the previous value in the block before compression, which turns slowly changing variables into
+ * long runs of zeros. 
+ * 
+ * The column index contains the timestamp range of every block and, per column, the offset, size and
+ * minimum and maximum value. Use {@link ColumnarLogQuery} to read the result.
+ * 
+ * Index layout (big endian)
+ * <pre>
+ * header:  int magic, int version, int columns, int blockSize, long ticks, int blocks, int padding
+ * block:   long firstTimestamp, long lastTimestamp, int ticks
+ *          columns x [long offset, int compressedSize, double minimum, double maximum]
+ * </pre>
+ * 
+ * The original log is left untouched.
+ *
+ */
+public class ColumnarLogConverter extends YoVariableLogReader
+{
+   public static final String columnDataFile = "robotData.columns";
+   public static final String columnIndexFile = "robotData.columnIndex";
+
+   public static final int DEFAULT_BLOCK_SIZE = 2048;
+
+   static final int MAGIC = 0x594F434C;
+   static final int VERSION = 1;
+   static final int HEADER_SIZE = 32;
+   static final int BLOCK_HEADER_SIZE = 20;
+   static final int COLUMN_ENTRY_SIZE = 28;
+
+   private final YoVariableType[] columnTypes;
+   private final int blockSize;
+
+   public static void main(String[] args) throws IOException
+   {
+      File directory;
+      if (args.length < 1)
+      {
+         System.out.println("Enter directory to convert");
+         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+         directory = new File(br.readLine());
+         br.close();
+      }
+      else
+      {
+         directory = new File(args[0]);
+      }
+
+      LogProperties properties = new LogPropertiesReader(new File(directory, YoVariableLoggerListener.propertyFile));
+      System.out.println("Converting " + directory);
+      new ColumnarLogConverter(directory, properties, DEFAULT_BLOCK_SIZE).convert(percentage -> System.out.print(percentage + "%..."));
+      System.out.println();
+      System.out.println("Converted " + directory);
+   }
+
+   public ColumnarLogConverter(File logDirectory, LogProperties logProperties, int blockSize) throws IOException
+   {
+      super(logDirectory, logProperties, true, 0);
+
+      if (!logProperties.getVariables().getCompressed())
+      {
+         throw new RuntimeException("Log is not compressed, run LogCompressor first: " + logDirectory);
+      }
+
+      this.blockSize = blockSize;
+      YoVariableHandshakeParser parser = ConverterUtil.getHandshake(logProperties.getVariables().getHandshakeFileType(), handshake);
+      columnTypes = getColumnTypes(parser);
+   }
+
+   /**
+    * Write the column data and index files to the log directory
+    * 
+    * @throws IOException
+    */
+   public void convert() throws IOException
+   {
+      convert(null);
+   }
+
+   /**
+    * Write the column data and index files to the log directory
+    * 
+    * @param progressListener gets the percentage of blocks converted roughly every 10%, can be null
+    * @throws IOException
+    */
+   public void convert(IntConsumer progressListener) throws IOException
+   {
+      if (!initialize())
+      {
+         throw new IOException("Cannot open log " + logDirectory);
+      }
+
+      int columns = getNumberOfVariables();
+      if (columns != columnTypes.length)
+      {
+         throw new RuntimeException("Handshake describes " + columnTypes.length + " columns, log contains " + columns);
+      }
+
+      int ticks = getNumberOfEntries();
+      int blocks = (ticks + blockSize - 1) / blockSize;
+
+      long[] block = new long[columns * blockSize];
+      ByteBuffer column = ByteBuffer.allocate(blockSize * 8);
+      ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(blockSize * 8));
+
+      try (FileOutputStream dataStream = new FileOutputStream(new File(logDirectory, columnDataFile));
+            FileChannel dataChannel = dataStream.getChannel();
+            DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(logDirectory, columnIndexFile)))))
+      {
+         index.writeInt(MAGIC);
+         index.writeInt(VERSION);
+         index.writeInt(columns);
+         index.writeInt(blockSize);
+         index.writeLong(ticks);
+         index.writeInt(blocks);
+         index.writeInt(0);
+
+         for (int b = 0; b < blocks; b++)
+         {
+            int first = b * blockSize;
+            int ticksInBlock = Math.min(blockSize, ticks - first);
+
+            // Transpose
+            for (int t = 0; t < ticksInBlock; t++)
+            {
+               ByteBuffer data = readData(first + t);
+               for (int c = 0; c < columns; c++)
+               {
+                  block[c * blockSize + t] = data.getLong(c * 8);
+               }
+            }
+
+            index.writeLong(block[0]);
+            index.writeLong(block[ticksInBlock - 1]);
+            index.writeInt(ticksInBlock);
+
+            for (int c = 0; c < columns; c++)
+            {
+               int start = c * blockSize;
+               YoVariableType type = columnTypes[c];
+
+               double minimum = Double.POSITIVE_INFINITY;
+               double maximum = Double.NEGATIVE_INFINITY;
+
+               column.clear();
+               long previous = 0;
+               for (int t = 0; t < ticksInBlock; t++)
+               {
+                  long bits = block[start + t];
+                  double value = toDouble(type, bits);
+                  // NaN values are excluded from the statistics
+                  if (value < minimum)
+                     minimum = value;
+                  if (value > maximum)
+                     maximum = value;
+
+                  column.putLong(bits ^ previous);
+                  previous = bits;
+               }
+               column.flip();
+
+               compressed.clear();
+               SnappyUtils.compress(column, compressed);
+               compressed.flip();
+
+               index.writeLong(dataChannel.position());
+               index.writeInt(compressed.remaining());
+               index.writeDouble(minimum);
+               index.writeDouble(maximum);
+
+               while (compressed.hasRemaining())
+               {
+                  dataChannel.write(compressed);
+               }
+            }
+
+            if (progressListener != null && b % Math.max(1, blocks / 10) == 0)
+            {
+               progressListener.accept(100 * b / blocks);
+            }
+         }
+      }
+      finally
+      {
+         close();
+      }
+   }
+
+   /**
+    * Get the type of each column in a log tick. The first column is the timestamp, then the YoVariables followed by the joint states.
+    */
+   static YoVariableType[] getColumnTypes(YoVariableHandshakeParser parser)
+   {
+      List<YoVariable<?>> variables = parser.getYoVariablesList();
+      YoVariableType[] types = new YoVariableType[parser.getNumberOfStates()];
+
+      types[0] = YoVariableType.LONG;
+      for (int i = 0; i < variables.size(); i++)
+      {
+         types[i + 1] = variables.get(i).getYoVariableType();
+      }
+      for (int i = variables.size() + 1; i < types.length; i++)
+      {
+         types[i] = YoVariableType.DOUBLE;
+      }
+
+      return types;
+   }
+
+   /**
+    * Convert the long bits as stored in the log to a double
+    */
+   static double toDouble(YoVariableType type, long bits)
+   {
+      if (type == YoVariableType.DOUBLE)
+      {
+         return Double.longBitsToDouble(bits);
+      }
+      else
+      {
+         return bits;
+      }
+   }
+}
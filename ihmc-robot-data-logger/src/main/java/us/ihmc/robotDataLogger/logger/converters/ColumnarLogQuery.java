@@ -0,0 +1,359 @@
+package us.ihmc.robotDataLogger.logger.converters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.MemoryMappedLogData;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.variable.YoVariable;
+import us.ihmc.yoVariables.variable.YoVariableType;
+
+/**
+ * Query engine for logs converted with {@link ColumnarLogConverter}.
+ * 
+ * Only the blocks overlapping the requested time range are read, and only the columns of the
+ * requested variables are decompressed. The per block minimum and maximum allow searching for
+ * values without decompressing blocks that cannot contain a match.
+ * 
+ * Not thread safe.
+ *
+ */
+public class ColumnarLogQuery
+{
+   private static final int BLOCKS_PER_SEGMENT_LIMIT = Integer.MAX_VALUE;
+
+   private final List<YoVariable<?>> variables;
+   private final YoVariableType[] columnTypes;
+
+   private final int columns;
+   private final int blockSize;
+   private final long ticks;
+   private final int blocks;
+
+   private final int blockRecordSize;
+   private final int blocksPerSegment;
+   private final MappedByteBuffer[] indexSegments;
+   private final MemoryMappedLogData data;
+
+   private final ByteBuffer compressed;
+   private final ByteBuffer uncompressed;
+   private final LongBuffer uncompressedAsLong;
+
+   public static class Result
+   {
+      public final String[] names;
+      public final long[] timestamps;
+      public final double[][] values;
+
+      private Result(String[] names, int size)
+      {
+         this.names = names;
+         this.timestamps = new long[size];
+         this.values = new double[names.length][size];
+      }
+   }
+
+   public ColumnarLogQuery(File logDirectory, LogProperties logProperties) throws IOException
+   {
+      YoVariableHandshakeParser parser = ConverterUtil.getHandshake(logProperties.getVariables().getHandshakeFileType(),
+                                                                    new File(logDirectory, logProperties.getVariables().getHandshakeAsString()));
+      variables = parser.getYoVariablesList();
+      columnTypes = ColumnarLogConverter.getColumnTypes(parser);
+
+      try (RandomAccessFile indexFile = new RandomAccessFile(new File(logDirectory, ColumnarLogConverter.columnIndexFile), "r");
+            FileChannel indexChannel = indexFile.getChannel())
+      {
+         ByteBuffer header = indexChannel.map(MapMode.READ_ONLY, 0, ColumnarLogConverter.HEADER_SIZE);
+         if (header.getInt() != ColumnarLogConverter.MAGIC)
+         {
+            throw new IOException("Not a column index file");
+         }
+         int version = header.getInt();
+         if (version != ColumnarLogConverter.VERSION)
+         {
+            throw new IOException("Unsupported column index version " + version);
+         }
+         columns = header.getInt();
+         blockSize = header.getInt();
+         ticks = header.getLong();
+         blocks = header.getInt();
+
+         if (columns != columnTypes.length)
+         {
+            throw new IOException("Handshake describes " + columnTypes.length + " columns, column index contains " + columns);
+         }
+
+         blockRecordSize = ColumnarLogConverter.BLOCK_HEADER_SIZE + columns * ColumnarLogConverter.COLUMN_ENTRY_SIZE;
+         blocksPerSegment = BLOCKS_PER_SEGMENT_LIMIT / blockRecordSize;
+         int segments = (blocks + blocksPerSegment - 1) / blocksPerSegment;
+         indexSegments = new MappedByteBuffer[segments];
+         for (int i = 0; i < segments; i++)
+         {
+            long firstBlock = (long) i * blocksPerSegment;
+            long blocksInSegment = Math.min(blocksPerSegment, blocks - firstBlock);
+            indexSegments[i] = indexChannel.map(MapMode.READ_ONLY, ColumnarLogConverter.HEADER_SIZE + firstBlock * blockRecordSize,
+                                                blocksInSegment * blockRecordSize);
+         }
+      }
+
+      int maximumCompressedSize = SnappyUtils.maxCompressedLength(blockSize * 8);
+      data = new MemoryMappedLogData(new File(logDirectory, ColumnarLogConverter.columnDataFile), maximumCompressedSize);
+      compressed = ByteBuffer.allocate(maximumCompressedSize);
+      uncompressed = ByteBuffer.allocate(blockSize * 8);
+      uncompressedAsLong = uncompressed.asLongBuffer();
+   }
+
+   /**
+    * Find the column for a variable
+    * 
+    * @param name Full name with namespace or short name of the variable
+    * @return column, or -1 if the variable is not found
+    */
+   public int getColumn(String name)
+   {
+      for (int i = 0; i < variables.size(); i++)
+      {
+         YoVariable<?> variable = variables.get(i);
+         if (variable.getFullNameWithNameSpace().equals(name) || variable.getName().equals(name))
+         {
+            return i + 1;
+         }
+      }
+      return -1;
+   }
+
+   public long getNumberOfTicks()
+   {
+      return ticks;
+   }
+
+   public int getNumberOfColumns()
+   {
+      return columns;
+   }
+
+   public int getNumberOfBlocks()
+   {
+      return blocks;
+   }
+
+   private ByteBuffer getBlockRecord(int block)
+   {
+      return indexSegments[block / blocksPerSegment];
+   }
+
+   private int getBlockRecordOffset(int block)
+   {
+      return (block % blocksPerSegment) * blockRecordSize;
+   }
+
+   private int getColumnEntryOffset(int block, int column)
+   {
+      return getBlockRecordOffset(block) + ColumnarLogConverter.BLOCK_HEADER_SIZE + column * ColumnarLogConverter.COLUMN_ENTRY_SIZE;
+   }
+
+   public long getFirstTimestamp(int block)
+   {
+      return getBlockRecord(block).getLong(getBlockRecordOffset(block));
+   }
+
+   public long getLastTimestamp(int block)
+   {
+      return getBlockRecord(block).getLong(getBlockRecordOffset(block) + 8);
+   }
+
+   public int getTicksInBlock(int block)
+   {
+      return getBlockRecord(block).getInt(getBlockRecordOffset(block) + 16);
+   }
+
+   public double getMinimum(int block, int column)
+   {
+      return getBlockRecord(block).getDouble(getColumnEntryOffset(block, column) + 12);
+   }
+
+   public double getMaximum(int block, int column)
+   {
+      return getBlockRecord(block).getDouble(getColumnEntryOffset(block, column) + 20);
+   }
+
+   /**
+    * Decompress a column of a block into target
+    * 
+    * @return number of values
+    */
+   private int readColumn(int block, int column, long[] target) throws IOException
+   {
+      ByteBuffer record = getBlockRecord(block);
+      int entry = getColumnEntryOffset(block, column);
+      long offset = record.getLong(entry);
+      int size = record.getInt(entry + 8);
+      int ticksInBlock = getTicksInBlock(block);
+
+      compressed.clear();
+      data.read(offset, size, compressed);
+      compressed.flip();
+
+      uncompressed.clear();
+      SnappyUtils.uncompress(compressed, uncompressed);
+
+      uncompressedAsLong.clear();
+      long previous = 0;
+      for (int t = 0; t < ticksInBlock; t++)
+      {
+         previous ^= uncompressedAsLong.get();
+         target[t] = previous;
+      }
+      return ticksInBlock;
+   }
+
+   /**
+    * Find the first block that contains data at or after timestamp
+    */
+   private int findFirstBlock(long timestamp)
+   {
+      int head = 0;
+      int tail = blocks;
+      while (head < tail)
+      {
+         int position = head + (tail - head) / 2;
+         if (getLastTimestamp(position) < timestamp)
+         {
+            head = position + 1;
+         }
+         else
+         {
+            tail = position;
+         }
+      }
+      return head;
+   }
+
+   /**
+    * Get all values of the named variables between startTimestamp and endTimestamp, inclusive
+    * 
+    * @throws IOException
+    */
+   public Result query(long startTimestamp, long endTimestamp, String... names) throws IOException
+   {
+      int[] columns = new int[names.length];
+      for (int i = 0; i < names.length; i++)
+      {
+         columns[i] = getColumn(names[i]);
+         if (columns[i] < 0)
+         {
+            throw new IllegalArgumentException("Unknown variable " + names[i]);
+         }
+      }
+      return query(startTimestamp, endTimestamp, names, columns);
+   }
+
+   /**
+    * Get all values of the columns between startTimestamp and endTimestamp, inclusive.
+    * 
+    * Column 0 is the timestamp, followed by the variables and the joint states in handshake order.
+    * 
+    * @throws IOException
+    */
+   public Result query(long startTimestamp, long endTimestamp, String[] names, int[] columns) throws IOException
+   {
+      int firstBlock = findFirstBlock(startTimestamp);
+
+      // Decode timestamps of the overlapping blocks to find the exact range
+      List<long[]> timestampBlocks = new ArrayList<>();
+      List<int[]> ranges = new ArrayList<>();
+      int size = 0;
+      for (int b = firstBlock; b < blocks && getFirstTimestamp(b) <= endTimestamp; b++)
+      {
+         long[] timestamps = new long[blockSize];
+         int ticksInBlock = readColumn(b, 0, timestamps);
+
+         int from = 0;
+         while (from < ticksInBlock && timestamps[from] < startTimestamp)
+            from++;
+         int to = from;
+         while (to < ticksInBlock && timestamps[to] <= endTimestamp)
+            to++;
+
+         timestampBlocks.add(timestamps);
+         ranges.add(new int[] {b, from, to});
+         size += to - from;
+      }
+
+      Result result = new Result(names, size);
+      long[] column = new long[blockSize];
+      int resultOffset = 0;
+      for (int r = 0; r < ranges.size(); r++)
+      {
+         int[] range = ranges.get(r);
+         int block = range[0], from = range[1], to = range[2];
+
+         System.arraycopy(timestampBlocks.get(r), from, result.timestamps, resultOffset, to - from);
+
+         for (int c = 0; c < columns.length; c++)
+         {
+            readColumn(block, columns[c], column);
+            YoVariableType type = columnTypes[columns[c]];
+            double[] values = result.values[c];
+            for (int t = from; t < to; t++)
+            {
+               values[resultOffset + t - from] = ColumnarLogConverter.toDouble(type, column[t]);
+            }
+         }
+         resultOffset += to - from;
+      }
+
+      return result;
+   }
+
+   /**
+    * Find the first timestamp at or after startTimestamp where the variable is between lower and upper, inclusive.
+    * 
+    * Blocks where the variable is never in range are skipped without decompression.
+    * 
+    * @return timestamp, or -1 if the variable never is in range
+    * @throws IOException
+    */
+   public long findFirstTimestampInRange(String name, double lower, double upper, long startTimestamp) throws IOException
+   {
+      int column = getColumn(name);
+      if (column < 0)
+      {
+         throw new IllegalArgumentException("Unknown variable " + name);
+      }
+
+      YoVariableType type = columnTypes[column];
+      long[] values = new long[blockSize];
+      long[] timestamps = new long[blockSize];
+
+      for (int b = findFirstBlock(startTimestamp); b < blocks; b++)
+      {
+         if (getMaximum(b, column) < lower || getMinimum(b, column) > upper)
+         {
+            continue;
+         }
+
+         int ticksInBlock = readColumn(b, column, values);
+         readColumn(b, 0, timestamps);
+         for (int t = 0; t < ticksInBlock; t++)
+         {
+            double value = ColumnarLogConverter.toDouble(type, values[t]);
+            if (timestamps[t] >= startTimestamp && value >= lower && value <= upper)
+            {
+               return timestamps[t];
+            }
+         }
+      }
+      return -1;
+   }
+}
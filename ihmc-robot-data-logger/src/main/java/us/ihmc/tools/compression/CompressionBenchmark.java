@@ -67,7 +67,7 @@ public class CompressionBenchmark extends YoVariableLogReader
       long duration = System.nanoTime() - start;
       System.out.println("Compression factor: " + compressionFactor);
       System.out.println("Duration: " + Conversions.nanosecondsToSeconds(duration) + "s");
-      System.out.println("Time per data line: " + Conversions.nanosecondsToMilliseconds((double) (duration / elements)) + "ms");
+      System.out.println("Time per data line: " + Conversions.nanosecondsToMilliseconds((double) (duration / elements)) + "ms (" + (duration / elements) + "ns)");
       System.out.println();
    }
 
@@ -112,6 +112,22 @@ public class CompressionBenchmark extends YoVariableLogReader
       });
       
       
+      benchmarkFunction("XOR delta + LZ4 (keyframe every " + XORCompressionImplementation.DEFAULT_KEYFRAME_INTERVAL + " ticks)", set.length, () -> {
+         return benchMarkCompressionImplementation(new XORCompressionImplementation(), set);
+      });
+
+      benchmarkFunction("XOR delta + LZ4 (keyframe every 1000 ticks)", set.length, () -> {
+         return benchMarkCompressionImplementation(new XORCompressionImplementation(1000), set);
+      });
+
+      benchmarkFunction("XOR delta + LZ4 decompression", set.length, () -> {
+         return benchMarkDecompression(new XORCompressionImplementation(), set);
+      });
+
+      benchmarkFunction("LZ4 decompression", set.length, () -> {
+         return benchMarkDecompression(new LZ4CompressionImplementation(), set);
+      });
+
       benchmarkFunction("Copy (Direct)", directSet.length, () -> {
          return benchMarkCopy(directSet);
       });
@@ -192,6 +208,52 @@ public class CompressionBenchmark extends YoVariableLogReader
       return ((double) compressedSize) / ((double) totalSize);
    }
 
+   private double benchMarkCompressionImplementation(CompressionImplementation compressionImplementation, ByteBuffer[] set)
+   {
+      ByteBuffer target = ByteBuffer.allocate(compressionImplementation.maxCompressedLength(getNumberOfVariables() * 8));
+
+      long totalSize = (long) set.length * (long) (getNumberOfVariables() * 8);
+      long compressedSize = 0;
+
+      for (int i = 0; i < set.length; i++)
+      {
+         set[i].clear();
+         target.clear();
+         compressedSize += compressionImplementation.compress(set[i], target);
+      }
+
+      return ((double) compressedSize) / ((double) totalSize);
+   }
+
+   /**
+    * Compresses the set up front and only times decompression of all ticks in order
+    */
+   private double benchMarkDecompression(CompressionImplementation compressionImplementation, ByteBuffer[] set)
+   {
+      int length = getNumberOfVariables() * 8;
+      ByteBuffer[] compressed = new ByteBuffer[set.length];
+      long compressedSize = 0;
+      for (int i = 0; i < set.length; i++)
+      {
+         set[i].clear();
+         compressed[i] = ByteBuffer.allocate(compressionImplementation.maxCompressedLength(length));
+         compressedSize += compressionImplementation.compress(set[i], compressed[i]);
+         compressed[i].flip();
+      }
+
+      ByteBuffer target = ByteBuffer.allocate(length);
+      long start = System.nanoTime();
+      for (int i = 0; i < compressed.length; i++)
+      {
+         target.clear();
+         compressionImplementation.decompress(compressed[i], target, length);
+      }
+      long duration = System.nanoTime() - start;
+      System.out.println("Decompression time per data line: " + (duration / set.length) + "ns");
+
+      return ((double) compressedSize) / ((double) set.length * length);
+   }
+
    private ByteBuffer copyData(int i) throws IOException
    {
       ByteBuffer dataLine = readData(i);
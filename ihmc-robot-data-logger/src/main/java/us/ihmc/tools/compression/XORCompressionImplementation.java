@@ -0,0 +1,181 @@
+package us.ihmc.tools.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Delta compression for streams of YoVariable ticks.
+ * 
+ * Consecutive ticks are almost identical. Each tick is XOR'ed 8 bytes at a time with the previous
+ * tick, in the style of the Gorilla time series encoding. Unchanged booleans, enums and integers
+ * become zero and doubles that only change in the low mantissa bits get long runs of leading zero
+ * bytes. The result is entropy coded with LZ4, which compresses the zero runs very efficiently.
+ * 
+ * Every keyframeInterval ticks a keyframe is written that does not depend on the previous tick, to
+ * allow random access and recovery after a lost tick. The first byte of each compressed tick
+ * indicates if it is a keyframe.
+ * 
+ * This implementation is stateful. Use a separate instance per stream, and call
+ * {@link #reset()} when the stream gets interrupted. Compression and decompression state are
+ * separate, so a single instance can be used to compress and decompress the same stream. The
+ * uncompressed length has to be a multiple of 8.
+ * 
+ */
+public class XORCompressionImplementation implements CompressionImplementation
+{
+   public static final int DEFAULT_KEYFRAME_INTERVAL = 100;
+
+   private static final byte KEYFRAME = 0;
+   private static final byte DELTA = 1;
+
+   private final LZ4CompressionImplementation entropyCoder = new LZ4CompressionImplementation();
+   private final int keyframeInterval;
+
+   private ByteBuffer deltaBuffer = ByteBuffer.allocate(0);
+
+   private ByteBuffer compressReference = ByteBuffer.allocate(0);
+   private int ticksSinceKeyframe = 0;
+
+   private ByteBuffer decompressReference = ByteBuffer.allocate(0);
+   private boolean hasDecompressReference = false;
+
+   public XORCompressionImplementation()
+   {
+      this(DEFAULT_KEYFRAME_INTERVAL);
+   }
+
+   /**
+    * @param keyframeInterval Write a keyframe every keyframeInterval ticks
+    */
+   public XORCompressionImplementation(int keyframeInterval)
+   {
+      if (keyframeInterval < 1)
+      {
+         throw new IllegalArgumentException("Keyframe interval should be at least 1");
+      }
+      this.keyframeInterval = keyframeInterval;
+   }
+
+   /**
+    * Force the next compressed tick to be a keyframe and forget the previously decompressed tick.
+    */
+   public void reset()
+   {
+      ticksSinceKeyframe = 0;
+      hasDecompressReference = false;
+   }
+
+   /**
+    * @return true if the next call to {@link #compress(ByteBuffer, ByteBuffer)} will write a keyframe
+    */
+   public boolean isNextTickKeyframe()
+   {
+      return ticksSinceKeyframe == 0;
+   }
+
+   private ByteBuffer ensureCapacity(ByteBuffer buffer, int length)
+   {
+      if (buffer.capacity() < length)
+      {
+         return ByteBuffer.allocate(length);
+      }
+      return buffer;
+   }
+
+   @Override
+   public boolean supportsDirectOutput()
+   {
+      return entropyCoder.supportsDirectOutput();
+   }
+
+   @Override
+   public int compress(ByteBuffer src, ByteBuffer target)
+   {
+      int length = src.remaining();
+      if (length % 8 != 0)
+      {
+         throw new IllegalArgumentException("Length should be a multiple of 8, got " + length);
+      }
+
+      if (compressReference.limit() != length)
+      {
+         // Structure changed, delta against the previous tick is meaningless
+         compressReference = ensureCapacity(compressReference, length);
+         compressReference.clear();
+         compressReference.limit(length);
+         ticksSinceKeyframe = 0;
+      }
+      deltaBuffer = ensureCapacity(deltaBuffer, length);
+
+      int targetStart = target.position();
+      boolean keyframe = ticksSinceKeyframe == 0;
+      target.put(keyframe ? KEYFRAME : DELTA);
+
+      int srcStart = src.position();
+      deltaBuffer.clear();
+      for (int i = 0; i < length; i += 8)
+      {
+         long value = src.getLong(srcStart + i);
+         deltaBuffer.putLong(keyframe ? value : value ^ compressReference.getLong(i));
+         compressReference.putLong(i, value);
+      }
+      deltaBuffer.flip();
+      src.position(srcStart + length);
+
+      entropyCoder.compress(deltaBuffer, target);
+
+      ticksSinceKeyframe = (ticksSinceKeyframe + 1) % keyframeInterval;
+      return target.position() - targetStart;
+   }
+
+   /**
+    * Decompress a tick. 
+    * 
+    * @throws IllegalStateException if src is a delta tick and the previous tick has not been decompressed.
+    */
+   @Override
+   public void decompress(ByteBuffer src, ByteBuffer target, int decompressedLength)
+   {
+      byte type = src.get();
+
+      deltaBuffer = ensureCapacity(deltaBuffer, decompressedLength);
+      deltaBuffer.clear();
+      deltaBuffer.limit(decompressedLength);
+      entropyCoder.decompress(src, deltaBuffer, decompressedLength);
+
+      if (type == KEYFRAME)
+      {
+         decompressReference = ensureCapacity(decompressReference, decompressedLength);
+         decompressReference.clear();
+         decompressReference.limit(decompressedLength);
+         hasDecompressReference = true;
+      }
+      else if (!hasDecompressReference || decompressReference.limit() != decompressedLength)
+      {
+         hasDecompressReference = false;
+         throw new IllegalStateException("Cannot decompress delta tick without the previous tick, wait for the next keyframe.");
+      }
+
+      for (int i = 0; i < decompressedLength; i += 8)
+      {
+         long value = deltaBuffer.getLong(i);
+         if (type != KEYFRAME)
+         {
+            value ^= decompressReference.getLong(i);
+         }
+         decompressReference.putLong(i, value);
+         target.putLong(value);
+      }
+   }
+
+   @Override
+   public int maxCompressedLength(int uncompressedLength)
+   {
+      return 1 + entropyCoder.maxCompressedLength(uncompressedLength);
+   }
+
+   @Override
+   public int minimumDecompressedLength(int compressedLength)
+   {
+      return entropyCoder.minimumDecompressedLength(compressedLength - 1);
+   }
+}
@@ -0,0 +1,62 @@
+package us.ihmc.robotDataLogger;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class MemoryMappedLogIndexTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testAgainstLogIndex() throws IOException
+   {
+      Random random = new Random(2346581l);
+      int entries = 10000;
+      File indexFile = File.createTempFile("robotData", ".dat");
+      indexFile.deleteOnExit();
+
+      ByteBuffer indexBuffer = ByteBuffer.allocate(entries * 16);
+      long timestamp = random.nextInt(1000);
+      long offset = 0;
+      for (int i = 0; i < entries; i++)
+      {
+         timestamp += 1 + random.nextInt(1000);
+         indexBuffer.putLong(timestamp);
+         indexBuffer.putLong(offset);
+         offset += 1 + random.nextInt(500);
+      }
+      indexBuffer.flip();
+      try (FileOutputStream stream = new FileOutputStream(indexFile); FileChannel channel = stream.getChannel())
+      {
+         channel.write(indexBuffer);
+      }
+
+      long dataSize = offset;
+      LogIndex logIndex = new LogIndex(indexFile, dataSize);
+      MemoryMappedLogIndex mappedLogIndex = new MemoryMappedLogIndex(indexFile, dataSize);
+
+      assertEquals(logIndex.getNumberOfEntries(), mappedLogIndex.getNumberOfEntries());
+      assertEquals(logIndex.getInitialTimestamp(), mappedLogIndex.getInitialTimestamp());
+      for (int i = 0; i < entries; i++)
+      {
+         assertEquals(logIndex.timestamps[i], mappedLogIndex.getTimestamp(i));
+         assertEquals(logIndex.dataOffsets[i], mappedLogIndex.getDataOffset(i));
+         assertEquals(logIndex.compressedSizes[i], mappedLogIndex.getCompressedSize(i));
+      }
+
+      for (int i = 0; i < 1000; i++)
+      {
+         long stamp = random.nextInt((int) timestamp + 1000);
+         assertEquals(logIndex.seek(stamp), mappedLogIndex.seek(stamp));
+      }
+   }
+}
@@ -0,0 +1,155 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.tools.compression.SnappyUtils;
+
+public class AsynchronousLogWriterTest
+{
+   private static final int BUFFER_SIZE = 64 * 8;
+   private static final int CAPACITY = 16;
+   private static final int BATCH_SIZE = 4;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testOrderingWhileWriting() throws IOException
+   {
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      File indexFile = File.createTempFile("robotData", ".dat");
+      dataFile.deleteOnExit();
+      indexFile.deleteOnExit();
+
+      AsynchronousLogWriter writer = createWriter(dataFile, indexFile, 1024, true);
+      writer.start();
+
+      List<Long> acceptedTimestamps = new ArrayList<>();
+      ByteBuffer tick = ByteBuffer.allocate(BUFFER_SIZE);
+      int numberOfTicks = 5000;
+      int rejected = 0;
+      for (long timestamp = 0; timestamp < numberOfTicks; timestamp++)
+      {
+         fillTick(tick, timestamp);
+         if (writer.write(timestamp, tick))
+            acceptedTimestamps.add(timestamp);
+         else
+            rejected++;
+      }
+      writer.close();
+
+      assertEquals(rejected, writer.getDroppedTicks());
+      assertEquals(acceptedTimestamps.size(), writer.getTicksWritten());
+      assertLogEquals(dataFile, indexFile, acceptedTimestamps);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDropWhenFullAndFlushOnClose() throws IOException
+   {
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      File indexFile = File.createTempFile("robotData", ".dat");
+      dataFile.deleteOnExit();
+      indexFile.deleteOnExit();
+
+      // The writer thread is not running, such that the queue fills up
+      AsynchronousLogWriter writer = createWriter(dataFile, indexFile, CAPACITY, false);
+
+      List<Long> acceptedTimestamps = new ArrayList<>();
+      ByteBuffer tick = ByteBuffer.allocate(BUFFER_SIZE);
+      int numberOfTicks = 3 * CAPACITY;
+      for (long timestamp = 0; timestamp < numberOfTicks; timestamp++)
+      {
+         fillTick(tick, timestamp);
+         if (writer.write(timestamp, tick))
+            acceptedTimestamps.add(timestamp);
+      }
+
+      assertTrue(acceptedTimestamps.size() <= CAPACITY);
+      assertTrue(acceptedTimestamps.size() >= CAPACITY - 1);
+      assertEquals(numberOfTicks - acceptedTimestamps.size(), writer.getDroppedTicks());
+      // The oldest ticks are kept
+      for (int i = 0; i < acceptedTimestamps.size(); i++)
+         assertEquals(i, acceptedTimestamps.get(i).longValue());
+      assertEquals(0, writer.getTicksWritten());
+      assertEquals(0, dataFile.length());
+      assertEquals(0, indexFile.length());
+
+      // Closing writes everything still in the queue
+      writer.start();
+      writer.close();
+
+      assertEquals(acceptedTimestamps.size(), writer.getTicksWritten());
+      assertLogEquals(dataFile, indexFile, acceptedTimestamps);
+   }
+
+   @SuppressWarnings("resource")
+   private static AsynchronousLogWriter createWriter(File dataFile, File indexFile, int capacity, boolean flushAggressivelyToDisk) throws IOException
+   {
+      FileChannel dataChannel = new FileOutputStream(dataFile, false).getChannel();
+      FileChannel indexChannel = new FileOutputStream(indexFile, false).getChannel();
+      return new AsynchronousLogWriter(dataChannel, indexChannel, BUFFER_SIZE, capacity, BATCH_SIZE, flushAggressivelyToDisk);
+   }
+
+   /**
+    * Every long in the tick is derived from the timestamp, such that the content can be checked after
+    * reading it back
+    */
+   private static void fillTick(ByteBuffer tick, long timestamp)
+   {
+      tick.clear();
+      tick.putLong(timestamp);
+      while (tick.hasRemaining())
+      {
+         tick.putLong(timestamp * 31 + tick.position());
+      }
+      tick.flip();
+   }
+
+   private static void assertLogEquals(File dataFile, File indexFile, List<Long> expectedTimestamps) throws IOException
+   {
+      try (RandomAccessFile data = new RandomAccessFile(dataFile, "r"); RandomAccessFile index = new RandomAccessFile(indexFile, "r"))
+      {
+         assertEquals(16L * expectedTimestamps.size(), index.length());
+
+         long[] offsets = new long[expectedTimestamps.size() + 1];
+         for (int i = 0; i < expectedTimestamps.size(); i++)
+         {
+            assertEquals(expectedTimestamps.get(i).longValue(), index.readLong());
+            offsets[i] = index.readLong();
+         }
+         offsets[expectedTimestamps.size()] = data.length();
+
+         ByteBuffer uncompressed = ByteBuffer.allocate(BUFFER_SIZE);
+         for (int i = 0; i < expectedTimestamps.size(); i++)
+         {
+            byte[] compressed = new byte[(int) (offsets[i + 1] - offsets[i])];
+            data.seek(offsets[i]);
+            data.readFully(compressed);
+
+            uncompressed.clear();
+            SnappyUtils.uncompress(ByteBuffer.wrap(compressed), uncompressed);
+            uncompressed.flip();
+
+            long timestamp = expectedTimestamps.get(i);
+            assertEquals(BUFFER_SIZE, uncompressed.remaining());
+            assertEquals(timestamp, uncompressed.getLong());
+            while (uncompressed.hasRemaining())
+            {
+               long expected = timestamp * 31 + uncompressed.position();
+               assertEquals(expected, uncompressed.getLong());
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,236 @@
+package us.ihmc.robotDataLogger.logger.converters;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.idl.serializers.extra.YAMLSerializer;
+import us.ihmc.robotDataLogger.Handshake;
+import us.ihmc.robotDataLogger.HandshakeFileType;
+import us.ihmc.robotDataLogger.HandshakePubSubType;
+import us.ihmc.robotDataLogger.dataBuffers.RegistrySendBufferBuilder;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandShakeBuilder;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.LogPropertiesWriter;
+import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
+import us.ihmc.yoVariables.variable.YoVariable;
+import us.ihmc.yoVariables.variable.YoVariableType;
+
+public class ColumnarLogConverterTest
+{
+   private static final int TICKS = 1000;
+   private static final int BLOCK_SIZE = 64;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testRoundTrip() throws IOException
+   {
+      Random random = new Random(8734591L);
+      File logDirectory = Files.createTempDirectory("columnarLog").toFile();
+
+      try
+      {
+         LogPropertiesWriter logProperties = new LogPropertiesWriter(new File(logDirectory, YoVariableLoggerListener.propertyFile));
+         YoVariableHandshakeParser parser = writeHandshake(logDirectory, logProperties);
+         long[][] ticks = writeLog(random, logDirectory, logProperties, parser);
+         logProperties.store();
+
+         int[] progressUpdates = {0};
+         new ColumnarLogConverter(logDirectory, logProperties, BLOCK_SIZE).convert(percentage -> progressUpdates[0]++);
+         assertTrue(progressUpdates[0] > 0);
+
+         ColumnarLogQuery query = new ColumnarLogQuery(logDirectory, logProperties);
+         assertEquals(TICKS, query.getNumberOfTicks());
+         assertEquals(parser.getNumberOfStates(), query.getNumberOfColumns());
+         assertEquals((TICKS + BLOCK_SIZE - 1) / BLOCK_SIZE, query.getNumberOfBlocks());
+
+         List<YoVariable<?>> variables = parser.getYoVariablesList();
+         YoVariableType[] columnTypes = ColumnarLogConverter.getColumnTypes(parser);
+         String[] names = new String[variables.size()];
+         int[] columns = new int[variables.size()];
+         for (int i = 0; i < variables.size(); i++)
+         {
+            names[i] = variables.get(i).getFullNameWithNameSpace();
+            columns[i] = i + 1;
+            assertEquals(columns[i], query.getColumn(names[i]));
+         }
+
+         // Whole log, then random ranges that start and end inside and outside of blocks
+         assertQueryMatches(query, ticks, columnTypes, ticks[0][0], ticks[TICKS - 1][0], names, columns);
+         for (int i = 0; i < 50; i++)
+         {
+            long firstTimestamp = ticks[0][0] - 10;
+            long lastTimestamp = ticks[TICKS - 1][0] + 10;
+            long start = firstTimestamp + (long) (random.nextDouble() * (lastTimestamp - firstTimestamp));
+            long end = start + (long) (random.nextDouble() * (lastTimestamp - start));
+            assertQueryMatches(query, ticks, columnTypes, start, end, names, columns);
+         }
+
+         for (int i = 0; i < 50; i++)
+         {
+            int column = 1 + random.nextInt(variables.size());
+            double lower = ColumnarLogConverter.toDouble(columnTypes[column], ticks[random.nextInt(TICKS)][column]);
+            double upper = lower + random.nextDouble();
+            long startTimestamp = ticks[random.nextInt(TICKS)][0];
+
+            long expected = -1;
+            for (long[] tick : ticks)
+            {
+               double value = ColumnarLogConverter.toDouble(columnTypes[column], tick[column]);
+               if (tick[0] >= startTimestamp && value >= lower && value <= upper)
+               {
+                  expected = tick[0];
+                  break;
+               }
+            }
+            assertEquals(expected, query.findFirstTimestampInRange(names[column - 1], lower, upper, startTimestamp));
+         }
+      }
+      finally
+      {
+         for (File file : logDirectory.listFiles())
+         {
+            file.delete();
+         }
+         logDirectory.delete();
+      }
+   }
+
+   private static void assertQueryMatches(ColumnarLogQuery query, long[][] ticks, YoVariableType[] columnTypes, long start, long end, String[] names,
+                                          int[] columns)
+         throws IOException
+   {
+      ColumnarLogQuery.Result result = query.query(start, end, names);
+
+      List<long[]> expectedTicks = new ArrayList<>();
+      for (long[] tick : ticks)
+      {
+         if (tick[0] >= start && tick[0] <= end)
+         {
+            expectedTicks.add(tick);
+         }
+      }
+
+      assertEquals(expectedTicks.size(), result.timestamps.length);
+      for (int t = 0; t < expectedTicks.size(); t++)
+      {
+         long[] tick = expectedTicks.get(t);
+         assertEquals(tick[0], result.timestamps[t]);
+         for (int c = 0; c < columns.length; c++)
+         {
+            double expected = ColumnarLogConverter.toDouble(columnTypes[columns[c]], tick[columns[c]]);
+            assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(result.values[c][t]));
+         }
+      }
+   }
+
+   private static YoVariableHandshakeParser writeHandshake(File logDirectory, LogPropertiesWriter logProperties) throws IOException
+   {
+      YoVariableRegistry root = new YoVariableRegistry("root");
+      YoVariableRegistry registry = new YoVariableRegistry("main");
+      root.addChild(registry);
+      for (int i = 0; i < 5; i++)
+      {
+         new YoDouble("double" + i, registry);
+         new YoLong("long" + i, registry);
+         new YoInteger("integer" + i, registry);
+         new YoBoolean("boolean" + i, registry);
+      }
+
+      YoVariableHandShakeBuilder handShakeBuilder = new YoVariableHandShakeBuilder(root.getName(), 0.001);
+      handShakeBuilder.addRegistryBuffer(new RegistrySendBufferBuilder(registry, null, null));
+      Handshake handshake = handShakeBuilder.getHandShake();
+
+      String handshakeFilename = "handshake.yaml";
+      YAMLSerializer<Handshake> serializer = new YAMLSerializer<>(new HandshakePubSubType());
+      serializer.serialize(new File(logDirectory, handshakeFilename), handshake);
+
+      logProperties.getVariables().setHandshake(handshakeFilename);
+      logProperties.getVariables().setHandshakeFileType(HandshakeFileType.IDL_YAML);
+      logProperties.getVariables().setData("robotData.bsz");
+      logProperties.getVariables().setIndex("robotData.dat");
+      logProperties.getVariables().setCompressed(true);
+      logProperties.getVariables().setTimestamped(true);
+
+      YoVariableHandshakeParser parser = YoVariableHandshakeParser.create(HandshakeFileType.IDL_YAML);
+      parser.parseFrom(handshake);
+      return parser;
+   }
+
+   /**
+    * Write a compressed log in the same format as the logger. Variables change slowly with
+    * occasional jumps, like in a real log.
+    */
+   private static long[][] writeLog(Random random, File logDirectory, LogPropertiesWriter logProperties, YoVariableHandshakeParser parser)
+         throws IOException
+   {
+      YoVariableType[] columnTypes = ColumnarLogConverter.getColumnTypes(parser);
+      int columns = parser.getNumberOfStates();
+      long[][] ticks = new long[TICKS][columns];
+
+      ByteBuffer data = ByteBuffer.allocate(columns * 8);
+      LongBuffer dataAsLong = data.asLongBuffer();
+      ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(columns * 8));
+      ByteBuffer index = ByteBuffer.allocate(16);
+
+      try (FileOutputStream dataStream = new FileOutputStream(new File(logDirectory, logProperties.getVariables().getDataAsString()));
+            FileChannel dataChannel = dataStream.getChannel();
+            FileOutputStream indexStream = new FileOutputStream(new File(logDirectory, logProperties.getVariables().getIndexAsString()));
+            FileChannel indexChannel = indexStream.getChannel())
+      {
+         long timestamp = random.nextInt(1000000);
+         for (int t = 0; t < TICKS; t++)
+         {
+            timestamp += 1 + random.nextInt(2000000);
+            ticks[t][0] = timestamp;
+            for (int c = 1; c < columns; c++)
+            {
+               boolean change = t == 0 || random.nextInt(10) == 0;
+               if (!change)
+                  ticks[t][c] = ticks[t - 1][c];
+               else if (columnTypes[c] == YoVariableType.DOUBLE)
+                  ticks[t][c] = Double.doubleToLongBits(random.nextGaussian());
+               else if (columnTypes[c] == YoVariableType.BOOLEAN)
+                  ticks[t][c] = random.nextInt(2);
+               else
+                  ticks[t][c] = random.nextInt(200) - 100;
+            }
+
+            dataAsLong.clear();
+            dataAsLong.put(ticks[t]);
+            data.clear();
+            compressed.clear();
+            SnappyUtils.compress(data, compressed);
+            compressed.flip();
+
+            index.clear();
+            index.putLong(timestamp);
+            index.putLong(dataChannel.position());
+            index.flip();
+
+            indexChannel.write(index);
+            dataChannel.write(compressed);
+         }
+      }
+
+      return ticks;
+   }
+}
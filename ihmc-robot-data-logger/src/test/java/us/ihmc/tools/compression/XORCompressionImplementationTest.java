@@ -0,0 +1,141 @@
+package us.ihmc.tools.compression;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class XORCompressionImplementationTest
+{
+   private static ByteBuffer[] createTicks(Random random, int ticks, int variables)
+   {
+      ByteBuffer[] data = new ByteBuffer[ticks];
+      double[] values = new double[variables];
+      for (int i = 0; i < variables; i++)
+      {
+         values[i] = random.nextDouble();
+      }
+
+      for (int t = 0; t < ticks; t++)
+      {
+         data[t] = ByteBuffer.allocate(variables * 8);
+         for (int i = 0; i < variables; i++)
+         {
+            if (i % 3 == 0)
+            {
+               values[i] += 1e-6 * random.nextGaussian();
+               data[t].putLong(Double.doubleToLongBits(values[i]));
+            }
+            else if (i % 3 == 1)
+            {
+               data[t].putLong(random.nextInt(100) == 0 ? 1 : 0);
+            }
+            else
+            {
+               data[t].putLong(random.nextLong());
+            }
+         }
+         data[t].flip();
+      }
+      return data;
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRoundTrip()
+   {
+      Random random = new Random(9812375l);
+      int variables = 500;
+      ByteBuffer[] ticks = createTicks(random, 250, variables);
+
+      XORCompressionImplementation compressor = new XORCompressionImplementation(10);
+      XORCompressionImplementation decompressor = new XORCompressionImplementation(10);
+      ByteBuffer compressed = ByteBuffer.allocate(compressor.maxCompressedLength(variables * 8));
+      ByteBuffer decompressed = ByteBuffer.allocate(variables * 8);
+
+      for (int t = 0; t < ticks.length; t++)
+      {
+         assertEquals(t % 10 == 0, compressor.isNextTickKeyframe());
+
+         compressed.clear();
+         int size = compressor.compress(ticks[t], compressed);
+         assertEquals(size, compressed.position());
+         compressed.flip();
+
+         decompressed.clear();
+         decompressor.decompress(compressed, decompressed, variables * 8);
+         decompressed.flip();
+
+         ticks[t].rewind();
+         assertEquals(ticks[t], decompressed);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRecoveryAfterLostTick()
+   {
+      Random random = new Random(1238975l);
+      int variables = 100;
+      ByteBuffer[] ticks = createTicks(random, 30, variables);
+
+      XORCompressionImplementation compressor = new XORCompressionImplementation(10);
+      XORCompressionImplementation decompressor = new XORCompressionImplementation(10);
+      ByteBuffer compressed = ByteBuffer.allocate(compressor.maxCompressedLength(variables * 8));
+      ByteBuffer decompressed = ByteBuffer.allocate(variables * 8);
+
+      for (int t = 0; t < ticks.length; t++)
+      {
+         compressed.clear();
+         compressor.compress(ticks[t], compressed);
+         compressed.flip();
+
+         if (t == 5)
+         {
+            // Lose a tick
+            decompressor.reset();
+            continue;
+         }
+
+         decompressed.clear();
+         if (t > 5 && t < 10)
+         {
+            try
+            {
+               decompressor.decompress(compressed, decompressed, variables * 8);
+               fail("Decompressed a delta tick without reference");
+            }
+            catch (IllegalStateException e)
+            {
+               continue;
+            }
+         }
+
+         decompressor.decompress(compressed, decompressed, variables * 8);
+         decompressed.flip();
+         ticks[t].rewind();
+         assertEquals(ticks[t], decompressed);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testLength()
+   {
+      XORCompressionImplementation impl = new XORCompressionImplementation();
+
+      Random random = new Random(12597651l);
+      for (int i = 0; i < 1000; i++)
+      {
+         int test = random.nextInt(65000);
+         int max = impl.maxCompressedLength(test);
+         int min = impl.minimumDecompressedLength(max);
+
+         assertTrue("Got: " + min + ", expected " + test + " or " + test + "-1", test == min || (test - 1) == min);
+      }
+   }
+}
@@ -45,7 +45,8 @@ public class LogFileCompressor extends YoVariableLogReader
 
    public LogFileCompressor(File logDirectory, File targetDirectory, LogProperties logProperties, ProgressMonitorInterface progressMonitor) throws IOException
    {
-      super(logDirectory, logProperties);
+      // Single pass over the log, the mapped files are read without caching the decompressed ticks.
+      super(logDirectory, logProperties, true, 0);
       this.targetDirectory = targetDirectory;
 
       initialize();
@@ -34,7 +34,8 @@ public class YoVariableExporter extends YoVariableLogReader
 
    public YoVariableExporter(SimulationConstructionSet scs, File logDirectory, LogProperties logProperties, List<YoVariable<?>> variables)
    {
-      super(logDirectory, logProperties);
+      // Single pass over the log, the mapped files are read without caching the decompressed ticks.
+      super(logDirectory, logProperties, true, 0);
       this.gui = scs.getGUI();
       this.variables = variables;
    }
@@ -20,7 +20,8 @@ public class YoVariableLogCropper extends YoVariableLogReader
 
    public YoVariableLogCropper(MultiVideoDataPlayer player, File logDirectory, LogProperties logProperties)
    {
-      super(logDirectory, logProperties);
+      // Single pass over the log, the mapped files are read without caching the decompressed ticks.
+      super(logDirectory, logProperties, true, 0);
       this.player = player;
       
       
@@ -10,9 +10,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import us.ihmc.commons.Conversions;
-import us.ihmc.robotDataLogger.LogIndex;
+import us.ihmc.robotDataLogger.LogProperties;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
 import us.ihmc.robotDataVisualizer.VisualizerRobot;
 import us.ihmc.robotDataVisualizer.visualizer.JointUpdater;
 import us.ihmc.yoVariables.listener.RewoundListener;
@@ -23,10 +24,11 @@ import us.ihmc.yoVariables.variable.YoLong;
 import us.ihmc.yoVariables.variable.YoVariable;
 import us.ihmc.robotics.robotDescription.RobotDescription;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
-import us.ihmc.tools.compression.SnappyUtils;
 
 public class YoVariableLogPlaybackRobot extends VisualizerRobot implements RewoundListener
 {
+   /** Number of decompressed ticks kept in memory, such that scrubbing back and forth does not decompress them again. */
+   private static final int DECOMPRESSED_TICK_CACHE_SIZE = 512;
 
    private final SimulationConstructionSet scs;
    private final YoLong timestamp;
@@ -36,8 +38,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
 
    // Compressed data helpers
    private final boolean compressed;
-   private final LogIndex logIndex;
-   private final ByteBuffer compressedBuffer;
+   private final CompressedLogReader compressedLogReader;
    private int index = 0;
 
    private final List<JointState> jointStates;
@@ -80,25 +81,23 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       {
          throw new RuntimeException("Cannot find " + logProperties.getVariables().getDataAsString());
       }
-      this.logChannel = new FileInputStream(logdata).getChannel();
 
       this.compressed = logProperties.getVariables().getCompressed();
       if (this.compressed)
       {
-         File indexData = new File(selectedFile, logProperties.getVariables().getIndexAsString());
-         if (!indexData.exists())
+         compressedLogReader = new CompressedLogReader(selectedFile, logProperties);
+         if (compressedLogReader.getNumberOfVariables() * 8 != bufferSize)
          {
-            throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
+            throw new RuntimeException("The log line size does not match the handshake");
          }
-         logIndex = new LogIndex(indexData, logChannel.size());
-         compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
-         numberOfEntries = logIndex.getNumberOfEntries();
+         numberOfEntries = compressedLogReader.getNumberOfEntries();
+         logChannel = null;
       }
       else
       {
+         logChannel = new FileInputStream(logdata).getChannel();
          numberOfEntries = (int) (logChannel.size() / bufferSize) - 1;
-         logIndex = null;
-         compressedBuffer = null;
+         compressedLogReader = null;
       }
 
       JointUpdater.getJointUpdaterList(getRootJoints(), jointStates, jointUpdaters);
@@ -112,7 +111,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       {
       	if(this.compressed)
       	{
-         	initialTimestamp = logIndex.getInitialTimestamp();
+         	initialTimestamp = compressedLogReader.getTimestampOfTick(0);
          	positionChannel(0);
          }
          else
@@ -241,10 +240,6 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       if (compressed)
       {
          index = position;
-         if(index < logIndex.dataOffsets.length)
-         {
-            logChannel.position(logIndex.dataOffsets[position]);
-         }
       }
       else
       {
@@ -259,7 +254,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
          throw new RuntimeException("Cannot get timestamp for non-compressed logs");
       }
 
-      return logIndex.timestamps[position];
+      return compressedLogReader.getTimestampOfTick(position);
    }
 
    private boolean readLogLine() throws IOException
@@ -269,23 +264,12 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
 
       if (compressed)
       {
-         if(index >= logIndex.getNumberOfEntries())
+         if(index >= numberOfEntries)
          {
             return false;
          }
-         int size = logIndex.compressedSizes[index];
-         compressedBuffer.clear();
-         compressedBuffer.limit(size);
-
-         int read = logChannel.read(compressedBuffer);
-
-         if(read != size)
-         {
-            throw new RuntimeException("Expected read of " + size + ", got " + read + ". TODO: Implement loop for reading the full log line.");
-         }
-         compressedBuffer.flip();
 
-         SnappyUtils.uncompress(compressedBuffer, logLine);
+         logLine.put(compressedLogReader.readTick(index));
          ++index;
 
          return true;
@@ -336,5 +320,31 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       listeners.add(listener);
    }
 
+   /**
+    * Memory mapped reader of the compressed log data, with a cache of the recently decompressed ticks.
+    */
+   private static class CompressedLogReader extends YoVariableLogReader
+   {
+      private CompressedLogReader(File logDirectory, LogProperties logProperties)
+      {
+         super(logDirectory, logProperties, true, DECOMPRESSED_TICK_CACHE_SIZE);
+
+         if (!initialize())
+         {
+            throw new RuntimeException("Cannot open log data in " + logDirectory);
+         }
+      }
+
+      private ByteBuffer readTick(int position) throws IOException
+      {
+         return readData(position);
+      }
+
+      private long getTimestampOfTick(int position)
+      {
+         return getTimestamp(position);
+      }
+   }
+
 
 }
@@ -0,0 +1,260 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import us.ihmc.euclid.geometry.BoundingBox3D;
+
+/**
+ * Uniform grid over the XY-bounding boxes of a set of planar regions.
+ * <p>
+ * Each region is registered in every cell its bounding box overlaps, which allows to quickly find
+ * the regions that may intersect a given XY-area. Regions covering more than
+ * {@link #MAXIMUM_NUMBER_OF_CELLS_PER_REGION} cells, such as a large ground plane, are not
+ * registered in the grid but returned by every query.
+ * </p>
+ * <p>
+ * Candidates are always returned in the order the regions were added to the index, such that the
+ * result of a query is the same as when iterating over the regions in order.
+ * </p>
+ */
+class PlanarRegionsGridIndex
+{
+   static final int MAXIMUM_NUMBER_OF_CELLS_PER_REGION = 256;
+
+   private static final Comparator<Entry> sequenceComparator = (entry1, entry2) -> Long.compare(entry1.sequence, entry2.sequence);
+
+   private final double cellSize;
+   private final TLongObjectHashMap<ArrayList<Entry>> cells = new TLongObjectHashMap<>();
+   private final ArrayList<Entry> unboundedEntries = new ArrayList<>();
+   private final IdentityHashMap<PlanarRegion, Entry> entries = new IdentityHashMap<>();
+   private final ArrayList<ArrayList<Entry>> unusedCellLists = new ArrayList<>();
+
+   private final ArrayList<Entry> candidates = new ArrayList<>();
+   private long nextSequence = 0;
+   private int queryStamp = 0;
+
+   PlanarRegionsGridIndex(double cellSize)
+   {
+      if (!(cellSize > 0.0))
+         throw new IllegalArgumentException("The cell size has to be positive, was: " + cellSize);
+      this.cellSize = cellSize;
+   }
+
+   double getCellSize()
+   {
+      return cellSize;
+   }
+
+   /**
+    * Clears the index and registers the given regions in order.
+    */
+   void rebuild(List<PlanarRegion> planarRegions)
+   {
+      clear();
+      for (int i = 0; i < planarRegions.size(); i++)
+         add(planarRegions.get(i));
+   }
+
+   void clear()
+   {
+      cells.forEachValue(cellList ->
+      {
+         cellList.clear();
+         unusedCellLists.add(cellList);
+         return true;
+      });
+      cells.clear();
+      unboundedEntries.clear();
+      entries.clear();
+      nextSequence = 0;
+   }
+
+   /**
+    * Registers the region after all the regions already in this index.
+    */
+   void add(PlanarRegion planarRegion)
+   {
+      Entry entry = new Entry(planarRegion, nextSequence++);
+      entries.put(planarRegion, entry);
+
+      BoundingBox3D boundingBox = planarRegion.getBoundingBox3dInWorld();
+      double minX = boundingBox.getMinX();
+      double minY = boundingBox.getMinY();
+      double maxX = boundingBox.getMaxX();
+      double maxY = boundingBox.getMaxY();
+
+      if (!Double.isFinite(minX) || !Double.isFinite(minY) || !Double.isFinite(maxX) || !Double.isFinite(maxY))
+      {
+         entry.unbounded = true;
+      }
+      else
+      {
+         entry.minXIndex = toCellIndex(minX);
+         entry.minYIndex = toCellIndex(minY);
+         entry.maxXIndex = toCellIndex(maxX);
+         entry.maxYIndex = toCellIndex(maxY);
+         long numberOfCells = ((long) entry.maxXIndex - entry.minXIndex + 1) * ((long) entry.maxYIndex - entry.minYIndex + 1);
+         entry.unbounded = numberOfCells > MAXIMUM_NUMBER_OF_CELLS_PER_REGION;
+      }
+
+      if (entry.unbounded)
+      {
+         unboundedEntries.add(entry);
+         return;
+      }
+
+      for (int xIndex = entry.minXIndex; xIndex <= entry.maxXIndex; xIndex++)
+      {
+         for (int yIndex = entry.minYIndex; yIndex <= entry.maxYIndex; yIndex++)
+         {
+            long key = toCellKey(xIndex, yIndex);
+            ArrayList<Entry> cellList = cells.get(key);
+            if (cellList == null)
+            {
+               cellList = unusedCellLists.isEmpty() ? new ArrayList<>() : unusedCellLists.remove(unusedCellLists.size() - 1);
+               cells.put(key, cellList);
+            }
+            cellList.add(entry);
+         }
+      }
+   }
+
+   /**
+    * Unregisters the region. Does nothing if the region is not in this index.
+    */
+   void remove(PlanarRegion planarRegion)
+   {
+      Entry entry = entries.remove(planarRegion);
+      if (entry == null)
+         return;
+
+      if (entry.unbounded)
+      {
+         unboundedEntries.remove(entry);
+         return;
+      }
+
+      for (int xIndex = entry.minXIndex; xIndex <= entry.maxXIndex; xIndex++)
+      {
+         for (int yIndex = entry.minYIndex; yIndex <= entry.maxYIndex; yIndex++)
+         {
+            long key = toCellKey(xIndex, yIndex);
+            ArrayList<Entry> cellList = cells.get(key);
+            if (cellList == null)
+               continue;
+
+            cellList.remove(entry);
+            if (cellList.isEmpty())
+            {
+               cells.remove(key);
+               unusedCellLists.add(cellList);
+            }
+         }
+      }
+   }
+
+   int getNumberOfPlanarRegions()
+   {
+      return entries.size();
+   }
+
+   /**
+    * Packs the regions which XY-bounding box may overlap the given area. The candidates are packed
+    * in the order the regions were added to this index and each region is packed at most once.
+    *
+    * @param candidatesToPack the list the candidates are added to. Not cleared.
+    */
+   void findCandidates(double minX, double minY, double maxX, double maxY, List<PlanarRegion> candidatesToPack)
+   {
+      candidates.clear();
+      queryStamp++;
+
+      for (int i = 0; i < unboundedEntries.size(); i++)
+         addCandidate(unboundedEntries.get(i));
+
+      int minXIndex = toCellIndex(minX);
+      int minYIndex = toCellIndex(minY);
+      int maxXIndex = toCellIndex(maxX);
+      int maxYIndex = toCellIndex(maxY);
+
+      long numberOfCells = ((long) maxXIndex - minXIndex + 1) * ((long) maxYIndex - minYIndex + 1);
+
+      if (numberOfCells > cells.size())
+      { // The query is larger than the occupied part of the grid, cheaper to go through the occupied cells.
+         cells.forEachEntry((key, cellList) ->
+         {
+            int xIndex = (int) (key >> 32);
+            int yIndex = (int) key;
+            if (xIndex >= minXIndex && xIndex <= maxXIndex && yIndex >= minYIndex && yIndex <= maxYIndex)
+               addCandidates(cellList);
+            return true;
+         });
+      }
+      else
+      {
+         for (int xIndex = minXIndex; xIndex <= maxXIndex; xIndex++)
+         {
+            for (int yIndex = minYIndex; yIndex <= maxYIndex; yIndex++)
+            {
+               ArrayList<Entry> cellList = cells.get(toCellKey(xIndex, yIndex));
+               if (cellList != null)
+                  addCandidates(cellList);
+            }
+         }
+      }
+
+      candidates.sort(sequenceComparator);
+
+      for (int i = 0; i < candidates.size(); i++)
+         candidatesToPack.add(candidates.get(i).planarRegion);
+      candidates.clear();
+   }
+
+   private void addCandidates(ArrayList<Entry> cellList)
+   {
+      for (int i = 0; i < cellList.size(); i++)
+         addCandidate(cellList.get(i));
+   }
+
+   private void addCandidate(Entry entry)
+   {
+      if (entry.queryStamp == queryStamp)
+         return;
+      entry.queryStamp = queryStamp;
+      candidates.add(entry);
+   }
+
+   private int toCellIndex(double coordinate)
+   {
+      double index = Math.floor(coordinate / cellSize);
+      if (index < Integer.MIN_VALUE)
+         return Integer.MIN_VALUE;
+      if (index > Integer.MAX_VALUE)
+         return Integer.MAX_VALUE;
+      return (int) index;
+   }
+
+   private static long toCellKey(int xIndex, int yIndex)
+   {
+      return ((long) xIndex << 32) | (yIndex & 0xFFFFFFFFL);
+   }
+
+   private static class Entry
+   {
+      private final PlanarRegion planarRegion;
+      private final long sequence;
+      private boolean unbounded;
+      private int minXIndex, minYIndex, maxXIndex, maxYIndex;
+      private int queryStamp = -1;
+
+      private Entry(PlanarRegion planarRegion, long sequence)
+      {
+         this.planarRegion = planarRegion;
+         this.sequence = sequence;
+      }
+   }
+}
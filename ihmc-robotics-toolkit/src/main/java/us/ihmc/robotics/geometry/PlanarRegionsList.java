@@ -6,6 +6,7 @@ import java.util.Random;
 
 import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.LineSegment2D;
+import us.ihmc.euclid.geometry.interfaces.BoundingBox2DReadOnly;
 import us.ihmc.euclid.geometry.interfaces.ConvexPolygon2DReadOnly;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple2D.Point2D;
@@ -16,6 +17,9 @@ public class PlanarRegionsList
 {
    private final List<PlanarRegion> regions;
 
+   private PlanarRegionsGridIndex spatialIndex = null;
+   private final ArrayList<PlanarRegion> candidateRegions = new ArrayList<>();
+
    public PlanarRegionsList(PlanarRegion... planarRegions)
    {
       regions = new ArrayList<>();
@@ -30,6 +34,54 @@ public class PlanarRegionsList
       regions = planarRegions;
    }
 
+   /**
+    * Enables a uniform grid index over the XY-bounding boxes of the regions used to narrow down the
+    * regions to test in the queries of this list. The results of the queries are the same with or
+    * without the index, in the same order.
+    * <p>
+    * The index is kept up-to-date by {@link #addPlanarRegion(PlanarRegion)},
+    * {@link #pollPlanarRegion(int)}, {@link #clear()} and {@link #transform(RigidBodyTransform)}.
+    * When the regions are modified by any other mean, for instance through
+    * {@link #getPlanarRegionsAsList()}, {@link #updateSpatialIndex()} has to be called.
+    * </p>
+    * <p>
+    * The index reuses internal buffers, such that the queries of this list cannot be called
+    * concurrently while it is enabled.
+    * </p>
+    *
+    * @param cellSize the size of the grid cells. A good value is about the size of the typical
+    *           query, such as a foot polygon.
+    */
+   public void enableSpatialIndex(double cellSize)
+   {
+      spatialIndex = new PlanarRegionsGridIndex(cellSize);
+      spatialIndex.rebuild(regions);
+   }
+
+   /**
+    * Disables the spatial index, the queries go through all the regions.
+    */
+   public void disableSpatialIndex()
+   {
+      spatialIndex = null;
+   }
+
+   /** Returns whether the spatial index is enabled. */
+   public boolean hasSpatialIndex()
+   {
+      return spatialIndex != null;
+   }
+
+   /**
+    * Rebuilds the spatial index, if enabled, from the current regions. Required after the regions
+    * were modified outside of this list.
+    */
+   public void updateSpatialIndex()
+   {
+      if (spatialIndex != null)
+         spatialIndex.rebuild(regions);
+   }
+
    /**
     * Adds a planar region to this list of planar regions.
     * 
@@ -38,6 +90,8 @@ public class PlanarRegionsList
    public void addPlanarRegion(PlanarRegion region)
    {
       regions.add(region);
+      if (spatialIndex != null)
+         spatialIndex.add(region);
    }
 
    /**
@@ -46,6 +100,8 @@ public class PlanarRegionsList
    public void clear()
    {
       regions.clear();
+      if (spatialIndex != null)
+         spatialIndex.clear();
    }
 
    /**
@@ -59,23 +115,35 @@ public class PlanarRegionsList
     */
    public List<PlanarRegion> findPlanarRegionsIntersectingPolygon(ConvexPolygon2DReadOnly convexPolygon)
    {
-      List<PlanarRegion> containers = null;
+      List<PlanarRegion> containers = new ArrayList<>();
+      findPlanarRegionsIntersectingPolygon(convexPolygon, containers);
+      return containers.isEmpty() ? null : containers;
+   }
 
-      for (int i = 0; i < regions.size(); i++)
+   /**
+    * Find all the planar regions that intersect with the given convex polygon. The algorithm is
+    * equivalent to projecting all the regions onto the XY-plane and then finding the regions
+    * intersecting with the given convex polygon.
+    * 
+    * @param convexPolygon the query.
+    * @param intersectingRegionsToPack the list the intersecting regions are added to. Not cleared.
+    */
+   public void findPlanarRegionsIntersectingPolygon(ConvexPolygon2DReadOnly convexPolygon, List<PlanarRegion> intersectingRegionsToPack)
+   {
+      BoundingBox2DReadOnly boundingBox = convexPolygon.getBoundingBox();
+      List<PlanarRegion> candidates = getCandidateRegions(boundingBox.getMinX(), boundingBox.getMinY(), boundingBox.getMaxX(), boundingBox.getMaxY());
+
+      for (int i = 0; i < candidates.size(); i++)
       {
-         PlanarRegion candidateRegion = regions.get(i);
+         PlanarRegion candidateRegion = candidates.get(i);
          if (candidateRegion.isVertical())
             continue;
 
          if (candidateRegion.isPolygonIntersecting(convexPolygon))
          {
-            if (containers == null)
-               containers = new ArrayList<>();
-            containers.add(candidateRegion);
+            intersectingRegionsToPack.add(candidateRegion);
          }
       }
-
-      return containers;
    }
 
    /**
@@ -88,9 +156,16 @@ public class PlanarRegionsList
     */
    public void findPlanarRegionsIntersectingLineSegment(LineSegment2D lineSegmentInWorld, ArrayList<PlanarRegion> intersectingRegionsToPack)
    {
-      for (int i = 0; i < regions.size(); i++)
+      Point2DReadOnly firstEndpoint = lineSegmentInWorld.getFirstEndpoint();
+      Point2DReadOnly secondEndpoint = lineSegmentInWorld.getSecondEndpoint();
+      List<PlanarRegion> candidates = getCandidateRegions(Math.min(firstEndpoint.getX(), secondEndpoint.getX()),
+                                                          Math.min(firstEndpoint.getY(), secondEndpoint.getY()),
+                                                          Math.max(firstEndpoint.getX(), secondEndpoint.getX()),
+                                                          Math.max(firstEndpoint.getY(), secondEndpoint.getY()));
+
+      for (int i = 0; i < candidates.size(); i++)
       {
-         PlanarRegion candidateRegion = regions.get(i);
+         PlanarRegion candidateRegion = candidates.get(i);
          if (isLineSegmentObviouslyOutsideBoundingBox(candidateRegion, lineSegmentInWorld))
             continue;
 
@@ -147,20 +222,33 @@ public class PlanarRegionsList
     */
    public List<PlanarRegion> findPlanarRegionsContainingPoint(Point3DReadOnly point, double maximumOrthogonalDistance)
    {
-      List<PlanarRegion> containers = null;
+      List<PlanarRegion> containers = new ArrayList<>();
+      findPlanarRegionsContainingPoint(point, maximumOrthogonalDistance, containers);
+      return containers.isEmpty() ? null : containers;
+   }
 
-      for (int i = 0; i < regions.size(); i++)
+   /**
+    * Find all the planar regions that contain the given point.
+    * 
+    * @param point the query coordinates.
+    * @param maximumOrthogonalDistance tolerance expressed as maximum orthogonal distance from the
+    *           region.
+    * @param containersToPack the list the regions containing the query are added to. Not cleared.
+    */
+   public void findPlanarRegionsContainingPoint(Point3DReadOnly point, double maximumOrthogonalDistance, List<PlanarRegion> containersToPack)
+   {
+      double tolerance = Math.abs(maximumOrthogonalDistance);
+      List<PlanarRegion> candidates = getCandidateRegions(point.getX() - tolerance, point.getY() - tolerance, point.getX() + tolerance,
+                                                          point.getY() + tolerance);
+
+      for (int i = 0; i < candidates.size(); i++)
       {
-         PlanarRegion candidateRegion = regions.get(i);
+         PlanarRegion candidateRegion = candidates.get(i);
          if (candidateRegion.isPointInside(point, maximumOrthogonalDistance))
          {
-            if (containers == null)
-               containers = new ArrayList<>();
-            containers.add(candidateRegion);
+            containersToPack.add(candidateRegion);
          }
       }
-
-      return containers;
    }
 
    /**
@@ -189,20 +277,32 @@ public class PlanarRegionsList
     */
    public List<PlanarRegion> findPlanarRegionsContainingPointByProjectionOntoXYPlane(double x, double y)
    {
-      List<PlanarRegion> containers = null;
+      List<PlanarRegion> containers = new ArrayList<>();
+      findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y, containers);
+      return containers.isEmpty() ? null : containers;
+   }
 
-      for (int i = 0; i < regions.size(); i++)
+   /**
+    * Find all the planar regions that contain the given point. The algorithm is equivalent to
+    * projecting all the regions onto the XY-plane and then finding the regions containing the
+    * point.
+    * 
+    * @param x the query x-coordinate.
+    * @param y the query y-coordinate.
+    * @param containersToPack the list the regions containing the query are added to. Not cleared.
+    */
+   public void findPlanarRegionsContainingPointByProjectionOntoXYPlane(double x, double y, List<PlanarRegion> containersToPack)
+   {
+      List<PlanarRegion> candidates = getCandidateRegions(x, y, x, y);
+
+      for (int i = 0; i < candidates.size(); i++)
       {
-         PlanarRegion candidateRegion = regions.get(i);
+         PlanarRegion candidateRegion = candidates.get(i);
          if (candidateRegion.isPointInsideByProjectionOntoXYPlane(x, y))
          {
-            if (containers == null)
-               containers = new ArrayList<>();
-            containers.add(candidateRegion);
+            containersToPack.add(candidateRegion);
          }
       }
-
-      return containers;
    }
 
    /**
@@ -228,13 +328,29 @@ public class PlanarRegionsList
    public PlanarRegion findClosestPlanarRegionToPointByProjectionOntoXYPlane(double x, double y)
    {
       double shortestDistanceToPoint = Double.POSITIVE_INFINITY;
+
+      if (spatialIndex != null)
+      { // Upper bound on the distance given by the regions around the query, used to skip the regions that are obviously further.
+         List<PlanarRegion> candidates = getCandidateRegions(x, y, x, y);
+         for (int i = 0; i < candidates.size(); i++)
+         {
+            double distanceToRegion = candidates.get(i).distanceToPointByProjectionOntoXYPlane(x, y);
+            if (distanceToRegion < shortestDistanceToPoint)
+               shortestDistanceToPoint = distanceToRegion;
+         }
+      }
+
+      boolean hasUpperBound = shortestDistanceToPoint < Double.POSITIVE_INFINITY;
       PlanarRegion closestRegion = null;
 
       for (int i = 0; i < regions.size(); i++)
       {
          PlanarRegion candidateRegion = regions.get(i);
+         if (spatialIndex != null && distanceToBoundingBoxXY(candidateRegion, x, y) > shortestDistanceToPoint)
+            continue;
+
          double distanceToRegion = candidateRegion.distanceToPointByProjectionOntoXYPlane(x, y);
-         if (distanceToRegion < shortestDistanceToPoint)
+         if (distanceToRegion < shortestDistanceToPoint || (hasUpperBound && closestRegion == null && distanceToRegion == shortestDistanceToPoint))
          {
             shortestDistanceToPoint = distanceToRegion;
             closestRegion = candidateRegion;
@@ -244,6 +360,24 @@ public class PlanarRegionsList
       return closestRegion;
    }
 
+   private static double distanceToBoundingBoxXY(PlanarRegion planarRegion, double x, double y)
+   {
+      BoundingBox3D boundingBox = planarRegion.getBoundingBox3dInWorld();
+      double dx = Math.max(0.0, Math.max(boundingBox.getMinX() - x, x - boundingBox.getMaxX()));
+      double dy = Math.max(0.0, Math.max(boundingBox.getMinY() - y, y - boundingBox.getMaxY()));
+      return Math.sqrt(dx * dx + dy * dy);
+   }
+
+   private List<PlanarRegion> getCandidateRegions(double minX, double minY, double maxX, double maxY)
+   {
+      if (spatialIndex == null)
+         return regions;
+
+      candidateRegions.clear();
+      spatialIndex.findCandidates(minX, minY, maxX, maxY, candidateRegions);
+      return candidateRegions;
+   }
+
    /** Returns true if this list of planar regions is empty (contains no planar regions). */
    public boolean isEmpty()
    {
@@ -283,7 +417,10 @@ public class PlanarRegionsList
    /** Retrieves the i<sup>th</sup> planar region of this list and removes it from this list. */
    public PlanarRegion pollPlanarRegion(int index)
    {
-      return regions.remove(index);
+      PlanarRegion polledRegion = regions.remove(index);
+      if (spatialIndex != null)
+         spatialIndex.remove(polledRegion);
+      return polledRegion;
    }
 
    /**
@@ -309,7 +446,10 @@ public class PlanarRegionsList
       for (int i = 0; i < getNumberOfPlanarRegions(); i++)
          planarRegionsCopy.add(regions.get(i).copy());
 
-      return new PlanarRegionsList(planarRegionsCopy);
+      PlanarRegionsList copy = new PlanarRegionsList(planarRegionsCopy);
+      if (spatialIndex != null)
+         copy.enableSpatialIndex(spatialIndex.getCellSize());
+      return copy;
    }
 
    /**
@@ -323,6 +463,8 @@ public class PlanarRegionsList
       {
          regions.get(i).transform(rigidBodyTransform);
       }
+
+      updateSpatialIndex();
    }
 
    public static PlanarRegionsList generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(Random random, int numberOfRandomlyGeneratedPolygons,
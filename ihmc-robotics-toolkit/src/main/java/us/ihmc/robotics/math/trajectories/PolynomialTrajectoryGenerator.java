@@ -100,4 +100,9 @@ public abstract class PolynomialTrajectoryGenerator implements DoubleTrajectoryG
    {
       return currentAcceleration.getDoubleValue();
    }
+
+   public YoPolynomial getPolynomial()
+   {
+      return polynomial;
+   }
 }
@@ -13,6 +13,7 @@ import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.referenceFrame.exceptions.ReferenceFrameMismatchException;
 import us.ihmc.euclid.referenceFrame.interfaces.FrameTuple3DBasics;
 import us.ihmc.euclid.referenceFrame.interfaces.ReferenceFrameHolder;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 
 public class YoFrameTrajectory3D extends YoTrajectory3D implements ReferenceFrameHolder
@@ -523,6 +524,31 @@ public class YoFrameTrajectory3D extends YoTrajectory3D implements ReferenceFram
       getYoTrajectory(axis).setDirectly(coefficients);
    }
 
+   /**
+    * Evaluates the trajectories at each of the given times, the outputs are expressed in the frame
+    * of this trajectory. See
+    * {@link YoTrajectory3D#compute(double[], Tuple3DBasics[], Tuple3DBasics[], Tuple3DBasics[])}.
+    *
+    * @param times the times at which the trajectories are to be evaluated. Not modified.
+    * @param positionsToPack the positions, can be {@code null}. Modified.
+    * @param velocitiesToPack the velocities, can be {@code null}. Modified.
+    * @param accelerationsToPack the accelerations, can be {@code null}. Modified.
+    */
+   public void compute(double[] times, FramePoint3D[] positionsToPack, FrameVector3D[] velocitiesToPack, FrameVector3D[] accelerationsToPack)
+   {
+      for (int i = 0; i < times.length; i++)
+      {
+         if (positionsToPack != null)
+            positionsToPack[i].setToZero(referenceFrame);
+         if (velocitiesToPack != null)
+            velocitiesToPack[i].setToZero(referenceFrame);
+         if (accelerationsToPack != null)
+            accelerationsToPack[i].setToZero(referenceFrame);
+      }
+
+      super.compute(times, positionsToPack, velocitiesToPack, accelerationsToPack);
+   }
+
    public FramePoint3D getFramePosition()
    {
       framePosition.setToZero(referenceFrame);
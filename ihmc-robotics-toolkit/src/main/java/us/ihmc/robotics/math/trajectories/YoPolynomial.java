@@ -6,6 +6,7 @@ import org.ejml.factory.LinearSolverFactory;
 import org.ejml.interfaces.linsol.LinearSolver;
 
 import us.ihmc.commons.MathTools;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
 import us.ihmc.robotics.dataStructures.PolynomialReadOnly;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 import us.ihmc.yoVariables.variable.YoDouble;
@@ -21,6 +22,9 @@ public class YoPolynomial implements PolynomialReadOnly
    private final DenseMatrix64F constraintVector;
    private final DenseMatrix64F coefficientVector;
    private final double[] xPowers;
+   // Copy of the coefficients used by the batch evaluation, avoids reading the YoDoubles for every sample
+   private final double[] batchCoefficients;
+   private double batchPosition, batchVelocity, batchAcceleration;
 
    // Stores the (n-th order) derivative of the xPowers vector
    private final DenseMatrix64F xPowersDerivativeVector;
@@ -38,6 +42,7 @@ public class YoPolynomial implements PolynomialReadOnly
       constraintVector = new DenseMatrix64F(maximumNumberOfCoefficients, 1);
       coefficientVector = new DenseMatrix64F(maximumNumberOfCoefficients, 1);
       xPowers = new double[maximumNumberOfCoefficients];
+      batchCoefficients = new double[maximumNumberOfCoefficients];
 
       xPowersDerivativeVector = new DenseMatrix64F(maximumNumberOfCoefficients, 1);
 
@@ -62,6 +67,7 @@ public class YoPolynomial implements PolynomialReadOnly
       constraintVector = new DenseMatrix64F(maximumNumberOfCoefficients, 1);
       coefficientVector = new DenseMatrix64F(maximumNumberOfCoefficients, 1);
       xPowers = new double[maximumNumberOfCoefficients];
+      batchCoefficients = new double[maximumNumberOfCoefficients];
 
       xPowersDerivativeVector = new DenseMatrix64F(maximumNumberOfCoefficients, 1);
    }
@@ -152,16 +158,24 @@ public class YoPolynomial implements PolynomialReadOnly
       setYoVariables();
    }
 
+   /**
+    * Solved in closed form: the coefficients are first computed for the polynomial in
+    * {@code (x - t0)} and then expanded.
+    */
    public void setQuintic(double t0, double tFinal, double z0, double zd0, double zdd0, double zf, double zdf, double zddf)
    {
       reshape(6);
-      setPositionRow(0, t0, z0);
-      setVelocityRow(1, t0, zd0);
-      setAccelerationRow(2, t0, zdd0);
-      setPositionRow(3, tFinal, zf);
-      setVelocityRow(4, tFinal, zdf);
-      setAccelerationRow(5, tFinal, zddf);
-      solveForCoefficients();
+      double duration = tFinal - t0;
+      double duration2 = duration * duration;
+      double deltaZ = zf - z0;
+
+      coefficientVector.set(0, 0, z0);
+      coefficientVector.set(1, 0, zd0);
+      coefficientVector.set(2, 0, 0.5 * zdd0);
+      coefficientVector.set(3, 0, (20.0 * deltaZ - (8.0 * zdf + 12.0 * zd0) * duration - (3.0 * zdd0 - zddf) * duration2) / (2.0 * duration2 * duration));
+      coefficientVector.set(4, 0, (-30.0 * deltaZ + (14.0 * zdf + 16.0 * zd0) * duration + (3.0 * zdd0 - 2.0 * zddf) * duration2) / (2.0 * duration2 * duration2));
+      coefficientVector.set(5, 0, (12.0 * deltaZ - 6.0 * (zdf + zd0) * duration + (zddf - zdd0) * duration2) / (2.0 * duration2 * duration2 * duration));
+      shiftCoefficients(t0);
       setYoVariables();
    }
    
@@ -376,23 +390,25 @@ public class YoPolynomial implements PolynomialReadOnly
 
    public void setCubic(double t0, double tFinal, double z0, double zFinal)
    {
-      reshape(4);
-      setPositionRow(0, t0, z0);
-      setVelocityRow(1, t0, 0.0);
-      setPositionRow(2, tFinal, zFinal);
-      setVelocityRow(3, tFinal, 0.0);
-      solveForCoefficients();
-      setYoVariables();
+      setCubic(t0, tFinal, z0, 0.0, zFinal, 0.0);
    }
 
+   /**
+    * Solved in closed form: the coefficients are first computed for the polynomial in
+    * {@code (x - t0)} and then expanded.
+    */
    public void setCubic(double t0, double tFinal, double z0, double zd0, double zFinal, double zdFinal)
    {
       reshape(4);
-      setPositionRow(0, t0, z0);
-      setVelocityRow(1, t0, zd0);
-      setPositionRow(2, tFinal, zFinal);
-      setVelocityRow(3, tFinal, zdFinal);
-      solveForCoefficients();
+      double duration = tFinal - t0;
+      double duration2 = duration * duration;
+      double deltaZ = zFinal - z0;
+
+      coefficientVector.set(0, 0, z0);
+      coefficientVector.set(1, 0, zd0);
+      coefficientVector.set(2, 0, (3.0 * deltaZ - (2.0 * zd0 + zdFinal) * duration) / duration2);
+      coefficientVector.set(3, 0, (-2.0 * deltaZ + (zd0 + zdFinal) * duration) / (duration2 * duration));
+      shiftCoefficients(t0);
       setYoVariables();
    }
 
@@ -561,6 +577,27 @@ public class YoPolynomial implements PolynomialReadOnly
       solver.solve(constraintVector, coefficientVector);
    }
 
+   /**
+    * Changes the coefficient vector from the polynomial in {@code (x - x0)} to the polynomial in
+    * {@code x} by repeated synthetic division (Taylor shift).
+    */
+   private void shiftCoefficients(double x0)
+   {
+      if (x0 == 0.0)
+         return;
+
+      int n = numberOfCoefficients.getIntegerValue();
+      double[] coefficients = coefficientVector.getData();
+
+      for (int i = 0; i < n - 1; i++)
+      {
+         for (int j = n - 2; j >= i; j--)
+         {
+            coefficients[j] -= x0 * coefficients[j + 1];
+         }
+      }
+   }
+
    public void setDirectly(DenseMatrix64F coefficients)
    {
       reshape(coefficients.getNumRows());
@@ -640,6 +677,116 @@ public class YoPolynomial implements PolynomialReadOnly
       }
    }
 
+   /**
+    * Evaluates the polynomial and its first two derivatives at each of the given times.
+    * <p>
+    * The coefficients are read once, and each sample is evaluated with Horner's scheme. The output
+    * arrays have to be at least as long as {@code times}, any of them can be {@code null} if not
+    * needed. {@link #getPosition()}, {@link #getVelocity()}, and {@link #getAcceleration()} are not
+    * modified.
+    * </p>
+    *
+    * @param times the times at which the polynomial is to be evaluated. Not modified.
+    * @param positionsToPack the values of the polynomial. Modified.
+    * @param velocitiesToPack the values of the first derivative. Modified.
+    * @param accelerationsToPack the values of the second derivative. Modified.
+    */
+   public void compute(double[] times, double[] positionsToPack, double[] velocitiesToPack, double[] accelerationsToPack)
+   {
+      compute(times, 0, times.length, 0.0, positionsToPack, velocitiesToPack, accelerationsToPack);
+   }
+
+   /**
+    * Same as {@link #compute(double[], double[], double[], double[])} but only evaluates the
+    * polynomial for the samples in [{@code fromIndex}, {@code toIndex}[, at the times shifted by
+    * {@code -timeOffset}. This is used to evaluate piecewise trajectories where each piece is
+    * expressed in a time starting at {@code timeOffset}.
+    *
+    * @param times the times at which the polynomial is to be evaluated. Not modified.
+    * @param fromIndex the index of the first sample to evaluate, inclusive.
+    * @param toIndex the index of the last sample to evaluate, exclusive.
+    * @param timeOffset the time subtracted from each sample before evaluating the polynomial.
+    * @param positionsToPack the values of the polynomial. Modified.
+    * @param velocitiesToPack the values of the first derivative. Modified.
+    * @param accelerationsToPack the values of the second derivative. Modified.
+    */
+   public void compute(double[] times, int fromIndex, int toIndex, double timeOffset, double[] positionsToPack, double[] velocitiesToPack,
+                       double[] accelerationsToPack)
+   {
+      updateBatchCoefficients();
+
+      for (int i = fromIndex; i < toIndex; i++)
+      {
+         computeBatchSample(times[i] - timeOffset);
+
+         if (positionsToPack != null)
+            positionsToPack[i] = batchPosition;
+         if (velocitiesToPack != null)
+            velocitiesToPack[i] = batchVelocity;
+         if (accelerationsToPack != null)
+            accelerationsToPack[i] = batchAcceleration;
+      }
+   }
+
+   /**
+    * Same as {@link #compute(double[], int, int, double, double[], double[], double[])} but only
+    * packs the {@code index}-th element of the tuples, used for the batch evaluation of 3D
+    * polynomials.
+    */
+   public void compute(double[] times, int fromIndex, int toIndex, double timeOffset, int index, Tuple3DBasics[] positionsToPack,
+                       Tuple3DBasics[] velocitiesToPack, Tuple3DBasics[] accelerationsToPack)
+   {
+      updateBatchCoefficients();
+
+      for (int i = fromIndex; i < toIndex; i++)
+      {
+         computeBatchSample(times[i] - timeOffset);
+
+         if (positionsToPack != null)
+            positionsToPack[i].setElement(index, batchPosition);
+         if (velocitiesToPack != null)
+            velocitiesToPack[i].setElement(index, batchVelocity);
+         if (accelerationsToPack != null)
+            accelerationsToPack[i].setElement(index, batchAcceleration);
+      }
+   }
+
+   private void updateBatchCoefficients()
+   {
+      for (int i = 0; i < numberOfCoefficients.getIntegerValue(); i++)
+         batchCoefficients[i] = a[i].getDoubleValue();
+   }
+
+   /**
+    * Horner's scheme carried to the second derivative, {@link #updateBatchCoefficients()} has to be
+    * called first.
+    */
+   private void computeBatchSample(double x)
+   {
+      int n = numberOfCoefficients.getIntegerValue();
+
+      if (n == 0)
+      {
+         batchPosition = batchVelocity = batchAcceleration = 0.0;
+         return;
+      }
+
+      double position = batchCoefficients[n - 1];
+      double velocity = 0.0;
+      double halfAcceleration = 0.0;
+
+      for (int i = n - 2; i >= 0; i--)
+      {
+         halfAcceleration = halfAcceleration * x + velocity;
+         velocity = velocity * x + position;
+         position = position * x + batchCoefficients[i];
+      }
+
+      batchPosition = position;
+      batchVelocity = velocity;
+      batchAcceleration = 2.0 * halfAcceleration;
+   }
+
    public double getIntegral(double from, double to)
    {
       double[] fromPowers = new double[numberOfCoefficients.getIntegerValue() + 1];
@@ -5,6 +5,7 @@ import java.util.List;
 
 import us.ihmc.euclid.Axis;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
 import us.ihmc.euclid.tuple3D.interfaces.Tuple3DReadOnly;
 import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
@@ -215,6 +216,21 @@ public class YoPolynomial3D
       zPolynomial.compute(t);
    }
 
+   /**
+    * Evaluates the polynomials at each of the given times, see
+    * {@link YoPolynomial#compute(double[], double[], double[], double[])}.
+    *
+    * @param times the times at which the polynomials are to be evaluated. Not modified.
+    * @param positionsToPack the positions, can be {@code null}. Modified.
+    * @param velocitiesToPack the velocities, can be {@code null}. Modified.
+    * @param accelerationsToPack the accelerations, can be {@code null}. Modified.
+    */
+   public void compute(double[] times, Tuple3DBasics[] positionsToPack, Tuple3DBasics[] velocitiesToPack, Tuple3DBasics[] accelerationsToPack)
+   {
+      for (int index = 0; index < 3; index++)
+         getYoPolynomial(index).compute(times, 0, times.length, 0.0, index, positionsToPack, velocitiesToPack, accelerationsToPack);
+   }
+
    public Point3DReadOnly getPosition()
    {
       return position;
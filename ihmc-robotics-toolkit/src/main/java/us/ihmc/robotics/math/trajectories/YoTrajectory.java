@@ -383,6 +383,14 @@ public class YoTrajectory
       polynomial.compute(x);
    } 
 
+   /**
+    * See {@link YoPolynomial#compute(double[], double[], double[], double[])}.
+    */
+   public void compute(double[] times, double[] positionsToPack, double[] velocitiesToPack, double[] accelerationsToPack)
+   {
+      polynomial.compute(times, positionsToPack, velocitiesToPack, accelerationsToPack);
+   }
+
    public double getIntegral(double from, double to)
    {
       //if (from < tInitial.getDoubleValue() || to > tFinal.getDoubleValue())
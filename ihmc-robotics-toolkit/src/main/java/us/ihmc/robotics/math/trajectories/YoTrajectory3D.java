@@ -212,6 +212,21 @@ public class YoTrajectory3D
       zTrajectory.compute(t);
    }
 
+   /**
+    * Evaluates the trajectories at each of the given times, see
+    * {@link YoPolynomial#compute(double[], double[], double[], double[])}.
+    *
+    * @param times the times at which the trajectories are to be evaluated. Not modified.
+    * @param positionsToPack the positions, can be {@code null}. Modified.
+    * @param velocitiesToPack the velocities, can be {@code null}. Modified.
+    * @param accelerationsToPack the accelerations, can be {@code null}. Modified.
+    */
+   public void compute(double[] times, Tuple3DBasics[] positionsToPack, Tuple3DBasics[] velocitiesToPack, Tuple3DBasics[] accelerationsToPack)
+   {
+      for (int index = 0; index < 3; index++)
+         getYoTrajectory(index).getPolynomial().compute(times, 0, times.length, 0.0, index, positionsToPack, velocitiesToPack, accelerationsToPack);
+   }
+
    public Point3DReadOnly getPosition()
    {
       return position;
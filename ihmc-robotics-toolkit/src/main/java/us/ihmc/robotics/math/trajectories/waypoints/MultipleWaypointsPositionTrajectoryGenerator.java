@@ -264,6 +264,92 @@ public class MultipleWaypointsPositionTrajectoryGenerator extends PositionTrajec
       subTrajectory.compute(subTrajectoryTime);
    }
 
+   /**
+    * Evaluates the trajectory at each of the given times, e.g. for previews or visualization.
+    * <p>
+    * The times are best given in increasing order: the consecutive times that fall in the same
+    * sub-trajectory are evaluated in one pass over its polynomial, such that each sub-trajectory is
+    * initialized only once. The output arrays have to be at least as long as {@code times}, any of
+    * them can be {@code null} if not needed. Once done, the trajectory is computed again at the
+    * current trajectory time such that its state is the same as before this call.
+    * </p>
+    *
+    * @param times the times at which the trajectory is to be evaluated. Not modified.
+    * @param positionsToPack the positions. Modified.
+    * @param velocitiesToPack the velocities. Modified.
+    * @param accelerationsToPack the accelerations. Modified.
+    */
+   public void compute(double[] times, FramePoint3D[] positionsToPack, FrameVector3D[] velocitiesToPack, FrameVector3D[] accelerationsToPack)
+   {
+      double currentTime = currentTrajectoryTime.getDoubleValue();
+
+      int i = 0;
+
+      while (i < times.length)
+      {
+         // Selects the sub-trajectory and handles the times that are outside of the waypoints.
+         compute(times[i]);
+
+         if (positionsToPack != null)
+            getPosition(positionsToPack[i]);
+         if (velocitiesToPack != null)
+            getVelocity(velocitiesToPack[i]);
+         if (accelerationsToPack != null)
+            getAcceleration(accelerationsToPack[i]);
+
+         int toIndex = findEndOfSubTrajectorySamples(times, i + 1);
+         ReferenceFrame subTrajectoryFrame = subTrajectory.getInitialPosition().getReferenceFrame();
+
+         for (int j = i + 1; j < toIndex; j++)
+         {
+            if (positionsToPack != null)
+               positionsToPack[j].setToZero(subTrajectoryFrame);
+            if (velocitiesToPack != null)
+               velocitiesToPack[j].setToZero(subTrajectoryFrame);
+            if (accelerationsToPack != null)
+               accelerationsToPack[j].setToZero(subTrajectoryFrame);
+         }
+
+         double subTrajectoryStartTime = waypoints.get(currentWaypointIndex.getIntegerValue()).getTime();
+         subTrajectory.getXPolynomial().compute(times, i + 1, toIndex, subTrajectoryStartTime, 0, positionsToPack, velocitiesToPack, accelerationsToPack);
+         subTrajectory.getYPolynomial().compute(times, i + 1, toIndex, subTrajectoryStartTime, 1, positionsToPack, velocitiesToPack, accelerationsToPack);
+         subTrajectory.getZPolynomial().compute(times, i + 1, toIndex, subTrajectoryStartTime, 2, positionsToPack, velocitiesToPack, accelerationsToPack);
+         i = Math.max(toIndex, i + 1);
+      }
+
+      compute(currentTime);
+   }
+
+   /**
+    * Finds the end, exclusive, of the range of consecutive times starting at {@code fromIndex} that
+    * fall in the current sub-trajectory and in between its waypoints.
+    */
+   private int findEndOfSubTrajectorySamples(double[] times, int fromIndex)
+   {
+      if (numberOfWaypoints.getIntegerValue() < 2)
+         return fromIndex;
+
+      int waypointIndex = currentWaypointIndex.getIntegerValue();
+      double startTime = waypoints.get(waypointIndex).getTime();
+      double endTime = waypoints.get(waypointIndex + 1).getTime();
+      boolean isLastSubTrajectory = waypointIndex >= numberOfWaypoints.getIntegerValue() - 2;
+
+      if (endTime <= startTime)
+         return fromIndex;
+
+      int toIndex = fromIndex;
+
+      while (toIndex < times.length)
+      {
+         double time = times[toIndex];
+         if (time < startTime || time > endTime || (time == endTime && !isLastSubTrajectory))
+            break;
+         toIndex++;
+      }
+
+      return toIndex;
+   }
+
    @Override
    public boolean isDone()
    {
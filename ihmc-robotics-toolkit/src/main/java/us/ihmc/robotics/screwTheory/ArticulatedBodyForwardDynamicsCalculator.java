@@ -0,0 +1,545 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+
+/**
+ * Computes the joint accelerations resulting from the joint torques, the joint velocities, the
+ * gravity, and the external wrenches, using the articulated-body algorithm as described in
+ * Featherstone - Rigid Body Dynamics Algorithms (2008), chapter 7.
+ * <p>
+ * The computation is O(n) in the number of rigid-bodies: the mass matrix is neither formed nor
+ * inverted. The multi-body system is flattened at construction the same way as in
+ * {@link FlattenedInverseDynamicsCalculator}, and all the spatial quantities are expressed in the
+ * root frame, such that the articulated-body inertias can be accumulated from child to parent
+ * without any frame change.
+ * </p>
+ * <p>
+ * Only the joints with one degree of freedom and the floating joints are supported. The torque of
+ * a floating joint is given by {@link FloatingInverseDynamicsJoint#getWrench(Wrench)}.
+ * </p>
+ */
+public class ArticulatedBodyForwardDynamicsCalculator
+{
+   private static final int SIZE = 6;
+   private static final int MATRIX_SIZE = SIZE * SIZE;
+
+   private final RigidBody rootBody;
+   private final ReferenceFrame inertialFrame;
+   private final SpatialAccelerationVector rootAcceleration = new SpatialAccelerationVector();
+
+   /** The rigid-bodies ordered such that a parent always comes first, the root body is at index 0. */
+   private final RigidBody[] bodies;
+   private final InverseDynamicsJoint[] jointsInOrder;
+   private final OneDoFJoint[] parentOneDoFJoints;
+   private final FloatingInverseDynamicsJoint[] parentFloatingJoints;
+   private final int[] parentIndices;
+   private final int[] degreesOfFreedom;
+   private final int[] jointAccelerationIndices;
+   private final Map<RigidBody, Integer> bodyIndices = new HashMap<>();
+
+   /** Motion subspace of each joint, expressed in its frame after joint, stored column by column. */
+   private final double[] localMotionSubspaces;
+   /** Same as {@link #localMotionSubspaces} but expressed in the root frame. */
+   private final double[] motionSubspaces;
+   private final double[] twists;
+   private final double[] biasAccelerations;
+   private final double[] accelerations;
+   /** The articulated-body inertias, 6-by-6 row-major matrices. */
+   private final double[] articulatedInertias;
+   private final double[] biasForces;
+   /** U = I<sup>A</sup> * S, stored column by column. */
+   private final double[] U;
+   /** U * D<sup>-1</sup> with D = S<sup>T</sup> * U, stored column by column. */
+   private final double[] UTimesInverseD;
+   /** D<sup>-1</sup> * (tau - S<sup>T</sup> * p<sup>A</sup>) */
+   private final double[] inverseDTimesU;
+   private final double[] jointVelocities;
+   private final double[] jointTorques;
+   private final DenseMatrix64F jointAccelerations;
+
+   private final Wrench[] externalWrenches;
+   private final boolean[] hasExternalWrench;
+
+   private final double[] rotation = new double[9];
+   private final double[] translation = new double[3];
+   private final double[] localMotion = new double[SIZE];
+   private final double[] jointTwist = new double[SIZE];
+   private final double[] momentum = new double[SIZE];
+   private final double[] wrench = new double[SIZE];
+   private final double[] articulatedInertiaOfChild = new double[MATRIX_SIZE];
+   private final double[] D = new double[MATRIX_SIZE];
+   private final double[] inverseD = new double[MATRIX_SIZE];
+   private final double[] u = new double[SIZE];
+   private final DenseMatrix64F floatingJointVelocity = new DenseMatrix64F(SIZE, 1);
+
+   private final Twist tempTwist = new Twist();
+   private final Wrench tempWrench = new Wrench();
+
+   public ArticulatedBodyForwardDynamicsCalculator(RigidBody body, double gravity)
+   {
+      this(body, ScrewTools.createGravitationalSpatialAcceleration(ScrewTools.getRootBody(body), gravity));
+   }
+
+   public ArticulatedBodyForwardDynamicsCalculator(RigidBody body, SpatialAccelerationVector rootAcceleration)
+   {
+      this.rootBody = ScrewTools.getRootBody(body);
+      this.inertialFrame = rootAcceleration.getBaseFrame();
+
+      List<RigidBody> bodyList = new ArrayList<>();
+      List<Integer> parentIndexList = new ArrayList<>();
+      bodyList.add(rootBody);
+      parentIndexList.add(-1);
+
+      for (int parentIndex = 0; parentIndex < bodyList.size(); parentIndex++)
+      {
+         RigidBody currentBody = bodyList.get(parentIndex);
+
+         if (!currentBody.hasChildrenJoints())
+            continue;
+
+         for (InverseDynamicsJoint joint : currentBody.getChildrenJoints())
+         {
+            RigidBody successor = joint.getSuccessor();
+            if (successor == null)
+               continue;
+            if (bodyList.contains(successor))
+               throw new RuntimeException("This algorithm doesn't do loops.");
+            if (!(joint instanceof OneDoFJoint) && !(joint instanceof FloatingInverseDynamicsJoint))
+               throw new RuntimeException("Joint type not supported: " + joint.getClass().getSimpleName());
+            if (!successor.getInertia().isCrossPartZero())
+               throw new RuntimeException("The body-fixed frame of " + successor.getName() + " is not centered at its center of mass.");
+
+            bodyList.add(successor);
+            parentIndexList.add(parentIndex);
+         }
+      }
+
+      int numberOfBodies = bodyList.size();
+      bodies = bodyList.toArray(new RigidBody[numberOfBodies]);
+      jointsInOrder = new InverseDynamicsJoint[numberOfBodies - 1];
+      parentOneDoFJoints = new OneDoFJoint[numberOfBodies];
+      parentFloatingJoints = new FloatingInverseDynamicsJoint[numberOfBodies];
+      parentIndices = new int[numberOfBodies];
+      degreesOfFreedom = new int[numberOfBodies];
+      jointAccelerationIndices = new int[numberOfBodies];
+      localMotionSubspaces = new double[MATRIX_SIZE * numberOfBodies];
+      motionSubspaces = new double[MATRIX_SIZE * numberOfBodies];
+      twists = new double[SIZE * numberOfBodies];
+      biasAccelerations = new double[SIZE * numberOfBodies];
+      accelerations = new double[SIZE * numberOfBodies];
+      articulatedInertias = new double[MATRIX_SIZE * numberOfBodies];
+      biasForces = new double[SIZE * numberOfBodies];
+      U = new double[MATRIX_SIZE * numberOfBodies];
+      UTimesInverseD = new double[MATRIX_SIZE * numberOfBodies];
+      inverseDTimesU = new double[SIZE * numberOfBodies];
+      externalWrenches = new Wrench[numberOfBodies];
+      hasExternalWrench = new boolean[numberOfBodies];
+
+      int numberOfDoFs = 0;
+
+      for (int bodyIndex = 0; bodyIndex < numberOfBodies; bodyIndex++)
+      {
+         RigidBody currentBody = bodies[bodyIndex];
+         ReferenceFrame bodyFixedFrame = currentBody.getBodyFixedFrame();
+         bodyIndices.put(currentBody, bodyIndex);
+         parentIndices[bodyIndex] = parentIndexList.get(bodyIndex);
+
+         if (bodyIndex == 0)
+            continue;
+
+         InverseDynamicsJoint parentJoint = currentBody.getParentJoint();
+         jointsInOrder[bodyIndex - 1] = parentJoint;
+         externalWrenches[bodyIndex] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+
+         if (parentJoint instanceof OneDoFJoint)
+            parentOneDoFJoints[bodyIndex] = (OneDoFJoint) parentJoint;
+         else
+            parentFloatingJoints[bodyIndex] = (FloatingInverseDynamicsJoint) parentJoint;
+
+         degreesOfFreedom[bodyIndex] = parentJoint.getDegreesOfFreedom();
+         jointAccelerationIndices[bodyIndex] = numberOfDoFs;
+         numberOfDoFs += degreesOfFreedom[bodyIndex];
+
+         // The motion subspace is constant in the frame after joint.
+         for (int dofIndex = 0; dofIndex < degreesOfFreedom[bodyIndex]; dofIndex++)
+         {
+            parentJoint.getUnitTwist(dofIndex, tempTwist);
+            tempTwist.changeFrame(parentJoint.getFrameAfterJoint());
+            tempTwist.getArray(localMotionSubspaces, MATRIX_SIZE * bodyIndex + SIZE * dofIndex);
+         }
+      }
+
+      jointVelocities = new double[numberOfDoFs];
+      jointTorques = new double[numberOfDoFs];
+      jointAccelerations = new DenseMatrix64F(numberOfDoFs, 1);
+
+      setRootAcceleration(rootAcceleration);
+   }
+
+   public void setRootAcceleration(SpatialAccelerationVector newRootAcceleration)
+   {
+      ReferenceFrame rootBodyFrame = rootBody.getBodyFixedFrame();
+      newRootAcceleration.checkReferenceFramesMatch(rootBodyFrame, inertialFrame, rootBodyFrame);
+      rootAcceleration.set(newRootAcceleration);
+   }
+
+   public void setExternalWrench(RigidBody rigidBody, Wrench externalWrench)
+   {
+      int bodyIndex = bodyIndices.get(rigidBody);
+      externalWrenches[bodyIndex].checkAndSet(externalWrench);
+      hasExternalWrench[bodyIndex] = true;
+   }
+
+   public void getExternalWrench(RigidBody rigidBody, Wrench externalWrenchToPack)
+   {
+      externalWrenchToPack.set(externalWrenches[bodyIndices.get(rigidBody)]);
+   }
+
+   public void reset()
+   {
+      for (int bodyIndex = 1; bodyIndex < bodies.length; bodyIndex++)
+      {
+         if (hasExternalWrench[bodyIndex])
+         {
+            Wrench externalWrench = externalWrenches[bodyIndex];
+            externalWrench.setToZero(externalWrench.getBodyFrame(), externalWrench.getExpressedInFrame());
+            hasExternalWrench[bodyIndex] = false;
+         }
+      }
+   }
+
+   public void compute()
+   {
+      computeVelocitiesAndBiasForces();
+      computeArticulatedBodyInertias();
+      computeAccelerations();
+   }
+
+   /**
+    * First pass, from the root to the leaves: twists, velocity-product accelerations, rigid-body
+    * inertias, and bias forces.
+    */
+   private void computeVelocitiesAndBiasForces()
+   {
+      for (int bodyIndex = 1; bodyIndex < bodies.length; bodyIndex++)
+      {
+         int offset = SIZE * bodyIndex;
+         int matrixOffset = MATRIX_SIZE * bodyIndex;
+         int parentOffset = SIZE * parentIndices[bodyIndex];
+         int jointIndex = jointAccelerationIndices[bodyIndex];
+         int dofs = degreesOfFreedom[bodyIndex];
+         InverseDynamicsJoint parentJoint = jointsInOrder[bodyIndex - 1];
+         OneDoFJoint parentOneDoFJoint = parentOneDoFJoints[bodyIndex];
+
+         SpatialVectorArrayTools.packTransformToRoot(parentJoint.getFrameAfterJoint(), rotation, translation);
+
+         for (int dofIndex = 0; dofIndex < dofs; dofIndex++)
+         {
+            int columnOffset = matrixOffset + SIZE * dofIndex;
+            SpatialVectorArrayTools.transformMotion(rotation, translation, localMotionSubspaces, columnOffset, motionSubspaces, columnOffset);
+         }
+
+         if (parentOneDoFJoint != null)
+         {
+            jointVelocities[jointIndex] = parentOneDoFJoint.getQd();
+         }
+         else
+         {
+            parentJoint.getVelocityMatrix(floatingJointVelocity, 0);
+            for (int dofIndex = 0; dofIndex < dofs; dofIndex++)
+               jointVelocities[jointIndex + dofIndex] = floatingJointVelocity.get(dofIndex, 0);
+         }
+
+         multiplySubspace(motionSubspaces, matrixOffset, dofs, jointVelocities, jointIndex, jointTwist, 0);
+
+         for (int i = 0; i < SIZE; i++)
+         {
+            twists[offset + i] = twists[parentOffset + i] + jointTwist[i];
+            biasAccelerations[offset + i] = 0.0;
+            biasForces[offset + i] = 0.0;
+         }
+
+         SpatialVectorArrayTools.addCrossMotion(twists, offset, jointTwist, 0, biasAccelerations, offset);
+
+         RigidBody body = bodies[bodyIndex];
+         RigidBodyInertia inertia = body.getInertia();
+         SpatialVectorArrayTools.packTransformToRoot(body.getBodyFixedFrame(), rotation, translation);
+         SpatialVectorArrayTools.packSpatialInertia(inertia.getMass(), inertia.massMomentOfInertiaPart, rotation, translation, articulatedInertias,
+                                                    matrixOffset);
+
+         // p = v x* I * v - f_ext
+         multiply6By6(articulatedInertias, matrixOffset, twists, offset, momentum, 0);
+         SpatialVectorArrayTools.addCrossForce(twists, offset, momentum, 0, biasForces, offset);
+
+         if (hasExternalWrench[bodyIndex])
+         {
+            packWrench(externalWrenches[bodyIndex], localMotion);
+            SpatialVectorArrayTools.transformForce(rotation, translation, localMotion, 0, wrench, 0);
+            for (int i = 0; i < SIZE; i++)
+               biasForces[offset + i] -= wrench[i];
+         }
+
+         if (parentOneDoFJoint != null)
+         {
+            jointTorques[jointIndex] = parentOneDoFJoint.getTau();
+         }
+         else
+         {
+            // The wrench of a floating joint is expressed in the body-fixed frame of its successor.
+            parentFloatingJoints[bodyIndex].getWrench(tempWrench);
+            packWrench(tempWrench, localMotion);
+            SpatialVectorArrayTools.transformForce(rotation, translation, localMotion, 0, wrench, 0);
+            for (int dofIndex = 0; dofIndex < dofs; dofIndex++)
+               jointTorques[jointIndex + dofIndex] = dot(motionSubspaces, matrixOffset + SIZE * dofIndex, wrench, 0);
+         }
+      }
+   }
+
+   /**
+    * Second pass, from the leaves to the root: articulated-body inertias and bias forces.
+    */
+   private void computeArticulatedBodyInertias()
+   {
+      for (int bodyIndex = bodies.length - 1; bodyIndex > 0; bodyIndex--)
+      {
+         int offset = SIZE * bodyIndex;
+         int matrixOffset = MATRIX_SIZE * bodyIndex;
+         int jointIndex = jointAccelerationIndices[bodyIndex];
+         int dofs = degreesOfFreedom[bodyIndex];
+
+         // U = IA * S, D = S^T * U, u = tau - S^T * pA
+         for (int dofIndex = 0; dofIndex < dofs; dofIndex++)
+         {
+            int columnOffset = matrixOffset + SIZE * dofIndex;
+            multiply6By6(articulatedInertias, matrixOffset, motionSubspaces, columnOffset, U, columnOffset);
+            u[dofIndex] = jointTorques[jointIndex + dofIndex] - dot(motionSubspaces, columnOffset, biasForces, offset);
+         }
+
+         for (int row = 0; row < dofs; row++)
+         {
+            for (int column = 0; column < dofs; column++)
+               D[row * dofs + column] = dot(motionSubspaces, matrixOffset + SIZE * row, U, matrixOffset + SIZE * column);
+         }
+
+         invertSymmetricPositiveDefinite(D, dofs, inverseD);
+
+         for (int row = 0; row < dofs; row++)
+         {
+            double value = 0.0;
+            for (int column = 0; column < dofs; column++)
+               value += inverseD[row * dofs + column] * u[column];
+            inverseDTimesU[offset + row] = value;
+         }
+
+         for (int column = 0; column < dofs; column++)
+         {
+            for (int i = 0; i < SIZE; i++)
+            {
+               double value = 0.0;
+               for (int k = 0; k < dofs; k++)
+                  value += U[matrixOffset + SIZE * k + i] * inverseD[k * dofs + column];
+               UTimesInverseD[matrixOffset + SIZE * column + i] = value;
+            }
+         }
+
+         int parentIndex = parentIndices[bodyIndex];
+
+         if (parentIndex == 0)
+            continue;
+
+         // Ia = IA - U * D^-1 * U^T
+         for (int row = 0; row < SIZE; row++)
+         {
+            for (int column = 0; column < SIZE; column++)
+            {
+               double value = articulatedInertias[matrixOffset + SIZE * row + column];
+               for (int k = 0; k < dofs; k++)
+                  value -= UTimesInverseD[matrixOffset + SIZE * k + row] * U[matrixOffset + SIZE * k + column];
+               articulatedInertiaOfChild[SIZE * row + column] = value;
+            }
+         }
+
+         // pa = pA + Ia * c + U * D^-1 * u
+         multiply6By6(articulatedInertiaOfChild, 0, biasAccelerations, offset, wrench, 0);
+         multiplySubspace(U, matrixOffset, dofs, inverseDTimesU, offset, momentum, 0);
+
+         int parentOffset = SIZE * parentIndex;
+         int parentMatrixOffset = MATRIX_SIZE * parentIndex;
+
+         for (int i = 0; i < MATRIX_SIZE; i++)
+            articulatedInertias[parentMatrixOffset + i] += articulatedInertiaOfChild[i];
+         for (int i = 0; i < SIZE; i++)
+            biasForces[parentOffset + i] += biasForces[offset + i] + wrench[i] + momentum[i];
+      }
+   }
+
+   /**
+    * Third pass, from the root to the leaves: joint and body accelerations.
+    */
+   private void computeAccelerations()
+   {
+      SpatialVectorArrayTools.packTransformToRoot(rootBody.getBodyFixedFrame(), rotation, translation);
+      rootAcceleration.getArray(localMotion, 0);
+      SpatialVectorArrayTools.transformMotion(rotation, translation, localMotion, 0, accelerations, 0);
+
+      for (int bodyIndex = 1; bodyIndex < bodies.length; bodyIndex++)
+      {
+         int offset = SIZE * bodyIndex;
+         int matrixOffset = MATRIX_SIZE * bodyIndex;
+         int parentOffset = SIZE * parentIndices[bodyIndex];
+         int jointIndex = jointAccelerationIndices[bodyIndex];
+         int dofs = degreesOfFreedom[bodyIndex];
+
+         // a' = a_parent + c
+         for (int i = 0; i < SIZE; i++)
+            accelerations[offset + i] = accelerations[parentOffset + i] + biasAccelerations[offset + i];
+
+         // qdd = D^-1 * (u - U^T * a') = D^-1 * u - (U * D^-1)^T * a'
+         for (int dofIndex = 0; dofIndex < dofs; dofIndex++)
+         {
+            double qdd = inverseDTimesU[offset + dofIndex] - dot(UTimesInverseD, matrixOffset + SIZE * dofIndex, accelerations, offset);
+            jointAccelerations.set(jointIndex + dofIndex, 0, qdd);
+         }
+
+         // a = a' + S * qdd
+         for (int dofIndex = 0; dofIndex < dofs; dofIndex++)
+         {
+            int columnOffset = matrixOffset + SIZE * dofIndex;
+            double qdd = jointAccelerations.get(jointIndex + dofIndex, 0);
+            for (int i = 0; i < SIZE; i++)
+               accelerations[offset + i] += motionSubspaces[columnOffset + i] * qdd;
+         }
+      }
+   }
+
+   /**
+    * Writes the computed joint accelerations into the desired accelerations of the joints, such that
+    * they can be used by an inverse dynamics calculator.
+    */
+   public void writeComputedJointAccelerations()
+   {
+      ScrewTools.setDesiredAccelerations(jointsInOrder, jointAccelerations);
+   }
+
+   /**
+    * @return the joint accelerations computed by the last call to {@link #compute()}, ordered as
+    *         {@link #getJointsInOrder()}.
+    */
+   public DenseMatrix64F getJointAccelerationMatrix()
+   {
+      return jointAccelerations;
+   }
+
+   public InverseDynamicsJoint[] getJointsInOrder()
+   {
+      return jointsInOrder;
+   }
+
+   public RigidBody getRootBody()
+   {
+      return rootBody;
+   }
+
+   private static void packWrench(Wrench wrench, double[] arrayToPack)
+   {
+      Vector3DReadOnly torque = wrench.getAngularPart();
+      Vector3DReadOnly force = wrench.getLinearPart();
+      arrayToPack[0] = torque.getX();
+      arrayToPack[1] = torque.getY();
+      arrayToPack[2] = torque.getZ();
+      arrayToPack[3] = force.getX();
+      arrayToPack[4] = force.getY();
+      arrayToPack[5] = force.getZ();
+   }
+
+   private static double dot(double[] first, int firstOffset, double[] second, int secondOffset)
+   {
+      double value = 0.0;
+      for (int i = 0; i < SIZE; i++)
+         value += first[firstOffset + i] * second[secondOffset + i];
+      return value;
+   }
+
+   private static void multiply6By6(double[] matrix, int matrixOffset, double[] vector, int vectorOffset, double[] result, int resultOffset)
+   {
+      for (int row = 0; row < SIZE; row++)
+      {
+         double value = 0.0;
+         for (int column = 0; column < SIZE; column++)
+            value += matrix[matrixOffset + SIZE * row + column] * vector[vectorOffset + column];
+         result[resultOffset + row] = value;
+      }
+   }
+
+   /**
+    * result = subspace * vector, where subspace is a 6-by-{@code numberOfColumns} matrix stored column
+    * by column.
+    */
+   private static void multiplySubspace(double[] subspace, int subspaceOffset, int numberOfColumns, double[] vector, int vectorOffset, double[] result,
+                                        int resultOffset)
+   {
+      for (int i = 0; i < SIZE; i++)
+         result[resultOffset + i] = 0.0;
+
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         double scale = vector[vectorOffset + column];
+         for (int i = 0; i < SIZE; i++)
+            result[resultOffset + i] += subspace[subspaceOffset + SIZE * column + i] * scale;
+      }
+   }
+
+   /**
+    * Gauss-Jordan elimination without pivoting, which is stable for the symmetric positive definite
+    * matrices D = S<sup>T</sup> * I<sup>A</sup> * S. The input matrix is modified.
+    */
+   private static void invertSymmetricPositiveDefinite(double[] matrix, int size, double[] inverseToPack)
+   {
+      if (size == 1)
+      {
+         inverseToPack[0] = 1.0 / matrix[0];
+         return;
+      }
+
+      for (int row = 0; row < size; row++)
+      {
+         for (int column = 0; column < size; column++)
+            inverseToPack[row * size + column] = row == column ? 1.0 : 0.0;
+      }
+
+      for (int pivot = 0; pivot < size; pivot++)
+      {
+         double inversePivot = 1.0 / matrix[pivot * size + pivot];
+
+         for (int column = 0; column < size; column++)
+         {
+            matrix[pivot * size + column] *= inversePivot;
+            inverseToPack[pivot * size + column] *= inversePivot;
+         }
+
+         for (int row = 0; row < size; row++)
+         {
+            if (row == pivot)
+               continue;
+
+            double factor = matrix[row * size + pivot];
+            if (factor == 0.0)
+               continue;
+
+            for (int column = 0; column < size; column++)
+            {
+               matrix[row * size + column] -= factor * matrix[pivot * size + column];
+               inverseToPack[row * size + column] -= factor * inverseToPack[pivot * size + column];
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,401 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import us.ihmc.euclid.matrix.Matrix3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+
+/**
+ * Computes joint torques based on desired joint accelerations, giving the same results as
+ * {@link InverseDynamicsCalculator}.
+ * <p>
+ * The recursive Newton-Euler algorithm is run on a flattened description of the multi-body system
+ * built once at construction: the rigid-bodies are ordered such that a parent always comes before
+ * its children and the topology is stored as an array of parent indices. Twists, spatial
+ * accelerations, and wrenches are stored in contiguous arrays and are all expressed in the root
+ * frame, such that propagating them along the tree requires neither map lookup nor reference frame
+ * change. The only data read from the frames at every call to {@link #compute()} are their
+ * transforms to the root frame, which have to be up-to-date, see
+ * {@link RigidBody#updateFramesRecursively()}.
+ * </p>
+ * <p>
+ * As for {@link InverseDynamicsCalculator}, the body-fixed frame of each rigid-body is assumed to be
+ * centered at its center of mass.
+ * </p>
+ */
+public class FlattenedInverseDynamicsCalculator
+{
+   private static final int SIZE = 6;
+
+   private final RigidBody rootBody;
+   private final ReferenceFrame rootFrame;
+   private final ReferenceFrame inertialFrame;
+   private final List<InverseDynamicsJoint> jointsToIgnore;
+   private final boolean doVelocityTerms;
+   private final boolean doAccelerationTerms;
+
+   /** The rigid-bodies ordered such that a parent always comes first, the root body is at index 0. */
+   private final RigidBody[] bodies;
+   /** The joint of each rigid-body, {@code null} for the root body. */
+   private final InverseDynamicsJoint[] parentJoints;
+   /** Same as {@link #parentJoints} for the joints with one degree of freedom, {@code null} otherwise. */
+   private final OneDoFJoint[] parentOneDoFJoints;
+   private final int[] parentIndices;
+   private final Map<RigidBody, Integer> bodyIndices = new HashMap<>();
+
+   /** Unit twist of each joint with one degree of freedom, expressed in its frame after joint. */
+   private final double[] localUnitTwists;
+   /** Same as {@link #localUnitTwists} but expressed in the root frame. */
+   private final double[] unitTwists;
+   /** Twist of each body with respect to the inertial frame, expressed in the root frame. */
+   private final double[] twists;
+   /** Spatial acceleration of each body with respect to the inertial frame, expressed in the root frame. */
+   private final double[] accelerations;
+   /** Wrench exerted by the parent joint on each body, expressed in the root frame. */
+   private final double[] jointWrenches;
+
+   private final Wrench[] externalWrenches;
+   private final boolean[] hasExternalWrench;
+
+   private final SpatialAccelerationVector rootAcceleration = new SpatialAccelerationVector();
+
+   private final double[] rotation = new double[9];
+   private final double[] translation = new double[3];
+   private final double[] localMotion = new double[SIZE];
+   private final double[] jointTwist = new double[SIZE];
+   private final double[] jointAcceleration = new double[SIZE];
+   private final double[] bodyTwist = new double[SIZE];
+   private final double[] bodyAcceleration = new double[SIZE];
+   private final double[] bodyWrench = new double[SIZE];
+
+   private final Twist tempTwist = new Twist();
+   private final SpatialAccelerationVector tempAcceleration = new SpatialAccelerationVector();
+   private final Wrench tempWrench = new Wrench();
+
+   public FlattenedInverseDynamicsCalculator(RigidBody body, double gravity)
+   {
+      this(body, gravity, new ArrayList<InverseDynamicsJoint>());
+   }
+
+   public FlattenedInverseDynamicsCalculator(RigidBody body, double gravity, List<InverseDynamicsJoint> jointsToIgnore)
+   {
+      this(body, ScrewTools.createGravitationalSpatialAcceleration(ScrewTools.getRootBody(body), gravity), jointsToIgnore, true, true);
+   }
+
+   public FlattenedInverseDynamicsCalculator(RigidBody body, SpatialAccelerationVector rootAcceleration, List<InverseDynamicsJoint> jointsToIgnore,
+                                             boolean doVelocityTerms, boolean doAccelerationTerms)
+   {
+      this.rootBody = ScrewTools.getRootBody(body);
+      this.rootFrame = rootBody.getBodyFixedFrame().getRootFrame();
+      this.inertialFrame = rootAcceleration.getBaseFrame();
+      this.jointsToIgnore = new ArrayList<>(jointsToIgnore);
+      this.doVelocityTerms = doVelocityTerms;
+      this.doAccelerationTerms = doAccelerationTerms;
+
+      List<RigidBody> bodyList = new ArrayList<>();
+      List<Integer> parentIndexList = new ArrayList<>();
+      bodyList.add(rootBody);
+      parentIndexList.add(-1);
+
+      for (int parentIndex = 0; parentIndex < bodyList.size(); parentIndex++)
+      {
+         RigidBody currentBody = bodyList.get(parentIndex);
+
+         if (!currentBody.hasChildrenJoints())
+            continue;
+
+         for (InverseDynamicsJoint joint : currentBody.getChildrenJoints())
+         {
+            if (this.jointsToIgnore.contains(joint))
+               continue;
+
+            RigidBody successor = joint.getSuccessor();
+            if (successor == null)
+               continue;
+            if (bodyList.contains(successor))
+               throw new RuntimeException("This algorithm doesn't do loops.");
+            if (!successor.getInertia().isCrossPartZero())
+               throw new RuntimeException("The body-fixed frame of " + successor.getName() + " is not centered at its center of mass.");
+
+            bodyList.add(successor);
+            parentIndexList.add(parentIndex);
+         }
+      }
+
+      int numberOfBodies = bodyList.size();
+      bodies = bodyList.toArray(new RigidBody[numberOfBodies]);
+      parentJoints = new InverseDynamicsJoint[numberOfBodies];
+      parentOneDoFJoints = new OneDoFJoint[numberOfBodies];
+      parentIndices = new int[numberOfBodies];
+      localUnitTwists = new double[SIZE * numberOfBodies];
+      unitTwists = new double[SIZE * numberOfBodies];
+      twists = new double[SIZE * numberOfBodies];
+      accelerations = new double[SIZE * numberOfBodies];
+      jointWrenches = new double[SIZE * numberOfBodies];
+      externalWrenches = new Wrench[numberOfBodies];
+      hasExternalWrench = new boolean[numberOfBodies];
+
+      for (int bodyIndex = 0; bodyIndex < numberOfBodies; bodyIndex++)
+      {
+         RigidBody currentBody = bodies[bodyIndex];
+         ReferenceFrame bodyFixedFrame = currentBody.getBodyFixedFrame();
+         bodyIndices.put(currentBody, bodyIndex);
+         parentIndices[bodyIndex] = parentIndexList.get(bodyIndex);
+
+         if (bodyIndex == 0)
+            continue;
+
+         InverseDynamicsJoint parentJoint = currentBody.getParentJoint();
+         parentJoints[bodyIndex] = parentJoint;
+         externalWrenches[bodyIndex] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+
+         if (parentJoint instanceof OneDoFJoint)
+         {
+            OneDoFJoint oneDoFJoint = (OneDoFJoint) parentJoint;
+            parentOneDoFJoints[bodyIndex] = oneDoFJoint;
+            // The unit twist of a joint with one degree of freedom is constant in its frame after joint.
+            oneDoFJoint.getUnitJointTwist(tempTwist);
+            tempTwist.getArray(localUnitTwists, SIZE * bodyIndex);
+         }
+      }
+
+      setRootAcceleration(rootAcceleration);
+   }
+
+   public void setRootAcceleration(SpatialAccelerationVector newRootAcceleration)
+   {
+      ReferenceFrame rootBodyFrame = rootBody.getBodyFixedFrame();
+      newRootAcceleration.checkReferenceFramesMatch(rootBodyFrame, inertialFrame, rootBodyFrame);
+      rootAcceleration.set(newRootAcceleration);
+   }
+
+   public void compute()
+   {
+      computeTwistsAccelerationsAndNetWrenches();
+      computeJointWrenchesAndTorques();
+   }
+
+   private void computeTwistsAccelerationsAndNetWrenches()
+   {
+      SpatialVectorArrayTools.packTransformToRoot(rootBody.getBodyFixedFrame(), rotation, translation);
+      rootAcceleration.getArray(localMotion, 0);
+      SpatialVectorArrayTools.transformMotion(rotation, translation, localMotion, 0, accelerations, 0);
+
+      for (int bodyIndex = 1; bodyIndex < bodies.length; bodyIndex++)
+      {
+         int offset = SIZE * bodyIndex;
+         int parentOffset = SIZE * parentIndices[bodyIndex];
+         InverseDynamicsJoint parentJoint = parentJoints[bodyIndex];
+         OneDoFJoint parentOneDoFJoint = parentOneDoFJoints[bodyIndex];
+
+         SpatialVectorArrayTools.packTransformToRoot(parentJoint.getFrameAfterJoint(), rotation, translation);
+
+         if (parentOneDoFJoint != null)
+         {
+            SpatialVectorArrayTools.transformMotion(rotation, translation, localUnitTwists, offset, unitTwists, offset);
+            double qd = doVelocityTerms ? parentOneDoFJoint.getQd() : 0.0;
+            double qdd = doAccelerationTerms ? parentOneDoFJoint.getQddDesired() : 0.0;
+
+            for (int i = 0; i < SIZE; i++)
+            {
+               jointTwist[i] = qd * unitTwists[offset + i];
+               jointAcceleration[i] = qdd * unitTwists[offset + i];
+            }
+         }
+         else
+         {
+            if (doVelocityTerms)
+            {
+               parentJoint.getJointTwist(tempTwist);
+               tempTwist.getArray(localMotion, 0);
+               SpatialVectorArrayTools.transformMotion(rotation, translation, localMotion, 0, jointTwist, 0);
+            }
+            else
+            {
+               SpatialVectorArrayTools.setToZero(jointTwist);
+            }
+
+            if (doAccelerationTerms)
+            {
+               parentJoint.getDesiredJointAcceleration(tempAcceleration);
+               tempAcceleration.getArray(localMotion, 0);
+               SpatialVectorArrayTools.transformMotion(rotation, translation, localMotion, 0, jointAcceleration, 0);
+            }
+            else
+            {
+               SpatialVectorArrayTools.setToZero(jointAcceleration);
+            }
+         }
+
+         for (int i = 0; i < SIZE; i++)
+         {
+            twists[offset + i] = twists[parentOffset + i] + jointTwist[i];
+            accelerations[offset + i] = accelerations[parentOffset + i] + jointAcceleration[i];
+         }
+
+         // The joint twist being constant in the frame after joint, its time derivative in the root frame is: twist x jointTwist
+         if (doVelocityTerms)
+            SpatialVectorArrayTools.addCrossMotion(twists, offset, jointTwist, 0, accelerations, offset);
+
+         computeNetWrenchMinusExternalWrench(bodyIndex);
+      }
+   }
+
+   /**
+    * Computes the net wrench of the given body in its body-fixed frame, where the inertia is
+    * constant and the cross part zero, and stores the net wrench minus the external wrench in the
+    * root frame as the initial value of the joint wrench.
+    */
+   private void computeNetWrenchMinusExternalWrench(int bodyIndex)
+   {
+      int offset = SIZE * bodyIndex;
+      RigidBody body = bodies[bodyIndex];
+      RigidBodyInertia inertia = body.getInertia();
+      Matrix3D massMomentOfInertia = inertia.massMomentOfInertiaPart;
+      double mass = inertia.getMass();
+
+      SpatialVectorArrayTools.packTransformToRoot(body.getBodyFixedFrame(), rotation, translation);
+      SpatialVectorArrayTools.inverseTransformMotion(rotation, translation, twists, offset, bodyTwist, 0);
+      SpatialVectorArrayTools.inverseTransformMotion(rotation, translation, accelerations, offset, bodyAcceleration, 0);
+
+      double wx = bodyTwist[0], wy = bodyTwist[1], wz = bodyTwist[2];
+      double vx = bodyTwist[3], vy = bodyTwist[4], vz = bodyTwist[5];
+      double wdx = bodyAcceleration[0], wdy = bodyAcceleration[1], wdz = bodyAcceleration[2];
+
+      double Jwx = massMomentOfInertia.getM00() * wx + massMomentOfInertia.getM01() * wy + massMomentOfInertia.getM02() * wz;
+      double Jwy = massMomentOfInertia.getM10() * wx + massMomentOfInertia.getM11() * wy + massMomentOfInertia.getM12() * wz;
+      double Jwz = massMomentOfInertia.getM20() * wx + massMomentOfInertia.getM21() * wy + massMomentOfInertia.getM22() * wz;
+
+      // [J * omegad + omega x J * omega; m * vd + omega x m * v]
+      bodyWrench[0] = massMomentOfInertia.getM00() * wdx + massMomentOfInertia.getM01() * wdy + massMomentOfInertia.getM02() * wdz + wy * Jwz - wz * Jwy;
+      bodyWrench[1] = massMomentOfInertia.getM10() * wdx + massMomentOfInertia.getM11() * wdy + massMomentOfInertia.getM12() * wdz + wz * Jwx - wx * Jwz;
+      bodyWrench[2] = massMomentOfInertia.getM20() * wdx + massMomentOfInertia.getM21() * wdy + massMomentOfInertia.getM22() * wdz + wx * Jwy - wy * Jwx;
+      bodyWrench[3] = mass * (bodyAcceleration[3] + wy * vz - wz * vy);
+      bodyWrench[4] = mass * (bodyAcceleration[4] + wz * vx - wx * vz);
+      bodyWrench[5] = mass * (bodyAcceleration[5] + wx * vy - wy * vx);
+
+      if (hasExternalWrench[bodyIndex])
+      {
+         Wrench bodyExternalWrench = externalWrenches[bodyIndex];
+         Vector3DReadOnly torque = bodyExternalWrench.getAngularPart();
+         Vector3DReadOnly force = bodyExternalWrench.getLinearPart();
+         bodyWrench[0] -= torque.getX();
+         bodyWrench[1] -= torque.getY();
+         bodyWrench[2] -= torque.getZ();
+         bodyWrench[3] -= force.getX();
+         bodyWrench[4] -= force.getY();
+         bodyWrench[5] -= force.getZ();
+      }
+
+      SpatialVectorArrayTools.transformForce(rotation, translation, bodyWrench, 0, jointWrenches, offset);
+   }
+
+   private void computeJointWrenchesAndTorques()
+   {
+      // Children always come after their parent, going backward the wrenches of all the children of a body have been added to its joint wrench.
+      for (int bodyIndex = bodies.length - 1; bodyIndex > 0; bodyIndex--)
+      {
+         int offset = SIZE * bodyIndex;
+         OneDoFJoint parentOneDoFJoint = parentOneDoFJoints[bodyIndex];
+
+         if (parentOneDoFJoint != null)
+         {
+            double tau = 0.0;
+            for (int i = 0; i < SIZE; i++)
+               tau += unitTwists[offset + i] * jointWrenches[offset + i];
+            parentOneDoFJoint.setTau(tau);
+         }
+         else
+         {
+            packJointWrench(bodyIndex, tempWrench);
+            parentJoints[bodyIndex].setTorqueFromWrench(tempWrench);
+         }
+
+         int parentIndex = parentIndices[bodyIndex];
+
+         if (parentIndex > 0)
+         {
+            int parentOffset = SIZE * parentIndex;
+            for (int i = 0; i < SIZE; i++)
+               jointWrenches[parentOffset + i] += jointWrenches[offset + i];
+         }
+      }
+   }
+
+   public void setExternalWrench(RigidBody rigidBody, Wrench externalWrench)
+   {
+      int bodyIndex = bodyIndices.get(rigidBody);
+      Wrench bodyExternalWrench = externalWrenches[bodyIndex];
+      bodyExternalWrench.checkAndSet(externalWrench);
+      hasExternalWrench[bodyIndex] = true;
+   }
+
+   public void getExternalWrench(RigidBody rigidBody, Wrench externalWrenchToPack)
+   {
+      externalWrenchToPack.set(externalWrenches[bodyIndices.get(rigidBody)]);
+   }
+
+   public void reset()
+   {
+      for (int bodyIndex = 1; bodyIndex < bodies.length; bodyIndex++)
+      {
+         if (hasExternalWrench[bodyIndex])
+         {
+            Wrench bodyExternalWrench = externalWrenches[bodyIndex];
+            bodyExternalWrench.setToZero(bodyExternalWrench.getBodyFrame(), bodyExternalWrench.getExpressedInFrame());
+            hasExternalWrench[bodyIndex] = false;
+         }
+      }
+   }
+
+   /**
+    * Sums up the external wrenches and packs the result in the given {@code referenceFrame}.
+    */
+   public void computeTotalExternalWrench(ReferenceFrame referenceFrame, Wrench totalExternalWrenchToPack)
+   {
+      totalExternalWrenchToPack.setToZero(referenceFrame, referenceFrame);
+
+      for (int bodyIndex = 1; bodyIndex < bodies.length; bodyIndex++)
+      {
+         if (!hasExternalWrench[bodyIndex])
+            continue;
+
+         tempWrench.set(externalWrenches[bodyIndex]);
+         tempWrench.changeFrame(referenceFrame);
+         tempWrench.changeBodyFrameAttachedToSameBody(referenceFrame);
+         totalExternalWrenchToPack.add(tempWrench);
+      }
+   }
+
+   /**
+    * Packs the wrench exerted by the given joint on its successor, expressed in the body-fixed frame
+    * of the successor.
+    */
+   public void getJointWrench(InverseDynamicsJoint joint, Wrench wrenchToPack)
+   {
+      packJointWrench(bodyIndices.get(joint.getSuccessor()), wrenchToPack);
+   }
+
+   private void packJointWrench(int bodyIndex, Wrench wrenchToPack)
+   {
+      int offset = SIZE * bodyIndex;
+      ReferenceFrame bodyFixedFrame = bodies[bodyIndex].getBodyFixedFrame();
+      wrenchToPack.setToZero(bodyFixedFrame, rootFrame);
+      wrenchToPack.setAngularPartX(jointWrenches[offset + 0]);
+      wrenchToPack.setAngularPartY(jointWrenches[offset + 1]);
+      wrenchToPack.setAngularPartZ(jointWrenches[offset + 2]);
+      wrenchToPack.setLinearPartX(jointWrenches[offset + 3]);
+      wrenchToPack.setLinearPartY(jointWrenches[offset + 4]);
+      wrenchToPack.setLinearPartZ(jointWrenches[offset + 5]);
+      wrenchToPack.changeFrame(bodyFixedFrame);
+   }
+
+   public RigidBody getRootBody()
+   {
+      return rootBody;
+   }
+}
@@ -231,6 +231,27 @@ public class GeometricJacobianCalculator
       }
    }
 
+   /**
+    * Updates the values of the Jacobian matrix by gathering the unit twists of the joints from the
+    * given calculator instead of computing them.
+    * <p>
+    * This is to be preferred when the Jacobians of several kinematic chains sharing joints are
+    * computed at every control tick.
+    * </p>
+    * 
+    * @param wholeBodyJacobianCalculator the calculator holding the unit twists of the whole system.
+    *           Its unit twists are updated if needed.
+    * @throws RuntimeException if either the base or the end-effector has not been provided
+    *            beforehand.
+    */
+   public void computeJacobianMatrix(WholeBodyJacobianCalculator wholeBodyJacobianCalculator)
+   {
+      if (base == null || endEffector == null)
+         throw new RuntimeException("The base and end-effector have to be set first.");
+
+      wholeBodyJacobianCalculator.getJacobianMatrix(jointsFromBaseToEndEffector, jacobianFrame, jacobianMatrix);
+   }
+
    /**
     * Computes the convective term C<sub>6x1</sub> = JDot<sub>6xN</sub> * qDot<sub>Nx1</sub>.<br>
     * where N is the number of degrees of freedom between the {@code base} and {@code endEffector},
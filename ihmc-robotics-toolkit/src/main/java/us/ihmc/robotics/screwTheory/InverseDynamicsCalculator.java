@@ -222,17 +222,24 @@ public class InverseDynamicsCalculator
    public Wrench computeTotalExternalWrench(ReferenceFrame referenceFrame)
    {
       Wrench totalGroundReactionWrench = new Wrench(referenceFrame, referenceFrame);
-      Wrench temporaryWrench = new Wrench();
+      computeTotalExternalWrench(referenceFrame, totalGroundReactionWrench);
+      return totalGroundReactionWrench;
+   }
+
+   private final Wrench temporaryWrench = new Wrench();
+
+   public void computeTotalExternalWrench(ReferenceFrame referenceFrame, Wrench totalExternalWrenchToPack)
+   {
+      totalExternalWrenchToPack.setToZero(referenceFrame, referenceFrame);
+
       for (int i = 0; i < listOfBodiesWithExternalWrenches.size(); i++)
       {
          Wrench externalWrench = externalWrenches.get(listOfBodiesWithExternalWrenches.get(i));
          temporaryWrench.set(externalWrench);
          temporaryWrench.changeFrame(referenceFrame);
          temporaryWrench.changeBodyFrameAttachedToSameBody(referenceFrame);
-         totalGroundReactionWrench.add(temporaryWrench);
+         totalExternalWrenchToPack.add(temporaryWrench);
       }
-
-      return totalGroundReactionWrench;
    }
 
    public void getJointWrench(InverseDynamicsJoint joint, Wrench wrenchToPack)
@@ -0,0 +1,207 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.ejml.data.DenseMatrix64F;
+
+/**
+ * Sparse L<sup>T</sup>DL factorization of the joint-space mass matrix of a kinematic tree as
+ * described in Featherstone - Rigid Body Dynamics Algorithms (2008), section 6.5.
+ * <p>
+ * An element H<sub>ij</sub> of the mass matrix is non-zero only if the degrees of freedom i and j
+ * are on the same branch of the tree. When the degrees of freedom are ordered such that a parent
+ * always comes before its children, as with {@link CompositeRigidBodyMassMatrixCalculator}, the
+ * factorization H = L<sup>T</sup>DL does not create any fill-in and only visits the non-zero
+ * elements, following the chain of ancestors of each degree of freedom. The cost of the
+ * factorization and of the subsequent solves depends on the depth of the tree rather than on the
+ * number of degrees of freedom cubed.
+ * </p>
+ * <p>
+ * Typical usage:
+ *
+ * <pre>
+ * massMatrixCalculator.compute();
+ * factorization.factorize(massMatrixCalculator.getMassMatrix());
+ * factorization.solve(b, x); // x = H^-1 * b
+ * </pre>
+ * </p>
+ */
+public class MassMatrixLTDLFactorization
+{
+   /** For each degree of freedom, the index of its parent degree of freedom, or -1 if none. */
+   private final int[] parentIndices;
+   private final int degreesOfFreedom;
+   /** Contains L below the diagonal and D on the diagonal once factorized. */
+   private final DenseMatrix64F factorization;
+   private boolean isFactorized = false;
+
+   /**
+    * @param jointsInOrder the joints as ordered in the mass matrix, each joint has to come after its
+    *           ancestors. The result of {@link CompositeRigidBodyMassMatrixCalculator#getJointsInOrder()}
+    *           can be used directly.
+    * @throws IllegalArgumentException if a joint comes before one of its ancestors.
+    */
+   public MassMatrixLTDLFactorization(InverseDynamicsJoint[] jointsInOrder)
+   {
+      degreesOfFreedom = ScrewTools.computeDegreesOfFreedom(jointsInOrder);
+      parentIndices = new int[degreesOfFreedom];
+      factorization = new DenseMatrix64F(degreesOfFreedom, degreesOfFreedom);
+
+      Set<InverseDynamicsJoint> joints = new HashSet<>(Arrays.asList(jointsInOrder));
+      Map<InverseDynamicsJoint, Integer> lastDoFIndices = new HashMap<>();
+      int dofIndex = 0;
+
+      for (InverseDynamicsJoint joint : jointsInOrder)
+      {
+         int parentIndex = -1;
+         RigidBody predecessor = joint.getPredecessor();
+
+         while (predecessor != null && predecessor.getParentJoint() != null)
+         {
+            InverseDynamicsJoint ancestor = predecessor.getParentJoint();
+            Integer ancestorIndex = lastDoFIndices.get(ancestor);
+
+            if (ancestorIndex != null)
+            {
+               parentIndex = ancestorIndex;
+               break;
+            }
+            else if (joints.contains(ancestor))
+            {
+               throw new IllegalArgumentException("The joint " + joint.getName() + " comes before its ancestor " + ancestor.getName() + ".");
+            }
+
+            predecessor = ancestor.getPredecessor();
+         }
+
+         for (int i = 0; i < joint.getDegreesOfFreedom(); i++)
+         {
+            parentIndices[dofIndex] = parentIndex;
+            parentIndex = dofIndex;
+            dofIndex++;
+         }
+
+         lastDoFIndices.put(joint, parentIndex);
+      }
+   }
+
+   /**
+    * Computes the L<sup>T</sup>DL factorization of the given mass matrix. Only the lower triangular
+    * part of the mass matrix is used.
+    *
+    * @param massMatrix the mass matrix to factorize. Not modified.
+    * @return {@code false} if the mass matrix is not positive definite, in which case
+    *         {@link #solve(DenseMatrix64F, DenseMatrix64F)} cannot be used.
+    */
+   public boolean factorize(DenseMatrix64F massMatrix)
+   {
+      if (massMatrix.getNumRows() != degreesOfFreedom || massMatrix.getNumCols() != degreesOfFreedom)
+         throw new IllegalArgumentException("Unexpected size for the mass matrix: " + massMatrix.getNumRows() + "x" + massMatrix.getNumCols()
+               + ", expected: " + degreesOfFreedom + "x" + degreesOfFreedom);
+
+      factorization.set(massMatrix);
+      double[] H = factorization.getData();
+      int n = degreesOfFreedom;
+      isFactorized = false;
+
+      for (int k = n - 1; k >= 0; k--)
+      {
+         double Hkk = H[k * n + k];
+
+         if (!(Hkk > 0.0))
+            return false;
+
+         int i = parentIndices[k];
+
+         while (i >= 0)
+         {
+            double a = H[k * n + i] / Hkk;
+            int j = i;
+
+            while (j >= 0)
+            {
+               H[i * n + j] -= a * H[k * n + j];
+               j = parentIndices[j];
+            }
+
+            H[k * n + i] = a;
+            i = parentIndices[i];
+         }
+      }
+
+      isFactorized = true;
+      return true;
+   }
+
+   /**
+    * Solves H * x = b using the last factorization, which is equivalent to x = H<sup>-1</sup> * b.
+    *
+    * @param b the right-hand side, can have several columns. Not modified unless it is {@code x}.
+    * @param xToPack the solution. Modified. Can be the same matrix as {@code b}.
+    */
+   public void solve(DenseMatrix64F b, DenseMatrix64F xToPack)
+   {
+      if (!isFactorized)
+         throw new RuntimeException("The mass matrix has not been successfully factorized.");
+      if (b.getNumRows() != degreesOfFreedom)
+         throw new IllegalArgumentException("Unexpected number of rows for b: " + b.getNumRows() + ", expected: " + degreesOfFreedom);
+
+      if (xToPack != b)
+         xToPack.set(b);
+
+      double[] H = factorization.getData();
+      double[] x = xToPack.getData();
+      int n = degreesOfFreedom;
+      int numberOfColumns = xToPack.getNumCols();
+
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         // x = L^-T * x
+         for (int i = n - 1; i >= 0; i--)
+         {
+            double xi = x[i * numberOfColumns + column];
+            int j = parentIndices[i];
+
+            while (j >= 0)
+            {
+               x[j * numberOfColumns + column] -= H[i * n + j] * xi;
+               j = parentIndices[j];
+            }
+         }
+
+         // x = D^-1 * x
+         for (int i = 0; i < n; i++)
+            x[i * numberOfColumns + column] /= H[i * n + i];
+
+         // x = L^-1 * x
+         for (int i = 0; i < n; i++)
+         {
+            int j = parentIndices[i];
+
+            while (j >= 0)
+            {
+               x[i * numberOfColumns + column] -= H[i * n + j] * x[j * numberOfColumns + column];
+               j = parentIndices[j];
+            }
+         }
+      }
+   }
+
+   /**
+    * @return the index of the parent of each degree of freedom, -1 for the degrees of freedom
+    *         attached to the root.
+    */
+   public int[] getParentIndices()
+   {
+      return parentIndices;
+   }
+
+   public int getDegreesOfFreedom()
+   {
+      return degreesOfFreedom;
+   }
+}
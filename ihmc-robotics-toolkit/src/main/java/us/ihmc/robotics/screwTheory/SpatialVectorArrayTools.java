@@ -0,0 +1,206 @@
+package us.ihmc.robotics.screwTheory;
+
+import us.ihmc.euclid.matrix.interfaces.Matrix3DReadOnly;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+
+/**
+ * Operations on twists, spatial accelerations, and wrenches stored in double arrays as [angular;
+ * linear], as used by the flattened multi-body algorithms.
+ */
+final class SpatialVectorArrayTools
+{
+   private SpatialVectorArrayTools()
+   {
+   }
+
+   static void packTransformToRoot(ReferenceFrame frame, double[] rotationToPack, double[] translationToPack)
+   {
+      RigidBodyTransform transformToRoot = frame.getTransformToRoot();
+      rotationToPack[0] = transformToRoot.getM00();
+      rotationToPack[1] = transformToRoot.getM01();
+      rotationToPack[2] = transformToRoot.getM02();
+      rotationToPack[3] = transformToRoot.getM10();
+      rotationToPack[4] = transformToRoot.getM11();
+      rotationToPack[5] = transformToRoot.getM12();
+      rotationToPack[6] = transformToRoot.getM20();
+      rotationToPack[7] = transformToRoot.getM21();
+      rotationToPack[8] = transformToRoot.getM22();
+      translationToPack[0] = transformToRoot.getTranslationX();
+      translationToPack[1] = transformToRoot.getTranslationY();
+      translationToPack[2] = transformToRoot.getTranslationZ();
+   }
+
+   /**
+    * Changes the frame of a twist or spatial acceleration: angular' = R * angular, linear' = R *
+    * linear + p x angular'.
+    */
+   static void transformMotion(double[] rotation, double[] translation, double[] source, int sourceOffset, double[] destination, int destinationOffset)
+   {
+      double ax = source[sourceOffset + 0], ay = source[sourceOffset + 1], az = source[sourceOffset + 2];
+      double lx = source[sourceOffset + 3], ly = source[sourceOffset + 4], lz = source[sourceOffset + 5];
+
+      double rax = rotation[0] * ax + rotation[1] * ay + rotation[2] * az;
+      double ray = rotation[3] * ax + rotation[4] * ay + rotation[5] * az;
+      double raz = rotation[6] * ax + rotation[7] * ay + rotation[8] * az;
+      double px = translation[0], py = translation[1], pz = translation[2];
+
+      destination[destinationOffset + 0] = rax;
+      destination[destinationOffset + 1] = ray;
+      destination[destinationOffset + 2] = raz;
+      destination[destinationOffset + 3] = rotation[0] * lx + rotation[1] * ly + rotation[2] * lz + py * raz - pz * ray;
+      destination[destinationOffset + 4] = rotation[3] * lx + rotation[4] * ly + rotation[5] * lz + pz * rax - px * raz;
+      destination[destinationOffset + 5] = rotation[6] * lx + rotation[7] * ly + rotation[8] * lz + px * ray - py * rax;
+   }
+
+   /**
+    * Inverse of {@link #transformMotion(double[], double[], double[], int, double[], int)}: angular
+    * = R<sup>T</sup> * angular', linear = R<sup>T</sup> * (linear' - p x angular').
+    */
+   static void inverseTransformMotion(double[] rotation, double[] translation, double[] source, int sourceOffset, double[] destination,
+                                     int destinationOffset)
+   {
+      double ax = source[sourceOffset + 0], ay = source[sourceOffset + 1], az = source[sourceOffset + 2];
+      double px = translation[0], py = translation[1], pz = translation[2];
+      double lx = source[sourceOffset + 3] - (py * az - pz * ay);
+      double ly = source[sourceOffset + 4] - (pz * ax - px * az);
+      double lz = source[sourceOffset + 5] - (px * ay - py * ax);
+
+      destination[destinationOffset + 0] = rotation[0] * ax + rotation[3] * ay + rotation[6] * az;
+      destination[destinationOffset + 1] = rotation[1] * ax + rotation[4] * ay + rotation[7] * az;
+      destination[destinationOffset + 2] = rotation[2] * ax + rotation[5] * ay + rotation[8] * az;
+      destination[destinationOffset + 3] = rotation[0] * lx + rotation[3] * ly + rotation[6] * lz;
+      destination[destinationOffset + 4] = rotation[1] * lx + rotation[4] * ly + rotation[7] * lz;
+      destination[destinationOffset + 5] = rotation[2] * lx + rotation[5] * ly + rotation[8] * lz;
+   }
+
+   /**
+    * Changes the frame of a wrench: force' = R * force, torque' = R * torque + p x force'.
+    */
+   static void transformForce(double[] rotation, double[] translation, double[] source, int sourceOffset, double[] destination, int destinationOffset)
+   {
+      double tx = source[sourceOffset + 0], ty = source[sourceOffset + 1], tz = source[sourceOffset + 2];
+      double fx = source[sourceOffset + 3], fy = source[sourceOffset + 4], fz = source[sourceOffset + 5];
+
+      double rfx = rotation[0] * fx + rotation[1] * fy + rotation[2] * fz;
+      double rfy = rotation[3] * fx + rotation[4] * fy + rotation[5] * fz;
+      double rfz = rotation[6] * fx + rotation[7] * fy + rotation[8] * fz;
+      double px = translation[0], py = translation[1], pz = translation[2];
+
+      destination[destinationOffset + 0] = rotation[0] * tx + rotation[1] * ty + rotation[2] * tz + py * rfz - pz * rfy;
+      destination[destinationOffset + 1] = rotation[3] * tx + rotation[4] * ty + rotation[5] * tz + pz * rfx - px * rfz;
+      destination[destinationOffset + 2] = rotation[6] * tx + rotation[7] * ty + rotation[8] * tz + px * rfy - py * rfx;
+      destination[destinationOffset + 3] = rfx;
+      destination[destinationOffset + 4] = rfy;
+      destination[destinationOffset + 5] = rfz;
+   }
+
+   /**
+    * Adds the spatial cross product of two motion vectors to the destination: [w1 x w2; w1 x v2 + v1
+    * x w2].
+    */
+   static void addCrossMotion(double[] first, int firstOffset, double[] second, int secondOffset, double[] destination, int destinationOffset)
+   {
+      double w1x = first[firstOffset + 0], w1y = first[firstOffset + 1], w1z = first[firstOffset + 2];
+      double v1x = first[firstOffset + 3], v1y = first[firstOffset + 4], v1z = first[firstOffset + 5];
+      double w2x = second[secondOffset + 0], w2y = second[secondOffset + 1], w2z = second[secondOffset + 2];
+      double v2x = second[secondOffset + 3], v2y = second[secondOffset + 4], v2z = second[secondOffset + 5];
+
+      destination[destinationOffset + 0] += w1y * w2z - w1z * w2y;
+      destination[destinationOffset + 1] += w1z * w2x - w1x * w2z;
+      destination[destinationOffset + 2] += w1x * w2y - w1y * w2x;
+      destination[destinationOffset + 3] += w1y * v2z - w1z * v2y + v1y * w2z - v1z * w2y;
+      destination[destinationOffset + 4] += w1z * v2x - w1x * v2z + v1z * w2x - v1x * w2z;
+      destination[destinationOffset + 5] += w1x * v2y - w1y * v2x + v1x * w2y - v1y * w2x;
+   }
+
+   /**
+    * Adds the spatial cross product of a motion vector and a force vector to the destination: [w x
+    * t + v x f; w x f].
+    */
+   static void addCrossForce(double[] motion, int motionOffset, double[] force, int forceOffset, double[] destination, int destinationOffset)
+   {
+      double wx = motion[motionOffset + 0], wy = motion[motionOffset + 1], wz = motion[motionOffset + 2];
+      double vx = motion[motionOffset + 3], vy = motion[motionOffset + 4], vz = motion[motionOffset + 5];
+      double tx = force[forceOffset + 0], ty = force[forceOffset + 1], tz = force[forceOffset + 2];
+      double fx = force[forceOffset + 3], fy = force[forceOffset + 4], fz = force[forceOffset + 5];
+
+      destination[destinationOffset + 0] += wy * tz - wz * ty + vy * fz - vz * fy;
+      destination[destinationOffset + 1] += wz * tx - wx * tz + vz * fx - vx * fz;
+      destination[destinationOffset + 2] += wx * ty - wy * tx + vx * fy - vy * fx;
+      destination[destinationOffset + 3] += wy * fz - wz * fy;
+      destination[destinationOffset + 4] += wz * fx - wx * fz;
+      destination[destinationOffset + 5] += wx * fy - wy * fx;
+   }
+
+   /**
+    * Packs the 6-by-6 spatial inertia, row-major, of a body expressed in the root frame given its
+    * mass, its moment of inertia about its center of mass in its own frame, and the transform of its
+    * center of mass frame to root.
+    */
+   static void packSpatialInertia(double mass, Matrix3DReadOnly momentOfInertia, double[] rotation, double[] translation, double[] inertiaToPack,
+                                  int offset)
+   {
+      // Rotated moment of inertia: R * J * R^T
+      for (int row = 0; row < 3; row++)
+      {
+         for (int column = row; column < 3; column++)
+         {
+            double value = 0.0;
+            for (int i = 0; i < 3; i++)
+            {
+               double rowTimesJ = 0.0;
+               for (int j = 0; j < 3; j++)
+                  rowTimesJ += rotation[3 * row + j] * momentOfInertia.getElement(j, i);
+               value += rowTimesJ * rotation[3 * column + i];
+            }
+            inertiaToPack[offset + 6 * row + column] = value;
+            inertiaToPack[offset + 6 * column + row] = value;
+         }
+      }
+
+      double cx = translation[0], cy = translation[1], cz = translation[2];
+      double mcx = mass * cx, mcy = mass * cy, mcz = mass * cz;
+
+      // Upper-left block: R * J * R^T + m * (c.c * I - c * c^T)
+      inertiaToPack[offset + 0] += mcy * cy + mcz * cz;
+      inertiaToPack[offset + 7] += mcx * cx + mcz * cz;
+      inertiaToPack[offset + 14] += mcx * cx + mcy * cy;
+      inertiaToPack[offset + 1] -= mcx * cy;
+      inertiaToPack[offset + 6] -= mcx * cy;
+      inertiaToPack[offset + 2] -= mcx * cz;
+      inertiaToPack[offset + 12] -= mcx * cz;
+      inertiaToPack[offset + 8] -= mcy * cz;
+      inertiaToPack[offset + 13] -= mcy * cz;
+
+      // Upper-right block: m * tilde(c), lower-left block: m * tilde(c)^T
+      setTildeBlock(inertiaToPack, offset + 3, mcx, mcy, mcz, 1.0);
+      setTildeBlock(inertiaToPack, offset + 18, mcx, mcy, mcz, -1.0);
+
+      // Lower-right block: m * I
+      for (int row = 3; row < 6; row++)
+      {
+         for (int column = 3; column < 6; column++)
+            inertiaToPack[offset + 6 * row + column] = row == column ? mass : 0.0;
+      }
+   }
+
+   private static void setTildeBlock(double[] matrix, int offset, double x, double y, double z, double sign)
+   {
+      matrix[offset + 0] = 0.0;
+      matrix[offset + 1] = -sign * z;
+      matrix[offset + 2] = sign * y;
+      matrix[offset + 6] = sign * z;
+      matrix[offset + 7] = 0.0;
+      matrix[offset + 8] = -sign * x;
+      matrix[offset + 12] = -sign * y;
+      matrix[offset + 13] = sign * x;
+      matrix[offset + 14] = 0.0;
+   }
+
+   static void setToZero(double[] array)
+   {
+      for (int i = 0; i < array.length; i++)
+         array[i] = 0.0;
+   }
+}
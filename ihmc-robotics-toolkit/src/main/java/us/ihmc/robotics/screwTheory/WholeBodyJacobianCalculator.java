@@ -0,0 +1,267 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+
+/**
+ * Keeps the unit twists of all the joints of a multi-body system expressed in the root frame, and
+ * serves the Jacobian matrix of any kinematic chain of this system by gathering the columns from
+ * this shared table.
+ * <p>
+ * {@link GeometricJacobian#compute()} and {@link GeometricJacobianCalculator#computeJacobianMatrix()}
+ * change the frame of the unit twist of every joint of their kinematic chain, such that the joints
+ * shared between several Jacobians, e.g. the pelvis and spine joints, are processed once per
+ * Jacobian. Here, the unit twists are expressed in the root frame once, and the Jacobian matrix in a
+ * given frame is obtained with one transformation per column.
+ * </p>
+ * <p>
+ * Every time a Jacobian is requested, the configuration of every joint is compared to the one used
+ * for the last update, and only the joints for which the configuration of the joint or of one of
+ * its ancestors has changed are recomputed. The reference frames of the system have to be updated
+ * before requesting a Jacobian.
+ * </p>
+ */
+public class WholeBodyJacobianCalculator
+{
+   private static final int SIZE = SpatialMotionVector.SIZE;
+
+   private final RigidBody rootBody;
+   /** The joints ordered such that a parent always comes first. */
+   private final InverseDynamicsJoint[] joints;
+   private final int[] parentJointIndices;
+   private final int[] columnIndices;
+   private final int[] configurationIndices;
+   private final Map<InverseDynamicsJoint, Integer> jointIndices = new HashMap<>();
+   private final int numberOfDegreesOfFreedom;
+
+   /** The unit twists expressed in the root frame, 6 elements per degree of freedom. */
+   private final double[] unitTwists;
+   private final double[] configurations;
+   private final boolean[] isJointDirty;
+   private boolean isFirstUpdate = true;
+
+   private final DenseMatrix64F jointConfiguration = new DenseMatrix64F(7, 1);
+   private final Twist tempTwist = new Twist();
+   private final double[] localUnitTwist = new double[SIZE];
+   private final double[] rotation = new double[9];
+   private final double[] translation = new double[3];
+
+   /**
+    * Creates a calculator for all the joints in the subtree of the root of the given body.
+    *
+    * @param body any rigid-body of the multi-body system.
+    */
+   public WholeBodyJacobianCalculator(RigidBody body)
+   {
+      rootBody = ScrewTools.getRootBody(body);
+
+      List<InverseDynamicsJoint> jointList = new ArrayList<>();
+      List<Integer> parentIndexList = new ArrayList<>();
+      List<RigidBody> bodyList = new ArrayList<>();
+      bodyList.add(rootBody);
+      parentIndexList.add(-1);
+
+      for (int bodyIndex = 0; bodyIndex < bodyList.size(); bodyIndex++)
+      {
+         RigidBody currentBody = bodyList.get(bodyIndex);
+
+         if (!currentBody.hasChildrenJoints())
+            continue;
+
+         for (InverseDynamicsJoint joint : currentBody.getChildrenJoints())
+         {
+            if (joint.getSuccessor() == null)
+               continue;
+
+            bodyList.add(joint.getSuccessor());
+            jointList.add(joint);
+            // The body at index i + 1 is the successor of the joint at index i.
+            parentIndexList.add(bodyIndex - 1);
+         }
+      }
+
+      int numberOfJoints = jointList.size();
+      joints = jointList.toArray(new InverseDynamicsJoint[numberOfJoints]);
+      parentJointIndices = new int[numberOfJoints];
+      columnIndices = new int[numberOfJoints];
+      configurationIndices = new int[numberOfJoints];
+      isJointDirty = new boolean[numberOfJoints];
+
+      int numberOfColumns = 0;
+      int configurationSize = 0;
+
+      for (int jointIndex = 0; jointIndex < numberOfJoints; jointIndex++)
+      {
+         InverseDynamicsJoint joint = joints[jointIndex];
+         jointIndices.put(joint, jointIndex);
+         parentJointIndices[jointIndex] = parentIndexList.get(jointIndex + 1);
+         columnIndices[jointIndex] = numberOfColumns;
+         configurationIndices[jointIndex] = configurationSize;
+         numberOfColumns += joint.getDegreesOfFreedom();
+         configurationSize += joint.getConfigurationMatrixSize();
+      }
+
+      numberOfDegreesOfFreedom = numberOfColumns;
+      unitTwists = new double[SIZE * numberOfColumns];
+      configurations = new double[configurationSize];
+   }
+
+   /**
+    * Updates the unit twists of the joints which configuration, or the configuration of one of their
+    * ancestors, has changed since the last update.
+    * <p>
+    * This method is called automatically when a Jacobian is requested.
+    * </p>
+    */
+   public void update()
+   {
+      for (int jointIndex = 0; jointIndex < joints.length; jointIndex++)
+      {
+         int parentJointIndex = parentJointIndices[jointIndex];
+         boolean hasConfigurationChanged = updateConfiguration(jointIndex);
+         isJointDirty[jointIndex] = isFirstUpdate || hasConfigurationChanged || (parentJointIndex >= 0 && isJointDirty[parentJointIndex]);
+
+         if (isJointDirty[jointIndex])
+            updateUnitTwists(jointIndex);
+      }
+
+      isFirstUpdate = false;
+   }
+
+   private boolean updateConfiguration(int jointIndex)
+   {
+      InverseDynamicsJoint joint = joints[jointIndex];
+      int offset = configurationIndices[jointIndex];
+      boolean hasChanged = false;
+
+      if (joint instanceof OneDoFJoint)
+      {
+         double q = ((OneDoFJoint) joint).getQ();
+         hasChanged = q != configurations[offset];
+         configurations[offset] = q;
+      }
+      else
+      {
+         int size = joint.getConfigurationMatrixSize();
+         jointConfiguration.reshape(size, 1);
+         joint.getConfigurationMatrix(jointConfiguration, 0);
+
+         for (int i = 0; i < size; i++)
+         {
+            double value = jointConfiguration.get(i, 0);
+            hasChanged |= value != configurations[offset + i];
+            configurations[offset + i] = value;
+         }
+      }
+
+      return hasChanged;
+   }
+
+   private void updateUnitTwists(int jointIndex)
+   {
+      InverseDynamicsJoint joint = joints[jointIndex];
+      ReferenceFrame previousFrame = null;
+
+      for (int dofIndex = 0; dofIndex < joint.getDegreesOfFreedom(); dofIndex++)
+      {
+         joint.getUnitTwist(dofIndex, tempTwist);
+         ReferenceFrame expressedInFrame = tempTwist.getExpressedInFrame();
+
+         if (expressedInFrame != previousFrame)
+         {
+            SpatialVectorArrayTools.packTransformToRoot(expressedInFrame, rotation, translation);
+            previousFrame = expressedInFrame;
+         }
+
+         tempTwist.getArray(localUnitTwist, 0);
+         SpatialVectorArrayTools.transformMotion(rotation, translation, localUnitTwist, 0, unitTwists, SIZE * (columnIndices[jointIndex] + dofIndex));
+      }
+   }
+
+   /**
+    * Packs the Jacobian matrix of the given joints expressed in {@code jacobianFrame}. The joints
+    * are expected to be ordered from the base to the end-effector.
+    *
+    * @param joints the joints of the kinematic chain. Not modified.
+    * @param jacobianFrame the frame in which the Jacobian matrix is to be expressed.
+    * @param jacobianMatrixToPack the 6-by-N Jacobian matrix, N being the number of degrees of freedom
+    *           of the given joints. Modified.
+    * @throws RuntimeException if one of the joints does not belong to the system of this calculator.
+    */
+   public void getJacobianMatrix(InverseDynamicsJoint[] joints, ReferenceFrame jacobianFrame, DenseMatrix64F jacobianMatrixToPack)
+   {
+      update();
+
+      jacobianMatrixToPack.reshape(SIZE, ScrewTools.computeDegreesOfFreedom(joints));
+      SpatialVectorArrayTools.packTransformToRoot(jacobianFrame, rotation, translation);
+
+      int column = 0;
+      for (int i = 0; i < joints.length; i++)
+         column = packJointColumns(joints[i], column, jacobianMatrixToPack);
+   }
+
+   /**
+    * Packs the Jacobian matrix of the given joints expressed in {@code jacobianFrame}. The joints
+    * are expected to be ordered from the base to the end-effector.
+    *
+    * @param joints the joints of the kinematic chain. Not modified.
+    * @param jacobianFrame the frame in which the Jacobian matrix is to be expressed.
+    * @param jacobianMatrixToPack the 6-by-N Jacobian matrix, N being the number of degrees of freedom
+    *           of the given joints. Modified.
+    * @throws RuntimeException if one of the joints does not belong to the system of this calculator.
+    */
+   public void getJacobianMatrix(List<? extends InverseDynamicsJoint> joints, ReferenceFrame jacobianFrame, DenseMatrix64F jacobianMatrixToPack)
+   {
+      update();
+
+      jacobianMatrixToPack.reshape(SIZE, ScrewTools.computeDegreesOfFreedom(joints));
+      SpatialVectorArrayTools.packTransformToRoot(jacobianFrame, rotation, translation);
+
+      int column = 0;
+      for (int i = 0; i < joints.size(); i++)
+         column = packJointColumns(joints.get(i), column, jacobianMatrixToPack);
+   }
+
+   private int packJointColumns(InverseDynamicsJoint joint, int column, DenseMatrix64F jacobianMatrixToPack)
+   {
+      Integer jointIndex = jointIndices.get(joint);
+      if (jointIndex == null)
+         throw new RuntimeException("The joint " + joint.getName() + " does not belong to the system of " + rootBody.getName() + ".");
+
+      double[] data = jacobianMatrixToPack.getData();
+      int numberOfColumns = jacobianMatrixToPack.getNumCols();
+      int unitTwistOffset = SIZE * columnIndices[jointIndex];
+
+      for (int dofIndex = 0; dofIndex < joint.getDegreesOfFreedom(); dofIndex++)
+      {
+         SpatialVectorArrayTools.inverseTransformMotion(rotation, translation, unitTwists, unitTwistOffset, localUnitTwist, 0);
+
+         for (int row = 0; row < SIZE; row++)
+            data[row * numberOfColumns + column] = localUnitTwist[row];
+
+         unitTwistOffset += SIZE;
+         column++;
+      }
+
+      return column;
+   }
+
+   public RigidBody getRootBody()
+   {
+      return rootBody;
+   }
+
+   /**
+    * @return the total number of degrees of freedom of the system.
+    */
+   public int getNumberOfDegreesOfFreedom()
+   {
+      return numberOfDegreesOfFreedom;
+   }
+}
@@ -6,10 +6,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
 import us.ihmc.commons.MutationTestFacilitator;
+import us.ihmc.commons.RandomNumbers;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
 import us.ihmc.continuousIntegration.IntegrationCategory;
@@ -177,6 +179,67 @@ public class PlanarRegionsListTest
       assertNull(result);
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesWithSpatialIndex() throws Exception
+   {
+      Random random = new Random(34536);
+
+      for (int iteration = 0; iteration < 20; iteration++)
+      {
+         PlanarRegionsList planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 5, 2.0, 6, 30);
+         PlanarRegionsList indexedPlanarRegionsList = new PlanarRegionsList(new ArrayList<>(planarRegionsList.getPlanarRegionsAsList()));
+         indexedPlanarRegionsList.enableSpatialIndex(random.nextDouble() + 0.05);
+         assertTrue(indexedPlanarRegionsList.hasSpatialIndex());
+
+         assertQueriesEqual(random, planarRegionsList, indexedPlanarRegionsList);
+
+         for (int i = 0; i < 5 && !planarRegionsList.isEmpty(); i++)
+         {
+            int index = random.nextInt(planarRegionsList.getNumberOfPlanarRegions());
+            assertTrue(planarRegionsList.pollPlanarRegion(index) == indexedPlanarRegionsList.pollPlanarRegion(index));
+         }
+
+         for (int i = 0; i < 5; i++)
+         {
+            PlanarRegion planarRegion = PlanarRegion.generatePlanarRegionFromRandomPolygonsWithRandomTransform(random, 5, 2.0, 6);
+            planarRegionsList.addPlanarRegion(planarRegion);
+            indexedPlanarRegionsList.addPlanarRegion(planarRegion);
+         }
+
+         assertQueriesEqual(random, planarRegionsList, indexedPlanarRegionsList);
+      }
+   }
+
+   private static void assertQueriesEqual(Random random, PlanarRegionsList expectedList, PlanarRegionsList indexedList)
+   {
+      List<PlanarRegion> packedResult = new ArrayList<>();
+
+      for (int i = 0; i < 200; i++)
+      {
+         double x = RandomNumbers.nextDouble(random, 15.0);
+         double y = RandomNumbers.nextDouble(random, 15.0);
+
+         ConvexPolygon2D polygon = new ConvexPolygon2D();
+         double halfSize = RandomNumbers.nextDouble(random, 0.01, 1.0);
+         polygon.addVertex(x - halfSize, y - halfSize);
+         polygon.addVertex(x + halfSize, y - halfSize);
+         polygon.addVertex(x + halfSize, y + halfSize);
+         polygon.addVertex(x - halfSize, y + halfSize);
+         polygon.update();
+
+         assertEquals(expectedList.findPlanarRegionsIntersectingPolygon(polygon), indexedList.findPlanarRegionsIntersectingPolygon(polygon));
+         assertEquals(expectedList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y),
+                      indexedList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y));
+         assertTrue(expectedList.findClosestPlanarRegionToPointByProjectionOntoXYPlane(x, y) == indexedList.findClosestPlanarRegionToPointByProjectionOntoXYPlane(x, y));
+
+         packedResult.clear();
+         indexedList.findPlanarRegionsIntersectingPolygon(polygon, packedResult);
+         List<PlanarRegion> expectedResult = expectedList.findPlanarRegionsIntersectingPolygon(polygon);
+         assertEquals(expectedResult == null ? 0 : expectedResult.size(), packedResult.size());
+      }
+   }
+
    public static void main(String[] args)
    {
       MutationTestFacilitator.facilitateMutationTestForClass(PlanarRegionsList.class, PlanarRegionsListTest.class);
@@ -0,0 +1,70 @@
+package us.ihmc.robotics.math.trajectories;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.referenceFrame.FramePoint3D;
+import us.ihmc.euclid.referenceFrame.FrameVector3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameRandomTools;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameTestTools;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class YoFrameTrajectory3DTest
+{
+   private static final double EPSILON = 1.0e-9;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBatchCompute()
+   {
+      Random random = new Random(2398L);
+      ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+      ReferenceFrame trajectoryFrame = EuclidFrameRandomTools.nextReferenceFrame("trajectoryFrame", random, worldFrame);
+      YoFrameTrajectory3D trajectory = new YoFrameTrajectory3D("trajectory", 6, trajectoryFrame, new YoVariableRegistry("test"));
+
+      for (int iteration = 0; iteration < 20; iteration++)
+      {
+         double t0 = RandomNumbers.nextDouble(random, 1.0);
+         double tFinal = t0 + RandomNumbers.nextDouble(random, 0.1, 2.0);
+         trajectory.setQuintic(t0, tFinal, EuclidFrameRandomTools.nextFramePoint3D(random, trajectoryFrame, 1.0, 1.0, 1.0),
+                               EuclidFrameRandomTools.nextFrameVector3D(random, trajectoryFrame),
+                               EuclidFrameRandomTools.nextFrameVector3D(random, trajectoryFrame),
+                               EuclidFrameRandomTools.nextFramePoint3D(random, trajectoryFrame, 1.0, 1.0, 1.0),
+                               EuclidFrameRandomTools.nextFrameVector3D(random, trajectoryFrame),
+                               EuclidFrameRandomTools.nextFrameVector3D(random, trajectoryFrame));
+
+         double[] times = new double[50];
+         FramePoint3D[] positions = new FramePoint3D[times.length];
+         FrameVector3D[] velocities = new FrameVector3D[times.length];
+         FrameVector3D[] accelerations = new FrameVector3D[times.length];
+
+         for (int i = 0; i < times.length; i++)
+         {
+            times[i] = RandomNumbers.nextDouble(random, t0, tFinal);
+            // The outputs are switched to the frame of the trajectory.
+            positions[i] = EuclidFrameRandomTools.nextFramePoint3D(random, worldFrame, 1.0, 1.0, 1.0);
+            velocities[i] = EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame);
+            accelerations[i] = EuclidFrameRandomTools.nextFrameVector3D(random, worldFrame);
+         }
+
+         trajectory.compute(times, positions, velocities, accelerations);
+
+         for (int i = 0; i < times.length; i++)
+         {
+            trajectory.compute(times[i]);
+            assertTrue(positions[i].getReferenceFrame() == trajectoryFrame);
+            assertTrue(velocities[i].getReferenceFrame() == trajectoryFrame);
+            assertTrue(accelerations[i].getReferenceFrame() == trajectoryFrame);
+            EuclidFrameTestTools.assertFrameTuple3DEquals(trajectory.getFramePosition(), positions[i], EPSILON);
+            EuclidFrameTestTools.assertFrameTuple3DEquals(trajectory.getFrameVelocity(), velocities[i], EPSILON);
+            EuclidFrameTestTools.assertFrameTuple3DEquals(trajectory.getFrameAcceleration(), accelerations[i], EPSILON);
+         }
+      }
+   }
+}
@@ -0,0 +1,66 @@
+package us.ihmc.robotics.math.trajectories;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class YoPolynomial3DTest
+{
+   private static final double EPSILON = 1.0e-9;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBatchCompute()
+   {
+      Random random = new Random(4531L);
+      YoPolynomial3D polynomial = new YoPolynomial3D("polynomial", 6, new YoVariableRegistry("test"));
+
+      for (int iteration = 0; iteration < 20; iteration++)
+      {
+         double t0 = RandomNumbers.nextDouble(random, 1.0);
+         double tFinal = t0 + RandomNumbers.nextDouble(random, 0.1, 2.0);
+         polynomial.setQuintic(t0, tFinal, EuclidCoreRandomTools.nextPoint3D(random, 1.0), EuclidCoreRandomTools.nextVector3D(random),
+                               EuclidCoreRandomTools.nextVector3D(random), EuclidCoreRandomTools.nextPoint3D(random, 1.0),
+                               EuclidCoreRandomTools.nextVector3D(random), EuclidCoreRandomTools.nextVector3D(random));
+
+         double[] times = new double[50];
+         Point3D[] positions = new Point3D[times.length];
+         Vector3D[] velocities = new Vector3D[times.length];
+         Vector3D[] accelerations = new Vector3D[times.length];
+
+         for (int i = 0; i < times.length; i++)
+         {
+            times[i] = RandomNumbers.nextDouble(random, t0, tFinal);
+            positions[i] = new Point3D();
+            velocities[i] = new Vector3D();
+            accelerations[i] = new Vector3D();
+         }
+
+         polynomial.compute(times, positions, velocities, accelerations);
+
+         for (int i = 0; i < times.length; i++)
+         {
+            polynomial.compute(times[i]);
+            EuclidCoreTestTools.assertTuple3DEquals(polynomial.getPosition(), positions[i], EPSILON);
+            EuclidCoreTestTools.assertTuple3DEquals(polynomial.getVelocity(), velocities[i], EPSILON);
+            EuclidCoreTestTools.assertTuple3DEquals(polynomial.getAcceleration(), accelerations[i], EPSILON);
+         }
+
+         // Outputs that are not needed can be skipped.
+         Point3D[] onlyPositions = new Point3D[times.length];
+         for (int i = 0; i < times.length; i++)
+            onlyPositions[i] = new Point3D();
+         polynomial.compute(times, onlyPositions, null, null);
+         for (int i = 0; i < times.length; i++)
+            EuclidCoreTestTools.assertTuple3DEquals(positions[i], onlyPositions[i], 0.0);
+      }
+   }
+}
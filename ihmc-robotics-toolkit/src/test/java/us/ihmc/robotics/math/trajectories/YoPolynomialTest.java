@@ -3,11 +3,13 @@ package us.ihmc.robotics.math.trajectories;
 import static org.junit.Assert.assertEquals;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import org.ejml.data.DenseMatrix64F;
 import org.junit.Test;
 
 import us.ihmc.commons.PrintTools;
+import us.ihmc.commons.RandomNumbers;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 
@@ -190,8 +192,120 @@ public class YoPolynomialTest
          compareDerivativeVersions(cubic, x);
       }
    }
-   
-   
+
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testClosedFormCubicAndQuintic()
+   {
+      Random random = new Random(4523L);
+      YoVariableRegistry registry = new YoVariableRegistry(namePrefix);
+      YoPolynomial cubic = new YoPolynomial(namePrefix + "Cubic", 4, registry);
+      YoPolynomial quintic = new YoPolynomial(namePrefix + "Quintic", 6, registry);
+
+      for (int i = 0; i < 100; i++)
+      {
+         double t0 = RandomNumbers.nextDouble(random, 2.0);
+         double tf = t0 + RandomNumbers.nextDouble(random, 0.5, 2.0);
+         double z0 = RandomNumbers.nextDouble(random, 1.0), zd0 = RandomNumbers.nextDouble(random, 1.0), zdd0 = RandomNumbers.nextDouble(random, 1.0);
+         double zf = RandomNumbers.nextDouble(random, 1.0), zdf = RandomNumbers.nextDouble(random, 1.0), zddf = RandomNumbers.nextDouble(random, 1.0);
+
+         cubic.setCubic(t0, tf, z0, zd0, zf, zdf);
+         cubic.compute(t0);
+         assertEquals(z0, cubic.getPosition(), EPSILON);
+         assertEquals(zd0, cubic.getVelocity(), EPSILON);
+         cubic.compute(tf);
+         assertEquals(zf, cubic.getPosition(), EPSILON);
+         assertEquals(zdf, cubic.getVelocity(), EPSILON);
+
+         quintic.setQuintic(t0, tf, z0, zd0, zdd0, zf, zdf, zddf);
+         quintic.compute(t0);
+         assertEquals(z0, quintic.getPosition(), EPSILON);
+         assertEquals(zd0, quintic.getVelocity(), EPSILON);
+         assertEquals(zdd0, quintic.getAcceleration(), EPSILON);
+         quintic.compute(tf);
+         assertEquals(zf, quintic.getPosition(), EPSILON);
+         assertEquals(zdf, quintic.getVelocity(), EPSILON);
+         assertEquals(zddf, quintic.getAcceleration(), EPSILON);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBatchCompute()
+   {
+      Random random = new Random(9823L);
+      YoVariableRegistry registry = new YoVariableRegistry(namePrefix);
+      YoPolynomial polynomial = new YoPolynomial(namePrefix + "Polynomial", 8, registry);
+
+      for (int numberOfCoefficients = 1; numberOfCoefficients <= 8; numberOfCoefficients++)
+      {
+         double[] coefficients = RandomNumbers.nextDoubleArray(random, numberOfCoefficients, 1.0);
+         polynomial.setDirectly(coefficients);
+
+         double[] times = RandomNumbers.nextDoubleArray(random, 50, 2.0);
+         double[] positions = new double[times.length];
+         double[] velocities = new double[times.length];
+         double[] accelerations = new double[times.length];
+         polynomial.compute(times, positions, velocities, accelerations);
+
+         for (int i = 0; i < times.length; i++)
+         {
+            polynomial.compute(times[i]);
+            assertEquals(polynomial.getPosition(), positions[i], EPSILON);
+            assertEquals(polynomial.getVelocity(), velocities[i], EPSILON);
+            assertEquals(polynomial.getAcceleration(), accelerations[i], EPSILON);
+         }
+
+         // Outputs that are not needed can be skipped.
+         double[] onlyPositions = new double[times.length];
+         polynomial.compute(times, onlyPositions, null, null);
+         for (int i = 0; i < times.length; i++)
+            assertEquals(positions[i], onlyPositions[i], 0.0);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBatchComputeOverRangeWithTimeOffset()
+   {
+      Random random = new Random(3412L);
+      YoVariableRegistry registry = new YoVariableRegistry(namePrefix);
+      YoPolynomial polynomial = new YoPolynomial(namePrefix + "Polynomial", 6, registry);
+      polynomial.setDirectly(RandomNumbers.nextDoubleArray(random, 6, 1.0));
+
+      double timeOffset = RandomNumbers.nextDouble(random, 5.0);
+      double[] times = RandomNumbers.nextDoubleArray(random, 50, 2.0);
+      double[] positions = new double[times.length];
+      double[] velocities = new double[times.length];
+      double[] accelerations = new double[times.length];
+      Arrays.fill(positions, Double.NaN);
+      Arrays.fill(velocities, Double.NaN);
+      Arrays.fill(accelerations, Double.NaN);
+
+      int fromIndex = 10;
+      int toIndex = 35;
+      polynomial.compute(times, fromIndex, toIndex, timeOffset, positions, velocities, accelerations);
+
+      for (int i = 0; i < times.length; i++)
+      {
+         if (i < fromIndex || i >= toIndex)
+         {
+            // The samples outside of the range are not modified.
+            assertEquals(Double.NaN, positions[i], 0.0);
+            assertEquals(Double.NaN, velocities[i], 0.0);
+            assertEquals(Double.NaN, accelerations[i], 0.0);
+         }
+         else
+         {
+            polynomial.compute(times[i] - timeOffset);
+            assertEquals(polynomial.getPosition(), positions[i], EPSILON);
+            assertEquals(polynomial.getVelocity(), velocities[i], EPSILON);
+            assertEquals(polynomial.getAcceleration(), accelerations[i], EPSILON);
+         }
+      }
+   }
+
    public void compareDerivativesPoint(YoPolynomial polynomial, double x)
    {
       double[] coefficients = polynomial.getCoefficients();
@@ -1,15 +1,22 @@
 package us.ihmc.robotics.math.trajectories.waypoints;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.Test;
 
+import us.ihmc.commons.RandomNumbers;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
 import us.ihmc.continuousIntegration.IntegrationCategory;
 import us.ihmc.euclid.referenceFrame.FramePoint3D;
 import us.ihmc.euclid.referenceFrame.FrameVector3D;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameRandomTools;
+import us.ihmc.euclid.referenceFrame.tools.EuclidFrameTestTools;
 import us.ihmc.robotics.math.trajectories.StraightLinePositionTrajectoryGenerator;
 import us.ihmc.robotics.trajectories.providers.ConstantDoubleProvider;
 import us.ihmc.robotics.trajectories.providers.ConstantPositionProvider;
@@ -94,4 +101,89 @@ public class MultipleWaypointsPositionTrajectoryGeneratorTest
 
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBatchCompute()
+   {
+      YoVariableRegistry registry = new YoVariableRegistry("traj");
+      Random random = new Random(1298L);
+      ReferenceFrame trajectoryFrame = EuclidFrameRandomTools.nextReferenceFrame("trajectoryFrame", random, ReferenceFrame.getWorldFrame());
+
+      int numberOfWaypoints = 6;
+      MultipleWaypointsPositionTrajectoryGenerator batchTrajectory = new MultipleWaypointsPositionTrajectoryGenerator("batchTraj", 10, trajectoryFrame,
+                                                                                                                       registry);
+      MultipleWaypointsPositionTrajectoryGenerator scalarTrajectory = new MultipleWaypointsPositionTrajectoryGenerator("scalarTraj", 10, trajectoryFrame,
+                                                                                                                        registry);
+
+      double[] waypointTimes = new double[numberOfWaypoints];
+      double timeAtWaypoint = 0.0;
+
+      for (int i = 0; i < numberOfWaypoints; i++)
+      {
+         waypointTimes[i] = timeAtWaypoint;
+         FramePoint3D position = EuclidFrameRandomTools.nextFramePoint3D(random, trajectoryFrame, 1.0, 1.0, 1.0);
+         FrameVector3D velocity = EuclidFrameRandomTools.nextFrameVector3D(random, trajectoryFrame);
+         batchTrajectory.appendWaypoint(timeAtWaypoint, position, velocity);
+         scalarTrajectory.appendWaypoint(timeAtWaypoint, position, velocity);
+         timeAtWaypoint += RandomNumbers.nextDouble(random, 0.1, 0.5);
+      }
+
+      batchTrajectory.initialize();
+      scalarTrajectory.initialize();
+
+      // Sorted times that start before the first waypoint, end after the last, and include the waypoint times.
+      double[] sortedTimes = new double[100 + numberOfWaypoints];
+      for (int i = 0; i < 100; i++)
+         sortedTimes[i] = RandomNumbers.nextDouble(random, -0.2, waypointTimes[numberOfWaypoints - 1] + 0.2);
+      System.arraycopy(waypointTimes, 0, sortedTimes, 100, numberOfWaypoints);
+      Arrays.sort(sortedTimes);
+
+      double[] unsortedTimes = RandomNumbers.nextDoubleArray(random, 50, -0.2, waypointTimes[numberOfWaypoints - 1] + 0.2);
+
+      FramePoint3D expectedPosition = new FramePoint3D();
+      FrameVector3D expectedVelocity = new FrameVector3D();
+      FrameVector3D expectedAcceleration = new FrameVector3D();
+
+      for (double[] times : new double[][] {sortedTimes, unsortedTimes})
+      {
+         batchTrajectory.compute(0.5 * waypointTimes[2]);
+         FramePoint3D positionBefore = new FramePoint3D();
+         FrameVector3D velocityBefore = new FrameVector3D();
+         FrameVector3D accelerationBefore = new FrameVector3D();
+         batchTrajectory.getLinearData(positionBefore, velocityBefore, accelerationBefore);
+         boolean isDoneBefore = batchTrajectory.isDone();
+
+         FramePoint3D[] positions = new FramePoint3D[times.length];
+         FrameVector3D[] velocities = new FrameVector3D[times.length];
+         FrameVector3D[] accelerations = new FrameVector3D[times.length];
+
+         for (int i = 0; i < times.length; i++)
+         {
+            positions[i] = new FramePoint3D();
+            velocities[i] = new FrameVector3D();
+            accelerations[i] = new FrameVector3D();
+         }
+
+         batchTrajectory.compute(times, positions, velocities, accelerations);
+
+         for (int i = 0; i < times.length; i++)
+         {
+            scalarTrajectory.compute(times[i]);
+            scalarTrajectory.getLinearData(expectedPosition, expectedVelocity, expectedAcceleration);
+            EuclidFrameTestTools.assertFrameTuple3DEquals(expectedPosition, positions[i], 1.0e-10);
+            EuclidFrameTestTools.assertFrameTuple3DEquals(expectedVelocity, velocities[i], 1.0e-10);
+            EuclidFrameTestTools.assertFrameTuple3DEquals(expectedAcceleration, accelerations[i], 1.0e-10);
+         }
+
+         // The state of the trajectory is the same as before sampling.
+         FramePoint3D positionAfter = new FramePoint3D();
+         FrameVector3D velocityAfter = new FrameVector3D();
+         FrameVector3D accelerationAfter = new FrameVector3D();
+         batchTrajectory.getLinearData(positionAfter, velocityAfter, accelerationAfter);
+         EuclidFrameTestTools.assertFrameTuple3DEquals(positionBefore, positionAfter, 0.0);
+         EuclidFrameTestTools.assertFrameTuple3DEquals(velocityBefore, velocityAfter, 0.0);
+         EuclidFrameTestTools.assertFrameTuple3DEquals(accelerationBefore, accelerationAfter, 0.0);
+         assertEquals(isDoneBefore, batchTrajectory.isDone());
+      }
+   }
 }
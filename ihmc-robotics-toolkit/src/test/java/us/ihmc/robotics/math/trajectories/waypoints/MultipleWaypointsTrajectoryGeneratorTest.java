@@ -2,10 +2,12 @@ package us.ihmc.robotics.math.trajectories.waypoints;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.Test;
 
+import us.ihmc.commons.RandomNumbers;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
 import us.ihmc.continuousIntegration.IntegrationCategory;
@@ -113,4 +115,69 @@ public class MultipleWaypointsTrajectoryGeneratorTest
          assertEquals(velocities[i], multipleWaypointsTrajectory.getVelocity(), EPSILON );
       }
    }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBatchCompute()
+   {
+      YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+      Random random = new Random(6734L);
+
+      int numberOfWaypoints = 6;
+      MultipleWaypointsTrajectoryGenerator batchTrajectory = new MultipleWaypointsTrajectoryGenerator("batchTraj", 10, registry);
+      MultipleWaypointsTrajectoryGenerator scalarTrajectory = new MultipleWaypointsTrajectoryGenerator("scalarTraj", 10, registry);
+
+      double[] waypointTimes = new double[numberOfWaypoints];
+      double timeAtWaypoint = 0.0;
+
+      for (int i = 0; i < numberOfWaypoints; i++)
+      {
+         waypointTimes[i] = timeAtWaypoint;
+         double position = RandomNumbers.nextDouble(random, 1.0);
+         double velocity = RandomNumbers.nextDouble(random, 1.0);
+         batchTrajectory.appendWaypoint(timeAtWaypoint, position, velocity);
+         scalarTrajectory.appendWaypoint(timeAtWaypoint, position, velocity);
+         timeAtWaypoint += RandomNumbers.nextDouble(random, 0.1, 0.5);
+      }
+
+      batchTrajectory.initialize();
+      scalarTrajectory.initialize();
+
+      // Sorted times that start before the first waypoint, end after the last, and include the waypoint times.
+      double[] sortedTimes = new double[100 + numberOfWaypoints];
+      for (int i = 0; i < 100; i++)
+         sortedTimes[i] = RandomNumbers.nextDouble(random, -0.2, waypointTimes[numberOfWaypoints - 1] + 0.2);
+      System.arraycopy(waypointTimes, 0, sortedTimes, 100, numberOfWaypoints);
+      Arrays.sort(sortedTimes);
+
+      double[] unsortedTimes = RandomNumbers.nextDoubleArray(random, 50, -0.2, waypointTimes[numberOfWaypoints - 1] + 0.2);
+
+      for (double[] times : new double[][] {sortedTimes, unsortedTimes})
+      {
+         batchTrajectory.compute(0.5 * waypointTimes[2]);
+         double valueBefore = batchTrajectory.getValue();
+         double velocityBefore = batchTrajectory.getVelocity();
+         double accelerationBefore = batchTrajectory.getAcceleration();
+         boolean isDoneBefore = batchTrajectory.isDone();
+
+         double[] positions = new double[times.length];
+         double[] velocities = new double[times.length];
+         double[] accelerations = new double[times.length];
+         batchTrajectory.compute(times, positions, velocities, accelerations);
+
+         for (int i = 0; i < times.length; i++)
+         {
+            scalarTrajectory.compute(times[i]);
+            assertEquals(scalarTrajectory.getValue(), positions[i], 1.0e-10);
+            assertEquals(scalarTrajectory.getVelocity(), velocities[i], 1.0e-10);
+            assertEquals(scalarTrajectory.getAcceleration(), accelerations[i], 1.0e-10);
+         }
+
+         // The state of the trajectory is the same as before sampling.
+         assertEquals(valueBefore, batchTrajectory.getValue(), 0.0);
+         assertEquals(velocityBefore, batchTrajectory.getVelocity(), 0.0);
+         assertEquals(accelerationBefore, batchTrajectory.getAcceleration(), 0.0);
+         assertEquals(isDoneBefore, batchTrajectory.isDone());
+      }
+   }
 }
@@ -0,0 +1,123 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.robotics.random.RandomGeometry;
+
+public class ArticulatedBodyForwardDynamicsCalculatorTest
+{
+   private static final int ITERATIONS = 100;
+   private static final double EPSILON = 1.0e-7;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstInverseDynamicsCalculatorWithFixedBaseTree()
+   {
+      Random random = new Random(8734L);
+      List<OneDoFJoint> joints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints(30, random);
+      RigidBody rootBody = ScrewTools.getRootBody(joints.get(0).getPredecessor());
+
+      InverseDynamicsCalculator inverseDynamicsCalculator = new InverseDynamicsCalculator(rootBody, -9.81);
+      ArticulatedBodyForwardDynamicsCalculator forwardDynamicsCalculator = new ArticulatedBodyForwardDynamicsCalculator(rootBody, -9.81);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositions(joints, random);
+         ScrewTestTools.setRandomVelocities(joints, random);
+         ScrewTestTools.setRandomTorques(joints, random);
+         rootBody.updateFramesRecursively();
+
+         compareWithInverseDynamics(random, joints, null, inverseDynamicsCalculator, forwardDynamicsCalculator);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstInverseDynamicsCalculatorWithFloatingTree()
+   {
+      Random random = new Random(6572L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody pelvis = ScrewTestTools.addRandomRigidBody("pelvis", random, rootJoint);
+      List<OneDoFJoint> oneDoFJoints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints("test", pelvis, 30, random);
+
+      InverseDynamicsCalculator inverseDynamicsCalculator = new InverseDynamicsCalculator(elevator, -9.81);
+      ArticulatedBodyForwardDynamicsCalculator forwardDynamicsCalculator = new ArticulatedBodyForwardDynamicsCalculator(elevator, -9.81);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomVelocity(rootJoint, random);
+         Wrench rootJointWrench = new Wrench(pelvis.getBodyFixedFrame(), pelvis.getBodyFixedFrame());
+         rootJointWrench.setAngularPart(RandomGeometry.nextVector3D(random));
+         rootJointWrench.setLinearPart(RandomGeometry.nextVector3D(random));
+         rootJoint.setWrench(rootJointWrench);
+         ScrewTestTools.setRandomPositions(oneDoFJoints, random);
+         ScrewTestTools.setRandomVelocities(oneDoFJoints, random);
+         ScrewTestTools.setRandomTorques(oneDoFJoints, random);
+         elevator.updateFramesRecursively();
+
+         compareWithInverseDynamics(random, oneDoFJoints, rootJoint, inverseDynamicsCalculator, forwardDynamicsCalculator);
+      }
+   }
+
+   /**
+    * Computes the joint accelerations with the forward dynamics, and verifies that the inverse
+    * dynamics gives back the original joint torques.
+    */
+   private static void compareWithInverseDynamics(Random random, List<OneDoFJoint> oneDoFJoints, SixDoFJoint rootJoint,
+                                                  InverseDynamicsCalculator inverseDynamicsCalculator,
+                                                  ArticulatedBodyForwardDynamicsCalculator forwardDynamicsCalculator)
+   {
+      inverseDynamicsCalculator.reset();
+      forwardDynamicsCalculator.reset();
+
+      for (int i = 0; i < 3; i++)
+      {
+         RigidBody body = oneDoFJoints.get(random.nextInt(oneDoFJoints.size())).getSuccessor();
+         Wrench externalWrench = new Wrench(body.getBodyFixedFrame(), body.getBodyFixedFrame());
+         externalWrench.setAngularPart(RandomGeometry.nextVector3D(random));
+         externalWrench.setLinearPart(RandomGeometry.nextVector3D(random));
+         inverseDynamicsCalculator.setExternalWrench(body, externalWrench);
+         forwardDynamicsCalculator.setExternalWrench(body, externalWrench);
+      }
+
+      List<Double> expectedTaus = new ArrayList<>();
+      for (OneDoFJoint joint : oneDoFJoints)
+         expectedTaus.add(joint.getTau());
+      Wrench expectedRootJointWrench = new Wrench();
+      if (rootJoint != null)
+         rootJoint.getWrench(expectedRootJointWrench);
+
+      forwardDynamicsCalculator.compute();
+      forwardDynamicsCalculator.writeComputedJointAccelerations();
+
+      DenseMatrix64F jointAccelerations = new DenseMatrix64F(forwardDynamicsCalculator.getJointAccelerationMatrix().getNumRows(), 1);
+      ScrewTools.getDesiredJointAccelerationsMatrix(forwardDynamicsCalculator.getJointsInOrder(), jointAccelerations);
+      for (int i = 0; i < jointAccelerations.getNumRows(); i++)
+         assertEquals(forwardDynamicsCalculator.getJointAccelerationMatrix().get(i, 0), jointAccelerations.get(i, 0), 0.0);
+
+      inverseDynamicsCalculator.compute();
+
+      for (int jointIndex = 0; jointIndex < oneDoFJoints.size(); jointIndex++)
+         assertEquals(expectedTaus.get(jointIndex), oneDoFJoints.get(jointIndex).getTau(), EPSILON);
+
+      if (rootJoint != null)
+      {
+         Wrench actualRootJointWrench = new Wrench();
+         rootJoint.getWrench(actualRootJointWrench);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedRootJointWrench.getAngularPart(), actualRootJointWrench.getAngularPart(), EPSILON);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedRootJointWrench.getLinearPart(), actualRootJointWrench.getLinearPart(), EPSILON);
+      }
+   }
+}
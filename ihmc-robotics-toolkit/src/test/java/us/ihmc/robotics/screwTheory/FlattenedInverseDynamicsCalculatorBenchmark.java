@@ -0,0 +1,76 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.List;
+import java.util.Random;
+
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+
+/**
+ * Compares the computation time of {@link InverseDynamicsCalculator} and
+ * {@link FlattenedInverseDynamicsCalculator} on random floating trees of the size of Atlas and
+ * Valkyrie.
+ */
+public class FlattenedInverseDynamicsCalculatorBenchmark
+{
+   private static final int WARMUP_ITERATIONS = 20000;
+   private static final int ITERATIONS = 100000;
+
+   public static void main(String[] args)
+   {
+      for (int numberOfJoints : new int[] {30, 40})
+      {
+         Random random = new Random(5641L);
+         RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+         SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+         RigidBody pelvis = ScrewTestTools.addRandomRigidBody("pelvis", random, rootJoint);
+         List<OneDoFJoint> joints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints("test", pelvis, numberOfJoints, random);
+         RigidBody foot = joints.get(joints.size() - 1).getSuccessor();
+
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomVelocity(rootJoint, random);
+         ScrewTestTools.setRandomPositions(joints, random);
+         ScrewTestTools.setRandomVelocities(joints, random);
+         ScrewTestTools.setRandomDesiredAccelerations(joints, random);
+         elevator.updateFramesRecursively();
+
+         Wrench externalWrench = new Wrench(foot.getBodyFixedFrame(), foot.getBodyFixedFrame());
+         externalWrench.setLinearPartZ(500.0);
+
+         InverseDynamicsCalculator inverseDynamicsCalculator = new InverseDynamicsCalculator(elevator, -9.81);
+         FlattenedInverseDynamicsCalculator flattenedInverseDynamicsCalculator = new FlattenedInverseDynamicsCalculator(elevator, -9.81);
+
+         Runnable original = () ->
+         {
+            inverseDynamicsCalculator.reset();
+            inverseDynamicsCalculator.setExternalWrench(foot, externalWrench);
+            inverseDynamicsCalculator.compute();
+         };
+         Runnable flattened = () ->
+         {
+            flattenedInverseDynamicsCalculator.reset();
+            flattenedInverseDynamicsCalculator.setExternalWrench(foot, externalWrench);
+            flattenedInverseDynamicsCalculator.compute();
+         };
+
+         run(original, WARMUP_ITERATIONS);
+         run(flattened, WARMUP_ITERATIONS);
+
+         double originalTime = run(original, ITERATIONS);
+         double flattenedTime = run(flattened, ITERATIONS);
+
+         System.out.println(String.format("%d joints: InverseDynamicsCalculator: %.2f us, FlattenedInverseDynamicsCalculator: %.2f us, speedup: %.1f",
+                                          numberOfJoints + 1, originalTime, flattenedTime, originalTime / flattenedTime));
+      }
+   }
+
+   /**
+    * @return the average time in microseconds of one call.
+    */
+   private static double run(Runnable runnable, int iterations)
+   {
+      long startTime = System.nanoTime();
+      for (int i = 0; i < iterations; i++)
+         runnable.run();
+      return (System.nanoTime() - startTime) / 1.0e3 / iterations;
+   }
+}
@@ -0,0 +1,143 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.robotics.random.RandomGeometry;
+
+public class FlattenedInverseDynamicsCalculatorTest
+{
+   private static final int ITERATIONS = 100;
+   private static final double EPSILON = 1.0e-9;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstInverseDynamicsCalculatorWithFixedBaseTree()
+   {
+      Random random = new Random(4534L);
+      List<OneDoFJoint> joints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints(30, random);
+      RigidBody rootBody = ScrewTools.getRootBody(joints.get(0).getPredecessor());
+
+      InverseDynamicsCalculator expectedCalculator = new InverseDynamicsCalculator(rootBody, -9.81);
+      FlattenedInverseDynamicsCalculator actualCalculator = new FlattenedInverseDynamicsCalculator(rootBody, -9.81);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositions(joints, random);
+         ScrewTestTools.setRandomVelocities(joints, random);
+         ScrewTestTools.setRandomDesiredAccelerations(joints, random);
+         rootBody.updateFramesRecursively();
+
+         compareCalculators(random, rootBody, joints, expectedCalculator, actualCalculator);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstInverseDynamicsCalculatorWithFloatingTree()
+   {
+      Random random = new Random(2342L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody pelvis = ScrewTestTools.addRandomRigidBody("pelvis", random, rootJoint);
+      List<OneDoFJoint> oneDoFJoints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints("test", pelvis, 30, random);
+
+      List<InverseDynamicsJoint> joints = new ArrayList<>();
+      joints.add(rootJoint);
+      joints.addAll(oneDoFJoints);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         boolean doVelocityTerms = random.nextBoolean();
+         boolean doAccelerationTerms = random.nextBoolean();
+         SpatialAccelerationVector rootAcceleration = new SpatialAccelerationVector(elevator.getBodyFixedFrame(), ReferenceFrame.getWorldFrame(),
+                                                                                    elevator.getBodyFixedFrame());
+         rootAcceleration.setAngularPart(EuclidCoreRandomTools.nextVector3D(random, -10.0, 10.0));
+         rootAcceleration.setLinearPart(EuclidCoreRandomTools.nextVector3D(random, -10.0, 10.0));
+         List<InverseDynamicsJoint> jointsToIgnore = new ArrayList<>();
+         InverseDynamicsCalculator expectedCalculator = new InverseDynamicsCalculator(elevator, rootAcceleration, jointsToIgnore, doVelocityTerms,
+                                                                                      doAccelerationTerms);
+         FlattenedInverseDynamicsCalculator actualCalculator = new FlattenedInverseDynamicsCalculator(elevator, rootAcceleration, jointsToIgnore,
+                                                                                                      doVelocityTerms, doAccelerationTerms);
+
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomVelocity(rootJoint, random);
+         SpatialAccelerationVector rootJointAcceleration = new SpatialAccelerationVector();
+         rootJoint.getDesiredJointAcceleration(rootJointAcceleration);
+         rootJointAcceleration.setAngularPart(RandomGeometry.nextVector3D(random));
+         rootJointAcceleration.setLinearPart(RandomGeometry.nextVector3D(random));
+         rootJoint.setDesiredAcceleration(rootJointAcceleration);
+         ScrewTestTools.setRandomPositions(oneDoFJoints, random);
+         ScrewTestTools.setRandomVelocities(oneDoFJoints, random);
+         ScrewTestTools.setRandomDesiredAccelerations(oneDoFJoints, random);
+         elevator.updateFramesRecursively();
+
+         compareCalculators(random, elevator, joints, expectedCalculator, actualCalculator);
+      }
+   }
+
+   private static void compareCalculators(Random random, RigidBody rootBody, List<? extends InverseDynamicsJoint> joints,
+                                          InverseDynamicsCalculator expectedCalculator, FlattenedInverseDynamicsCalculator actualCalculator)
+   {
+      expectedCalculator.reset();
+      actualCalculator.reset();
+
+      for (int i = 0; i < 3; i++)
+      {
+         RigidBody body = joints.get(random.nextInt(joints.size())).getSuccessor();
+         Wrench externalWrench = new Wrench(body.getBodyFixedFrame(), body.getBodyFixedFrame());
+         externalWrench.setAngularPart(RandomGeometry.nextVector3D(random));
+         externalWrench.setLinearPart(RandomGeometry.nextVector3D(random));
+         expectedCalculator.setExternalWrench(body, externalWrench);
+         actualCalculator.setExternalWrench(body, externalWrench);
+      }
+
+      expectedCalculator.compute();
+      List<Wrench> expectedJointWrenches = new ArrayList<>();
+      List<Double> expectedTaus = new ArrayList<>();
+
+      for (InverseDynamicsJoint joint : joints)
+      {
+         Wrench jointWrench = new Wrench();
+         expectedCalculator.getJointWrench(joint, jointWrench);
+         expectedJointWrenches.add(jointWrench);
+         if (joint instanceof OneDoFJoint)
+            expectedTaus.add(((OneDoFJoint) joint).getTau());
+         else
+            expectedTaus.add(Double.NaN);
+      }
+
+      actualCalculator.compute();
+
+      for (int jointIndex = 0; jointIndex < joints.size(); jointIndex++)
+      {
+         InverseDynamicsJoint joint = joints.get(jointIndex);
+         Wrench expectedJointWrench = expectedJointWrenches.get(jointIndex);
+         Wrench actualJointWrench = new Wrench();
+         actualCalculator.getJointWrench(joint, actualJointWrench);
+
+         assertEquals(expectedJointWrench.getBodyFrame(), actualJointWrench.getBodyFrame());
+         assertEquals(expectedJointWrench.getExpressedInFrame(), actualJointWrench.getExpressedInFrame());
+         EuclidCoreTestTools.assertTuple3DEquals(expectedJointWrench.getAngularPart(), actualJointWrench.getAngularPart(), EPSILON);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedJointWrench.getLinearPart(), actualJointWrench.getLinearPart(), EPSILON);
+
+         if (joint instanceof OneDoFJoint)
+            assertEquals(expectedTaus.get(jointIndex), ((OneDoFJoint) joint).getTau(), EPSILON);
+      }
+
+      Wrench expectedTotalExternalWrench = expectedCalculator.computeTotalExternalWrench(rootBody.getBodyFixedFrame());
+      Wrench actualTotalExternalWrench = new Wrench();
+      actualCalculator.computeTotalExternalWrench(rootBody.getBodyFixedFrame(), actualTotalExternalWrench);
+      EuclidCoreTestTools.assertTuple3DEquals(expectedTotalExternalWrench.getAngularPart(), actualTotalExternalWrench.getAngularPart(), EPSILON);
+      EuclidCoreTestTools.assertTuple3DEquals(expectedTotalExternalWrench.getLinearPart(), actualTotalExternalWrench.getLinearPart(), EPSILON);
+   }
+}
@@ -0,0 +1,134 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.ejml.ops.RandomMatrices;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.robotics.random.RandomGeometry;
+
+public class MassMatrixLTDLFactorizationTest
+{
+   private static final int ITERATIONS = 50;
+   private static final double EPSILON = 1.0e-8;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testSolveWithFloatingTree()
+   {
+      Random random = new Random(3451L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody pelvis = ScrewTestTools.addRandomRigidBody("pelvis", random, rootJoint);
+      List<OneDoFJoint> oneDoFJoints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints("test", pelvis, 30, random);
+
+      CompositeRigidBodyMassMatrixCalculator massMatrixCalculator = new CompositeRigidBodyMassMatrixCalculator(elevator);
+      MassMatrixLTDLFactorization factorization = new MassMatrixLTDLFactorization(massMatrixCalculator.getJointsInOrder());
+      int degreesOfFreedom = factorization.getDegreesOfFreedom();
+      assertEquals(36, degreesOfFreedom);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomPositions(oneDoFJoints, random);
+         elevator.updateFramesRecursively();
+
+         massMatrixCalculator.compute();
+         DenseMatrix64F massMatrix = massMatrixCalculator.getMassMatrix();
+         assertTrue(factorization.factorize(massMatrix));
+
+         DenseMatrix64F b = RandomMatrices.createRandom(degreesOfFreedom, 3, -10.0, 10.0, random);
+         DenseMatrix64F x = new DenseMatrix64F(degreesOfFreedom, 3);
+         factorization.solve(b, x);
+
+         DenseMatrix64F massMatrixTimesX = new DenseMatrix64F(degreesOfFreedom, 3);
+         CommonOps.mult(massMatrix, x, massMatrixTimesX);
+
+         for (int row = 0; row < degreesOfFreedom; row++)
+         {
+            for (int column = 0; column < 3; column++)
+               assertEquals(b.get(row, column), massMatrixTimesX.get(row, column), EPSILON);
+         }
+
+         // Solving in place.
+         factorization.solve(b, b);
+         for (int row = 0; row < degreesOfFreedom; row++)
+         {
+            for (int column = 0; column < 3; column++)
+               assertEquals(x.get(row, column), b.get(row, column), EPSILON);
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstArticulatedBodyForwardDynamics()
+   {
+      Random random = new Random(9823L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody pelvis = ScrewTestTools.addRandomRigidBody("pelvis", random, rootJoint);
+      List<OneDoFJoint> oneDoFJoints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints("test", pelvis, 30, random);
+
+      CompositeRigidBodyMassMatrixCalculator massMatrixCalculator = new CompositeRigidBodyMassMatrixCalculator(elevator);
+      InverseDynamicsJoint[] jointsInOrder = massMatrixCalculator.getJointsInOrder();
+      MassMatrixLTDLFactorization factorization = new MassMatrixLTDLFactorization(jointsInOrder);
+      // Without gravity nor velocity, the forward dynamics reduces to qdd = H^-1 * tau.
+      ArticulatedBodyForwardDynamicsCalculator forwardDynamicsCalculator = new ArticulatedBodyForwardDynamicsCalculator(elevator, 0.0);
+      int degreesOfFreedom = factorization.getDegreesOfFreedom();
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomPositions(oneDoFJoints, random);
+         ScrewTestTools.setRandomTorques(oneDoFJoints, random);
+         Wrench rootJointWrench = new Wrench(pelvis.getBodyFixedFrame(), pelvis.getBodyFixedFrame());
+         rootJointWrench.setAngularPart(RandomGeometry.nextVector3D(random));
+         rootJointWrench.setLinearPart(RandomGeometry.nextVector3D(random));
+         rootJoint.setWrench(rootJointWrench);
+         elevator.updateFramesRecursively();
+
+         // The generalized forces of the floating joint are in its frame after joint, as its unit twists.
+         DenseMatrix64F tau = new DenseMatrix64F(degreesOfFreedom, 1);
+         DenseMatrix64F jointTau = new DenseMatrix64F(6, 1);
+         rootJointWrench.changeFrame(rootJoint.getFrameAfterJoint());
+         rootJointWrench.getMatrix(jointTau);
+         CommonOps.insert(jointTau, tau, 0, 0);
+         for (int jointIndex = 1; jointIndex < jointsInOrder.length; jointIndex++)
+            tau.set(5 + jointIndex, 0, ((OneDoFJoint) jointsInOrder[jointIndex]).getTau());
+
+         massMatrixCalculator.compute();
+         assertTrue(factorization.factorize(massMatrixCalculator.getMassMatrix()));
+         DenseMatrix64F expectedJointAccelerations = new DenseMatrix64F(degreesOfFreedom, 1);
+         factorization.solve(tau, expectedJointAccelerations);
+
+         forwardDynamicsCalculator.compute();
+         forwardDynamicsCalculator.writeComputedJointAccelerations();
+         DenseMatrix64F actualJointAccelerations = new DenseMatrix64F(degreesOfFreedom, 1);
+         ScrewTools.getDesiredJointAccelerationsMatrix(jointsInOrder, actualJointAccelerations);
+
+         for (int row = 0; row < degreesOfFreedom; row++)
+            assertEquals(expectedJointAccelerations.get(row, 0), actualJointAccelerations.get(row, 0), EPSILON);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000, expected = IllegalArgumentException.class)
+   public void testJointsOutOfOrder()
+   {
+      Random random = new Random(4562L);
+      List<OneDoFJoint> joints = ScrewTestTools.createRandomChainRobotWithOneDoFJoints(5, random);
+      InverseDynamicsJoint[] jointsInReverseOrder = new InverseDynamicsJoint[joints.size()];
+      for (int i = 0; i < joints.size(); i++)
+         jointsInReverseOrder[i] = joints.get(joints.size() - 1 - i);
+      new MassMatrixLTDLFactorization(jointsInReverseOrder);
+   }
+}
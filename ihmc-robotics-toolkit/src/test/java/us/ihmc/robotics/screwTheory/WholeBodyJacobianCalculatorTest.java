@@ -0,0 +1,99 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.robotics.testing.JUnitTools;
+
+public class WholeBodyJacobianCalculatorTest
+{
+   private static final int ITERATIONS = 100;
+   private static final double EPSILON = 1.0e-9;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstGeometricJacobianCalculatorWithFloatingTree()
+   {
+      Random random = new Random(6723L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody pelvis = ScrewTestTools.addRandomRigidBody("pelvis", random, rootJoint);
+      List<OneDoFJoint> oneDoFJoints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints("test", pelvis, 30, random);
+
+      WholeBodyJacobianCalculator wholeBodyJacobianCalculator = new WholeBodyJacobianCalculator(pelvis);
+      assertEquals(36, wholeBodyJacobianCalculator.getNumberOfDegreesOfFreedom());
+
+      GeometricJacobianCalculator expectedCalculator = new GeometricJacobianCalculator();
+      GeometricJacobianCalculator actualCalculator = new GeometricJacobianCalculator();
+      DenseMatrix64F expectedJacobian = new DenseMatrix64F(1, 1);
+      DenseMatrix64F actualJacobian = new DenseMatrix64F(1, 1);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomPositions(oneDoFJoints, random);
+         elevator.updateFramesRecursively();
+
+         for (int j = 0; j < 5; j++)
+         {
+            RigidBody endEffector = oneDoFJoints.get(random.nextInt(oneDoFJoints.size())).getSuccessor();
+            RigidBody base = random.nextBoolean() ? elevator : pelvis;
+            ReferenceFrame jacobianFrame = random.nextBoolean() ? endEffector.getBodyFixedFrame() : ReferenceFrame.getWorldFrame();
+            if (random.nextBoolean())
+               jacobianFrame = ReferenceFrame.constructFrameWithUnchangingTransformToParent("jacobianFrame" + i + j, jacobianFrame,
+                                                                                            EuclidCoreRandomTools.nextRigidBodyTransform(random));
+
+            expectedCalculator.clear();
+            expectedCalculator.setKinematicChain(base, endEffector);
+            expectedCalculator.setJacobianFrame(jacobianFrame);
+            expectedCalculator.computeJacobianMatrix();
+            expectedCalculator.getJacobianMatrix(expectedJacobian);
+
+            actualCalculator.clear();
+            actualCalculator.setKinematicChain(base, endEffector);
+            actualCalculator.setJacobianFrame(jacobianFrame);
+            actualCalculator.computeJacobianMatrix(wholeBodyJacobianCalculator);
+            actualCalculator.getJacobianMatrix(actualJacobian);
+
+            JUnitTools.assertMatrixEquals(expectedJacobian, actualJacobian, EPSILON);
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testPartialUpdate()
+   {
+      Random random = new Random(2314L);
+      List<OneDoFJoint> joints = ScrewTestTools.createRandomTreeRobotWithOneDoFJoints(20, random);
+      RigidBody rootBody = ScrewTools.getRootBody(joints.get(0).getPredecessor());
+      InverseDynamicsJoint[] allJoints = ScrewTools.computeSubtreeJoints(rootBody);
+
+      WholeBodyJacobianCalculator wholeBodyJacobianCalculator = new WholeBodyJacobianCalculator(rootBody);
+      DenseMatrix64F actualJacobian = new DenseMatrix64F(1, 1);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         // Only a few joints are moving, the others have to remain up-to-date.
+         for (int j = 0; j < 3; j++)
+            ScrewTestTools.setRandomPosition(joints.get(random.nextInt(joints.size())), random, -Math.PI, Math.PI);
+         rootBody.updateFramesRecursively();
+
+         for (InverseDynamicsJoint joint : allJoints)
+         {
+            GeometricJacobian expectedJacobian = new GeometricJacobian(joint, ReferenceFrame.getWorldFrame());
+            expectedJacobian.compute();
+            wholeBodyJacobianCalculator.getJacobianMatrix(new InverseDynamicsJoint[] {joint}, ReferenceFrame.getWorldFrame(), actualJacobian);
+            JUnitTools.assertMatrixEquals(expectedJacobian.getJacobianMatrix(), actualJacobian, EPSILON);
+         }
+      }
+   }
+}
@@ -1,9 +1,7 @@
 package us.ihmc.sensorProcessing.communication.producers;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 
 import controller_msgs.msg.dds.RobotConfigurationData;
 import controller_msgs.msg.dds.SpatialVectorMessage;
@@ -23,6 +21,13 @@ import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigura
 /**
  * Buffer for RobotConfigurationData. Allows updating a fullrobotmodel based on timestamps. Make
  * sure not to share fullrobotmodels between thread
+ * <p>
+ * The history is a ring buffer with a single writer, {@link #update(RobotConfigurationData)}, and
+ * any number of readers. The readers do not lock: they search the timestamps with a binary search
+ * and check afterwards that the writer has not overwritten the entries they used, in which case
+ * they search again. The timestamps are expected to increase, when a timestamp goes backward, e.g.
+ * the controller has been restarted, the older history is discarded.
+ * </p>
  *
  * @author jesper
  *
@@ -31,94 +36,130 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
 {
    private static final boolean DEBUG = false;
    final static int BUFFER_SIZE = 1000;
+   /** The extra slot is the one the writer fills next, it is never read. */
+   private static final int NUMBER_OF_SLOTS = BUFFER_SIZE + 1;
 
-   private final RobotConfigurationData[] configurationBuffer = new RobotConfigurationData[BUFFER_SIZE];
+   private final RobotConfigurationData[] configurationBuffer = new RobotConfigurationData[NUMBER_OF_SLOTS];
+   private final long[] timestampBuffer = new long[NUMBER_OF_SLOTS];
 
-   private final AtomicInteger currentIndex = new AtomicInteger();
-   private final ReentrantLock updateLock = new ReentrantLock();
-   private final Condition timestampCondition = updateLock.newCondition();
+   /**
+    * Total number of updates, the newest data is at the index {@code numberOfUpdates - 1}. It is
+    * written last by the writer, which publishes the new entry to the readers.
+    */
+   private volatile long numberOfUpdates = 0;
+   /** Index of the oldest entry of the history, moved forward when a timestamp goes backward. */
+   private volatile long oldestIndex = 0;
 
-   private final ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>> fullRobotModelsCache = new ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>>()
-   {
-      @Override
-      protected HashMap<FullRobotModel, FullRobotModelCache> initialValue()
-      {
-         return new HashMap<>();
-      }
-   };
+   private final Object writerLock = new Object();
+   private final Object timestampMonitor = new Object();
+   private final AtomicInteger numberOfWaitingThreads = new AtomicInteger();
+
+   private final ConcurrentHashMap<FullRobotModel, FullRobotModelCache> fullRobotModelsCache = new ConcurrentHashMap<>();
 
    public void update(RobotConfigurationData data)
    {
-      updateLock.lock();
-
-      int index = currentIndex.get();
-      index++;
-      if (index >= BUFFER_SIZE)
+      // Only serializes the writers, the readers never take this lock.
+      synchronized (writerLock)
       {
-         index = 0;
-      }
-      configurationBuffer[index] = data;
+         long index = numberOfUpdates;
+         long timestamp = data.getTimestamp();
 
-      currentIndex.set(index);
+         if (index > oldestIndex && timestamp < timestampBuffer[getSlot(index - 1)])
+            oldestIndex = index;
 
-      timestampCondition.signalAll();
-      updateLock.unlock();
-   }
+         int slot = getSlot(index);
+         configurationBuffer[slot] = data;
+         timestampBuffer[slot] = timestamp;
+         numberOfUpdates = index + 1;
+      }
 
-   void waitForTimestamp(long timestamp)
-   {
-      updateLock.lock();
-      long currentTimestamp;
-      while ((currentTimestamp = getNewestTimestamp()) < timestamp)
+      if (numberOfWaitingThreads.get() > 0)
       {
-         if (DEBUG)
+         synchronized (timestampMonitor)
          {
-            System.out.println("Current timestamp: " + currentTimestamp + ", waiting for " + timestamp);
+            timestampMonitor.notifyAll();
          }
+      }
+   }
 
-         try
-         {
-            timestampCondition.await();
-         }
-         catch (InterruptedException e)
+   void waitForTimestamp(long timestamp)
+   {
+      numberOfWaitingThreads.incrementAndGet();
+
+      synchronized (timestampMonitor)
+      {
+         long currentTimestamp;
+         while ((currentTimestamp = getNewestTimestamp()) < timestamp)
          {
+            if (DEBUG)
+            {
+               System.out.println("Current timestamp: " + currentTimestamp + ", waiting for " + timestamp);
+            }
+
+            try
+            {
+               timestampMonitor.wait();
+            }
+            catch (InterruptedException e)
+            {
+            }
          }
       }
-      updateLock.unlock();
+
+      numberOfWaitingThreads.decrementAndGet();
    }
 
    public long getNewestTimestamp()
    {
-      RobotConfigurationData newestConfigurationData = configurationBuffer[currentIndex.get()];
-      if (newestConfigurationData == null)
-      {
-         return -1;
-      }
-      else
+      while (true)
       {
-         return newestConfigurationData.getTimestamp();
+         long numberOfUpdates = this.numberOfUpdates;
+         if (numberOfUpdates == 0)
+            return -1;
+
+         long newestIndex = numberOfUpdates - 1;
+         long timestamp = timestampBuffer[getSlot(newestIndex)];
+
+         if (!hasBeenOverwritten(newestIndex))
+            return timestamp;
       }
    }
 
-   private RobotConfigurationData floorIndex(long key)
+   private static int getSlot(long index)
    {
-      int currentIndex = this.currentIndex.get();
-      for (int i = currentIndex; i >= -BUFFER_SIZE + currentIndex; i--)
-      {
-         int index = (i < 0) ? BUFFER_SIZE + i : i;
+      return (int) (index % NUMBER_OF_SLOTS);
+   }
 
-         RobotConfigurationData data = configurationBuffer[index];
-         if (data == null)
-         {
-            break;
-         }
+   /**
+    * The entry at {@code index} can be overwritten as soon as the writer starts to write the entry
+    * {@code index + NUMBER_OF_SLOTS}.
+    */
+   private boolean hasBeenOverwritten(long index)
+   {
+      return numberOfUpdates - BUFFER_SIZE > index;
+   }
 
-         if (data.getTimestamp() <= key)
-         {
-            return data;
-         }
+   /**
+    * Binary search of the newest entry in [{@code firstIndex}, {@code lastIndex}] which timestamp is
+    * less than or equal to {@code timestamp}.
+    *
+    * @return the index of the entry, or {@code firstIndex - 1} if there is none.
+    */
+   private long floorIndex(long timestamp, long firstIndex, long lastIndex)
+   {
+      long low = firstIndex;
+      long high = lastIndex;
+
+      while (low <= high)
+      {
+         long middle = (low + high) >>> 1;
+         if (timestampBuffer[getSlot(middle)] <= timestamp)
+            low = middle + 1;
+         else
+            high = middle - 1;
       }
-      return null;
+
+      return high;
    }
 
    /**
@@ -133,34 +174,92 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
     * @return true if model is updated
     */
    public long updateFullRobotModel(boolean waitForTimestamp, long timestamp, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      return updateFullRobotModel(waitForTimestamp, timestamp, model, forceSensorDataHolder, false);
+   }
+
+   /**
+    * Update a full robot model with the data interpolated at the given timestamp. Optionally update
+    * force sensors.
+    * <p>
+    * The joint positions and velocities, the root joint pose and twist, and the force sensor data
+    * are interpolated linearly, the root joint orientation with a slerp, between the two received
+    * data bracketing the given timestamp. When the timestamp is newer than the newest data, the
+    * model is updated with the newest data.
+    * </p>
+    *
+    * @param waitForTimestamp Will block if no timestamp is not received yet
+    * @param timestamp Timestamp to get.
+    * @param model Model to update. Will call updateFramesRecursively()
+    * @param forceSensorDataHolder. Optional, update force sensor data holders
+    *
+    * @return the timestamp the model has been updated to, or -1 if no data older than or equal to
+    *         {@code timestamp} is available.
+    */
+   public long updateFullRobotModelWithInterpolation(boolean waitForTimestamp, long timestamp, FullRobotModel model,
+                                                     ForceSensorDataHolder forceSensorDataHolder)
+   {
+      return updateFullRobotModel(waitForTimestamp, timestamp, model, forceSensorDataHolder, true);
+   }
+
+   private long updateFullRobotModel(boolean waitForTimestamp, long timestamp, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder,
+                                     boolean interpolate)
    {
       if (waitForTimestamp)
       {
          waitForTimestamp(timestamp);
       }
 
-      RobotConfigurationData robotConfigurationData = floorIndex(timestamp);
-      if (robotConfigurationData == null)
+      RobotConfigurationData floorData;
+      RobotConfigurationData ceilingData;
+
+      while (true)
+      {
+         long numberOfUpdates = this.numberOfUpdates;
+         long firstIndex = Math.max(oldestIndex, numberOfUpdates - BUFFER_SIZE);
+         long lastIndex = numberOfUpdates - 1;
+         long floorIndex = floorIndex(timestamp, firstIndex, lastIndex);
+
+         floorData = floorIndex < firstIndex ? null : configurationBuffer[getSlot(floorIndex)];
+         ceilingData = interpolate && floorData != null && floorIndex < lastIndex ? configurationBuffer[getSlot(floorIndex + 1)] : null;
+
+         if (!hasBeenOverwritten(firstIndex))
+            break;
+      }
+
+      if (floorData == null)
       {
          return -1;
       }
-      updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
-      return robotConfigurationData.getTimestamp();
+
+      if (ceilingData == null || floorData.getTimestamp() == timestamp)
+      {
+         updateFullRobotModel(floorData, model, forceSensorDataHolder);
+         return floorData.getTimestamp();
+      }
+      else
+      {
+         double alpha = (double) (timestamp - floorData.getTimestamp()) / (double) (ceilingData.getTimestamp() - floorData.getTimestamp());
+         updateFullRobotModel(floorData, ceilingData, alpha, model, forceSensorDataHolder);
+         return timestamp;
+      }
    }
 
    public boolean updateFullRobotModelWithNewestData(FullRobotModel fullRobotModel, ForceSensorDataHolder forceSensorDataHolder)
    {
-      int currentIndex = this.currentIndex.get() - 1;
-      if (currentIndex < 0)
+      RobotConfigurationData robotConfigurationData;
+
+      while (true)
       {
-         currentIndex = 0;
+         long numberOfUpdates = this.numberOfUpdates;
+         if (numberOfUpdates == 0)
+            return false;
 
-      }
-      RobotConfigurationData robotConfigurationData = configurationBuffer[currentIndex];
+         long newestIndex = numberOfUpdates - 1;
+         robotConfigurationData = configurationBuffer[getSlot(newestIndex)];
 
-      if (robotConfigurationData == null)
-      {
-         return false;
+         if (!hasBeenOverwritten(newestIndex))
+            break;
       }
 
       updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
@@ -170,14 +269,7 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
    private void updateFullRobotModel(RobotConfigurationData robotConfigurationData, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
    {
       FullRobotModelCache fullRobotModelCache = getFullRobotModelCache(model);
-
-      FloatingInverseDynamicsJoint rootJoint = model.getRootJoint();
-      if (robotConfigurationData.getJointNameHash() != fullRobotModelCache.jointNameHash)
-      {
-         System.out.println(robotConfigurationData.getJointNameHash());
-         System.out.println(fullRobotModelCache.jointNameHash);
-         throw new RuntimeException("Joint names do not match for RobotConfigurationData");
-      }
+      checkJointNameHash(robotConfigurationData, fullRobotModelCache);
 
       TFloatArrayList newJointAngles = robotConfigurationData.getJointAngles();
       TFloatArrayList newJointVelocities = robotConfigurationData.getJointVelocities();
@@ -188,20 +280,11 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
          fullRobotModelCache.allJoints[i].setQd(newJointVelocities.get(i));
       }
 
-      Vector3D translation = robotConfigurationData.getRootTranslation();
-      rootJoint.setPosition(translation.getX(), translation.getY(), translation.getZ());
-      Quaternion orientation = robotConfigurationData.getRootOrientation();
-      rootJoint.setRotation(orientation.getX(), orientation.getY(), orientation.getZ(), orientation.getS());
-
-      Twist rootJointTwist = new Twist();
-      rootJoint.getJointTwist(rootJointTwist);
-      Vector3D pelvisAngularVelocity = robotConfigurationData.getPelvisAngularVelocity();
-      Vector3D pelvisLinearVelocity = robotConfigurationData.getPelvisLinearVelocity();
-      rootJointTwist.setAngularPart(pelvisAngularVelocity);
-      rootJointTwist.setLinearPart(pelvisLinearVelocity);
-      rootJoint.setJointTwist(rootJointTwist);
-
-      rootJoint.getPredecessor().updateFramesRecursively();
+      fullRobotModelCache.rootTranslation.set(robotConfigurationData.getRootTranslation());
+      fullRobotModelCache.rootOrientation.set(robotConfigurationData.getRootOrientation());
+      fullRobotModelCache.rootAngularVelocity.set(robotConfigurationData.getPelvisAngularVelocity());
+      fullRobotModelCache.rootLinearVelocity.set(robotConfigurationData.getPelvisLinearVelocity());
+      updateRootJoint(model.getRootJoint(), fullRobotModelCache);
 
       if (forceSensorDataHolder != null)
       {
@@ -214,25 +297,99 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       }
    }
 
-   private FullRobotModelCache getFullRobotModelCache(FullRobotModel fullRobotModel)
+   private void updateFullRobotModel(RobotConfigurationData floorData, RobotConfigurationData ceilingData, double alpha, FullRobotModel model,
+                                     ForceSensorDataHolder forceSensorDataHolder)
    {
-      HashMap<FullRobotModel, FullRobotModelCache> cache = fullRobotModelsCache.get();
-      FullRobotModelCache fullRobotModelCache = cache.get(fullRobotModel);
-      if (fullRobotModelCache == null)
+      FullRobotModelCache fullRobotModelCache = getFullRobotModelCache(model);
+      checkJointNameHash(floorData, fullRobotModelCache);
+      checkJointNameHash(ceilingData, fullRobotModelCache);
+
+      TFloatArrayList floorJointAngles = floorData.getJointAngles();
+      TFloatArrayList floorJointVelocities = floorData.getJointVelocities();
+      TFloatArrayList ceilingJointAngles = ceilingData.getJointAngles();
+      TFloatArrayList ceilingJointVelocities = ceilingData.getJointVelocities();
+
+      for (int i = 0; i < floorJointAngles.size(); i++)
       {
-         fullRobotModelCache = new FullRobotModelCache(fullRobotModel);
-         cache.put(fullRobotModel, fullRobotModelCache);
+         fullRobotModelCache.allJoints[i].setQ(interpolate(floorJointAngles.get(i), ceilingJointAngles.get(i), alpha));
+         fullRobotModelCache.allJoints[i].setQd(interpolate(floorJointVelocities.get(i), ceilingJointVelocities.get(i), alpha));
       }
 
-      return fullRobotModelCache;
+      fullRobotModelCache.rootTranslation.interpolate(floorData.getRootTranslation(), ceilingData.getRootTranslation(), alpha);
+      fullRobotModelCache.rootOrientation.interpolate(floorData.getRootOrientation(), ceilingData.getRootOrientation(), alpha);
+      fullRobotModelCache.rootAngularVelocity.interpolate(floorData.getPelvisAngularVelocity(), ceilingData.getPelvisAngularVelocity(), alpha);
+      fullRobotModelCache.rootLinearVelocity.interpolate(floorData.getPelvisLinearVelocity(), ceilingData.getPelvisLinearVelocity(), alpha);
+      updateRootJoint(model.getRootJoint(), fullRobotModelCache);
 
+      if (forceSensorDataHolder != null)
+      {
+         for (int i = 0; i < forceSensorDataHolder.getForceSensorDefinitions().size(); i++)
+         {
+            SpatialVectorMessage floorWrench = floorData.getForceSensorData().get(i);
+            SpatialVectorMessage ceilingWrench = ceilingData.getForceSensorData().get(i);
+            fullRobotModelCache.moment.interpolate(floorWrench.getAngularPart(), ceilingWrench.getAngularPart(), alpha);
+            fullRobotModelCache.force.interpolate(floorWrench.getLinearPart(), ceilingWrench.getLinearPart(), alpha);
+            forceSensorDataHolder.get(forceSensorDataHolder.getForceSensorDefinitions().get(i)).setWrench(fullRobotModelCache.moment,
+                                                                                                          fullRobotModelCache.force);
+         }
+      }
+   }
+
+   private static double interpolate(double floorValue, double ceilingValue, double alpha)
+   {
+      return floorValue + alpha * (ceilingValue - floorValue);
+   }
+
+   private static void checkJointNameHash(RobotConfigurationData robotConfigurationData, FullRobotModelCache fullRobotModelCache)
+   {
+      if (robotConfigurationData.getJointNameHash() != fullRobotModelCache.jointNameHash)
+      {
+         System.out.println(robotConfigurationData.getJointNameHash());
+         System.out.println(fullRobotModelCache.jointNameHash);
+         throw new RuntimeException("Joint names do not match for RobotConfigurationData");
+      }
+   }
+
+   private static void updateRootJoint(FloatingInverseDynamicsJoint rootJoint, FullRobotModelCache fullRobotModelCache)
+   {
+      rootJoint.setPosition(fullRobotModelCache.rootTranslation);
+      rootJoint.setRotation(fullRobotModelCache.rootOrientation);
+
+      Twist rootJointTwist = fullRobotModelCache.rootJointTwist;
+      rootJoint.getJointTwist(rootJointTwist);
+      rootJointTwist.setAngularPart(fullRobotModelCache.rootAngularVelocity);
+      rootJointTwist.setLinearPart(fullRobotModelCache.rootLinearVelocity);
+      rootJoint.setJointTwist(rootJointTwist);
+
+      rootJoint.getPredecessor().updateFramesRecursively();
+   }
+
+   private FullRobotModelCache getFullRobotModelCache(FullRobotModel fullRobotModel)
+   {
+      FullRobotModelCache fullRobotModelCache = fullRobotModelsCache.get(fullRobotModel);
+      if (fullRobotModelCache == null)
+         fullRobotModelCache = fullRobotModelsCache.computeIfAbsent(fullRobotModel, FullRobotModelCache::new);
+
+      return fullRobotModelCache;
    }
 
+   /**
+    * The temporary variables are used only when updating their robot model, which is not shared
+    * between threads.
+    */
    private static class FullRobotModelCache
    {
       private final OneDoFJoint[] allJoints;
       private final long jointNameHash;
 
+      private final Vector3D rootTranslation = new Vector3D();
+      private final Quaternion rootOrientation = new Quaternion();
+      private final Vector3D rootAngularVelocity = new Vector3D();
+      private final Vector3D rootLinearVelocity = new Vector3D();
+      private final Twist rootJointTwist = new Twist();
+      private final Vector3D moment = new Vector3D();
+      private final Vector3D force = new Vector3D();
+
       private FullRobotModelCache(FullRobotModel fullRobotModel)
       {
          if (fullRobotModel instanceof FullHumanoidRobotModel)
@@ -0,0 +1,575 @@
+package us.ihmc.sensorProcessing.sensorProcessors;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.commons.MathTools;
+import us.ihmc.robotics.dataStructures.PolynomialReadOnly;
+import us.ihmc.robotics.math.filters.ProcessingYoVariable;
+import us.ihmc.sensorProcessing.sensorProcessors.SensorProcessing.SensorType;
+import us.ihmc.yoVariables.providers.DoubleProvider;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+/**
+ * Array-based implementation of the joint sensor processing of {@link SensorProcessing}.
+ * <p>
+ * Every joint signal, raw or processed, is assigned a slot in a single array of doubles when its
+ * processor is created. The processors are grouped in stages, one stage per call to the
+ * corresponding method of {@link SensorProcessing}. The alpha filter, finite difference, backlash,
+ * elasticity compensator, and polynomial stages are kernels updating all their joints in one loop
+ * over the array. The other processors are still updated through their {@link ProcessingYoVariable}.
+ * </p>
+ * <p>
+ * The {@code YoDouble}s holding the processed signals are written at the end of the update, or
+ * right before a processor that reads them through its {@code YoDouble} interface. The internal
+ * state variables of the filters, such as {@code hasBeenCalled}, are not updated by the kernels.
+ * </p>
+ * <p>
+ * The stages are updated for all the joints one after the other, position stages first, then
+ * velocity, acceleration, and tau stages. For a given joint, the processors are thus updated in the
+ * same order as in {@link SensorProcessing}. However, a processor reading the signal of another
+ * joint would see it at a different stage of its processing than when the joints are processed one
+ * after the other. Such processors, e.g. a coupling with the output of another joint, are declared
+ * with {@link #addProcessorWithUnknownInputs(YoDouble)}, which makes the pipeline unusable, see
+ * {@link #canProcessJoints()}.
+ * </p>
+ */
+class JointSensorProcessingPipeline
+{
+   private static final int BACKLASH_UNDEFINED = -1;
+   private static final int BACKLASH_BACKWARD_OK = 0;
+   private static final int BACKLASH_FORWARD_OK = 1;
+   private static final int BACKLASH_BACKWARD_SLOP = 2;
+   private static final int BACKLASH_FORWARD_SLOP = 3;
+
+   private final double updateDT;
+
+   private final List<YoDouble> signalVariableList = new ArrayList<>();
+   private final Map<YoDouble, Integer> signalSlots = new IdentityHashMap<>();
+   private final TIntArrayList rawSignalSlotList = new TIntArrayList();
+   private final TIntArrayList kernelOutputSlotList = new TIntArrayList();
+   private final EnumMap<SensorType, List<Stage>> stageLists = new EnumMap<>(SensorType.class);
+
+   private boolean hasProcessorsWithUnknownInputs = false;
+   private boolean isCompiled = false;
+   private double[] signals = new double[0];
+   private YoDouble[] signalVariables;
+   private int[] rawSignalSlots;
+   private int[] kernelOutputSlots;
+   private boolean[] isKernelOutput;
+   private Stage[] stages;
+
+   JointSensorProcessingPipeline(double updateDT)
+   {
+      this.updateDT = updateDT;
+   }
+
+   /**
+    * Registers the variable holding a raw joint signal. The variable is read at the beginning of each
+    * update.
+    */
+   void addRawSignal(YoDouble rawSignal)
+   {
+      rawSignalSlotList.add(addSignal(rawSignal, false));
+   }
+
+   private int addSignal(YoDouble signal, boolean isKernelOutput)
+   {
+      Integer slot = signalSlots.get(signal);
+      if (slot != null)
+         return slot;
+
+      slot = signalVariableList.size();
+      signalVariableList.add(signal);
+      signalSlots.put(signal, slot);
+      if (isKernelOutput)
+         kernelOutputSlotList.add(slot);
+      isCompiled = false;
+      return slot;
+   }
+
+   private int getSlot(YoDouble signal)
+   {
+      Integer slot = signalSlots.get(signal);
+      if (slot == null)
+         throw new RuntimeException("The signal " + signal.getName() + " is not part of the joint processing pipeline.");
+      return slot;
+   }
+
+   private <T extends Stage> T addStage(SensorType sensorType, T stage)
+   {
+      if (!sensorType.isJointSensor())
+         throw new RuntimeException("Expected a joint sensor.");
+
+      List<Stage> stageList = stageLists.get(sensorType);
+      if (stageList == null)
+      {
+         stageList = new ArrayList<>();
+         stageLists.put(sensorType, stageList);
+      }
+      stageList.add(stage);
+      isCompiled = false;
+      return stage;
+   }
+
+   AlphaFilterStage addAlphaFilterStage(SensorType sensorType, DoubleProvider alphaFilter)
+   {
+      return addStage(sensorType, new AlphaFilterStage(alphaFilter));
+   }
+
+   FiniteDifferenceStage addFiniteDifferenceStage(SensorType sensorType, DoubleProvider alphaFilter)
+   {
+      return addStage(sensorType, new FiniteDifferenceStage(alphaFilter));
+   }
+
+   BacklashFilterStage addBacklashFilterStage(SensorType sensorType, DoubleProvider slopTime)
+   {
+      return addStage(sensorType, new BacklashFilterStage(slopTime));
+   }
+
+   ElasticityCompensatorStage addPositionElasticityCompensatorStage(DoubleProvider maximumDeflection)
+   {
+      return addStage(SensorType.JOINT_POSITION, new ElasticityCompensatorStage(maximumDeflection, false));
+   }
+
+   ElasticityCompensatorStage addVelocityElasticityCompensatorStage(DoubleProvider maximumDeflection)
+   {
+      return addStage(SensorType.JOINT_VELOCITY, new ElasticityCompensatorStage(maximumDeflection, true));
+   }
+
+   PolynomialStage addPolynomialStage(SensorType sensorType, PolynomialReadOnly polynomial)
+   {
+      return addStage(sensorType, new PolynomialStage(polynomial));
+   }
+
+   ProcessorStage addProcessorStage(SensorType sensorType)
+   {
+      return addStage(sensorType, new ProcessorStage());
+   }
+
+   /**
+    * Declares a processor which inputs are unknown. As it may read the signals of other joints, its
+    * output depends on the order in which the joints are processed, which this pipeline does not
+    * preserve.
+    *
+    * @param output the variable updated by the processor, which the next processors may read.
+    */
+   void addProcessorWithUnknownInputs(YoDouble output)
+   {
+      addSignal(output, false);
+      hasProcessorsWithUnknownInputs = true;
+   }
+
+   /**
+    * @return {@code false} if a processor with unknown inputs was added, in which case the
+    *         processors have to be updated joint by joint to get the same outputs.
+    */
+   boolean canProcessJoints()
+   {
+      return !hasProcessorsWithUnknownInputs;
+   }
+
+   private void compile()
+   {
+      int numberOfSignals = signalVariableList.size();
+      signalVariables = signalVariableList.toArray(new YoDouble[numberOfSignals]);
+      rawSignalSlots = rawSignalSlotList.toArray();
+      kernelOutputSlots = kernelOutputSlotList.toArray();
+      isKernelOutput = new boolean[numberOfSignals];
+      for (int slot : kernelOutputSlots)
+         isKernelOutput[slot] = true;
+
+      // The signals are initialized from the variables, a new stage starts from the current output of the previous ones.
+      signals = new double[numberOfSignals];
+      for (int slot = 0; slot < numberOfSignals; slot++)
+         signals[slot] = signalVariables[slot].getDoubleValue();
+
+      List<Stage> stageList = new ArrayList<>();
+      for (List<Stage> stagesOfType : stageLists.values())
+         stageList.addAll(stagesOfType);
+      stages = stageList.toArray(new Stage[stageList.size()]);
+
+      for (Stage stage : stages)
+         stage.compile();
+
+      isCompiled = true;
+   }
+
+   /**
+    * Runs all the stages on the current raw signals, and writes the processed signals into their
+    * {@code YoDouble}s.
+    */
+   void update()
+   {
+      if (!isCompiled)
+         compile();
+
+      for (int i = 0; i < rawSignalSlots.length; i++)
+      {
+         int slot = rawSignalSlots[i];
+         signals[slot] = signalVariables[slot].getDoubleValue();
+      }
+
+      for (int i = 0; i < stages.length; i++)
+         stages[i].update(signals);
+
+      writeKernelOutputs();
+   }
+
+   private void writeKernelOutputs()
+   {
+      for (int i = 0; i < kernelOutputSlots.length; i++)
+      {
+         int slot = kernelOutputSlots[i];
+         signalVariables[slot].set(signals[slot]);
+      }
+   }
+
+   abstract class Stage
+   {
+      final TIntArrayList outputSlotList = new TIntArrayList();
+      int[] outputSlots;
+
+      void compile()
+      {
+         outputSlots = outputSlotList.toArray();
+      }
+
+      abstract void update(double[] signals);
+   }
+
+   abstract class KernelStage extends Stage
+   {
+      final TIntArrayList inputSlotList = new TIntArrayList();
+      int[] inputSlots;
+
+      void addJoint(YoDouble input, YoDouble output)
+      {
+         inputSlotList.add(getSlot(input));
+         outputSlotList.add(addSignal(output, true));
+      }
+
+      @Override
+      void compile()
+      {
+         super.compile();
+         inputSlots = inputSlotList.toArray();
+      }
+   }
+
+   /** Kernel equivalent to {@code AlphaFilteredYoVariable}. */
+   class AlphaFilterStage extends KernelStage
+   {
+      private final DoubleProvider alphaFilter;
+      private boolean[] hasBeenCalled;
+
+      private AlphaFilterStage(DoubleProvider alphaFilter)
+      {
+         this.alphaFilter = alphaFilter;
+      }
+
+      @Override
+      void compile()
+      {
+         super.compile();
+         hasBeenCalled = new boolean[inputSlots.length];
+      }
+
+      @Override
+      void update(double[] signals)
+      {
+         double alpha = alphaFilter.getValue();
+
+         for (int i = 0; i < inputSlots.length; i++)
+         {
+            int outputSlot = outputSlots[i];
+
+            if (!hasBeenCalled[i])
+            {
+               hasBeenCalled[i] = true;
+               signals[outputSlot] = signals[inputSlots[i]];
+            }
+            else
+            {
+               signals[outputSlot] = alpha * signals[outputSlot] + (1.0 - alpha) * signals[inputSlots[i]];
+            }
+         }
+      }
+   }
+
+   /** Kernel equivalent to {@code FilteredVelocityYoVariable}. */
+   class FiniteDifferenceStage extends KernelStage
+   {
+      private final DoubleProvider alphaFilter;
+      private boolean[] hasBeenCalled;
+      private double[] lastInputs;
+
+      private FiniteDifferenceStage(DoubleProvider alphaFilter)
+      {
+         this.alphaFilter = alphaFilter;
+      }
+
+      @Override
+      void compile()
+      {
+         super.compile();
+         hasBeenCalled = new boolean[inputSlots.length];
+         lastInputs = new double[inputSlots.length];
+      }
+
+      @Override
+      void update(double[] signals)
+      {
+         double alpha = alphaFilter.getValue();
+
+         for (int i = 0; i < inputSlots.length; i++)
+         {
+            int outputSlot = outputSlots[i];
+            double input = signals[inputSlots[i]];
+
+            if (!hasBeenCalled[i])
+            {
+               hasBeenCalled[i] = true;
+               lastInputs[i] = input;
+               signals[outputSlot] = 0.0;
+            }
+
+            double rawDerivative = (input - lastInputs[i]) / updateDT;
+            signals[outputSlot] = alpha * signals[outputSlot] + (1.0 - alpha) * rawDerivative;
+            lastInputs[i] = input;
+         }
+      }
+   }
+
+   /** Kernel equivalent to {@code BacklashProcessingYoVariable}. */
+   class BacklashFilterStage extends KernelStage
+   {
+      private final DoubleProvider slopTime;
+      private int[] backlashStates;
+      private double[] timesSinceSloppy;
+
+      private BacklashFilterStage(DoubleProvider slopTime)
+      {
+         this.slopTime = slopTime;
+      }
+
+      @Override
+      void compile()
+      {
+         super.compile();
+         backlashStates = new int[inputSlots.length];
+         timesSinceSloppy = new double[inputSlots.length];
+         for (int i = 0; i < inputSlots.length; i++)
+            backlashStates[i] = BACKLASH_UNDEFINED;
+      }
+
+      @Override
+      void update(double[] signals)
+      {
+         double slopTimeValue = slopTime.getValue();
+
+         for (int i = 0; i < inputSlots.length; i++)
+         {
+            double velocity = signals[inputSlots[i]];
+            double timeSinceSloppy = timesSinceSloppy[i] + updateDT;
+            int state = backlashStates[i];
+
+            switch (state)
+            {
+            case BACKLASH_UNDEFINED:
+            case BACKLASH_FORWARD_OK:
+               state = BACKLASH_FORWARD_OK;
+               if (velocity < 0.0)
+               {
+                  timeSinceSloppy = 0.0;
+                  state = BACKLASH_BACKWARD_SLOP;
+               }
+               break;
+            case BACKLASH_BACKWARD_OK:
+               if (velocity > 0.0)
+               {
+                  timeSinceSloppy = 0.0;
+                  state = BACKLASH_FORWARD_SLOP;
+               }
+               break;
+            case BACKLASH_BACKWARD_SLOP:
+               if (velocity > 0.0)
+               {
+                  timeSinceSloppy = 0.0;
+                  state = BACKLASH_FORWARD_SLOP;
+               }
+               else if (timeSinceSloppy > slopTimeValue)
+               {
+                  state = BACKLASH_BACKWARD_OK;
+               }
+               break;
+            case BACKLASH_FORWARD_SLOP:
+               if (velocity < 0.0)
+               {
+                  timeSinceSloppy = 0.0;
+                  state = BACKLASH_BACKWARD_SLOP;
+               }
+               else if (timeSinceSloppy > slopTimeValue)
+               {
+                  state = BACKLASH_FORWARD_OK;
+               }
+               break;
+            default:
+               throw new RuntimeException("Unexpected backlash state: " + state);
+            }
+
+            backlashStates[i] = state;
+            timesSinceSloppy[i] = timeSinceSloppy;
+
+            double percent = MathTools.clamp(timeSinceSloppy / slopTimeValue, 0.0, 1.0);
+            if (Double.isNaN(percent) || slopTimeValue < updateDT)
+               percent = 1.0;
+
+            signals[outputSlots[i]] = percent * velocity;
+         }
+      }
+   }
+
+   /**
+    * Kernel equivalent to {@code ElasticityCompensatorYoVariable}, or to
+    * {@code VelocityElasticityCompensatorYoVariable} when compensating the joint velocity.
+    */
+   class ElasticityCompensatorStage extends KernelStage
+   {
+      private final DoubleProvider maximumDeflection;
+      private final boolean compensateVelocity;
+      private final List<DoubleProvider> stiffnessList = new ArrayList<>();
+      private final TIntArrayList tauSlotList = new TIntArrayList();
+      private DoubleProvider[] stiffnesses;
+      private int[] tauSlots;
+      private double[] previousDeflections;
+
+      private ElasticityCompensatorStage(DoubleProvider maximumDeflection, boolean compensateVelocity)
+      {
+         this.maximumDeflection = maximumDeflection;
+         this.compensateVelocity = compensateVelocity;
+      }
+
+      void addJoint(YoDouble input, YoDouble tau, DoubleProvider stiffness, YoDouble output)
+      {
+         addJoint(input, output);
+         tauSlotList.add(getSlot(tau));
+         stiffnessList.add(stiffness);
+      }
+
+      @Override
+      void compile()
+      {
+         super.compile();
+         stiffnesses = stiffnessList.toArray(new DoubleProvider[stiffnessList.size()]);
+         tauSlots = tauSlotList.toArray();
+         previousDeflections = new double[inputSlots.length];
+      }
+
+      @Override
+      void update(double[] signals)
+      {
+         double maximumDeflectionValue = maximumDeflection.getValue();
+
+         for (int i = 0; i < inputSlots.length; i++)
+         {
+            double stiffness = stiffnesses[i].getValue();
+            if (compensateVelocity ? stiffness < 1e-10 : stiffness <= 1e-10)
+               throw new RuntimeException("Joint stiffness is zero or negative!");
+
+            double deflection = MathTools.clamp(signals[tauSlots[i]] / stiffness, maximumDeflectionValue);
+
+            if (compensateVelocity)
+            {
+               double deflectionDot = (deflection - previousDeflections[i]) / updateDT;
+               previousDeflections[i] = deflection;
+               signals[outputSlots[i]] = signals[inputSlots[i]] - deflectionDot;
+            }
+            else
+            {
+               signals[outputSlots[i]] = signals[inputSlots[i]] - deflection;
+            }
+         }
+      }
+   }
+
+   /** Kernel equivalent to {@code PolynomialProcessorYoVariable}. */
+   class PolynomialStage extends KernelStage
+   {
+      private final PolynomialReadOnly polynomial;
+
+      private PolynomialStage(PolynomialReadOnly polynomial)
+      {
+         this.polynomial = polynomial;
+      }
+
+      @Override
+      void update(double[] signals)
+      {
+         for (int i = 0; i < inputSlots.length; i++)
+         {
+            polynomial.compute(signals[inputSlots[i]]);
+            signals[outputSlots[i]] = polynomial.getPosition();
+         }
+      }
+   }
+
+   /**
+    * Stage for the processors that do not have a kernel. The processors are updated through their
+    * {@link ProcessingYoVariable} interface after writing the signals they depend on.
+    */
+   class ProcessorStage extends Stage
+   {
+      private final List<ProcessingYoVariable> processorList = new ArrayList<>();
+      private final List<int[]> processorInputSlotList = new ArrayList<>();
+      private ProcessingYoVariable[] processors;
+      private int[][] processorInputSlots;
+
+      /**
+       * @param processor the processor to update.
+       * @param output the variable updated by the processor.
+       * @param inputs the signals read by the processor.
+       */
+      void addJoint(ProcessingYoVariable processor, YoDouble output, YoDouble... inputs)
+      {
+         int[] slots = new int[inputs.length];
+         for (int i = 0; i < inputs.length; i++)
+            slots[i] = getSlot(inputs[i]);
+
+         processorList.add(processor);
+         processorInputSlotList.add(slots);
+         outputSlotList.add(addSignal(output, false));
+      }
+
+      @Override
+      void compile()
+      {
+         super.compile();
+         processors = processorList.toArray(new ProcessingYoVariable[processorList.size()]);
+         processorInputSlots = processorInputSlotList.toArray(new int[processorInputSlotList.size()][]);
+      }
+
+      @Override
+      void update(double[] signals)
+      {
+         for (int i = 0; i < processors.length; i++)
+         {
+            int[] slots = processorInputSlots[i];
+
+            for (int slot : slots)
+            {
+               if (isKernelOutput[slot])
+                  signalVariables[slot].set(signals[slot]);
+            }
+
+            processors[i].update();
+            int outputSlot = outputSlots[i];
+            signals[outputSlot] = signalVariables[outputSlot].getDoubleValue();
+         }
+      }
+   }
+}
@@ -230,6 +230,9 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
 
    private final double updateDT;
 
+   private final JointSensorProcessingPipeline jointProcessingPipeline;
+   private boolean useJointProcessingPipeline = false;
+
    private final RotationMatrix tempOrientation = new RotationMatrix();
 
    private final FrameVector3D tempForce = new FrameVector3D();
@@ -248,6 +251,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       imuSensorDefinitions = stateEstimatorSensorDefinitions.getIMUSensorDefinitions();
       forceSensorDefinitions = stateEstimatorSensorDefinitions.getForceSensorDefinitions();
       this.auxiliaryRobotData = null;
+      jointProcessingPipeline = new JointSensorProcessingPipeline(updateDT);
 
       String prefix = null;
       String suffix = null;
@@ -262,6 +266,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          suffix = JOINT_POSITION.getProcessorNameSuffix(jointName, -1);
          YoDouble rawJointPosition = new YoDouble(prefix + suffix, registry);
          inputJointPositions.put(oneDoFJoint, rawJointPosition);
+         jointProcessingPipeline.addRawSignal(rawJointPosition);
          outputJointPositions.put(oneDoFJoint, rawJointPosition);
          processedJointPositions.put(oneDoFJoint, new ArrayList<ProcessingYoVariable>());
 
@@ -269,6 +274,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          suffix = JOINT_VELOCITY.getProcessorNameSuffix(jointName, -1);
          YoDouble rawJointVelocity = new YoDouble(prefix + suffix, registry);
          inputJointVelocities.put(oneDoFJoint, rawJointVelocity);
+         jointProcessingPipeline.addRawSignal(rawJointVelocity);
          outputJointVelocities.put(oneDoFJoint, rawJointVelocity);
          processedJointVelocities.put(oneDoFJoint, new ArrayList<ProcessingYoVariable>());
 
@@ -276,6 +282,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          suffix = JOINT_ACCELERATION.getProcessorNameSuffix(jointName, -1);
          YoDouble rawJointAcceleration = new YoDouble(prefix + suffix, registry);
          inputJointAccelerations.put(oneDoFJoint, rawJointAcceleration);
+         jointProcessingPipeline.addRawSignal(rawJointAcceleration);
          outputJointAccelerations.put(oneDoFJoint, rawJointAcceleration);
          processedJointAccelerations.put(oneDoFJoint, new ArrayList<ProcessingYoVariable>());
 
@@ -283,6 +290,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          suffix = JOINT_TAU.getProcessorNameSuffix(jointName, -1);
          YoDouble rawJointTau = new YoDouble(prefix + suffix, registry);
          inputJointTaus.put(oneDoFJoint, rawJointTau);
+         jointProcessingPipeline.addRawSignal(rawJointTau);
          outputJointTaus.put(oneDoFJoint, rawJointTau);
          processedJointTaus.put(oneDoFJoint, new ArrayList<ProcessingYoVariable>());
 
@@ -365,14 +373,21 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       this.visionSensorTimestamp.set(visionSensorTimestamp);
       this.sensorHeadPPSTimetamp.set(sensorHeadPPSTimestamp);
 
-      for (int i = 0; i < jointSensorDefinitions.size(); i++)
+      if (useJointProcessingPipeline && jointProcessingPipeline.canProcessJoints())
       {
-         OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
+         jointProcessingPipeline.update();
+      }
+      else
+      {
+         for (int i = 0; i < jointSensorDefinitions.size(); i++)
+         {
+            OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
 
-         updateProcessors(processedJointPositions.get(oneDoFJoint));
-         updateProcessors(processedJointVelocities.get(oneDoFJoint));
-         updateProcessors(processedJointAccelerations.get(oneDoFJoint));
-         updateProcessors(processedJointTaus.get(oneDoFJoint));
+            updateProcessors(processedJointPositions.get(oneDoFJoint));
+            updateProcessors(processedJointVelocities.get(oneDoFJoint));
+            updateProcessors(processedJointAccelerations.get(oneDoFJoint));
+            updateProcessors(processedJointTaus.get(oneDoFJoint));
+         }
       }
       
       for (int i = 0; i < imuSensorDefinitions.size(); i++)
@@ -419,6 +434,24 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          diagnosticModules.get(i).update();
    }
 
+   /**
+    * Sets whether the joint signals are to be processed with the array-based pipeline (see
+    * {@link JointSensorProcessingPipeline}) instead of updating each processor through its
+    * {@code YoVariable}. The processed outputs are the same in both modes, but in the array-based
+    * mode the internal state variables of the filters, e.g. {@code hasBeenCalled}, are not updated.
+    * This should be set before the first call to {@link #startComputation(long, long, long)}.
+    * <p>
+    * The array-based pipeline is not used when a processor reads an arbitrary signal, i.e. a
+    * position coupling created from a {@code DoubleProvider} or a position sensor switch, as its
+    * output could depend on the order in which the joints are processed.
+    * </p>
+    * @param useJointProcessingPipeline whether to use the array-based pipeline for the joint signals.
+    */
+   public void setUseJointProcessingPipeline(boolean useJointProcessingPipeline)
+   {
+      this.useJointProcessingPipeline = useJointProcessingPipeline;
+   }
+
    private void updateProcessors(List<ProcessingYoVariable> processors)
    {
       for (int j = 0; j < processors.size(); j++)
@@ -549,6 +582,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
 
       LinkedHashMap<OneDoFJoint, YoDouble> outputJointSignals = getOutputJointSignals(sensorType);
       LinkedHashMap<OneDoFJoint, List<ProcessingYoVariable>> processedJointSignals = getProcessedJointSignals(sensorType);
+      JointSensorProcessingPipeline.AlphaFilterStage pipelineStage = jointProcessingPipeline.addAlphaFilterStage(sensorType, alphaFilter);
 
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
@@ -566,6 +600,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = sensorType.getProcessorNameSuffix(jointName, newProcessorID);
          AlphaFilteredYoVariable filter = new AlphaFilteredYoVariable(prefix + suffix, registry, alphaFilter, intermediateJointSignal);
          processedJointSignals.get(oneDoFJoint).add(filter);
+         pipelineStage.addJoint(intermediateJointSignal, filter);
          
          if (!forVizOnly)
             outputJointSignals.put(oneDoFJoint, filter);
@@ -610,6 +645,9 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.ProcessorStage positionPipelineStage = jointProcessingPipeline.addProcessorStage(JOINT_POSITION);
+      JointSensorProcessingPipeline.ProcessorStage velocityPipelineStage = jointProcessingPipeline.addProcessorStage(JOINT_VELOCITY);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -634,6 +672,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
 
          positionProcessors.add(EMPTY_PROCESSOR);
          velocityProcessors.add(EMPTY_PROCESSOR);
+         positionPipelineStage.addJoint(EMPTY_PROCESSOR, yoConstantPosition);
+         velocityPipelineStage.addJoint(EMPTY_PROCESSOR, yoConstantVelocity);
 
          if (!forVizOnly)
          {
@@ -706,6 +746,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.ProcessorStage pipelineStage = jointProcessingPipeline.addProcessorStage(JOINT_POSITION);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -727,6 +769,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          else
             processor = () -> filteredJointPosition.set(scale.getValue() * intermediateJointPosition.getDoubleValue() + bias.getValue());
          processors.add(processor);
+         pipelineStage.addJoint(processor, filteredJointPosition, intermediateJointPosition);
 
          if (!forVizOnly)
             outputJointPositions.put(oneDoFJoint, filteredJointPosition);
@@ -772,6 +815,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.PolynomialStage pipelineStage = jointProcessingPipeline.addPolynomialStage(JOINT_POSITION, polynomialToApply);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -786,6 +831,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = JOINT_POSITION.getProcessorNameSuffix(jointName, processors.size());
          PolynomialProcessorYoVariable filteredJointPosition = new PolynomialProcessorYoVariable(prefix + suffix, intermediateJointPosition, polynomialToApply, registry);
          processors.add(filteredJointPosition);
+         pipelineStage.addJoint(intermediateJointPosition, filteredJointPosition);
 
          if (!forVizOnly)
             outputJointPositions.put(oneDoFJoint, filteredJointPosition);
@@ -821,6 +867,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.ElasticityCompensatorStage pipelineStage = jointProcessingPipeline.addPositionElasticityCompensatorStage(maximumDeflection);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -845,6 +893,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = JOINT_POSITION.getProcessorNameSuffix(jointName, processors.size());
          ElasticityCompensatorYoVariable filteredJointPosition = new ElasticityCompensatorYoVariable(prefix + suffix, stiffness, maximumDeflection, intermediateJointPosition, intermediateJointTau, registry);
          processors.add(filteredJointPosition);
+         pipelineStage.addJoint(intermediateJointPosition, intermediateJointTau, stiffness, filteredJointPosition);
          
          if (!forVizOnly)
             outputJointPositions.put(oneDoFJoint, filteredJointPosition);
@@ -868,7 +917,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
    public DoubleProvider computeJointPositionUsingCoupling(String nameOfJointMaster, String nameOfJointSlave, DoubleProvider couplingRatio, DoubleProvider couplingBias, boolean forVizOnly)
    {
       OneDoFJoint jointMaster = jointSensorDefinitions.stream().filter(joint -> joint.getName().equals(nameOfJointMaster)).findFirst().get();
-      return computeJointPositionUsingCoupling(jointMaster::getQ, nameOfJointSlave, couplingRatio, couplingBias, forVizOnly);
+      // The master position is read from the joint, not from the processed signals, the joint order does not matter.
+      return computeJointPositionUsingCoupling(jointMaster::getQ, nameOfJointSlave, couplingRatio, couplingBias, forVizOnly, true);
    }
 
    /**
@@ -886,6 +936,12 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
     * @throws RuntimeException if both {@code couplingRatio} and {@code couplingBias} are {@code null}.
     */
    public DoubleProvider computeJointPositionUsingCoupling(DoubleProvider jointMasterPositionProvider, String nameOfJointSlave, DoubleProvider couplingRatio, DoubleProvider couplingBias, boolean forVizOnly)
+   {
+      return computeJointPositionUsingCoupling(jointMasterPositionProvider, nameOfJointSlave, couplingRatio, couplingBias, forVizOnly, false);
+   }
+
+   private DoubleProvider computeJointPositionUsingCoupling(DoubleProvider jointMasterPositionProvider, String nameOfJointSlave, DoubleProvider couplingRatio,
+                                                            DoubleProvider couplingBias, boolean forVizOnly, boolean isMasterPositionUnprocessed)
    {
       if (couplingRatio == null && couplingBias == null)
          throw new RuntimeException("Cannot create joint position coupling without giving either a couplingRatio or couplingBias.");
@@ -905,6 +961,10 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       else
          slaveProcessor = () -> filteredJointSlavePosition.set(couplingRatio.getValue() * jointMasterPositionProvider.getValue() + couplingBias.getValue());
       slaveProcessors.add(slaveProcessor);
+      if (isMasterPositionUnprocessed)
+         jointProcessingPipeline.addProcessorStage(JOINT_POSITION).addJoint(slaveProcessor, filteredJointSlavePosition);
+      else
+         jointProcessingPipeline.addProcessorWithUnknownInputs(filteredJointSlavePosition);
 
       if (!forVizOnly)
          outputJointPositions.put(jointSlave, filteredJointSlavePosition);
@@ -939,6 +999,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       ProcessingYoVariable jointProcessor = () -> filteredJointPosition.set(backupProcessorTrigger.test(defaultInput) ? backupInput.getValue() : defaultInput.getValue());
 
       jointProcessors.add(jointProcessor);
+      jointProcessingPipeline.addProcessorWithUnknownInputs(filteredJointPosition);
 
       if (!forVizOnly)
          outputJointPositions.put(joint, filteredJointPosition);
@@ -973,6 +1034,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.ElasticityCompensatorStage pipelineStage = jointProcessingPipeline.addVelocityElasticityCompensatorStage(maximumDeflection);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -998,6 +1061,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          VelocityElasticityCompensatorYoVariable filteredJointVelocity = new VelocityElasticityCompensatorYoVariable(prefix + suffix, stiffness,
                maximumDeflection, intermediateJointVelocity, intermediateJointTau, updateDT, registry);
          processors.add(filteredJointVelocity);
+         pipelineStage.addJoint(intermediateJointVelocity, intermediateJointTau, stiffness, filteredJointVelocity);
          
          if (!forVizOnly)
             outputJointVelocities.put(oneDoFJoint, filteredJointVelocity);
@@ -1040,6 +1104,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.FiniteDifferenceStage pipelineStage = jointProcessingPipeline.addFiniteDifferenceStage(JOINT_VELOCITY, alphaFilter);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -1054,6 +1120,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = JOINT_VELOCITY.getProcessorNameSuffix(jointName, processors.size());
          FilteredVelocityYoVariable jointVelocity = new FilteredVelocityYoVariable(prefix + suffix, "", alphaFilter, intermediateJointPosition, updateDT, registry);
          processors.add(jointVelocity);
+         pipelineStage.addJoint(intermediateJointPosition, jointVelocity);
          
          if (!forVizOnly)
             outputJointVelocities.put(oneDoFJoint, jointVelocity);
@@ -1097,6 +1164,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.ProcessorStage pipelineStage = jointProcessingPipeline.addProcessorStage(JOINT_VELOCITY);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -1112,6 +1181,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = JOINT_VELOCITY.getProcessorNameSuffix(jointName, processors.size());
          RevisedBacklashCompensatingVelocityYoVariable jointVelocity = new RevisedBacklashCompensatingVelocityYoVariable(prefix + suffix, "", alphaFilter, intermediateJointPosition, updateDT, slopTime, registry);
          processors.add(jointVelocity);
+         pipelineStage.addJoint(jointVelocity, jointVelocity, intermediateJointPosition);
 
          if (!forVizOnly)
             outputJointVelocities.put(oneDoFJoint, jointVelocity);
@@ -1158,6 +1228,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.BacklashFilterStage pipelineStage = jointProcessingPipeline.addBacklashFilterStage(JOINT_VELOCITY, slopTime);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -1172,6 +1244,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = JOINT_VELOCITY.getProcessorNameSuffix(jointName, processors.size());
          BacklashProcessingYoVariable filteredJointVelocity = new BacklashProcessingYoVariable(prefix + suffix, "", intermediateJointVelocity, updateDT, slopTime, registry);
          processors.add(filteredJointVelocity);
+         pipelineStage.addJoint(intermediateJointVelocity, filteredJointVelocity);
 
          if (!forVizOnly)
             outputJointVelocities.put(oneDoFJoint, filteredJointVelocity);
@@ -1200,6 +1273,8 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
       if (jointsToIgnore != null && jointsToIgnore.length > 0)
          jointToIgnoreList.addAll(Arrays.asList(jointsToIgnore));
 
+      JointSensorProcessingPipeline.FiniteDifferenceStage pipelineStage = jointProcessingPipeline.addFiniteDifferenceStage(JOINT_ACCELERATION, alphaFilter);
+
       for (int i = 0; i < jointSensorDefinitions.size(); i++)
       {
          OneDoFJoint oneDoFJoint = jointSensorDefinitions.get(i);
@@ -1214,6 +1289,7 @@ public class SensorProcessing implements SensorOutputMapReadOnly, SensorRawOutpu
          String suffix = JOINT_ACCELERATION.getProcessorNameSuffix(jointName, processors.size());
          FilteredVelocityYoVariable jointAcceleration = new FilteredVelocityYoVariable(prefix + suffix, "", alphaFilter, intermediateJointVelocity, updateDT, registry);
          processors.add(jointAcceleration);
+         pipelineStage.addJoint(intermediateJointVelocity, jointAcceleration);
 
          if (!forVizOnly)
             outputJointAccelerations.put(oneDoFJoint, jointAcceleration);
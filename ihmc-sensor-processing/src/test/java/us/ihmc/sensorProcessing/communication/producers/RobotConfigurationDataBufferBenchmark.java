@@ -0,0 +1,171 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import controller_msgs.msg.dds.RobotConfigurationData;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotModels.FullRobotModelTestTools.RandomFullHumanoidRobotModel;
+import us.ihmc.robotModels.FullRobotModelUtils;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationDataFactory;
+
+/**
+ * Stress test of {@link RobotConfigurationDataBuffer}: a writer publishes at 1kHz, as the
+ * controller does, while reader threads look up past timestamps at the rate of a camera, a lidar,
+ * and as fast as possible. Each packet has all its joint angles set to its index, such that the
+ * readers can check that they never see a partially updated or wrong entry.
+ */
+public class RobotConfigurationDataBufferBenchmark
+{
+   private static final long RANDOM_SEED = 8532L;
+   private static final long WRITER_PERIOD_IN_NANOSECONDS = 1000000L;
+   private static final double DURATION_IN_SECONDS = 10.0;
+
+   public static void main(String[] args)
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      AtomicBoolean running = new AtomicBoolean(true);
+
+      FullHumanoidRobotModel writerFullRobotModel = new RandomFullHumanoidRobotModel(new Random(RANDOM_SEED));
+      OneDoFJoint[] writerJoints = FullRobotModelUtils.getAllJointsExcludingHands(writerFullRobotModel);
+
+      Thread writer = new Thread(() ->
+      {
+         long startTime = System.nanoTime();
+         long timestamp = 0;
+         while (running.get())
+         {
+            RobotConfigurationData data = RobotConfigurationDataFactory.create(writerJoints, writerFullRobotModel.getForceSensorDefinitions(),
+                                                                               writerFullRobotModel.getIMUDefinitions());
+            data.setTimestamp(timestamp);
+            for (int i = 0; i < writerJoints.length; i++)
+            {
+               data.getJointAngles().add(timestamp / WRITER_PERIOD_IN_NANOSECONDS);
+               data.getJointVelocities().add(0.0f);
+            }
+            buffer.update(data);
+
+            timestamp += WRITER_PERIOD_IN_NANOSECONDS;
+            while (System.nanoTime() - startTime < timestamp)
+               Thread.yield();
+         }
+      }, "writer");
+
+      List<Reader> readers = new ArrayList<>();
+      readers.add(new Reader("camera", buffer, running, 30.0));
+      readers.add(new Reader("lidar", buffer, running, 40.0));
+      readers.add(new Reader("stereo", buffer, running, 30.0));
+      readers.add(new Reader("stress0", buffer, running, Double.POSITIVE_INFINITY));
+      readers.add(new Reader("stress1", buffer, running, Double.POSITIVE_INFINITY));
+
+      writer.start();
+      ThreadTools.sleepSeconds(0.1);
+      for (Reader reader : readers)
+         reader.start();
+
+      ThreadTools.sleepSeconds(DURATION_IN_SECONDS);
+      running.set(false);
+
+      try
+      {
+         writer.join();
+         for (Reader reader : readers)
+            reader.join();
+      }
+      catch (InterruptedException e)
+      {
+         e.printStackTrace();
+      }
+
+      for (Reader reader : readers)
+         reader.print();
+   }
+
+   private static class Reader extends Thread
+   {
+      private final RobotConfigurationDataBuffer buffer;
+      private final AtomicBoolean running;
+      private final long periodInNanoseconds;
+      private final FullHumanoidRobotModel fullRobotModel = new RandomFullHumanoidRobotModel(new Random(RANDOM_SEED));
+      private final OneDoFJoint[] joints = FullRobotModelUtils.getAllJointsExcludingHands(fullRobotModel);
+      private final Random random = new Random();
+
+      private long numberOfLookups = 0;
+      private long numberOfMisses = 0;
+      private long numberOfErrors = 0;
+      private long totalLatency = 0;
+      private long maximumLatency = 0;
+
+      public Reader(String name, RobotConfigurationDataBuffer buffer, AtomicBoolean running, double rate)
+      {
+         super(name);
+         this.buffer = buffer;
+         this.running = running;
+         periodInNanoseconds = Double.isInfinite(rate) ? 0 : (long) (1.0e9 / rate);
+      }
+
+      @Override
+      public void run()
+      {
+         long startTime = System.nanoTime();
+
+         while (running.get())
+         {
+            // Sensor data is usually a few tens of milliseconds older than the newest robot state.
+            long timestamp = buffer.getNewestTimestamp() - (long) (random.nextDouble() * 50.0e6);
+            boolean interpolate = random.nextBoolean();
+
+            long lookupStartTime = System.nanoTime();
+            long result;
+            if (interpolate)
+               result = buffer.updateFullRobotModelWithInterpolation(false, timestamp, fullRobotModel, null);
+            else
+               result = buffer.updateFullRobotModel(false, timestamp, fullRobotModel, null);
+            long latency = System.nanoTime() - lookupStartTime;
+
+            numberOfLookups++;
+            totalLatency += latency;
+            maximumLatency = Math.max(maximumLatency, latency);
+
+            if (result == -1)
+               numberOfMisses++;
+            else if (!isConsistent(result, timestamp))
+               numberOfErrors++;
+
+            if (periodInNanoseconds > 0)
+            {
+               long nextTime = startTime + numberOfLookups * periodInNanoseconds;
+               long sleepTimeInMilliseconds = (nextTime - System.nanoTime()) / 1000000L;
+               if (sleepTimeInMilliseconds > 0)
+                  ThreadTools.sleep(sleepTimeInMilliseconds);
+            }
+         }
+      }
+
+      private boolean isConsistent(long result, long timestamp)
+      {
+         if (result > timestamp)
+            return false;
+
+         double expectedQ = (double) result / WRITER_PERIOD_IN_NANOSECONDS;
+         for (OneDoFJoint joint : joints)
+         {
+            if (Math.abs(joint.getQ() - expectedQ) > 1.0e-6)
+               return false;
+         }
+         return true;
+      }
+
+      public void print()
+      {
+         double lookupsPerSecond = numberOfLookups / DURATION_IN_SECONDS;
+         double averageLatency = totalLatency / 1.0e3 / Math.max(numberOfLookups, 1);
+         System.out.println(String.format("%s: %.1f lookups/s, average latency: %.2f us, max latency: %.2f us, misses: %d, errors: %d", getName(),
+                                          lookupsPerSecond, averageLatency, maximumLatency / 1.0e3, numberOfMisses, numberOfErrors));
+      }
+   }
+}
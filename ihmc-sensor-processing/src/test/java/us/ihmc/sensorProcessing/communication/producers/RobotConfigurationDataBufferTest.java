@@ -56,6 +56,93 @@ public abstract class RobotConfigurationDataBufferTest
       }
    }
 
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testInterpolation()
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      FullHumanoidRobotModel setterFullRobotModel = getFullRobotModel();
+      FullHumanoidRobotModel getterFullRobotModel = getFullRobotModel();
+
+      OneDoFJoint[] setterJoints = FullRobotModelUtils.getAllJointsExcludingHands(setterFullRobotModel);
+      OneDoFJoint[] getterJoints = FullRobotModelUtils.getAllJointsExcludingHands(getterFullRobotModel);
+      ForceSensorDefinition[] forceSensorDefinitions = setterFullRobotModel.getForceSensorDefinitions();
+      IMUDefinition[] imuDefinitions = setterFullRobotModel.getIMUDefinitions();
+
+      assertEquals(-1, buffer.updateFullRobotModelWithInterpolation(false, 0, getterFullRobotModel, null));
+
+      for (int i = 0; i < RobotConfigurationDataBuffer.BUFFER_SIZE * 2; i++)
+      {
+         RobotConfigurationData test = RobotConfigurationDataFactory.create(setterJoints, forceSensorDefinitions, imuDefinitions);
+         test.setTimestamp(i * 10);
+         test.getJointAngles().add(i * 10);
+         test.getJointVelocities().add(-i);
+         test.getRootTranslation().set(i, 2.0 * i, 0.0);
+         buffer.receivedPacket(test);
+      }
+
+      for (int i = 0; i < RobotConfigurationDataBuffer.BUFFER_SIZE; i++)
+      {
+         assertEquals(-1, buffer.updateFullRobotModelWithInterpolation(false, i * 10 + 5, getterFullRobotModel, null));
+      }
+
+      for (int i = RobotConfigurationDataBuffer.BUFFER_SIZE; i < 2 * RobotConfigurationDataBuffer.BUFFER_SIZE - 1; i++)
+      {
+         long timestamp = buffer.updateFullRobotModelWithInterpolation(false, i * 10 + 3, getterFullRobotModel, null);
+         assertEquals(i * 10 + 3, timestamp);
+         assertEquals(i * 10.0 + 3.0, getterJoints[0].getQ(), 1e-3);
+         assertEquals(-i - 0.3, getterJoints[0].getQd(), 1e-5);
+         assertEquals(i + 0.3, getterFullRobotModel.getRootJoint().getTranslationForReading().getX(), 1e-7);
+         assertEquals(2.0 * i + 0.6, getterFullRobotModel.getRootJoint().getTranslationForReading().getY(), 1e-7);
+      }
+
+      // Newer than the newest data, the newest data is used.
+      long newestTimestamp = (2 * RobotConfigurationDataBuffer.BUFFER_SIZE - 1) * 10;
+      assertEquals(newestTimestamp, buffer.updateFullRobotModelWithInterpolation(false, newestTimestamp + 5, getterFullRobotModel, null));
+      assertEquals(newestTimestamp, getterJoints[0].getQ(), 1e-3);
+      assertEquals(newestTimestamp, buffer.getNewestTimestamp());
+
+      assertTrue(buffer.updateFullRobotModelWithNewestData(getterFullRobotModel, null));
+      assertEquals(newestTimestamp, getterJoints[0].getQ(), 1e-3);
+   }
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testTimestampGoingBackward()
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      FullHumanoidRobotModel setterFullRobotModel = getFullRobotModel();
+      FullHumanoidRobotModel getterFullRobotModel = getFullRobotModel();
+
+      OneDoFJoint[] setterJoints = FullRobotModelUtils.getAllJointsExcludingHands(setterFullRobotModel);
+      OneDoFJoint[] getterJoints = FullRobotModelUtils.getAllJointsExcludingHands(getterFullRobotModel);
+      ForceSensorDefinition[] forceSensorDefinitions = setterFullRobotModel.getForceSensorDefinitions();
+      IMUDefinition[] imuDefinitions = setterFullRobotModel.getIMUDefinitions();
+
+      for (int i = 0; i < 100; i++)
+      {
+         RobotConfigurationData test = RobotConfigurationDataFactory.create(setterJoints, forceSensorDefinitions, imuDefinitions);
+         test.setTimestamp(1000 + i * 10);
+         test.getJointAngles().add(1.0);
+         buffer.receivedPacket(test);
+      }
+
+      // Restart, the older history is discarded.
+      for (int i = 0; i < 10; i++)
+      {
+         RobotConfigurationData test = RobotConfigurationDataFactory.create(setterJoints, forceSensorDefinitions, imuDefinitions);
+         test.setTimestamp(i * 10);
+         test.getJointAngles().add(2.0);
+         buffer.receivedPacket(test);
+      }
+
+      assertEquals(90, buffer.getNewestTimestamp());
+      assertEquals(90, buffer.updateFullRobotModel(false, 1500, getterFullRobotModel, null));
+      assertEquals(2.0, getterJoints[0].getQ(), 1e-7);
+      assertEquals(50, buffer.updateFullRobotModel(false, 55, getterFullRobotModel, null));
+      assertEquals(2.0, getterJoints[0].getQ(), 1e-7);
+   }
+
    @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 100.0)
    @Test(timeout = 30000)
    public void testWaitForTimestamp()
@@ -0,0 +1,170 @@
+package us.ihmc.sensorProcessing.sensorProcessors;
+
+import static org.junit.Assert.assertEquals;
+import static us.ihmc.sensorProcessing.sensorProcessors.SensorProcessing.SensorType.JOINT_POSITION;
+import static us.ihmc.sensorProcessing.sensorProcessors.SensorProcessing.SensorType.JOINT_TAU;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.math.trajectories.YoPolynomial;
+import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.ScrewTestTools;
+import us.ihmc.sensorProcessing.simulatedSensors.SensorNoiseParameters;
+import us.ihmc.sensorProcessing.simulatedSensors.StateEstimatorSensorDefinitions;
+import us.ihmc.sensorProcessing.stateEstimation.SensorProcessingConfiguration;
+import us.ihmc.yoVariables.parameters.DefaultParameterReader;
+import us.ihmc.yoVariables.providers.DoubleProvider;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class JointSensorProcessingPipelineTest
+{
+   private static final double EPSILON = 1.0e-12;
+   private static final double DT = 0.002;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstProcessingYoVariables()
+   {
+      assertPipelineMatchesProcessingYoVariables(new Random(4367L), JointSensorProcessingPipelineTest::configureProcessors);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testCouplingWithMasterAfterSlave()
+   {
+      assertPipelineMatchesProcessingYoVariables(new Random(2341L), (joints, sensorProcessing) ->
+      {
+         configureProcessors(joints, sensorProcessing);
+         // The master is processed after the slave when the joints are processed one after the other.
+         sensorProcessing.computeJointPositionUsingCoupling(joints.get(10).getName(), joints.get(3).getName(), () -> 0.5, () -> 0.1, false);
+         sensorProcessing.addSensorAlphaFilter(sensorProcessing.createAlphaFilter("couplingAlphaFilter", 8.0), false, JOINT_POSITION);
+      });
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testCouplingWithProcessedMasterPosition()
+   {
+      assertPipelineMatchesProcessingYoVariables(new Random(8762L), (joints, sensorProcessing) ->
+      {
+         configureProcessors(joints, sensorProcessing);
+         // The slave reads the processed position of the master, which depends on the order in which the joints are processed.
+         OneDoFJoint master = joints.get(10);
+         DoubleProvider processedMasterPosition = () -> sensorProcessing.getJointPositionProcessedOutput(master);
+         sensorProcessing.computeJointPositionUsingCoupling(processedMasterPosition, joints.get(3).getName(), () -> 0.5, null, false);
+         sensorProcessing.computeJointPositionUsingCoupling(processedMasterPosition, joints.get(20).getName(), () -> -0.5, null, false);
+         sensorProcessing.addSensorAlphaFilter(sensorProcessing.createAlphaFilter("couplingAlphaFilter", 8.0), false, JOINT_POSITION);
+      });
+   }
+
+   private static void assertPipelineMatchesProcessingYoVariables(Random random, BiConsumer<List<OneDoFJoint>, SensorProcessing> configurator)
+   {
+      List<OneDoFJoint> joints = ScrewTestTools.createRandomChainRobotWithOneDoFJoints(30, random);
+
+      StateEstimatorSensorDefinitions sensorDefinitions = new StateEstimatorSensorDefinitions();
+      for (OneDoFJoint joint : joints)
+         sensorDefinitions.addJointSensorDefinition(joint);
+
+      YoVariableRegistry expectedRegistry = new YoVariableRegistry("expected");
+      YoVariableRegistry actualRegistry = new YoVariableRegistry("actual");
+      SensorProcessing expectedSensorProcessing = new SensorProcessing(sensorDefinitions, createConfiguration(joints, configurator), expectedRegistry);
+      SensorProcessing actualSensorProcessing = new SensorProcessing(sensorDefinitions, createConfiguration(joints, configurator), actualRegistry);
+      actualSensorProcessing.setUseJointProcessingPipeline(true);
+      new DefaultParameterReader().readParametersInRegistry(expectedRegistry);
+      new DefaultParameterReader().readParametersInRegistry(actualRegistry);
+
+      double[] positions = new double[joints.size()];
+
+      for (int tick = 0; tick < 1000; tick++)
+      {
+         for (int i = 0; i < joints.size(); i++)
+         {
+            OneDoFJoint joint = joints.get(i);
+            // Random walk, such that the velocity changes sign regularly and triggers the backlash filter.
+            positions[i] += RandomNumbers.nextDouble(random, 0.01);
+            double velocity = RandomNumbers.nextDouble(random, 1.0);
+            double acceleration = RandomNumbers.nextDouble(random, 10.0);
+            double tau = RandomNumbers.nextDouble(random, 100.0);
+            joint.setQ(positions[i]);
+
+            for (SensorProcessing sensorProcessing : new SensorProcessing[] {expectedSensorProcessing, actualSensorProcessing})
+            {
+               sensorProcessing.setJointPositionSensorValue(joint, positions[i]);
+               sensorProcessing.setJointVelocitySensorValue(joint, velocity);
+               sensorProcessing.setJointAccelerationSensorValue(joint, acceleration);
+               sensorProcessing.setJointTauSensorValue(joint, tau);
+            }
+         }
+
+         expectedSensorProcessing.startComputation(tick, tick, -1);
+         actualSensorProcessing.startComputation(tick, tick, -1);
+
+         for (OneDoFJoint joint : joints)
+         {
+            assertEquals(expectedSensorProcessing.getJointPositionProcessedOutput(joint), actualSensorProcessing.getJointPositionProcessedOutput(joint), EPSILON);
+            assertEquals(expectedSensorProcessing.getJointVelocityProcessedOutput(joint), actualSensorProcessing.getJointVelocityProcessedOutput(joint), EPSILON);
+            assertEquals(expectedSensorProcessing.getJointAccelerationProcessedOutput(joint), actualSensorProcessing.getJointAccelerationProcessedOutput(joint),
+                         EPSILON);
+            assertEquals(expectedSensorProcessing.getJointTauProcessedOutput(joint), actualSensorProcessing.getJointTauProcessedOutput(joint), EPSILON);
+         }
+      }
+   }
+
+   private static SensorProcessingConfiguration createConfiguration(List<OneDoFJoint> joints, BiConsumer<List<OneDoFJoint>, SensorProcessing> configurator)
+   {
+      return new SensorProcessingConfiguration()
+      {
+         @Override
+         public SensorNoiseParameters getSensorNoiseParameters()
+         {
+            return null;
+         }
+
+         @Override
+         public double getEstimatorDT()
+         {
+            return DT;
+         }
+
+         @Override
+         public void configureSensorProcessing(SensorProcessing sensorProcessing)
+         {
+            configurator.accept(joints, sensorProcessing);
+         }
+      };
+   }
+
+   private static void configureProcessors(List<OneDoFJoint> joints, SensorProcessing sensorProcessing)
+   {
+      String firstJointName = joints.get(0).getName();
+      String secondJointName = joints.get(1).getName();
+      String thirdJointName = joints.get(2).getName();
+
+      DoubleProvider alphaFilter = sensorProcessing.createAlphaFilter("alphaFilter", 16.0);
+      DoubleProvider slopTime = sensorProcessing.createMaxDeflection("slopTime", 0.01);
+      DoubleProvider maxDeflection = sensorProcessing.createMaxDeflection("maxDeflection", 0.05);
+      Map<OneDoFJoint, DoubleProvider> stiffnesses = sensorProcessing.createStiffness("Stiffness", 2000.0, null);
+
+      YoPolynomial polynomial = new YoPolynomial("polynomial", 6, sensorProcessing.getYoVariableRegistry());
+      polynomial.setQuintic(-1.0, 1.0, -1.1, 1.0, 0.0, 1.1, 1.0, 0.0);
+
+      sensorProcessing.addJointPositionAffineTransformOnlyForSpecifiedJoints(() -> 1.1, () -> 0.05, false, firstJointName, secondJointName);
+      sensorProcessing.addJointPositionPolynomialProcessorWithJointsToIgnore(polynomial, false, thirdJointName);
+      Map<String, Integer> filteredTaus = sensorProcessing.addSensorAlphaFilter(alphaFilter, true, JOINT_TAU);
+      sensorProcessing.addJointPositionElasticyCompensatorWithJointsToIgnore(stiffnesses, maxDeflection, filteredTaus, false, firstJointName);
+      sensorProcessing.computeJointVelocityFromFiniteDifference(alphaFilter, false);
+      sensorProcessing.addJointVelocityElasticyCompensatorWithJointsToIgnore(stiffnesses, maxDeflection, filteredTaus, false);
+      sensorProcessing.addJointVelocityBacklashFilterWithJointsToIgnore(slopTime, false, secondJointName);
+      sensorProcessing.computeJointVelocityWithBacklashCompensatorOnlyForSpecifiedJoints(alphaFilter, slopTime, false, secondJointName);
+      sensorProcessing.computeJointAccelerationFromFiniteDifference(alphaFilter, false);
+      sensorProcessing.addSensorAlphaFilter(alphaFilter, false, JOINT_TAU);
+      sensorProcessing.addJointSensorsOverrideOnlyForSpecifiedJoints(0.2, 0.0, false, thirdJointName);
+   }
+}
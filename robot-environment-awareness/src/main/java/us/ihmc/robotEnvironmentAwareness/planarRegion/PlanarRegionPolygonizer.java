@@ -32,16 +32,34 @@ public abstract class PlanarRegionPolygonizer
                                                            ConcaveHullFactoryParameters concaveHullFactoryParameters,
                                                            PolygonizerParameters polygonizerParameters, PlanarRegionSegmentationDataExporter dataExporter)
    {
-      return new PlanarRegionsList(createPlanarRegions(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter));
+      return createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, null, dataExporter);
+   }
+
+   /**
+    * Creates the planar regions from the segmentation, reusing the regions from the given cache for
+    * the segmented regions that have not changed since the last update.
+    *
+    * @param cache the cache to use and update. Can be {@code null}, in which case all the regions
+    *           are created.
+    */
+   public static PlanarRegionsList createPlanarRegionsList(List<PlanarRegionSegmentationRawData> rawData,
+                                                           ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                                                           PolygonizerParameters polygonizerParameters, PlanarRegionPolygonizerCache cache,
+                                                           PlanarRegionSegmentationDataExporter dataExporter)
+   {
+      return new PlanarRegionsList(createPlanarRegions(rawData, concaveHullFactoryParameters, polygonizerParameters, cache, dataExporter));
    }
 
    private static List<PlanarRegion> createPlanarRegions(List<PlanarRegionSegmentationRawData> rawData,
                                                          ConcaveHullFactoryParameters concaveHullFactoryParameters, PolygonizerParameters polygonizerParameters,
-                                                         PlanarRegionSegmentationDataExporter dataExporter)
+                                                         PlanarRegionPolygonizerCache cache, PlanarRegionSegmentationDataExporter dataExporter)
    {
+      if (cache != null)
+         cache.startUpdate(rawData, concaveHullFactoryParameters, polygonizerParameters);
+
       List<List<PlanarRegion>> regions = rawData.parallelStream()
                                                 .filter(data -> data.size() >= polygonizerParameters.getMinNumberOfNodes())
-                                                .map(data -> createPlanarRegion(data, concaveHullFactoryParameters, polygonizerParameters, dataExporter))
+                                                .map(data -> createPlanarRegion(data, concaveHullFactoryParameters, polygonizerParameters, cache, dataExporter))
                                                 .filter(region -> region != null)
                                                 .collect(Collectors.toList());
 
@@ -53,6 +71,24 @@ public abstract class PlanarRegionPolygonizer
       return flattenedRegions;
    }
 
+   private static List<PlanarRegion> createPlanarRegion(PlanarRegionSegmentationRawData rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                                                        PolygonizerParameters polygonizerParameters, PlanarRegionPolygonizerCache cache,
+                                                        PlanarRegionSegmentationDataExporter dataExporter)
+   {
+      if (cache == null)
+         return createPlanarRegion(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter);
+
+      List<PlanarRegion> planarRegions = cache.get(rawData);
+
+      if (planarRegions == null)
+      {
+         planarRegions = createPlanarRegion(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter);
+         cache.put(rawData, planarRegions);
+      }
+
+      return planarRegions;
+   }
+
    private static List<PlanarRegion> createPlanarRegion(PlanarRegionSegmentationRawData rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
                                                         PolygonizerParameters polygonizerParameters, PlanarRegionSegmentationDataExporter dataExporter)
    {
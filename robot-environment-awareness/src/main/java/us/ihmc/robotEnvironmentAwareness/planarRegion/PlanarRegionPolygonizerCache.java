@@ -0,0 +1,210 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.robotEnvironmentAwareness.geometry.ConcaveHullFactoryParameters;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+/**
+ * Keeps the planar regions created by {@link PlanarRegionPolygonizer} from one update to the next
+ * such that a region which data has not changed does not have to be polygonized again.
+ * <p>
+ * The regions are stored by region ID together with a fingerprint of the data they were created
+ * from: the number of points, the centroid and bounding box of the points, and the normal of the
+ * region. The previous regions are reused when the number of points is the same and the other
+ * quantities are within the tolerances of this cache. Regions with intersections are not cached.
+ * </p>
+ * <p>
+ * The cache is emptied whenever the parameters given to the polygonizer change. As the
+ * parameters are given through the messager, they are compared by reference.
+ * </p>
+ */
+public class PlanarRegionPolygonizerCache
+{
+   private static final double DEFAULT_POSITION_TOLERANCE = 0.005;
+   private static final double DEFAULT_ANGLE_TOLERANCE = Math.toRadians(1.0);
+
+   private final double positionTolerance;
+   private final double normalDotProductThreshold;
+
+   private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+   private ConcaveHullFactoryParameters lastConcaveHullFactoryParameters = null;
+   private PolygonizerParameters lastPolygonizerParameters = null;
+
+   private final AtomicLong numberOfHits = new AtomicLong(0);
+   private final AtomicLong numberOfMisses = new AtomicLong(0);
+   private final AtomicLong numberOfHitsInLastUpdate = new AtomicLong(0);
+   private final AtomicLong numberOfMissesInLastUpdate = new AtomicLong(0);
+
+   public PlanarRegionPolygonizerCache()
+   {
+      this(DEFAULT_POSITION_TOLERANCE, DEFAULT_ANGLE_TOLERANCE);
+   }
+
+   /**
+    * @param positionTolerance maximum distance the centroid and the bounding box corners of a region
+    *           can move before the region gets polygonized again.
+    * @param angleTolerance maximum angle the normal of a region can rotate before the region gets
+    *           polygonized again.
+    */
+   public PlanarRegionPolygonizerCache(double positionTolerance, double angleTolerance)
+   {
+      this.positionTolerance = positionTolerance;
+      normalDotProductThreshold = Math.cos(angleTolerance);
+   }
+
+   /**
+    * Prepares the cache for polygonizing a new segmentation: clears it if the parameters have
+    * changed and removes the regions that are no longer part of the segmentation.
+    */
+   void startUpdate(List<PlanarRegionSegmentationRawData> rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                    PolygonizerParameters polygonizerParameters)
+   {
+      if (concaveHullFactoryParameters != lastConcaveHullFactoryParameters || polygonizerParameters != lastPolygonizerParameters)
+      {
+         entries.clear();
+         lastConcaveHullFactoryParameters = concaveHullFactoryParameters;
+         lastPolygonizerParameters = polygonizerParameters;
+      }
+      else
+      {
+         Set<Integer> regionIds = rawData.stream().map(PlanarRegionSegmentationRawData::getRegionId).collect(Collectors.toSet());
+         entries.keySet().retainAll(regionIds);
+      }
+
+      numberOfHitsInLastUpdate.set(0);
+      numberOfMissesInLastUpdate.set(0);
+   }
+
+   /**
+    * @return the planar regions previously created from data similar to {@code rawData}, or
+    *         {@code null} if the region has to be polygonized again.
+    */
+   List<PlanarRegion> get(PlanarRegionSegmentationRawData rawData)
+   {
+      Entry entry = rawData.hasIntersections() ? null : entries.get(rawData.getRegionId());
+
+      if (entry != null && entry.fingerprint.epsilonEquals(new Fingerprint(rawData), positionTolerance, normalDotProductThreshold))
+      {
+         numberOfHits.incrementAndGet();
+         numberOfHitsInLastUpdate.incrementAndGet();
+         return entry.planarRegions;
+      }
+      else
+      {
+         numberOfMisses.incrementAndGet();
+         numberOfMissesInLastUpdate.incrementAndGet();
+         return null;
+      }
+   }
+
+   void put(PlanarRegionSegmentationRawData rawData, List<PlanarRegion> planarRegions)
+   {
+      if (planarRegions == null || rawData.hasIntersections())
+         entries.remove(rawData.getRegionId());
+      else
+         entries.put(rawData.getRegionId(), new Entry(new Fingerprint(rawData), planarRegions));
+   }
+
+   public void clear()
+   {
+      entries.clear();
+      lastConcaveHullFactoryParameters = null;
+      lastPolygonizerParameters = null;
+   }
+
+   public int getNumberOfCachedRegions()
+   {
+      return entries.size();
+   }
+
+   public long getNumberOfHits()
+   {
+      return numberOfHits.get();
+   }
+
+   public long getNumberOfMisses()
+   {
+      return numberOfMisses.get();
+   }
+
+   public long getNumberOfHitsInLastUpdate()
+   {
+      return numberOfHitsInLastUpdate.get();
+   }
+
+   public long getNumberOfMissesInLastUpdate()
+   {
+      return numberOfMissesInLastUpdate.get();
+   }
+
+   @Override
+   public String toString()
+   {
+      long hits = getNumberOfHits();
+      long misses = getNumberOfMisses();
+      double hitRatio = hits + misses == 0 ? 0.0 : (double) hits / (double) (hits + misses);
+      return String.format("Polygonizer cache: last update hits: %d, misses: %d, total hits: %d, misses: %d, hit ratio: %.2f", getNumberOfHitsInLastUpdate(),
+                           getNumberOfMissesInLastUpdate(), hits, misses, hitRatio);
+   }
+
+   private static class Entry
+   {
+      private final Fingerprint fingerprint;
+      private final List<PlanarRegion> planarRegions;
+
+      private Entry(Fingerprint fingerprint, List<PlanarRegion> planarRegions)
+      {
+         this.fingerprint = fingerprint;
+         this.planarRegions = planarRegions;
+      }
+   }
+
+   private static class Fingerprint
+   {
+      private final int numberOfPoints;
+      private final Point3D centroid = new Point3D();
+      private final Vector3D normal;
+      private final BoundingBox3D boundingBox = new BoundingBox3D(new Point3D(Double.NaN, Double.NaN, Double.NaN),
+                                                                  new Point3D(Double.NaN, Double.NaN, Double.NaN));
+
+      private Fingerprint(PlanarRegionSegmentationRawData rawData)
+      {
+         numberOfPoints = rawData.size();
+         normal = new Vector3D(rawData.getNormal());
+
+         List<Point3D> pointCloud = rawData.getPointCloudInWorld();
+
+         for (int i = 0; i < pointCloud.size(); i++)
+         {
+            Point3D point = pointCloud.get(i);
+            centroid.add(point);
+            boundingBox.updateToIncludePoint(point);
+         }
+
+         if (numberOfPoints > 0)
+            centroid.scale(1.0 / numberOfPoints);
+      }
+
+      private boolean epsilonEquals(Fingerprint other, double positionTolerance, double normalDotProductThreshold)
+      {
+         if (numberOfPoints != other.numberOfPoints)
+            return false;
+         if (normal.dot(other.normal) < normalDotProductThreshold)
+            return false;
+         if (!centroid.epsilonEquals(other.centroid, positionTolerance))
+            return false;
+         if (!boundingBox.getMinPoint().epsilonEquals(other.boundingBox.getMinPoint(), positionTolerance))
+            return false;
+         return boundingBox.getMaxPoint().epsilonEquals(other.boundingBox.getMaxPoint(), positionTolerance);
+      }
+   }
+}
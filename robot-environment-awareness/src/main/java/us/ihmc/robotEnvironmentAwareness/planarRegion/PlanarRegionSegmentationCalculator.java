@@ -2,13 +2,16 @@ package us.ihmc.robotEnvironmentAwareness.planarRegion;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
@@ -26,11 +29,18 @@ import us.ihmc.robotics.geometry.PlanarRegion;
 
 public class PlanarRegionSegmentationCalculator
 {
+   /** Size of the cells used to group the changed nodes when looking for the regions they touch. */
+   private static final double CHANGED_NODES_CELL_SIZE = 0.25;
+   private static final double CHANGED_NODES_CELL_HALF_DIAGONAL = 0.5 * Math.sqrt(3.0) * CHANGED_NODES_CELL_SIZE;
+
    private final Random random = new Random(234324L);
 
    private final Set<NormalOcTreeNode> allRegionNodes = new HashSet<>();
    private List<PlanarRegionSegmentationNodeData> regionsNodeData = new ArrayList<>();
    private final List<NormalOcTreeNode> nodesWithoutRegion = new ArrayList<>();
+   private final Set<NormalOcTreeNode> changedNodes = new HashSet<>();
+   private final Map<Long, ChangedNodesCell> changedNodesCells = new HashMap<>();
+   private final List<NormalOcTreeNode> deletedRegionNodes = new ArrayList<>();
 
    private PlanarRegionSegmentationParameters parameters;
    private OcTreeBoundingBoxInterface boundingBox;
@@ -59,6 +69,225 @@ public class PlanarRegionSegmentationCalculator
       regionsNodeData = regionsNodeData.parallelStream().filter(region -> !isRegionSparse(region)).collect(Collectors.toList());
 
       regionsNodeData = mergePlanarRegionsIfPossible(root, regionsNodeData, parameters);
+
+      // Only keep track of the nodes that ended up in a region, such that the next incremental update can start from there.
+      allRegionNodes.clear();
+      regionsNodeData.forEach(region -> region.nodeStream().forEach(allRegionNodes::add));
+   }
+
+   /**
+    * Updates the segmentation considering only the octree nodes that changed since the last update.
+    * <p>
+    * Only the regions containing or neighboring the changed nodes are re-evaluated, and new regions
+    * are only searched from the changed nodes. The other regions are left untouched, such that they
+    * keep their ID and bounding box. {@link #compute(NormalOcTreeNode)} is expected to have been
+    * called at least once beforehand, and again whenever the parameters change.
+    * </p>
+    *
+    * @param root the root of the octree.
+    * @param updatedNodes the leaves updated since the last update.
+    * @param deletedNodes the leaves pruned from the octree since the last update.
+    */
+   public void computeIncrementally(NormalOcTreeNode root, Collection<NormalOcTreeNode> updatedNodes, Set<NormalOcTreeNode> deletedNodes)
+   {
+      double searchRadius = parameters.getSearchRadius();
+
+      // The normal of a node is estimated from its neighbors, so the neighbors of the updated nodes have changed as well.
+      changedNodes.clear();
+      for (NormalOcTreeNode updatedNode : updatedNodes)
+      {
+         changedNodes.add(updatedNode);
+         OcTreeNearestNeighborTools.findRadiusNeighbors(root, updatedNode, searchRadius, changedNodes::add);
+      }
+      changedNodes.removeAll(deletedNodes);
+      indexChangedNodes();
+
+      deletedRegionNodes.clear();
+      for (NormalOcTreeNode deletedNode : deletedNodes)
+      {
+         if (allRegionNodes.contains(deletedNode))
+            deletedRegionNodes.add(deletedNode);
+      }
+
+      List<PlanarRegionSegmentationNodeData> touchedRegions = regionsNodeData.parallelStream()
+                                                                             .filter(region -> isRegionTouched(region, searchRadius))
+                                                                             .collect(Collectors.toList());
+
+      for (PlanarRegionSegmentationNodeData region : touchedRegions)
+         allRegionNodes.removeAll(removeBadNodesFromRegion(boundingBox, parameters, region, deletedNodes));
+      touchedRegions.forEach(region -> growPlanarRegion(root, region, boundingBox, parameters));
+      removeRegions(touchedRegions, region -> region.getNumberOfNodes() <= parameters.getMinRegionSize());
+
+      nodesWithoutRegion.clear();
+      for (NormalOcTreeNode node : changedNodes)
+      {
+         if (node.isNormalSet() && isNodeInBoundingBox(node, boundingBox) && !allRegionNodes.contains(node))
+            nodesWithoutRegion.add(node);
+      }
+
+      List<PlanarRegionSegmentationNodeData> newRegions = searchNewPlanarRegionsIncrementally(root);
+      regionsNodeData.addAll(newRegions);
+      touchedRegions.addAll(newRegions);
+
+      touchedRegions.parallelStream().forEach(PlanarRegionSegmentationNodeData::recomputeNormalAndOrigin);
+      touchedRegions.parallelStream().forEach(PlanarRegionSegmentationCalculator::flipNormalOfOutliers);
+      removeRegions(touchedRegions, this::isRegionSparse);
+
+      mergeTouchedRegionsIfPossible(root, touchedRegions);
+   }
+
+   /**
+    * Groups the changed nodes by cell, such that only the nodes in the cells near a region have to
+    * be tested against it.
+    */
+   private void indexChangedNodes()
+   {
+      changedNodesCells.clear();
+
+      for (NormalOcTreeNode changedNode : changedNodes)
+      {
+         long xIndex = (long) Math.floor(changedNode.getX() / CHANGED_NODES_CELL_SIZE);
+         long yIndex = (long) Math.floor(changedNode.getY() / CHANGED_NODES_CELL_SIZE);
+         long zIndex = (long) Math.floor(changedNode.getZ() / CHANGED_NODES_CELL_SIZE);
+         long key = (xIndex & 0x1FFFFF) << 42 | (yIndex & 0x1FFFFF) << 21 | (zIndex & 0x1FFFFF);
+         changedNodesCells.computeIfAbsent(key, k -> new ChangedNodesCell(xIndex, yIndex, zIndex)).nodes.add(changedNode);
+      }
+   }
+
+   private boolean isRegionTouched(PlanarRegionSegmentationNodeData region, double searchRadius)
+   {
+      double searchRadiusSquared = searchRadius * searchRadius;
+      // A node of a cell can only be close to the region when the cell center is close as well.
+      double cellSearchRadius = searchRadius + CHANGED_NODES_CELL_HALF_DIAGONAL;
+      double cellSearchRadiusSquared = cellSearchRadius * cellSearchRadius;
+
+      for (ChangedNodesCell cell : changedNodesCells.values())
+      {
+         if (region.distanceSquaredFromBoundingBox(cell.centerX, cell.centerY, cell.centerZ) > cellSearchRadiusSquared)
+            continue;
+
+         for (NormalOcTreeNode changedNode : cell.nodes)
+         {
+            if (region.distanceSquaredFromBoundingBox(changedNode) <= searchRadiusSquared)
+               return true;
+         }
+      }
+
+      for (NormalOcTreeNode deletedNode : deletedRegionNodes)
+      {
+         if (region.contains(deletedNode))
+            return true;
+      }
+
+      return false;
+   }
+
+   private static class ChangedNodesCell
+   {
+      private final double centerX, centerY, centerZ;
+      private final List<NormalOcTreeNode> nodes = new ArrayList<>();
+
+      private ChangedNodesCell(long xIndex, long yIndex, long zIndex)
+      {
+         centerX = (xIndex + 0.5) * CHANGED_NODES_CELL_SIZE;
+         centerY = (yIndex + 0.5) * CHANGED_NODES_CELL_SIZE;
+         centerZ = (zIndex + 0.5) * CHANGED_NODES_CELL_SIZE;
+      }
+   }
+
+   /**
+    * Removes the regions that satisfy the given condition from both the given list and this
+    * calculator, and releases their nodes.
+    */
+   private void removeRegions(List<PlanarRegionSegmentationNodeData> regionsToFilter, Predicate<PlanarRegionSegmentationNodeData> removeCondition)
+   {
+      Set<PlanarRegionSegmentationNodeData> regionsToRemove = new HashSet<>();
+
+      for (PlanarRegionSegmentationNodeData region : regionsToFilter)
+      {
+         if (removeCondition.test(region))
+            regionsToRemove.add(region);
+      }
+
+      if (regionsToRemove.isEmpty())
+         return;
+
+      regionsToFilter.removeAll(regionsToRemove);
+      regionsNodeData.removeAll(regionsToRemove);
+      regionsToRemove.forEach(region -> region.nodeStream().forEach(allRegionNodes::remove));
+   }
+
+   private List<PlanarRegionSegmentationNodeData> searchNewPlanarRegionsIncrementally(NormalOcTreeNode root)
+   {
+      List<PlanarRegionSegmentationNodeData> newRegions = new ArrayList<>();
+
+      float minNormalQuality = (float) parameters.getMinNormalQuality();
+
+      for (NormalOcTreeNode node : nodesWithoutRegion)
+      {
+         if (node.getNormalAverageDeviation() > minNormalQuality || allRegionNodes.contains(node))
+            continue;
+
+         PlanarRegionSegmentationNodeData region = createNewOcTreeNodePlanarRegion(root, node, nextRegionId(), boundingBox, parameters);
+
+         if (region.getNumberOfNodes() > parameters.getMinRegionSize())
+         {
+            allRegionNodes.add(node);
+            newRegions.add(region);
+         }
+         else
+         { // Release the nodes such that they can be part of a region in a later update.
+            region.nodeStream().forEach(allRegionNodes::remove);
+         }
+      }
+
+      return newRegions;
+   }
+
+   /**
+    * Merges the touched regions with any region they can be merged with. Only the regions in the
+    * vicinity of the touched regions are considered, the others could not have become mergeable
+    * since the last update. As in {@link #mergePlanarRegionsIfPossible(NormalOcTreeNode, List, PlanarRegionSegmentationParameters)},
+    * the oldest region absorbs the others such that its ID remains.
+    */
+   private void mergeTouchedRegionsIfPossible(NormalOcTreeNode root, List<PlanarRegionSegmentationNodeData> touchedRegions)
+   {
+      if (touchedRegions.isEmpty())
+         return;
+
+      double searchRadius = parameters.getSearchRadius();
+      double searchRadiusSquared = searchRadius * searchRadius;
+
+      Set<PlanarRegionSegmentationNodeData> touchedRegionSet = new HashSet<>();
+      touchedRegionSet.addAll(touchedRegions);
+
+      List<PlanarRegionSegmentationNodeData> candidates = new ArrayList<>();
+
+      for (PlanarRegionSegmentationNodeData region : regionsNodeData)
+      {
+         if (touchedRegionSet.contains(region))
+         {
+            candidates.add(region);
+            continue;
+         }
+
+         for (PlanarRegionSegmentationNodeData touchedRegion : touchedRegions)
+         {
+            if (region.distanceSquaredFromOtherRegionBoundingBox(touchedRegion) <= searchRadiusSquared)
+            {
+               candidates.add(region);
+               break;
+            }
+         }
+      }
+
+      if (candidates.size() < 2)
+         return;
+
+      Set<PlanarRegionSegmentationNodeData> remainingCandidates = new HashSet<>();
+      remainingCandidates.addAll(mergePlanarRegionsIfPossible(root, candidates, parameters));
+      candidates.removeAll(remainingCandidates);
+      regionsNodeData.removeAll(candidates);
    }
 
    public boolean isRegionSparse(PlanarRegionSegmentationNodeData region)
@@ -90,6 +319,7 @@ public class PlanarRegionSegmentationCalculator
    public void clear()
    {
       regionsNodeData.clear();
+      allRegionNodes.clear();
    }
 
    private IteratorSelectionRule<NormalOcTreeNode> leafInBoundingBoxWithNormalSetRule(OcTreeBoundingBoxInterface boundingBox)
@@ -215,9 +445,7 @@ public class PlanarRegionSegmentationCalculator
          if (node.getNormalAverageDeviation() > minNormalQuality)
             continue;
 
-         int regionId = PlanarRegion.NO_REGION_ID;
-         while (regionId == PlanarRegion.NO_REGION_ID)
-            regionId = random.nextInt(Integer.MAX_VALUE);
+         int regionId = nextRegionId(random);
          PlanarRegionSegmentationNodeData region = createNewOcTreeNodePlanarRegion(root, node, regionId, boundingBox, parameters);
 
          if (region.getNumberOfNodes() > parameters.getMinRegionSize())
@@ -227,6 +455,19 @@ public class PlanarRegionSegmentationCalculator
       return newRegions;
    }
 
+   private int nextRegionId()
+   {
+      return nextRegionId(random);
+   }
+
+   private static int nextRegionId(Random random)
+   {
+      int regionId = PlanarRegion.NO_REGION_ID;
+      while (regionId == PlanarRegion.NO_REGION_ID)
+         regionId = random.nextInt(Integer.MAX_VALUE);
+      return regionId;
+   }
+
    public PlanarRegionSegmentationNodeData createNewOcTreeNodePlanarRegion(NormalOcTreeNode root, NormalOcTreeNode seedNode, int regionId, OcTreeBoundingBoxInterface boundingBox,
          PlanarRegionSegmentationParameters parameters)
    {
@@ -278,12 +519,19 @@ public class PlanarRegionSegmentationCalculator
 
    private static void removeBadNodesFromRegion(OcTreeBoundingBoxInterface boundingBox, PlanarRegionSegmentationParameters parameters,
          PlanarRegionSegmentationNodeData region)
+   {
+      removeBadNodesFromRegion(boundingBox, parameters, region, Collections.emptySet());
+   }
+
+   private static List<NormalOcTreeNode> removeBadNodesFromRegion(OcTreeBoundingBoxInterface boundingBox, PlanarRegionSegmentationParameters parameters,
+         PlanarRegionSegmentationNodeData region, Set<NormalOcTreeNode> deletedNodes)
    {
       List<NormalOcTreeNode> nodesToRemove = region.nodeStream()
-            .collect(Collectors.groupingBy(node -> isBadNode(node, region, boundingBox, parameters)))
+            .collect(Collectors.groupingBy(node -> deletedNodes.contains(node) || isBadNode(node, region, boundingBox, parameters)))
             .getOrDefault(true, Collections.emptyList());
 
       region.removeNodesAndUpdate(nodesToRemove);
+      return nodesToRemove;
    }
 
    private static void removeDeadNodesFromRegion(PlanarRegionSegmentationNodeData region)
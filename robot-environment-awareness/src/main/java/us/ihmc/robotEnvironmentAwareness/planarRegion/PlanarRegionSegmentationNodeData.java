@@ -144,13 +144,14 @@ public class PlanarRegionSegmentationNodeData implements Iterable<NormalOcTreeNo
       if (isInsideBoundingBox(node))
          return 0.0;
 
-      double nodeX = node.getX();
-      double nodeY = node.getY();
-      double nodeZ = node.getZ();
+      return distanceSquaredFromBoundingBox(node.getX(), node.getY(), node.getZ());
+   }
 
-      double dx = max(min.getX() - nodeX, 0.0, nodeX - max.getX());
-      double dy = max(min.getY() - nodeY, 0.0, nodeY - max.getY());
-      double dz = max(min.getZ() - nodeZ, 0.0, nodeZ - max.getZ());
+   public double distanceSquaredFromBoundingBox(double x, double y, double z)
+   {
+      double dx = max(min.getX() - x, 0.0, x - max.getX());
+      double dy = max(min.getY() - y, 0.0, y - max.getY());
+      double dz = max(min.getZ() - z, 0.0, z - max.getZ());
       return dx * dx + dy * dy + dz * dz;
    }
 
@@ -5,6 +5,9 @@ import static us.ihmc.robotEnvironmentAwareness.communication.REACommunicationPr
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -25,6 +28,7 @@ import us.ihmc.robotEnvironmentAwareness.communication.KryoMessager;
 import us.ihmc.robotEnvironmentAwareness.communication.REACommunicationProperties;
 import us.ihmc.robotEnvironmentAwareness.communication.REAModuleAPI;
 import us.ihmc.robotEnvironmentAwareness.io.FilePropertyHelper;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationRawData;
 import us.ihmc.robotEnvironmentAwareness.tools.ExecutorServiceTools;
 import us.ihmc.robotEnvironmentAwareness.tools.ExecutorServiceTools.ExceptionHandling;
 import us.ihmc.ros2.Ros2Node;
@@ -33,13 +37,14 @@ public class LIDARBasedREAModule
 {
    private static final String ocTreeTimeReport = "OcTree update took: ";
    private static final String reportOcTreeStateTimeReport = "Reporting OcTree state took: ";
-   private static final String planarRegionsTimeReport = "OcTreePlanarRegion update took: ";
+   private static final String reportSegmentationStateTimeReport = "Reporting segmentation state took: ";
    private static final String reportPlanarRegionsStateTimeReport = "Reporting Planar Regions state took: ";
 
    private final TimeReporter timeReporter = new TimeReporter(this);
 
    private static final int THREAD_PERIOD_MILLISECONDS = 200;
    private static final int BUFFER_THREAD_PERIOD_MILLISECONDS = 10;
+   private static final int POLYGONIZER_THREAD_PERIOD_MILLISECONDS = 10;
    private static final double OCTREE_RESOLUTION = 0.02;
    protected static final boolean DEBUG = true;
 
@@ -56,8 +61,18 @@ public class LIDARBasedREAModule
 
    private final AtomicReference<Boolean> clearOcTree;
 
-   private ScheduledExecutorService executorService = ExecutorServiceTools.newScheduledThreadPool(3, getClass(), ExceptionHandling.CATCH_AND_REPORT);
+   /** Hands the segmentation of the latest octree over to the polygonizer while the next scans are being processed. */
+   private final REAPipelineBuffer<List<PlanarRegionSegmentationRawData>> segmentationBuffer = new REAPipelineBuffer<>();
+
+   private final REAPipelineStageStatistics ocTreeStageStatistics = new REAPipelineStageStatistics("OcTree & segmentation");
+   private final REAPipelineStageStatistics polygonizerStageStatistics = new REAPipelineStageStatistics("Polygonizer", segmentationBuffer);
+   private final REAPipelineStageStatistics publisherStageStatistics = new REAPipelineStageStatistics("Publisher");
+   private final List<REAPipelineStageStatistics> pipelineStatistics = Arrays.asList(ocTreeStageStatistics, polygonizerStageStatistics,
+                                                                                     publisherStageStatistics);
+
+   private ScheduledExecutorService executorService = ExecutorServiceTools.newScheduledThreadPool(4, getClass(), ExceptionHandling.CATCH_AND_REPORT);
    private ScheduledFuture<?> scheduled;
+   private final List<ScheduledFuture<?>> scheduledPipelineStages = new ArrayList<>();
    private final Messager reaMessager;
 
    private LIDARBasedREAModule(Messager reaMessager, File configurationFile) throws IOException
@@ -101,11 +116,22 @@ public class LIDARBasedREAModule
 
    private final AtomicDouble lastCompleteUpdate = new AtomicDouble(Double.NaN);
 
+   /**
+    * First stage of the pipeline: integrates the new scans into the octree and updates the
+    * segmentation. Both have to run on the same thread as the segmentation reads the octree nodes.
+    * The new segmentation is handed over to the polygonizer such that the next scans can be
+    * integrated while the planar regions are being computed.
+    */
    private void mainUpdate()
    {
       if (isThreadInterrupted())
          return;
 
+      ocTreeStageStatistics.run(this::updateOcTreeAndSegmentation);
+   }
+
+   private void updateOcTreeAndSegmentation()
+   {
       double currentTime = JOctoMapTools.nanoSecondsToSeconds(System.nanoTime());
 
       boolean ocTreeUpdateSuccess = true;
@@ -117,19 +143,23 @@ public class LIDARBasedREAModule
             bufferUpdater.clearBuffer();
             mainUpdater.clearOcTree();
             planarRegionFeatureUpdater.clearOcTree();
+            segmentationBuffer.clear();
          }
          else
          {
             timeReporter.run(mainUpdater::update, ocTreeTimeReport);
+            planarRegionFeatureUpdater.registerOcTreeChanges(mainUpdater.getLastUpdatedNodes(), mainUpdater.getLastDeletedNodes(),
+                                                             mainUpdater.wereNormalsCleared());
             timeReporter.run(() -> moduleStateReporter.reportOcTreeState(mainOctree), reportOcTreeStateTimeReport);
 
             if (isThreadInterrupted())
                return;
 
-            timeReporter.run(planarRegionFeatureUpdater::update, planarRegionsTimeReport);
-            timeReporter.run(() -> moduleStateReporter.reportPlanarRegionsState(planarRegionFeatureUpdater), reportPlanarRegionsStateTimeReport);
+            List<PlanarRegionSegmentationRawData> segmentationSnapshot = planarRegionFeatureUpdater.updateSegmentation();
+            timeReporter.run(() -> moduleStateReporter.reportPlanarRegionSegmentationState(planarRegionFeatureUpdater), reportSegmentationStateTimeReport);
 
-            planarRegionNetworkProvider.update(ocTreeUpdateSuccess);
+            if (segmentationSnapshot != null)
+               segmentationBuffer.submit(segmentationSnapshot);
          }
 
          if (isThreadInterrupted())
@@ -140,14 +170,7 @@ public class LIDARBasedREAModule
       }
       catch (Exception e)
       {
-         if (DEBUG)
-         {
-            e.printStackTrace();
-         }
-         else
-         {
-            PrintTools.error(LIDARBasedREAModule.class, e.getClass().getSimpleName());
-         }
+         handleException(e);
       }
 
       currentTime = JOctoMapTools.nanoSecondsToSeconds(System.nanoTime());
@@ -156,6 +179,63 @@ public class LIDARBasedREAModule
          lastCompleteUpdate.set(currentTime);
    }
 
+   /**
+    * Second stage of the pipeline: computes the planar regions from the latest segmentation
+    * snapshot. The planar regions and intersections are also reported from here as this is the
+    * only thread updating them.
+    */
+   private void polygonizerUpdate()
+   {
+      if (isThreadInterrupted())
+         return;
+
+      try
+      {
+         List<PlanarRegionSegmentationRawData> segmentationSnapshot = segmentationBuffer.poll();
+
+         if (segmentationSnapshot != null)
+            polygonizerStageStatistics.run(() -> planarRegionFeatureUpdater.updatePolygons(segmentationSnapshot));
+
+         timeReporter.run(() -> moduleStateReporter.reportPlanarRegionsState(planarRegionFeatureUpdater), reportPlanarRegionsStateTimeReport);
+      }
+      catch (Exception e)
+      {
+         handleException(e);
+      }
+   }
+
+   /**
+    * Last stage of the pipeline: publishes the latest planar regions and the statistics of the
+    * pipeline.
+    */
+   private void publisherUpdate()
+   {
+      if (isThreadInterrupted())
+         return;
+
+      try
+      {
+         publisherStageStatistics.run(() -> planarRegionNetworkProvider.update(true));
+         moduleStateReporter.reportPipelineState(pipelineStatistics, planarRegionFeatureUpdater.getPolygonizerCache());
+      }
+      catch (Exception e)
+      {
+         handleException(e);
+      }
+   }
+
+   private void handleException(Exception e)
+   {
+      if (DEBUG)
+      {
+         e.printStackTrace();
+      }
+      else
+      {
+         PrintTools.error(LIDARBasedREAModule.class, e.getClass().getSimpleName());
+      }
+   }
+
    private boolean isThreadInterrupted()
    {
       return Thread.interrupted() || scheduled == null || scheduled.isCancelled();
@@ -166,6 +246,9 @@ public class LIDARBasedREAModule
       if (scheduled == null)
       {
          scheduled = executorService.scheduleAtFixedRate(this::mainUpdate, 0, THREAD_PERIOD_MILLISECONDS, TimeUnit.MILLISECONDS);
+         scheduledPipelineStages.add(executorService.scheduleWithFixedDelay(this::polygonizerUpdate, 0, POLYGONIZER_THREAD_PERIOD_MILLISECONDS,
+                                                                            TimeUnit.MILLISECONDS));
+         scheduledPipelineStages.add(executorService.scheduleAtFixedRate(this::publisherUpdate, 0, THREAD_PERIOD_MILLISECONDS, TimeUnit.MILLISECONDS));
          executorService.scheduleAtFixedRate(bufferUpdater.createBufferThread(), 0, BUFFER_THREAD_PERIOD_MILLISECONDS, TimeUnit.MILLISECONDS);
       }
    }
@@ -182,6 +265,9 @@ public class LIDARBasedREAModule
          scheduled = null;
       }
 
+      scheduledPipelineStages.forEach(stage -> stage.cancel(true));
+      scheduledPipelineStages.clear();
+
       if (executorService != null)
       {
          executorService.shutdownNow();
@@ -1,5 +1,6 @@
 package us.ihmc.robotEnvironmentAwareness.updaters;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import controller_msgs.msg.dds.LidarScanMessage;
@@ -10,6 +11,7 @@ import us.ihmc.robotEnvironmentAwareness.communication.REAModuleAPI;
 import us.ihmc.robotEnvironmentAwareness.communication.converters.BoundingBoxMessageConverter;
 import us.ihmc.robotEnvironmentAwareness.communication.converters.OcTreeMessageConverter;
 import us.ihmc.robotEnvironmentAwareness.communication.converters.REAPlanarRegionsConverter;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionPolygonizerCache;
 
 public class REAModuleStateReporter
 {
@@ -20,6 +22,7 @@ public class REAModuleStateReporter
    private final AtomicReference<Boolean> arePlanarRegionsRequested;
    private final AtomicReference<Boolean> isPlanarRegionSegmentationRequested;
    private final AtomicReference<Boolean> arePlanarRegionsIntersectionsRequested;
+   private final AtomicReference<Boolean> isPipelineStateRequested;
 
    public REAModuleStateReporter(Messager reaMessager)
    {
@@ -30,6 +33,7 @@ public class REAModuleStateReporter
       arePlanarRegionsRequested = reaMessager.createInput(REAModuleAPI.RequestPlanarRegions, false);
       isPlanarRegionSegmentationRequested = reaMessager.createInput(REAModuleAPI.RequestPlanarRegionSegmentation, false);
       arePlanarRegionsIntersectionsRequested = reaMessager.createInput(REAModuleAPI.RequestPlanarRegionsIntersections, false);
+      isPipelineStateRequested = reaMessager.createInput(REAModuleAPI.RequestPipelineState, false);
    }
 
    public void reportBufferOcTreeState(NormalOcTree bufferOcTree)
@@ -50,12 +54,33 @@ public class REAModuleStateReporter
    {
       if (regionFeaturesProvider.getPlanarRegionsList() != null && arePlanarRegionsRequested.getAndSet(false))
          reaMessager.submitMessage(REAModuleAPI.PlanarRegionsState, PlanarRegionMessageConverter.convertToPlanarRegionsListMessage(regionFeaturesProvider.getPlanarRegionsList()));
-      if (isPlanarRegionSegmentationRequested.getAndSet(false))
-         reaMessager.submitMessage(REAModuleAPI.PlanarRegionsSegmentationState, REAPlanarRegionsConverter.createPlanarRegionSegmentationMessages(regionFeaturesProvider));
       if (arePlanarRegionsIntersectionsRequested.getAndSet(false))
          reaMessager.submitMessage(REAModuleAPI.PlanarRegionsIntersectionState, REAPlanarRegionsConverter.createLineSegment3dMessages(regionFeaturesProvider));
    }
 
+   public void reportPlanarRegionSegmentationState(RegionFeaturesProvider regionFeaturesProvider)
+   {
+      if (isPlanarRegionSegmentationRequested.getAndSet(false))
+         reaMessager.submitMessage(REAModuleAPI.PlanarRegionsSegmentationState, REAPlanarRegionsConverter.createPlanarRegionSegmentationMessages(regionFeaturesProvider));
+   }
+
+   public void reportPipelineState(List<REAPipelineStageStatistics> stagesStatistics, PlanarRegionPolygonizerCache polygonizerCache)
+   {
+      if (!isPipelineStateRequested.getAndSet(false))
+         return;
+
+      StringBuilder report = new StringBuilder();
+      for (int i = 0; i < stagesStatistics.size(); i++)
+      {
+         if (i > 0)
+            report.append(System.lineSeparator());
+         report.append(stagesStatistics.get(i));
+      }
+      if (polygonizerCache != null)
+         report.append(System.lineSeparator()).append(polygonizerCache);
+      reaMessager.submitMessage(REAModuleAPI.PipelineState, report.toString());
+   }
+
    public void registerLidarScanMessage(LidarScanMessage message)
    {
       reaMessager.submitMessage(REAModuleAPI.LidarScanState, new LidarScanMessage(message));
@@ -41,6 +41,10 @@ public class REAOcTreeUpdater
    private final AtomicReference<Boolean> useBoundingBox;
    private final AtomicReference<BoundingBoxParametersMessage> atomicBoundingBoxParameters;
 
+   private final Set<NormalOcTreeNode> lastUpdatedNodes = new HashSet<>();
+   private final Set<NormalOcTreeNode> lastDeletedNodes = new HashSet<>();
+   private boolean normalsCleared = false;
+
    public REAOcTreeUpdater(NormalOcTree octree, REAOcTreeBuffer buffer, Messager reaMessager)
    {
       this.referenceOctree = octree;
@@ -114,6 +118,10 @@ public class REAOcTreeUpdater
 
    public void update()
    {
+      lastUpdatedNodes.clear();
+      lastDeletedNodes.clear();
+      normalsCleared = false;
+
       if (!enable.get())
          return;
 
@@ -142,13 +150,13 @@ public class REAOcTreeUpdater
          PointCloud pointCloud = new PointCloud();
          bufferOctree.forEach(node -> pointCloud.add(node.getHitLocationX(), node.getHitLocationY(), node.getHitLocationZ()));
          Scan scan = new Scan(sensorOrigin, pointCloud);
-         Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
-         referenceOctree.insertScan(scan, updatedNodes, null);
+         referenceOctree.insertScan(scan, lastUpdatedNodes, lastDeletedNodes);
       }
 
       if (clearNormals.getAndSet(false))
       {
          referenceOctree.clearNormals();
+         normalsCleared = true;
          return;
       }
 
@@ -163,6 +171,30 @@ public class REAOcTreeUpdater
       referenceOctree.clear();
    }
 
+   /**
+    * Gets the leaves that were updated during the last call to {@link #update()}.
+    */
+   public Set<NormalOcTreeNode> getLastUpdatedNodes()
+   {
+      return lastUpdatedNodes;
+   }
+
+   /**
+    * Gets the leaves that were pruned from the octree during the last call to {@link #update()}.
+    */
+   public Set<NormalOcTreeNode> getLastDeletedNodes()
+   {
+      return lastDeletedNodes;
+   }
+
+   /**
+    * Whether the normals of the entire octree were cleared during the last call to {@link #update()}.
+    */
+   public boolean wereNormalsCleared()
+   {
+      return normalsCleared;
+   }
+
    private void handleBoundingBox()
    {
       if (!useBoundingBox.get())
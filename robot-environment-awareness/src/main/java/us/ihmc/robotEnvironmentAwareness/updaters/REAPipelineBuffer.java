@@ -0,0 +1,49 @@
+package us.ihmc.robotEnvironmentAwareness.updaters;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-slot hand-off between two stages of the REA pipeline.
+ * <p>
+ * The producing stage fills the slot with a new immutable snapshot while the consuming stage
+ * works on the previous one. The producer never waits on the consumer: when the consumer falls
+ * behind, the pending snapshot is replaced with the newer one and counted as dropped, such that
+ * the consumer always processes the most recent data.
+ * </p>
+ *
+ * @param <T> the type of the snapshots exchanged, must not be modified once submitted.
+ */
+public class REAPipelineBuffer<T>
+{
+   private final AtomicReference<T> pendingSnapshot = new AtomicReference<>(null);
+   private final AtomicLong numberOfDroppedSnapshots = new AtomicLong(0);
+
+   /**
+    * Submits a new snapshot, replacing the pending one if it has not been consumed yet.
+    */
+   public void submit(T snapshot)
+   {
+      if (pendingSnapshot.getAndSet(snapshot) != null)
+         numberOfDroppedSnapshots.incrementAndGet();
+   }
+
+   /**
+    * @return the pending snapshot or {@code null} if no new snapshot was submitted since the last
+    *         poll.
+    */
+   public T poll()
+   {
+      return pendingSnapshot.getAndSet(null);
+   }
+
+   public void clear()
+   {
+      pendingSnapshot.set(null);
+   }
+
+   public long getNumberOfDroppedSnapshots()
+   {
+      return numberOfDroppedSnapshots.get();
+   }
+}
@@ -0,0 +1,102 @@
+package us.ihmc.robotEnvironmentAwareness.updaters;
+
+import us.ihmc.commons.Conversions;
+
+/**
+ * Latency and throughput counters of one stage of the REA pipeline.
+ * <p>
+ * The counters are updated by the thread running the stage and can be read from any other
+ * thread.
+ * </p>
+ */
+public class REAPipelineStageStatistics
+{
+   private static final double AVERAGING_ALPHA = 0.1;
+
+   private final String stageName;
+   private final REAPipelineBuffer<?> inputBuffer;
+
+   private volatile long numberOfRuns = 0;
+   private volatile long lastLatency = 0;
+   private volatile double averageLatency = Double.NaN;
+   private volatile double averagePeriod = Double.NaN;
+   private long lastStartTime = Long.MIN_VALUE;
+
+   public REAPipelineStageStatistics(String stageName)
+   {
+      this(stageName, null);
+   }
+
+   /**
+    * @param stageName the name used when reporting the statistics.
+    * @param inputBuffer the buffer the stage consumes, used to report the number of snapshots the
+    *           stage could not keep up with. Can be {@code null}.
+    */
+   public REAPipelineStageStatistics(String stageName, REAPipelineBuffer<?> inputBuffer)
+   {
+      this.stageName = stageName;
+      this.inputBuffer = inputBuffer;
+   }
+
+   /**
+    * Runs the stage and updates the counters.
+    */
+   public void run(Runnable stage)
+   {
+      long startTime = System.nanoTime();
+      stage.run();
+      long endTime = System.nanoTime();
+
+      lastLatency = endTime - startTime;
+      averageLatency = filter(averageLatency, lastLatency);
+      if (lastStartTime != Long.MIN_VALUE)
+         averagePeriod = filter(averagePeriod, startTime - lastStartTime);
+      lastStartTime = startTime;
+      numberOfRuns++;
+   }
+
+   private static double filter(double average, double sample)
+   {
+      return Double.isNaN(average) ? sample : average + AVERAGING_ALPHA * (sample - average);
+   }
+
+   public String getStageName()
+   {
+      return stageName;
+   }
+
+   public long getNumberOfRuns()
+   {
+      return numberOfRuns;
+   }
+
+   /** @return the duration of the last run in seconds. */
+   public double getLastLatency()
+   {
+      return Conversions.nanosecondsToSeconds(lastLatency);
+   }
+
+   /** @return the moving average of the duration of a run in seconds. */
+   public double getAverageLatency()
+   {
+      return Double.isNaN(averageLatency) ? 0.0 : Conversions.nanosecondsToSeconds((long) averageLatency);
+   }
+
+   /** @return the moving average of the number of runs per second. */
+   public double getThroughput()
+   {
+      return Double.isNaN(averagePeriod) || averagePeriod <= 0.0 ? 0.0 : 1.0 / Conversions.nanosecondsToSeconds((long) averagePeriod);
+   }
+
+   public long getNumberOfDroppedInputs()
+   {
+      return inputBuffer == null ? 0 : inputBuffer.getNumberOfDroppedSnapshots();
+   }
+
+   @Override
+   public String toString()
+   {
+      return String.format("%s: runs: %d, latency: %.1f ms (average: %.1f ms), throughput: %.1f Hz, dropped inputs: %d", stageName, getNumberOfRuns(),
+                           1.0e3 * getLastLatency(), 1.0e3 * getAverageLatency(), getThroughput(), getNumberOfDroppedInputs());
+   }
+}
@@ -1,10 +1,14 @@
 package us.ihmc.robotEnvironmentAwareness.updaters;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
 import us.ihmc.jOctoMap.ocTree.NormalOcTree;
 import us.ihmc.javaFXToolkit.messager.Messager;
 import us.ihmc.robotEnvironmentAwareness.communication.REAModuleAPI;
@@ -13,6 +17,7 @@ import us.ihmc.robotEnvironmentAwareness.io.FilePropertyHelper;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.IntersectionEstimationParameters;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionIntersectionCalculator;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionPolygonizer;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionPolygonizerCache;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationCalculator;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationNodeData;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationParameters;
@@ -24,9 +29,12 @@ import us.ihmc.robotics.geometry.PlanarRegionsList;
 public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
 {
    private static final boolean EXPORT_SEGMENTATION_ON_EXCEPTION = false;
+   private static final boolean USE_INCREMENTAL_SEGMENTATION = true;
+   private static final boolean USE_POLYGONIZER_CACHE = true;
 
    private static final String segmentationTimeReport = "Segmentation took: ";
    private static final String intersectionsTimeReport = "Processing intersections took: ";
+   private static final String polygonizerTimeReport = "Polygonization took: ";
 
    private final PlanarRegionSegmentationDataExporter dataExporter = EXPORT_SEGMENTATION_ON_EXCEPTION ? new PlanarRegionSegmentationDataExporter(new File("DataThrowingException/Segmentation")) : null;
 
@@ -34,9 +42,16 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
    private final NormalOcTree octree;
 
    private final PlanarRegionSegmentationCalculator segmentationCalculator = new PlanarRegionSegmentationCalculator();
+   private final PlanarRegionPolygonizerCache polygonizerCache = USE_POLYGONIZER_CACHE ? new PlanarRegionPolygonizerCache() : null;
 
-   private PlanarRegionsList planarRegionsList = null;
-   private List<LineSegment3D> planarRegionsIntersections = null;
+   private final Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
+   private final Set<NormalOcTreeNode> deletedNodes = new HashSet<>();
+   /** Whether the changes of the octree since the last segmentation are known, i.e. the segmentation can be updated incrementally. */
+   private boolean areOcTreeChangesKnown = false;
+   private PlanarRegionSegmentationParameters lastSegmentationParameters = null;
+
+   private volatile PlanarRegionsList planarRegionsList = null;
+   private volatile List<LineSegment3D> planarRegionsIntersections = null;
 
    private final AtomicReference<Boolean> isOcTreeEnabled;
    private final AtomicReference<Boolean> enableSegmentation;
@@ -125,57 +140,144 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       filePropertyHelper.saveProperty(REAModuleAPI.PlanarRegionsIntersectionParameters.getName(), intersectionEstimationParameters.get().toString());
    }
 
+   /**
+    * Registers the changes of the octree since the last call to {@link #update()}, such that the
+    * segmentation can be updated only where the octree changed.
+    * <p>
+    * When the changes are not registered before an update, the segmentation is computed over the
+    * entire octree.
+    * </p>
+    *
+    * @param updatedNodes the leaves of the octree that were updated.
+    * @param deletedNodes the leaves that were pruned from the octree.
+    * @param haveAllNodesChanged whether the entire octree should be considered as changed.
+    */
+   public void registerOcTreeChanges(Collection<NormalOcTreeNode> updatedNodes, Collection<NormalOcTreeNode> deletedNodes, boolean haveAllNodesChanged)
+   {
+      if (haveAllNodesChanged)
+      {
+         forgetOcTreeChanges();
+         return;
+      }
+
+      this.updatedNodes.addAll(updatedNodes);
+      this.deletedNodes.addAll(deletedNodes);
+      areOcTreeChangesKnown = true;
+   }
+
+   private void forgetOcTreeChanges()
+   {
+      updatedNodes.clear();
+      deletedNodes.clear();
+      areOcTreeChangesKnown = false;
+      lastSegmentationParameters = null;
+   }
+
    public void update()
+   {
+      List<PlanarRegionSegmentationRawData> rawData = updateSegmentation();
+
+      if (rawData != null)
+         updatePolygons(rawData);
+   }
+
+   /**
+    * Updates the segmentation from the current state of the octree.
+    * <p>
+    * This has to be called from the thread updating the octree as the segmentation reads its nodes.
+    * </p>
+    *
+    * @return a snapshot of the new segmentation to be given to {@link #updatePolygons(List)}, or
+    *         {@code null} if the segmentation was not updated.
+    */
+   public List<PlanarRegionSegmentationRawData> updateSegmentation()
    {
       if (!isOcTreeEnabled.get())
-         return;
+         return null;
 
       if (clearSegmentation.getAndSet(false))
       {
          segmentationCalculator.clear();
-         return;
+         forgetOcTreeChanges();
+         return null;
       }
 
       if (!enableSegmentation.get())
       {
          segmentationCalculator.removeDeadNodes();
-         return;
+         forgetOcTreeChanges();
+         return null;
       }
 
+      PlanarRegionSegmentationParameters parameters = planarRegionSegmentationParameters.get();
       segmentationCalculator.setBoundingBox(octree.getBoundingBox());
-      segmentationCalculator.setParameters(planarRegionSegmentationParameters.get());
+      segmentationCalculator.setParameters(parameters);
+
+      // The previous segmentation can only be updated when it was computed with the same parameters.
+      boolean computeIncrementally = USE_INCREMENTAL_SEGMENTATION && areOcTreeChangesKnown && parameters == lastSegmentationParameters;
+      // Only set back once the segmentation succeeded, such that the next update after a failure goes through a full compute.
+      lastSegmentationParameters = null;
+
+      try
+      {
+         if (computeIncrementally)
+            timeReporter.run(() -> segmentationCalculator.computeIncrementally(octree.getRoot(), updatedNodes, deletedNodes), segmentationTimeReport);
+         else
+            timeReporter.run(() -> segmentationCalculator.compute(octree.getRoot()), segmentationTimeReport);
+      }
+      finally
+      {
+         updatedNodes.clear();
+         deletedNodes.clear();
+         areOcTreeChangesKnown = false;
+      }
 
-      timeReporter.run(() -> segmentationCalculator.compute(octree.getRoot()), segmentationTimeReport);
+      lastSegmentationParameters = parameters;
 
-      List<PlanarRegionSegmentationRawData> rawData = segmentationCalculator.getSegmentationRawData();
+      return segmentationCalculator.getSegmentationRawData();
+   }
 
+   /**
+    * Computes the intersections and the planar regions from a segmentation snapshot.
+    * <p>
+    * The snapshot is independent from the octree, such that this can run on a different thread
+    * than {@link #updateSegmentation()}.
+    * </p>
+    */
+   public void updatePolygons(List<PlanarRegionSegmentationRawData> rawData)
+   {
       if (enableIntersectionCalulator.get())
          timeReporter.run(() -> updateIntersections(rawData), intersectionsTimeReport);
 
       if (clearPolygonizer.getAndSet(false))
       {
          planarRegionsList = null;
+         if (polygonizerCache != null)
+            polygonizerCache.clear();
       }
       else if (enablePolygonizer.get())
       {
-         timeReporter.run(() -> updatePolygons(rawData), segmentationTimeReport);
+         timeReporter.run(() -> updatePlanarRegions(rawData), polygonizerTimeReport);
       }
    }
 
    public void clearOcTree()
    {
       segmentationCalculator.clear();
+      forgetOcTreeChanges();
    }
 
-   private void updatePolygons(List<PlanarRegionSegmentationRawData> rawData)
+   private void updatePlanarRegions(List<PlanarRegionSegmentationRawData> rawData)
    {
       ConcaveHullFactoryParameters concaveHullFactoryParameters = this.concaveHullFactoryParameters.get();
       PolygonizerParameters polygonizerParameters = this.polygonizerParameters.get();
 
       if (EXPORT_SEGMENTATION_ON_EXCEPTION)
-         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter);
+         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, polygonizerCache,
+                                                                             dataExporter);
       else
-         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters);
+         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, polygonizerCache,
+                                                                             null);
    }
    
    private void updateIntersections(List<PlanarRegionSegmentationRawData> rawData)
@@ -183,6 +285,15 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       planarRegionsIntersections = PlanarRegionIntersectionCalculator.computeIntersections(rawData, intersectionEstimationParameters.get());
    }
 
+   /**
+    * @return the cache used to reuse the planar regions that have not changed between two updates,
+    *         or {@code null} if the cache is disabled.
+    */
+   public PlanarRegionPolygonizerCache getPolygonizerCache()
+   {
+      return polygonizerCache;
+   }
+
    @Override
    public List<PlanarRegionSegmentationNodeData> getSegmentationNodeData()
    {
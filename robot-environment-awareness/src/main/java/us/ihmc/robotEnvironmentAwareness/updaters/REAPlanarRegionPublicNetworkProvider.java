@@ -43,9 +43,11 @@ public class REAPlanarRegionPublicNetworkProvider
 
    private void processRequests()
    {
-      while (!requestsToProcess.isEmpty())
+      RequestPlanarRegionsListMessage request;
+
+      // Requests are processed from both the publisher and the octree threads, the queue may be emptied by the other thread at any time.
+      while ((request = requestsToProcess.poll()) != null)
       {
-         RequestPlanarRegionsListMessage request = requestsToProcess.poll();
          PlanarRegionsRequestType requestType = PlanarRegionsRequestType.fromByte(request.getPlanarRegionsRequestType());
          if (requestType == PlanarRegionsRequestType.CLEAR)
             hasReceivedClearRequest.set(true);
@@ -54,6 +56,7 @@ public class REAPlanarRegionPublicNetworkProvider
 
    public boolean pollClearRequest()
    {
+      processRequests();
       return hasReceivedClearRequest.getAndSet(false);
    }
 
@@ -61,6 +64,11 @@ public class REAPlanarRegionPublicNetworkProvider
 
    private void handlePacket(Subscriber<RequestPlanarRegionsListMessage> subscriber)
    {
-      requestsToProcess.offer(subscriber.takeNextData());
+      submitRequest(subscriber.takeNextData());
+   }
+
+   void submitRequest(RequestPlanarRegionsListMessage request)
+   {
+      requestsToProcess.offer(request);
    }
 }
@@ -0,0 +1,204 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.LineSegment2D;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.robotEnvironmentAwareness.geometry.ConcaveHullFactoryParameters;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+
+public class PlanarRegionPolygonizerCacheTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testUnchangedRegionHitsCache()
+   {
+      Random random = new Random(3453L);
+      PlanarRegionPolygonizerCache cache = new PlanarRegionPolygonizerCache();
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+
+      List<PlanarRegionSegmentationRawData> rawData = Arrays.asList(createRawData(random, 1, 0.0), createRawData(random, 2, 0.5));
+      List<PlanarRegion> planarRegions = Collections.singletonList(new PlanarRegion());
+
+      cache.startUpdate(rawData, concaveHullFactoryParameters, polygonizerParameters);
+      assertNull(cache.get(rawData.get(0)));
+      cache.put(rawData.get(0), planarRegions);
+      assertEquals(0, cache.getNumberOfHitsInLastUpdate());
+      assertEquals(1, cache.getNumberOfMissesInLastUpdate());
+
+      // Same data, the cached regions are returned
+      cache.startUpdate(rawData, concaveHullFactoryParameters, polygonizerParameters);
+      assertSame(planarRegions, cache.get(rawData.get(0)));
+      assertEquals(1, cache.getNumberOfHitsInLastUpdate());
+      assertEquals(0, cache.getNumberOfMissesInLastUpdate());
+
+      // Equivalent data in a new snapshot, with the points in a different order
+      List<Point3D> shuffledPoints = new ArrayList<>(rawData.get(0).getPointCloudInWorld());
+      Collections.shuffle(shuffledPoints, random);
+      PlanarRegionSegmentationRawData sameRegion = new PlanarRegionSegmentationRawData(1, new Vector3D(0.0, 0.0, 1.0), new Point3D(), shuffledPoints);
+      cache.startUpdate(Collections.singletonList(sameRegion), concaveHullFactoryParameters, polygonizerParameters);
+      assertSame(planarRegions, cache.get(sameRegion));
+      assertEquals(2, cache.getNumberOfHits());
+      assertEquals(1, cache.getNumberOfMisses());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testModifiedRegionMissesCache()
+   {
+      Random random = new Random(3453L);
+      PlanarRegionPolygonizerCache cache = new PlanarRegionPolygonizerCache();
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+
+      PlanarRegionSegmentationRawData rawData = createRawData(random, 1, 0.0);
+      List<PlanarRegion> planarRegions = Collections.singletonList(new PlanarRegion());
+      cache.startUpdate(Collections.singletonList(rawData), concaveHullFactoryParameters, polygonizerParameters);
+      cache.put(rawData, planarRegions);
+
+      // A point was added
+      List<Point3D> points = new ArrayList<>(rawData.getPointCloudInWorld());
+      points.add(new Point3D(0.1, 0.1, 0.0));
+      assertMiss(cache, new PlanarRegionSegmentationRawData(1, new Vector3D(0.0, 0.0, 1.0), new Point3D(), points), concaveHullFactoryParameters,
+                 polygonizerParameters);
+
+      // The region moved
+      points = new ArrayList<>();
+      for (Point3D point : rawData.getPointCloudInWorld())
+         points.add(new Point3D(point.getX() + 0.05, point.getY(), point.getZ()));
+      assertMiss(cache, new PlanarRegionSegmentationRawData(1, new Vector3D(0.0, 0.0, 1.0), new Point3D(), points), concaveHullFactoryParameters,
+                 polygonizerParameters);
+
+      // The normal rotated
+      Vector3D tiltedNormal = new Vector3D(0.2, 0.0, 1.0);
+      tiltedNormal.normalize();
+      assertMiss(cache, new PlanarRegionSegmentationRawData(1, tiltedNormal, new Point3D(), rawData.getPointCloudInWorld()), concaveHullFactoryParameters,
+                 polygonizerParameters);
+
+      // Regions with intersections are never cached
+      PlanarRegionSegmentationRawData regionWithIntersection = new PlanarRegionSegmentationRawData(1, new Vector3D(0.0, 0.0, 1.0), new Point3D(),
+                                                                                                 rawData.getPointCloudInWorld());
+      regionWithIntersection.addIntersection(new LineSegment2D(0.0, 0.0, 1.0, 0.0));
+      assertMiss(cache, regionWithIntersection, concaveHullFactoryParameters, polygonizerParameters);
+      cache.put(regionWithIntersection, planarRegions);
+      assertEquals(0, cache.getNumberOfCachedRegions());
+
+      // Regions that are no longer part of the segmentation are dropped
+      cache.put(rawData, planarRegions);
+      assertEquals(1, cache.getNumberOfCachedRegions());
+      cache.startUpdate(Collections.singletonList(createRawData(random, 2, 0.5)), concaveHullFactoryParameters, polygonizerParameters);
+      assertEquals(0, cache.getNumberOfCachedRegions());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testParameterChangeInvalidatesAllEntries()
+   {
+      Random random = new Random(3453L);
+      PlanarRegionPolygonizerCache cache = new PlanarRegionPolygonizerCache();
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+
+      List<PlanarRegionSegmentationRawData> rawData = new ArrayList<>();
+      for (int i = 0; i < 5; i++)
+         rawData.add(createRawData(random, i + 1, 0.5 * i));
+
+      fillCache(cache, rawData, concaveHullFactoryParameters, polygonizerParameters);
+      assertEquals(rawData.size(), cache.getNumberOfCachedRegions());
+
+      // The parameters are compared by reference as new parameters come as new objects from the messager.
+      cache.startUpdate(rawData, new ConcaveHullFactoryParameters(concaveHullFactoryParameters), polygonizerParameters);
+      assertEquals(0, cache.getNumberOfCachedRegions());
+      for (PlanarRegionSegmentationRawData data : rawData)
+         assertNull(cache.get(data));
+      assertEquals(rawData.size(), cache.getNumberOfMissesInLastUpdate());
+
+      fillCache(cache, rawData, concaveHullFactoryParameters, polygonizerParameters);
+      cache.startUpdate(rawData, concaveHullFactoryParameters, new PolygonizerParameters(polygonizerParameters));
+      assertEquals(0, cache.getNumberOfCachedRegions());
+
+      fillCache(cache, rawData, concaveHullFactoryParameters, polygonizerParameters);
+      cache.clear();
+      assertEquals(0, cache.getNumberOfCachedRegions());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testWithPolygonizer()
+   {
+      Random random = new Random(3453L);
+      PlanarRegionPolygonizerCache cache = new PlanarRegionPolygonizerCache();
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+
+      List<PlanarRegionSegmentationRawData> rawData = Arrays.asList(createRawData(random, 1, 0.0), createRawData(random, 2, 0.5));
+      PlanarRegionsList firstRegions = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters,
+                                                                                       cache, null);
+      assertEquals(0, cache.getNumberOfHitsInLastUpdate());
+      assertEquals(2, cache.getNumberOfMissesInLastUpdate());
+      assertFalse(firstRegions.isEmpty());
+
+      // Only the second region changes
+      List<PlanarRegionSegmentationRawData> newRawData = Arrays.asList(rawData.get(0), createRawData(random, 2, 0.6));
+      PlanarRegionsList secondRegions = PlanarRegionPolygonizer.createPlanarRegionsList(newRawData, concaveHullFactoryParameters, polygonizerParameters,
+                                                                                        cache, null);
+      assertEquals(1, cache.getNumberOfHitsInLastUpdate());
+      assertEquals(1, cache.getNumberOfMissesInLastUpdate());
+      assertSame(getRegion(firstRegions, 1), getRegion(secondRegions, 1));
+      assertNotSame(getRegion(firstRegions, 2), getRegion(secondRegions, 2));
+   }
+
+   private static PlanarRegion getRegion(PlanarRegionsList planarRegionsList, int regionId)
+   {
+      for (int i = 0; i < planarRegionsList.getNumberOfPlanarRegions(); i++)
+      {
+         if (planarRegionsList.getPlanarRegion(i).getRegionId() == regionId)
+            return planarRegionsList.getPlanarRegion(i);
+      }
+      fail("No region with ID " + regionId);
+      return null;
+   }
+
+   private static void fillCache(PlanarRegionPolygonizerCache cache, List<PlanarRegionSegmentationRawData> rawData,
+                                 ConcaveHullFactoryParameters concaveHullFactoryParameters, PolygonizerParameters polygonizerParameters)
+   {
+      cache.startUpdate(rawData, concaveHullFactoryParameters, polygonizerParameters);
+      for (PlanarRegionSegmentationRawData data : rawData)
+      {
+         if (cache.get(data) == null)
+            cache.put(data, Collections.singletonList(new PlanarRegion()));
+      }
+   }
+
+   private static void assertMiss(PlanarRegionPolygonizerCache cache, PlanarRegionSegmentationRawData rawData,
+                                  ConcaveHullFactoryParameters concaveHullFactoryParameters, PolygonizerParameters polygonizerParameters)
+   {
+      cache.startUpdate(Collections.singletonList(rawData), concaveHullFactoryParameters, polygonizerParameters);
+      assertNull(cache.get(rawData));
+      assertEquals(1, cache.getNumberOfMissesInLastUpdate());
+   }
+
+   /**
+    * Horizontal square of random points of 0.4m side at the given height.
+    */
+   private static PlanarRegionSegmentationRawData createRawData(Random random, int regionId, double height)
+   {
+      List<Point3D> points = new ArrayList<>();
+      for (int i = 0; i < 200; i++)
+         points.add(new Point3D(0.4 * random.nextDouble(), 0.4 * random.nextDouble(), height));
+
+      return new PlanarRegionSegmentationRawData(regionId, new Vector3D(0.0, 0.0, 1.0), new Point3D(0.2, 0.2, height), points);
+   }
+}
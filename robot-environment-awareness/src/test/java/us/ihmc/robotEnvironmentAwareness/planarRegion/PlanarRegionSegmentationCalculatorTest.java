@@ -0,0 +1,113 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.jOctoMap.boundingBox.OcTreeBoundingBoxWithCenterAndYaw;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
+import us.ihmc.jOctoMap.ocTree.NormalOcTree;
+import us.ihmc.jOctoMap.pointCloud.PointCloud;
+import us.ihmc.jOctoMap.pointCloud.Scan;
+
+public class PlanarRegionSegmentationCalculatorTest
+{
+   private static final double OCTREE_RESOLUTION = 0.02;
+   private static final int NUMBER_OF_EDITS = 20;
+
+   @ContinuousIntegrationTest(estimatedDuration = 5.0)
+   @Test(timeout = 60000)
+   public void testIncrementalSegmentationMatchesFullSegmentation()
+   {
+      Random random = new Random(45345L);
+      Point3D sensorOrigin = new Point3D(0.0, 0.0, 2.0);
+
+      NormalOcTree octree = new NormalOcTree(OCTREE_RESOLUTION);
+      OcTreeBoundingBoxWithCenterAndYaw boundingBox = new OcTreeBoundingBoxWithCenterAndYaw();
+      boundingBox.setLocalMinMaxCoordinates(new Point3D(-2.0, -2.0, -1.0), new Point3D(2.0, 2.0, 1.0));
+      boundingBox.update(octree.getResolution(), octree.getTreeDepth());
+      octree.setBoundingBox(boundingBox);
+
+      PlanarRegionSegmentationParameters parameters = new PlanarRegionSegmentationParameters();
+      PlanarRegionSegmentationCalculator fullCalculator = new PlanarRegionSegmentationCalculator();
+      PlanarRegionSegmentationCalculator incrementalCalculator = new PlanarRegionSegmentationCalculator();
+      for (PlanarRegionSegmentationCalculator calculator : new PlanarRegionSegmentationCalculator[] {fullCalculator, incrementalCalculator})
+      {
+         calculator.setParameters(parameters);
+         calculator.setBoundingBox(octree.getBoundingBox());
+      }
+
+      Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
+      Set<NormalOcTreeNode> deletedNodes = new HashSet<>();
+
+      for (int edit = 0; edit < NUMBER_OF_EDITS; edit++)
+      {
+         // Scanning a patch either adds a new surface or clears the nodes that the rays go through.
+         double height = 0.2 * random.nextInt(3) - 0.4;
+         double centerX = -1.2 + 2.4 * random.nextDouble();
+         double centerY = -1.2 + 2.4 * random.nextDouble();
+         double size = 0.4 + 0.4 * random.nextDouble();
+         Scan scan = new Scan(sensorOrigin, createHorizontalPatch(centerX, centerY, size, height));
+
+         updatedNodes.clear();
+         deletedNodes.clear();
+         octree.insertScan(scan, updatedNodes, deletedNodes);
+         octree.updateNormals();
+
+         fullCalculator.compute(octree.getRoot());
+         if (edit == 0)
+            incrementalCalculator.compute(octree.getRoot());
+         else
+            incrementalCalculator.computeIncrementally(octree.getRoot(), updatedNodes, deletedNodes);
+
+         Set<NormalOcTreeNode> leaves = new HashSet<>();
+         octree.forEach(leaves::add);
+
+         Set<Set<NormalOcTreeNode>> expectedRegions = toNodeSets(fullCalculator.getSegmentationNodeData(), leaves);
+         Set<Set<NormalOcTreeNode>> actualRegions = toNodeSets(incrementalCalculator.getSegmentationNodeData(), leaves);
+         assertFalse(expectedRegions.isEmpty());
+         assertEquals("Edit " + edit, expectedRegions, actualRegions);
+      }
+   }
+
+   /**
+    * Only the nodes that are still in the octree are compared, as the pruned nodes are dropped at a
+    * different time by the two approaches.
+    */
+   private static Set<Set<NormalOcTreeNode>> toNodeSets(List<PlanarRegionSegmentationNodeData> regions, Set<NormalOcTreeNode> leaves)
+   {
+      Set<Set<NormalOcTreeNode>> nodeSets = new HashSet<>();
+
+      for (PlanarRegionSegmentationNodeData region : regions)
+      {
+         Set<NormalOcTreeNode> nodeSet = new HashSet<>();
+         region.nodeStream().filter(leaves::contains).forEach(nodeSet::add);
+         nodeSets.add(nodeSet);
+      }
+
+      return nodeSets;
+   }
+
+   private static PointCloud createHorizontalPatch(double centerX, double centerY, double size, double height)
+   {
+      PointCloud pointCloud = new PointCloud();
+      double spacing = 0.5 * OCTREE_RESOLUTION;
+
+      for (double x = -0.5 * size; x < 0.5 * size; x += spacing)
+      {
+         for (double y = -0.5 * size; y < 0.5 * size; y += spacing)
+         {
+            pointCloud.add(centerX + x, centerY + y, height);
+         }
+      }
+
+      return pointCloud;
+   }
+}
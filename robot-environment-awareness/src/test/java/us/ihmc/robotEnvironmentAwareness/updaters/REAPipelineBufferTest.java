@@ -0,0 +1,68 @@
+package us.ihmc.robotEnvironmentAwareness.updaters;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class REAPipelineBufferTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSubmitAndPoll()
+   {
+      REAPipelineBuffer<String> buffer = new REAPipelineBuffer<>();
+      assertNull(buffer.poll());
+
+      buffer.submit("a");
+      assertEquals("a", buffer.poll());
+      assertNull(buffer.poll());
+      assertEquals(0, buffer.getNumberOfDroppedSnapshots());
+
+      // The consumer only gets the latest snapshot
+      buffer.submit("b");
+      buffer.submit("c");
+      assertEquals("c", buffer.poll());
+      assertEquals(1, buffer.getNumberOfDroppedSnapshots());
+
+      buffer.submit("d");
+      buffer.clear();
+      assertNull(buffer.poll());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testConcurrentHandOff() throws InterruptedException
+   {
+      REAPipelineBuffer<Integer> buffer = new REAPipelineBuffer<>();
+      int numberOfSnapshots = 100000;
+
+      Thread producer = new Thread(() ->
+      {
+         for (int i = 0; i < numberOfSnapshots; i++)
+            buffer.submit(i);
+      });
+
+      List<Integer> receivedSnapshots = new ArrayList<>();
+      producer.start();
+
+      while (receivedSnapshots.isEmpty() || receivedSnapshots.get(receivedSnapshots.size() - 1) != numberOfSnapshots - 1)
+      {
+         Integer snapshot = buffer.poll();
+         if (snapshot != null)
+            receivedSnapshots.add(snapshot);
+      }
+
+      producer.join();
+      assertNull(buffer.poll());
+
+      // Snapshots are received in order and each one is either received or counted as dropped
+      for (int i = 1; i < receivedSnapshots.size(); i++)
+         assertTrue(receivedSnapshots.get(i) > receivedSnapshots.get(i - 1));
+      assertEquals(numberOfSnapshots, receivedSnapshots.size() + buffer.getNumberOfDroppedSnapshots());
+   }
+}
@@ -0,0 +1,112 @@
+package us.ihmc.robotEnvironmentAwareness.updaters;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import controller_msgs.msg.dds.RequestPlanarRegionsListMessage;
+import us.ihmc.communication.ROS2Tools;
+import us.ihmc.communication.packets.MessageTools;
+import us.ihmc.communication.packets.PlanarRegionsRequestType;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.pubsub.DomainFactory.PubSubImplementation;
+import us.ihmc.robotEnvironmentAwareness.communication.REACommunicationProperties;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationNodeData;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.ros2.Ros2Node;
+
+public class REAPlanarRegionPublicNetworkProviderTest
+{
+   /**
+    * The clear requests are processed from both the octree thread, through
+    * {@link REAPlanarRegionPublicNetworkProvider#pollClearRequest()}, and the publisher thread,
+    * through {@link REAPlanarRegionPublicNetworkProvider#update(boolean)}. Every clear request has
+    * to reach the octree thread no matter which thread processed it.
+    */
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testClearRequestHandOff() throws InterruptedException
+   {
+      Ros2Node ros2Node = ROS2Tools.createRos2Node(PubSubImplementation.INTRAPROCESS, "test_clear_request_hand_off");
+      REAPlanarRegionPublicNetworkProvider networkProvider = new REAPlanarRegionPublicNetworkProvider(new EmptyRegionFeaturesProvider(), ros2Node,
+                                                                                                      REACommunicationProperties.publisherTopicNameGenerator,
+                                                                                                      REACommunicationProperties.subscriberTopicNameGenerator);
+
+      AtomicBoolean stopPublisher = new AtomicBoolean(false);
+      AtomicReference<Throwable> publisherException = new AtomicReference<>(null);
+      Thread publisher = new Thread(() ->
+      {
+         try
+         {
+            while (!stopPublisher.get())
+               networkProvider.update(true);
+         }
+         catch (Throwable e)
+         {
+            publisherException.set(e);
+         }
+      });
+      publisher.start();
+
+      try
+      {
+         for (int i = 0; i < 1000; i++)
+         {
+            // Requests other than clear do not trigger a clear
+            networkProvider.submitRequest(createRequest(PlanarRegionsRequestType.SINGLE_UPDATE));
+            networkProvider.submitRequest(createRequest(PlanarRegionsRequestType.CONTINUOUS_UPDATE));
+            assertFalse(networkProvider.pollClearRequest());
+
+            networkProvider.submitRequest(createRequest(PlanarRegionsRequestType.CLEAR));
+            while (!networkProvider.pollClearRequest())
+               Thread.yield();
+            assertFalse(networkProvider.pollClearRequest());
+         }
+      }
+      finally
+      {
+         stopPublisher.set(true);
+         publisher.join();
+         ros2Node.destroy();
+      }
+
+      assertNull(publisherException.get());
+   }
+
+   private static RequestPlanarRegionsListMessage createRequest(PlanarRegionsRequestType requestType)
+   {
+      return MessageTools.createRequestPlanarRegionsListMessage(requestType);
+   }
+
+   private static class EmptyRegionFeaturesProvider implements RegionFeaturesProvider
+   {
+      @Override
+      public List<PlanarRegionSegmentationNodeData> getSegmentationNodeData()
+      {
+         return null;
+      }
+
+      @Override
+      public PlanarRegionsList getPlanarRegionsList()
+      {
+         return null;
+      }
+
+      @Override
+      public int getNumberOfPlaneIntersections()
+      {
+         return 0;
+      }
+
+      @Override
+      public LineSegment3D getIntersection(int index)
+      {
+         return null;
+      }
+   }
+}
@@ -33,10 +33,29 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
 
    private final String name;
 
-   private final Point3D tempPointToCheck = new Point3D();
-
    private final ArrayList<Shape3D<?>> terrainCollisionShapes = new ArrayList<>();
 
+   private static final int MAXIMUM_NUMBER_OF_OBJECTS_PER_NODE = 4;
+
+   /**
+    * The contact queries go through an AABB tree built over the XY extents of the terrain objects,
+    * in which the nested {@code CombinedTerrainObject3D}s are flattened. Adding a terrain object
+    * discards the tree of this object and of the objects it is nested in, the tree is then rebuilt
+    * once by the next query.
+    * <p>
+    * Threading contract: the queries, i.e. {@link #checkIfInside}, {@link #heightAt}, and
+    * {@link #heightAndNormalAt}, are reentrant and can be called concurrently from several threads,
+    * as long as the terrain objects added to this one can. The tree is an immutable snapshot and each
+    * query has its own scratch space. Terrain objects have to be added through
+    * {@link #addTerrainObject(TerrainObject3D)}, not through {@link #getTerrainObjects()}, and not
+    * concurrently with the queries.
+    * </p>
+    */
+   private volatile TerrainObjectTree terrainObjectTree = null;
+   /** The objects this one has been added to, their tree also has to be discarded when this object changes. */
+   private final ArrayList<CombinedTerrainObject3D> parentCombinedTerrainObjects = new ArrayList<>();
+   private final ThreadLocal<QueryScratch> queryScratch = ThreadLocal.withInitial(QueryScratch::new);
+
    public CombinedTerrainObject3D(String name)
    {
       linkGraphics = new Graphics3DObject();
@@ -157,6 +176,35 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       {
          boundingBox = BoundingBox3D.union(boundingBox, object.getBoundingBox());
       }
+
+      if (object.getClass() == CombinedTerrainObject3D.class)
+         ((CombinedTerrainObject3D) object).parentCombinedTerrainObjects.add(this);
+
+      invalidateTerrainObjectTree();
+   }
+
+   private void invalidateTerrainObjectTree()
+   {
+      terrainObjectTree = null;
+
+      for (int i = 0; i < parentCombinedTerrainObjects.size(); i++)
+         parentCombinedTerrainObjects.get(i).invalidateTerrainObjectTree();
+   }
+
+   private TerrainObjectTree getTerrainObjectTree()
+   {
+      TerrainObjectTree tree = terrainObjectTree;
+      if (tree == null)
+         tree = buildTerrainObjectTree();
+      return tree;
+   }
+
+   private synchronized TerrainObjectTree buildTerrainObjectTree()
+   {
+      // Another thread may have built it in the meantime.
+      if (terrainObjectTree == null)
+         terrainObjectTree = new TerrainObjectTree(this);
+      return terrainObjectTree;
    }
 
    public void addStaticLinkGraphics(Graphics3DObject linkGraphics)
@@ -175,31 +223,37 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       return this.linkGraphics;
    }
 
-   private final Point3D localIntersection = new Point3D();
-   private final Vector3D localNormal = new Vector3D();
-
    @Override
    public boolean checkIfInside(double x, double y, double z, Point3D intersectionToPack, Vector3D normalToPack)
    {
       double smallestDistance = Double.MAX_VALUE;
       boolean isInside = false;
 
-      tempPointToCheck.set(x, y, z);
+      TerrainObjectTree tree = getTerrainObjectTree();
+      QueryScratch scratch = acquireQueryScratch();
+      Point3D pointToCheck = scratch.pointToCheck;
+      Point3D localIntersection = scratch.localIntersection;
+      Vector3D localNormal = scratch.localNormal;
+
+      pointToCheck.set(x, y, z);
 
       // Pre-set some values, in case no object is close.
       intersectionToPack.set(x, y, 0.0);
       normalToPack.set(0.0, 0.0, 1.0);
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int numberOfCandidates = tree.collectCandidates(x, y, z, scratch);
+      int[] candidateLeafIndices = scratch.candidateLeafIndices;
+
+      for (int i = 0; i < numberOfCandidates; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = tree.leafObjects[candidateLeafIndices[i]];
          if (terrainObject.isClose(x, y, z))
          {
             boolean localIsInside = terrainObject.checkIfInside(x, y, z, localIntersection, localNormal);
 
-            if (localIsInside && (tempPointToCheck.distance(localIntersection) < smallestDistance))
+            if (localIsInside && (pointToCheck.distance(localIntersection) < smallestDistance))
             {
-               smallestDistance = tempPointToCheck.distance(localIntersection);
+               smallestDistance = pointToCheck.distance(localIntersection);
                intersectionToPack.set(localIntersection);
                normalToPack.set(localNormal);
                isInside = true;
@@ -207,12 +261,23 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
          }
       }
 
-      // Reset pointToCheck for rewindability tests
-      tempPointToCheck.set(0.0, 0.0, 0.0);
+      scratch.inUse = false;
 
       return isInside;
    }
 
+   private QueryScratch acquireQueryScratch()
+   {
+      QueryScratch scratch = queryScratch.get();
+
+      // A terrain object may query this one back while the scratch of this thread is in use.
+      if (scratch.inUse)
+         scratch = new QueryScratch();
+
+      scratch.inUse = true;
+      return scratch;
+   }
+
    @Override
    public boolean isClose(double x, double y, double z)
    {
@@ -297,9 +362,14 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      TerrainObjectTree tree = getTerrainObjectTree();
+      QueryScratch scratch = acquireQueryScratch();
+      int numberOfCandidates = tree.collectCandidates(x, y, z, scratch);
+      int[] candidateLeafIndices = scratch.candidateLeafIndices;
+
+      for (int i = 0; i < numberOfCandidates; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = tree.leafObjects[candidateLeafIndices[i]];
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -315,6 +385,8 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
          }
       }
 
+      scratch.inUse = false;
+
       return heightAt;
    }
 
@@ -323,9 +395,14 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      TerrainObjectTree tree = getTerrainObjectTree();
+      QueryScratch scratch = acquireQueryScratch();
+      int numberOfCandidates = tree.collectCandidates(x, y, z, scratch);
+      int[] candidateLeafIndices = scratch.candidateLeafIndices;
+
+      for (int i = 0; i < numberOfCandidates; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = tree.leafObjects[candidateLeafIndices[i]];
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -341,6 +418,8 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
          }
       }
 
+      scratch.inUse = false;
+
       return heightAt;
    }
 
@@ -369,4 +448,312 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       return terrainCollisionShapes;
    }
+
+   /**
+    * Immutable AABB tree over the flattened terrain objects. It is built at once and then only read,
+    * such that it can be shared between the threads querying the terrain.
+    */
+   private static final class TerrainObjectTree
+   {
+      /** Flattened terrain objects, in the order the linear search would visit them. */
+      private final TerrainObject3D[] leafObjects;
+      /** Intersection of the bounding boxes of the nested objects containing each leaf, or {@code null} if not nested. */
+      private final double[][] leafGates;
+      /** XY bounds of each leaf, stored as minX, minY, maxX, maxY. */
+      private final double[] leafBounds;
+      /** Leaves without a finite XY bounding box, always considered by the queries. */
+      private final int[] unboundedLeafIndices;
+      private final int numberOfUnboundedLeaves;
+      private final int[] treeLeafIndices;
+
+      private final double[] nodeBounds;
+      /** First leaf of a leaf node, or index of the right child of an internal node. The left child always directly follows its parent. */
+      private final int[] nodeFirstLeafOrRightChild;
+      /** Number of leaves of a leaf node, 0 for internal nodes. */
+      private final int[] nodeLeafCount;
+      private int numberOfNodes = 0;
+
+      private TerrainObjectTree(CombinedTerrainObject3D root)
+      {
+         List<TerrainObject3D> leafObjectList = new ArrayList<>();
+         List<double[]> leafGateList = new ArrayList<>();
+         flattenTerrainObjects(root, null, leafObjectList, leafGateList);
+
+         int numberOfLeaves = leafObjectList.size();
+         leafObjects = leafObjectList.toArray(new TerrainObject3D[numberOfLeaves]);
+         leafGates = leafGateList.toArray(new double[numberOfLeaves][]);
+         leafBounds = new double[4 * numberOfLeaves];
+         unboundedLeafIndices = new int[numberOfLeaves];
+         treeLeafIndices = new int[numberOfLeaves];
+         int numberOfUnboundedLeaves = 0;
+         int numberOfTreeLeaves = 0;
+
+         for (int leafIndex = 0; leafIndex < numberOfLeaves; leafIndex++)
+         {
+            BoundingBox3D leafBoundingBox = leafObjects[leafIndex].getBoundingBox();
+
+            if (leafBoundingBox == null || !Double.isFinite(leafBoundingBox.getMinX()) || !Double.isFinite(leafBoundingBox.getMinY())
+                  || !Double.isFinite(leafBoundingBox.getMaxX()) || !Double.isFinite(leafBoundingBox.getMaxY()))
+            {
+               unboundedLeafIndices[numberOfUnboundedLeaves++] = leafIndex;
+               continue;
+            }
+
+            leafBounds[4 * leafIndex] = leafBoundingBox.getMinX();
+            leafBounds[4 * leafIndex + 1] = leafBoundingBox.getMinY();
+            leafBounds[4 * leafIndex + 2] = leafBoundingBox.getMaxX();
+            leafBounds[4 * leafIndex + 3] = leafBoundingBox.getMaxY();
+            treeLeafIndices[numberOfTreeLeaves++] = leafIndex;
+         }
+
+         this.numberOfUnboundedLeaves = numberOfUnboundedLeaves;
+
+         int maximumNumberOfNodes = Math.max(2 * numberOfTreeLeaves - 1, 0);
+         nodeBounds = new double[4 * maximumNumberOfNodes];
+         nodeFirstLeafOrRightChild = new int[maximumNumberOfNodes];
+         nodeLeafCount = new int[maximumNumberOfNodes];
+
+         if (numberOfTreeLeaves > 0)
+            buildNode(0, numberOfTreeLeaves);
+      }
+
+      /**
+       * Packs in the candidate indices of the scratch the flattened terrain objects that may be close
+       * to the given point, sorted such that the queries visit them in the same order as a linear
+       * search through the nested objects would. The candidates still need to be checked with
+       * {@link TerrainObject3D#isClose(double, double, double)}.
+       * <p>
+       * The tree only prunes in XY as some terrain objects, e.g. {@link PlanarRegionTerrainObject},
+       * ignore the z-coordinate in {@code isClose}.
+       * </p>
+       */
+      private int collectCandidates(double x, double y, double z, QueryScratch scratch)
+      {
+         scratch.ensureCapacity(leafObjects.length, numberOfNodes + 1);
+         int[] candidateLeafIndices = scratch.candidateLeafIndices;
+         int[] nodeStack = scratch.nodeStack;
+
+         int numberOfCandidates = 0;
+
+         for (int i = 0; i < numberOfUnboundedLeaves; i++)
+         {
+            int leafIndex = unboundedLeafIndices[i];
+            if (isInsideGate(leafIndex, x, y, z))
+               candidateLeafIndices[numberOfCandidates++] = leafIndex;
+         }
+
+         if (numberOfNodes > 0)
+         {
+            int stackSize = 0;
+            nodeStack[stackSize++] = 0;
+
+            while (stackSize > 0)
+            {
+               int node = nodeStack[--stackSize];
+
+               if (!isXYInsideInclusive(nodeBounds, node, x, y))
+                  continue;
+
+               if (nodeLeafCount[node] == 0)
+               {
+                  nodeStack[stackSize++] = nodeFirstLeafOrRightChild[node];
+                  nodeStack[stackSize++] = node + 1;
+                  continue;
+               }
+
+               int firstLeaf = nodeFirstLeafOrRightChild[node];
+               int lastLeaf = firstLeaf + nodeLeafCount[node];
+
+               for (int i = firstLeaf; i < lastLeaf; i++)
+               {
+                  int leafIndex = treeLeafIndices[i];
+                  if (isXYInsideInclusive(leafBounds, leafIndex, x, y) && isInsideGate(leafIndex, x, y, z))
+                     candidateLeafIndices[numberOfCandidates++] = leafIndex;
+               }
+            }
+         }
+
+         // Only a handful of objects overlap at a given point, an insertion sort is enough to restore the order of addition.
+         for (int i = 1; i < numberOfCandidates; i++)
+         {
+            int leafIndex = candidateLeafIndices[i];
+            int j = i - 1;
+            while (j >= 0 && candidateLeafIndices[j] > leafIndex)
+            {
+               candidateLeafIndices[j + 1] = candidateLeafIndices[j];
+               j--;
+            }
+            candidateLeafIndices[j + 1] = leafIndex;
+         }
+
+         return numberOfCandidates;
+      }
+
+      private static boolean isXYInsideInclusive(double[] bounds, int index, double x, double y)
+      {
+         int offset = 4 * index;
+         return x >= bounds[offset] && y >= bounds[offset + 1] && x <= bounds[offset + 2] && y <= bounds[offset + 3];
+      }
+
+      private boolean isInsideGate(int leafIndex, double x, double y, double z)
+      {
+         double[] gate = leafGates[leafIndex];
+         if (gate == null)
+            return true;
+         return x >= gate[0] && y >= gate[1] && z >= gate[2] && x <= gate[3] && y <= gate[4] && z <= gate[5];
+      }
+
+      /**
+       * Subclasses may override the queries, they are kept as a single leaf. A nested object is only
+       * close when inside its bounding box, which is carried down to its leaves as a gate.
+       */
+      private static void flattenTerrainObjects(CombinedTerrainObject3D combinedTerrainObject, double[] gate, List<TerrainObject3D> leafObjectList,
+                                                List<double[]> leafGateList)
+      {
+         for (int i = 0; i < combinedTerrainObject.terrainObjects.size(); i++)
+         {
+            TerrainObject3D terrainObject = combinedTerrainObject.terrainObjects.get(i);
+
+            if (terrainObject.getClass() == CombinedTerrainObject3D.class)
+            {
+               CombinedTerrainObject3D nestedObject = (CombinedTerrainObject3D) terrainObject;
+               flattenTerrainObjects(nestedObject, intersectGate(gate, nestedObject.boundingBox), leafObjectList, leafGateList);
+            }
+            else
+            {
+               leafObjectList.add(terrainObject);
+               leafGateList.add(gate);
+            }
+         }
+      }
+
+      private static double[] intersectGate(double[] gate, BoundingBox3D boundingBox)
+      {
+         double[] intersection = new double[6];
+
+         if (boundingBox == null)
+         {
+            // An empty combined object is never close.
+            intersection[0] = intersection[1] = intersection[2] = Double.POSITIVE_INFINITY;
+            intersection[3] = intersection[4] = intersection[5] = Double.NEGATIVE_INFINITY;
+            return intersection;
+         }
+
+         intersection[0] = boundingBox.getMinX();
+         intersection[1] = boundingBox.getMinY();
+         intersection[2] = boundingBox.getMinZ();
+         intersection[3] = boundingBox.getMaxX();
+         intersection[4] = boundingBox.getMaxY();
+         intersection[5] = boundingBox.getMaxZ();
+
+         if (gate != null)
+         {
+            for (int i = 0; i < 3; i++)
+            {
+               intersection[i] = Math.max(intersection[i], gate[i]);
+               intersection[i + 3] = Math.min(intersection[i + 3], gate[i + 3]);
+            }
+         }
+
+         return intersection;
+      }
+
+      private int buildNode(int start, int end)
+      {
+         int node = numberOfNodes++;
+         int offset = 4 * node;
+
+         nodeBounds[offset] = nodeBounds[offset + 1] = Double.POSITIVE_INFINITY;
+         nodeBounds[offset + 2] = nodeBounds[offset + 3] = Double.NEGATIVE_INFINITY;
+
+         for (int i = start; i < end; i++)
+         {
+            int leafOffset = 4 * treeLeafIndices[i];
+            nodeBounds[offset] = Math.min(nodeBounds[offset], leafBounds[leafOffset]);
+            nodeBounds[offset + 1] = Math.min(nodeBounds[offset + 1], leafBounds[leafOffset + 1]);
+            nodeBounds[offset + 2] = Math.max(nodeBounds[offset + 2], leafBounds[leafOffset + 2]);
+            nodeBounds[offset + 3] = Math.max(nodeBounds[offset + 3], leafBounds[leafOffset + 3]);
+         }
+
+         if (end - start <= MAXIMUM_NUMBER_OF_OBJECTS_PER_NODE)
+         {
+            nodeFirstLeafOrRightChild[node] = start;
+            nodeLeafCount[node] = end - start;
+            return node;
+         }
+
+         // Median split along the longest side of the node.
+         int axis = nodeBounds[offset + 2] - nodeBounds[offset] >= nodeBounds[offset + 3] - nodeBounds[offset + 1] ? 0 : 1;
+         int middle = (start + end) >>> 1;
+         selectByCentroid(start, end - 1, middle, axis);
+
+         buildNode(start, middle);
+         nodeFirstLeafOrRightChild[node] = buildNode(middle, end);
+         nodeLeafCount[node] = 0;
+         return node;
+      }
+
+      /**
+       * Partially sorts {@link #treeLeafIndices} between {@code left} and {@code right}, both
+       * inclusive, such that the k<sup>th</sup> element ends up where it would be if fully sorted by
+       * centroid.
+       */
+      private void selectByCentroid(int left, int right, int k, int axis)
+      {
+         while (right > left)
+         {
+            double pivot = getCentroid(treeLeafIndices[(left + right) >>> 1], axis);
+            int i = left;
+            int j = right;
+
+            while (i <= j)
+            {
+               while (getCentroid(treeLeafIndices[i], axis) < pivot)
+                  i++;
+               while (getCentroid(treeLeafIndices[j], axis) > pivot)
+                  j--;
+
+               if (i <= j)
+               {
+                  int temp = treeLeafIndices[i];
+                  treeLeafIndices[i] = treeLeafIndices[j];
+                  treeLeafIndices[j] = temp;
+                  i++;
+                  j--;
+               }
+            }
+
+            if (k <= j)
+               right = j;
+            else if (k >= i)
+               left = i;
+            else
+               return;
+         }
+      }
+
+      private double getCentroid(int leafIndex, int axis)
+      {
+         return leafBounds[4 * leafIndex + axis] + leafBounds[4 * leafIndex + 2 + axis];
+      }
+   }
+
+   /** Scratch space of the queries, one per thread such that the queries are thread-safe. */
+   private static final class QueryScratch
+   {
+      private int[] candidateLeafIndices = new int[0];
+      private int[] nodeStack = new int[0];
+      private boolean inUse = false;
+      private final Point3D pointToCheck = new Point3D();
+      private final Point3D localIntersection = new Point3D();
+      private final Vector3D localNormal = new Vector3D();
+
+      private void ensureCapacity(int numberOfLeaves, int nodeStackSize)
+      {
+         if (candidateLeafIndices.length < numberOfLeaves)
+            candidateLeafIndices = new int[numberOfLeaves];
+         if (nodeStack.length < nodeStackSize)
+            nodeStack = new int[nodeStackSize];
+      }
+   }
 }
@@ -1,15 +1,24 @@
 package us.ihmc.simulationConstructionSetTools.util.ground;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
+import us.ihmc.commons.RandomNumbers;
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.geometry.interfaces.Vertex2DSupplier;
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
 import us.ihmc.simulationConstructionSetTools.util.ground.CombinedTerrainObject3D;
 import us.ihmc.simulationConstructionSetTools.util.ground.RotatableConvexPolygonTerrainObject;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
 
 public class CombinedTerrainObjectTest
 {
@@ -53,4 +62,237 @@ public class CombinedTerrainObjectTest
       combinedTerrainObject.addTerrainObject(secondBox);
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testAgainstLinearSearch()
+   {
+      Random random = new Random(3421L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Root");
+      List<CombinedTerrainObject3D> nestedObjects = new ArrayList<>();
+      nestedObjects.add(combinedTerrainObject);
+
+      Point3D expectedIntersection = new Point3D();
+      Vector3D expectedNormal = new Vector3D();
+      Point3D actualIntersection = new Point3D();
+      Vector3D actualNormal = new Vector3D();
+
+      for (int iteration = 0; iteration < 20; iteration++)
+      {
+         // Keep adding objects, also to the nested ones, to check that the tree gets rebuilt.
+         for (int i = 0; i < 10; i++)
+         {
+            CombinedTerrainObject3D parent = nestedObjects.get(random.nextInt(nestedObjects.size()));
+
+            if (random.nextInt(5) == 0)
+            {
+               CombinedTerrainObject3D nestedObject = new CombinedTerrainObject3D("Nested" + nestedObjects.size());
+               nestedObject.addTerrainObject(nextPolygonTerrainObject(random));
+               parent.addTerrainObject(nestedObject);
+               nestedObjects.add(nestedObject);
+            }
+            else if (random.nextBoolean())
+            {
+               parent.addTerrainObject(nextPolygonTerrainObject(random));
+            }
+            else
+            {
+               double x = RandomNumbers.nextDouble(random, 5.0);
+               double y = RandomNumbers.nextDouble(random, 5.0);
+               double z = RandomNumbers.nextDouble(random, 0.5);
+               // Boxes are snapped to a grid such that some of them share faces and corners.
+               x = Math.round(4.0 * x) / 4.0;
+               y = Math.round(4.0 * y) / 4.0;
+               parent.addBox(x, y, x + 0.5, y + 0.25, z, z + 0.5);
+            }
+         }
+
+         for (int i = 0; i < 500; i++)
+         {
+            double x = RandomNumbers.nextDouble(random, 6.0);
+            double y = RandomNumbers.nextDouble(random, 6.0);
+            double z = RandomNumbers.nextDouble(random, -0.5, 1.5);
+
+            boolean expectedIsInside = checkIfInsideLinearSearch(combinedTerrainObject, x, y, z, expectedIntersection, expectedNormal);
+            boolean actualIsInside = combinedTerrainObject.checkIfInside(x, y, z, actualIntersection, actualNormal);
+            assertEquals(expectedIsInside, actualIsInside);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedIntersection, actualIntersection, 1e-12);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, actualNormal, 1e-12);
+
+            assertEquals(heightAtLinearSearch(combinedTerrainObject, x, y, z), combinedTerrainObject.heightAt(x, y, z), 1e-12);
+
+            // The normal is left untouched when there is no terrain object at the query point.
+            expectedNormal.set(1.0, 2.0, 3.0);
+            actualNormal.set(1.0, 2.0, 3.0);
+            double expectedHeight = heightAndNormalAtLinearSearch(combinedTerrainObject, x, y, z, expectedNormal);
+            double actualHeight = combinedTerrainObject.heightAndNormalAt(x, y, z, actualNormal);
+            assertEquals(expectedHeight, actualHeight, 1e-12);
+            EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, actualNormal, 1e-12);
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testReentrantQueries()
+   {
+      Random random = new Random(8732L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Root");
+      CombinedTerrainObject3D nestedObject = new CombinedTerrainObject3D("Nested");
+      combinedTerrainObject.addTerrainObject(nestedObject);
+
+      // Queries the root back from within its queries, on a point with other candidates than the outer query.
+      boolean[] isReentering = {false};
+      Vector3D normal = new Vector3D(0.0, 0.0, 1.0);
+      double[][] vertices = {{0.0, 0.0}, {6.0, 0.0}, {6.0, 6.0}, {0.0, 6.0}};
+      ConvexPolygon2D convexPolygon = new ConvexPolygon2D(Vertex2DSupplier.asVertex2DSupplier(vertices));
+      TerrainObject3D reentrantTerrainObject = new RotatableConvexPolygonTerrainObject(normal, convexPolygon, 0.05)
+      {
+         @Override
+         public double heightAt(double x, double y, double z)
+         {
+            queryBack(x, y, z);
+            return super.heightAt(x, y, z);
+         }
+
+         @Override
+         public boolean checkIfInside(double x, double y, double z, Point3D intersectionToPack, Vector3D normalToPack)
+         {
+            queryBack(x, y, z);
+            return super.checkIfInside(x, y, z, intersectionToPack, normalToPack);
+         }
+
+         private void queryBack(double x, double y, double z)
+         {
+            if (isReentering[0])
+               return;
+
+            isReentering[0] = true;
+            combinedTerrainObject.heightAt(6.0 - x, 6.0 - y, z);
+            combinedTerrainObject.checkIfInside(6.0 - x, 6.0 - y, z, new Point3D(), new Vector3D());
+            isReentering[0] = false;
+         }
+      };
+      combinedTerrainObject.addTerrainObject(reentrantTerrainObject);
+
+      for (int i = 0; i < 50; i++)
+      {
+         CombinedTerrainObject3D parent = random.nextBoolean() ? combinedTerrainObject : nestedObject;
+         parent.addTerrainObject(nextPolygonTerrainObject(random));
+      }
+
+      Point3D expectedIntersection = new Point3D();
+      Vector3D expectedNormal = new Vector3D();
+      Point3D actualIntersection = new Point3D();
+      Vector3D actualNormal = new Vector3D();
+
+      for (int i = 0; i < 500; i++)
+      {
+         double x = RandomNumbers.nextDouble(random, 0.0, 6.0);
+         double y = RandomNumbers.nextDouble(random, 0.0, 6.0);
+         double z = RandomNumbers.nextDouble(random, -0.5, 1.5);
+
+         boolean expectedIsInside = checkIfInsideLinearSearch(combinedTerrainObject, x, y, z, expectedIntersection, expectedNormal);
+         boolean actualIsInside = combinedTerrainObject.checkIfInside(x, y, z, actualIntersection, actualNormal);
+         assertEquals(expectedIsInside, actualIsInside);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedIntersection, actualIntersection, 1e-12);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, actualNormal, 1e-12);
+
+         assertEquals(heightAtLinearSearch(combinedTerrainObject, x, y, z), combinedTerrainObject.heightAt(x, y, z), 1e-12);
+      }
+   }
+
+   private static RotatableConvexPolygonTerrainObject nextPolygonTerrainObject(Random random)
+   {
+      double x = RandomNumbers.nextDouble(random, 5.0);
+      double y = RandomNumbers.nextDouble(random, 5.0);
+      double size = RandomNumbers.nextDouble(random, 0.1, 1.0);
+      double[][] vertices = {{x, y}, {x + size, y}, {x + size, y + size}, {x, y + size}};
+      ConvexPolygon2D convexPolygon = new ConvexPolygon2D(Vertex2DSupplier.asVertex2DSupplier(vertices));
+      Vector3D normal = new Vector3D(RandomNumbers.nextDouble(random, 0.3), RandomNumbers.nextDouble(random, 0.3), 1.0);
+      normal.normalize();
+      return new RotatableConvexPolygonTerrainObject(normal, convexPolygon, RandomNumbers.nextDouble(random, 0.1, 1.0));
+   }
+
+   // The following replicate the plain loops over the terrain objects, recursing into the nested ones.
+
+   private static boolean checkIfInsideLinearSearch(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Point3D intersectionToPack,
+                                                    Vector3D normalToPack)
+   {
+      Point3D pointToCheck = new Point3D(x, y, z);
+      Point3D localIntersection = new Point3D();
+      Vector3D localNormal = new Vector3D();
+      double smallestDistance = Double.MAX_VALUE;
+      boolean isInside = false;
+
+      intersectionToPack.set(x, y, 0.0);
+      normalToPack.set(0.0, 0.0, 1.0);
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z))
+         {
+            boolean localIsInside;
+            if (terrainObject instanceof CombinedTerrainObject3D)
+               localIsInside = checkIfInsideLinearSearch((CombinedTerrainObject3D) terrainObject, x, y, z, localIntersection, localNormal);
+            else
+               localIsInside = terrainObject.checkIfInside(x, y, z, localIntersection, localNormal);
+
+            if (localIsInside && (pointToCheck.distance(localIntersection) < smallestDistance))
+            {
+               smallestDistance = pointToCheck.distance(localIntersection);
+               intersectionToPack.set(localIntersection);
+               normalToPack.set(localNormal);
+               isInside = true;
+            }
+         }
+      }
+
+      return isInside;
+   }
+
+   private static double heightAtLinearSearch(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject instanceof CombinedTerrainObject3D)
+         {
+            if (terrainObject.isClose(x, y, z))
+               heightAt = Math.max(heightAt, heightAtLinearSearch((CombinedTerrainObject3D) terrainObject, x, y, z));
+         }
+         else if (terrainObject.isClose(x, y, z) && terrainObject.getHeightMapIfAvailable() != null)
+         {
+            heightAt = Math.max(heightAt, terrainObject.getHeightMapIfAvailable().heightAt(x, y, z));
+         }
+      }
+
+      return heightAt;
+   }
+
+   private static double heightAndNormalAtLinearSearch(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Vector3D normalToPack)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z))
+         {
+            if (terrainObject instanceof CombinedTerrainObject3D)
+            {
+               CombinedTerrainObject3D nestedObject = (CombinedTerrainObject3D) terrainObject;
+               if (heightAtLinearSearch(nestedObject, x, y, z) > heightAt)
+                  heightAt = heightAndNormalAtLinearSearch(nestedObject, x, y, z, normalToPack);
+            }
+            else
+            {
+               HeightMapWithNormals heightMap = terrainObject.getHeightMapIfAvailable();
+               if (heightMap != null && heightMap.heightAt(x, y, z) > heightAt)
+                  heightAt = heightMap.heightAndNormalAt(x, y, z, normalToPack);
+            }
+         }
+      }
+
+      return heightAt;
+   }
 }
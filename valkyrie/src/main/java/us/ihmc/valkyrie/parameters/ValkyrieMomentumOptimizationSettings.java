@@ -257,4 +257,18 @@ public class ValkyrieMomentumOptimizationSettings extends MomentumOptimizationSe
    {
       return taskspaceLinearWeights;
    }
+
+   /** @inheritDoc */
+   @Override
+   public boolean useSparseAssemblyInSolver()
+   {
+      return true;
+   }
+
+   /** @inheritDoc */
+   @Override
+   public boolean useCholeskyFactorizationInSolver()
+   {
+      return true;
+   }
 }